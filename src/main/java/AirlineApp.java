@@ -2,6 +2,8 @@ import javafx.application.Application;
 import javafx.stage.Stage;
 import service.BookingService;
 import service.FlightService;
+import service.SeatHoldService;
+import service.SeatInventory;
 import service.TicketService;
 import service.UserService;
 import util.DataManager;
@@ -78,6 +80,8 @@ public class AirlineApp extends Application {
     public void stop() {
         // Clean up resources when application closes
         System.out.println("Application shutting down...");
+        SeatHoldService.getInstance().shutdown();
+        SeatInventory.getInstance().shutdown();
     }
     
     public static void main(String[] args) {
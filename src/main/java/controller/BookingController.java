@@ -26,14 +26,19 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import model.AddOn;
+import model.AddOnCategory;
 import model.Booking;
 import model.Customer;
 import model.Flight;
 import model.Passenger;
 import model.PaymentDetails;
+import model.PriceBreakdown;
+import model.SeatPreference;
 import model.User;
 import service.BookingService;
 import service.FlightService;
+import service.PricingService;
 import util.NavigationManager;
 import util.ServiceLocator;
 
@@ -115,9 +120,16 @@ public class BookingController implements Initializable {
     @FXML private Button downloadTicketButton;
     @FXML private Button requestRefundButton;
     
+    // Add-ons offered on the payment screen
+    private static final AddOn MEAL_ADD_ON =
+        new AddOn("ADDON_MEAL", "Special Meal Preference", "Pre-ordered special meal", 25.0, AddOnCategory.MEAL);
+    private static final AddOn BAGGAGE_INSURANCE_ADD_ON =
+        new AddOn("ADDON_BAGGAGE_INSURANCE", "Baggage Insurance", "Cover for lost or delayed baggage", 15.0, AddOnCategory.INSURANCE);
+    
     // Services
     private BookingService bookingService;
     private FlightService flightService;
+    private PricingService pricingService;
     private User currentUser;
     private Flight selectedFlight;
     private Booking currentBooking;
@@ -127,8 +139,13 @@ public class BookingController implements Initializable {
         ServiceLocator serviceLocator = ServiceLocator.getInstance();
         bookingService = serviceLocator.getBookingService();
         flightService = serviceLocator.getFlightService();
+        pricingService = PricingService.getInstance();
         currentUser = (User) NavigationManager.getInstance().getSharedData("currentUser");
         selectedFlight = (Flight) NavigationManager.getInstance().getSharedData("selectedFlight");
+        if (selectedFlight != null) {
+            // The shared flight may be a copy read before later bookings; use the stored one
+            selectedFlight = flightService.getFlightById(selectedFlight.getFlightId()).orElse(selectedFlight);
+        }
         
         // Check if flight data was updated by admin
         if (Boolean.TRUE.equals(NavigationManager.getInstance().getSharedData("flightDataUpdated"))) {
@@ -232,34 +249,31 @@ public class BookingController implements Initializable {
                 flightTimeLabel.setText(selectedFlight.getDepartureTime().toLocalTime().toString());
             }
             
-            double basePrice = selectedFlight.getBasePrice();
-            double addOnsTotal = calculateAddOnsTotal();
-            double taxes = basePrice * 0.15; // 15% tax
-            double total = basePrice + addOnsTotal + taxes;
+            PriceBreakdown price = pricingService.price(selectedFlight, 1, getSelectedAddOns());
             
             if (basePriceLabel != null) {
-                basePriceLabel.setText(String.format("$%.2f", basePrice));
+                basePriceLabel.setText(String.format("$%.2f", price.getFares()));
             }
             if (addOnsLabel != null) {
-                addOnsLabel.setText(String.format("$%.2f", addOnsTotal));
+                addOnsLabel.setText(String.format("$%.2f", price.getAddOns()));
             }
             if (taxesLabel != null) {
-                taxesLabel.setText(String.format("$%.2f", taxes));
+                taxesLabel.setText(String.format("$%.2f", price.getTaxes()));
             }
             if (totalPriceLabel != null) {
-                totalPriceLabel.setText(String.format("$%.2f", total));
+                totalPriceLabel.setText(String.format("$%.2f", price.getTotal()));
             }
         }
     }
     
     /**
-     * Calculate total for selected add-ons
+     * Get the add-ons selected on the payment screen
      */
-    private double calculateAddOnsTotal() {
-        double total = 0.0;
-        if (mealPreferenceCheckBox != null && mealPreferenceCheckBox.isSelected()) total += 25.0;
-        if (baggageInsuranceCheckBox != null && baggageInsuranceCheckBox.isSelected()) total += 15.0;
-        return total;
+    private List<AddOn> getSelectedAddOns() {
+        List<AddOn> addOns = new ArrayList<>();
+        if (mealPreferenceCheckBox != null && mealPreferenceCheckBox.isSelected()) addOns.add(MEAL_ADD_ON);
+        if (baggageInsuranceCheckBox != null && baggageInsuranceCheckBox.isSelected()) addOns.add(BAGGAGE_INSURANCE_ADD_ON);
+        return addOns;
     }
     
     /**
@@ -355,7 +369,6 @@ public class BookingController implements Initializable {
             if (dateOfBirthPicker != null && dateOfBirthPicker.getValue() != null) {
                 passenger.setDateOfBirth(dateOfBirthPicker.getValue());
             }
-            passenger.setSeatNumber(generateSeatNumber());
             
             // Create passenger list
             List<Passenger> passengers = new ArrayList<>();
@@ -372,15 +385,21 @@ public class BookingController implements Initializable {
                 paymentDetails.setBillingAddress(billingAddress);
             }
             
-            double totalAmount = selectedFlight.getBasePrice() + calculateAddOnsTotal() + (selectedFlight.getBasePrice() * 0.15);
-            paymentDetails.setAmount(totalAmount);
+            List<AddOn> addOns = getSelectedAddOns();
+            paymentDetails.setAmount(pricingService.price(selectedFlight, passengers, addOns).getTotal());
             
             // Create booking through service
             Customer customer = (Customer) currentUser;
-            Booking savedBooking = bookingService.createBooking(customer, selectedFlight, passengers, paymentDetails);
+            SeatPreference seatPreference = seatPreferenceComboBox != null
+                ? SeatPreference.fromDisplayName(seatPreferenceComboBox.getValue())
+                : SeatPreference.NO_PREFERENCE;
+            Booking savedBooking = bookingService.createBooking(customer, selectedFlight, passengers, paymentDetails, seatPreference, addOns);
             
             if (savedBooking != null) {
-                showAlert("Success", "Booking created! Reference: " + savedBooking.getBookingId());
+                String holdMessage = bookingService.getHoldExpiry(savedBooking.getBookingId())
+                    .map(expiry -> "\nYour seats are held until " + expiry.toLocalTime().withNano(0) + ".")
+                    .orElse("");
+                showAlert("Success", "Booking created! Reference: " + savedBooking.getBookingId() + holdMessage);
                 
                 // Navigate to booking details
                 NavigationManager.getInstance().setSharedData("selectedBooking", savedBooking);
@@ -434,7 +453,7 @@ public class BookingController implements Initializable {
     private void loadFlightStatusUpdates() {
         if (currentBooking != null && currentBooking.getFlightId() != null) {
             // Get fresh flight data
-            flightService.getFlightDetails(currentBooking.getFlightId()).ifPresent(flight -> {
+            flightService.getFlightById(currentBooking.getFlightId()).ifPresent(flight -> {
                 if (flightNumberLabel != null) {
                     flightNumberLabel.setText(flight.getFlightNumber());
                 }
@@ -580,15 +599,6 @@ public class BookingController implements Initializable {
         NavigationManager.getInstance().showFlightInformation();
     }
     
-    /**
-     * Generate seat number
-     */
-    private String generateSeatNumber() {
-        int row = (int) (Math.random() * 30) + 1;
-        char seat = (char) ('A' + (int) (Math.random() * 6));
-        return row + String.valueOf(seat);
-    }
-    
     /**
      * Show alert dialog
      */
@@ -6,8 +6,9 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -85,6 +86,8 @@ public class CustomerManagementController implements Initializable {
     private User currentUser;
     private ObservableList<Customer> allCustomers;
     private ObservableList<Customer> filteredCustomers;
+    // Number of the latest search started; results of earlier ones are dropped
+    private long searchSequence = 0;
     private int currentPage = 1;
     private int pageSize = 50;
     
@@ -96,6 +99,9 @@ public class CustomerManagementController implements Initializable {
         navigationManager = NavigationManager.getInstance();
         currentUser = (User) navigationManager.getSharedData("currentUser");
         
+        // Start building the search index now, so the first search does not wait for it
+        userService.prepareCustomerSearch();
+        
         // Setup UI components
         setupTableColumns();
         setupFilterControls();
@@ -248,11 +254,7 @@ public class CustomerManagementController implements Initializable {
         
         // Auto-search on text input
         if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (newValue.length() >= 3 || newValue.isEmpty()) {
-                    handleSearch();
-                }
-            });
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> handleSearch());
         }
     }
     
@@ -346,62 +348,59 @@ public class CustomerManagementController implements Initializable {
     private void handleSearch() {
         if (allCustomers == null) return;
         
-        String searchText = searchField != null ? searchField.getText().toLowerCase().trim() : "";
+        String searchText = searchField != null ? searchField.getText() : "";
         String statusFilter = statusFilterComboBox != null ? statusFilterComboBox.getValue() : "All Status";
         String dateFilter = dateRangeComboBox != null ? dateRangeComboBox.getValue() : "All Time";
         
-        filteredCustomers = FXCollections.observableList(
-            allCustomers.stream()
-                .filter(customer -> matchesSearchCriteria(customer, searchText, statusFilter, dateFilter))
-                .collect(Collectors.toList())
-        );
+        Boolean activeOnly = activeFilterOf(statusFilter);
+        LocalDateTime createdSince = createdSinceOf(dateFilter);
         
-        currentPage = 1;
-        updateTableView();
+        // Runs on every keystroke, so search off the FX thread; only the latest search is shown
+        long search = ++searchSequence;
+        CompletableFuture.supplyAsync(() -> userService.searchCustomers(searchText, activeOnly, createdSince))
+            .whenComplete((customers, error) -> Platform.runLater(() -> {
+                if (search != searchSequence) {
+                    return;
+                }
+                if (error != null) {
+                    System.err.println("CustomerManagementController: Error searching customers: " + error.getMessage());
+                    return;
+                }
+                filteredCustomers = FXCollections.observableList(customers);
+                currentPage = 1;
+                updateTableView();
+            }));
     }
     
     /**
-     * Check if customer matches search criteria
+     * Map the status filter to the active flag customers must have
+     * @return true for active, false for inactive, null for all
      */
-    private boolean matchesSearchCriteria(Customer customer, String searchText, String statusFilter, String dateFilter) {
-        // Text search
-        if (!searchText.isEmpty()) {
-            boolean matchesText = customer.getFirstName().toLowerCase().contains(searchText) ||
-                                customer.getLastName().toLowerCase().contains(searchText) ||
-                                customer.getEmail().toLowerCase().contains(searchText) ||
-                                customer.getPhoneNumber().toLowerCase().contains(searchText) ||
-                                customer.getUserId().toLowerCase().contains(searchText);
-            if (!matchesText) return false;
-        }
-        
-        // Status filter
-        if (!"All Status".equals(statusFilter)) {
-            boolean isActive = customer.isActive();
-            if ("Active".equals(statusFilter) && !isActive) return false;
-            if ("Inactive".equals(statusFilter) && isActive) return false;
-        }
-        
-        // Date filter
-        if (!"All Time".equals(dateFilter) && customer.getCreatedAt() != null) {
-            LocalDateTime cutoffDate = LocalDateTime.now();
-            switch (dateFilter) {
-                case "Last 30 Days":
-                    cutoffDate = cutoffDate.minusDays(30);
-                    break;
-                case "Last 3 Months":
-                    cutoffDate = cutoffDate.minusMonths(3);
-                    break;
-                case "Last 6 Months":
-                    cutoffDate = cutoffDate.minusMonths(6);
-                    break;
-                case "Last Year":
-                    cutoffDate = cutoffDate.minusYears(1);
-                    break;
-            }
-            if (customer.getCreatedAt().isBefore(cutoffDate)) return false;
+    private Boolean activeFilterOf(String statusFilter) {
+        if ("Active".equals(statusFilter)) return true;
+        if ("Inactive".equals(statusFilter)) return false;
+        return null;
+    }
+    
+    /**
+     * Map the date range filter to the earliest creation time shown
+     * @return Cutoff time, or null for all time
+     */
+    private LocalDateTime createdSinceOf(String dateFilter) {
+        if (dateFilter == null) return null;
+        LocalDateTime now = LocalDateTime.now();
+        switch (dateFilter) {
+            case "Last 30 Days":
+                return now.minusDays(30);
+            case "Last 3 Months":
+                return now.minusMonths(3);
+            case "Last 6 Months":
+                return now.minusMonths(6);
+            case "Last Year":
+                return now.minusYears(1);
+            default:
+                return null;
         }
-        
-        return true;
     }
     
     /**
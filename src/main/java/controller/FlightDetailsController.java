@@ -1,5 +1,6 @@
 package controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -8,10 +9,13 @@ import model.Flight;
 import model.FlightStatus;
 import model.Booking;
 import model.UserRole;
+import model.RebookingOutcome;
+import model.RebookingStatus;
 import util.NavigationManager;
 import util.SessionManager;
-import dao.FlightDAO;
-import dao.BookingDAO;
+import dao.DAOFactory;
+import dao.FlightRepository;
+import dao.BookingRepository;
 import service.FlightService;
 import java.net.URL;
 import java.time.LocalDate;
@@ -20,6 +24,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for FlightDetails.fxml
@@ -70,8 +75,9 @@ public class FlightDetailsController implements Initializable {
     @FXML private TableView<Booking> passengersTableView;
 
     private Flight currentFlight;
-    private FlightDAO flightDAO;
-    private BookingDAO bookingDAO;
+    private final FlightService flightService = new FlightService();
+    private FlightRepository flightDAO;
+    private BookingRepository bookingDAO;
     private boolean isEditMode = false;
     private boolean isAdminUser = false;
 
@@ -79,8 +85,8 @@ public class FlightDetailsController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         System.out.println("FlightDetailsController: Initializing...");
         
-        flightDAO = new FlightDAO();
-        bookingDAO = new BookingDAO();
+        flightDAO = DAOFactory.flights();
+        bookingDAO = DAOFactory.bookings();
         
         // Check if current user is admin
         checkUserPermissions();
@@ -154,7 +160,7 @@ public class FlightDetailsController implements Initializable {
         // Get the selected flight from NavigationManager
         Flight oldFlight = (Flight) NavigationManager.getInstance().getSharedData("selectedFlight");
         if (oldFlight != null) {
-            currentFlight = new FlightService().getFlightDetails(oldFlight.getFlightNumber()).orElse(null);
+            currentFlight = flightService.getFlightById(oldFlight.getFlightId()).orElse(null);
         }
         
         if (currentFlight != null) {
@@ -350,14 +356,34 @@ public class FlightDetailsController implements Initializable {
         
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                currentFlight.setStatus(FlightStatus.CANCELLED);
-                flightDAO.update(currentFlight);
-                statusComboBox.setValue("Cancelled");
-                showAlert("Success", "Flight has been cancelled.", Alert.AlertType.INFORMATION);
+                // Rebooking touches every booking on the flight, so it runs off the FX thread
+                Flight flight = currentFlight;
+                cancelFlightButton.setDisable(true);
+                CompletableFuture.supplyAsync(() -> flightService.rebookCancelledFlight(flight))
+                    .whenComplete((outcomes, error) -> Platform.runLater(() -> {
+                        cancelFlightButton.setDisable(false);
+                        if (error != null || flight.getStatus() != FlightStatus.CANCELLED) {
+                            showAlert("Error", "Failed to cancel the flight. Please try again.", Alert.AlertType.ERROR);
+                            return;
+                        }
+                        statusComboBox.setValue("Cancelled");
+                        showAlert("Success", "Flight has been cancelled. " + describeRebooking(outcomes), Alert.AlertType.INFORMATION);
+                    }));
             }
         });
     }
 
+    /**
+     * Summarize what happened to the bookings of a cancelled flight
+     */
+    private String describeRebooking(List<RebookingOutcome> outcomes) {
+        long rebooked = outcomes.stream().filter(outcome -> outcome.getStatus() == RebookingStatus.REBOOKED).count();
+        long cancelled = outcomes.stream().filter(outcome -> outcome.getStatus() == RebookingStatus.CANCELLED).count();
+        long failed = outcomes.stream().filter(outcome -> outcome.getStatus() == RebookingStatus.FAILED).count();
+        String summary = rebooked + " booking(s) moved to other flights, " + cancelled + " booking(s) cancelled.";
+        return failed > 0 ? summary + " " + failed + " booking(s) could not be processed." : summary;
+    }
+
     @FXML
     private void handleRefresh() {
         System.out.println("FlightDetailsController: Refresh button clicked");
@@ -503,7 +529,6 @@ public class FlightDetailsController implements Initializable {
             System.out.println("DEBUG: Status before saving: " + currentFlight.getStatus() + " (" + currentFlight.getStatus().getDisplayName() + ")");
             
             // Save to database
-            FlightService flightService = new FlightService();
             boolean updateSuccess = flightService.updateFlight(currentFlight);
             if (!updateSuccess) {
                 throw new RuntimeException("Failed to save flight changes to database");
@@ -513,7 +538,7 @@ public class FlightDetailsController implements Initializable {
             System.out.println("DEBUG: Update success: " + updateSuccess);
             
             // Reload the flight data from database to ensure we have the latest persisted state
-            Optional<Flight> updatedFlight = flightService.getFlightDetails(currentFlight.getFlightNumber());
+            Optional<Flight> updatedFlight = flightService.getFlightById(currentFlight.getFlightId());
             if (updatedFlight.isPresent()) {
                 Flight reloadedFlight = updatedFlight.get();
                 System.out.println("DEBUG: Status after reloading from DB: " + reloadedFlight.getStatus() + " (" + reloadedFlight.getStatus().getDisplayName() + ")");
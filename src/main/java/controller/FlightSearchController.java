@@ -5,9 +5,11 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -19,17 +21,27 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import model.DayFare;
 import model.Flight;
+import model.FlightFilter;
+import model.FlightPage;
+import model.FlightSearchQuery;
+import model.FlightSortKey;
+import model.Itinerary;
 import model.User;
 import model.Customer;
 import model.Passenger;
 import model.Booking;
 import model.PaymentDetails;
+import service.FlightSearchService;
 import service.FlightService;
 import service.BookingService;
+import service.PricingService;
 import util.NavigationManager;
 import util.ServiceLocator;
 
@@ -37,6 +49,11 @@ import util.ServiceLocator;
 
 public class FlightSearchController implements Initializable {
     
+    // Days either side of the requested date suggested when it has no flights
+    private static final int NEARBY_DAYS = 3;
+    // Flights fetched per page of search results
+    private static final int PAGE_SIZE = FlightSearchService.DEFAULT_PAGE_SIZE;
+    
     // FlightInformation.fxml controls
     @FXML private ComboBox<String> fromComboBox;
     @FXML private ComboBox<String> toComboBox;
@@ -46,7 +63,7 @@ public class FlightSearchController implements Initializable {
     @FXML private Button resetButton;
     @FXML private ComboBox<String> sortComboBox;
     @FXML private ComboBox<String> filterComboBox;
-    @FXML private VBox flightResultsContainer;
+    @FXML private ListView<Flight> flightResultsList;
     @FXML private Button loadMoreButton;
     @FXML private Button backButton;
     @FXML private VBox customerSection;
@@ -66,10 +83,13 @@ public class FlightSearchController implements Initializable {
     @FXML private Button printButton;
     
     private FlightService flightService;
+    private PricingService pricingService;
     private User currentUser;
     private ObservableList<Flight> searchResults;
     private Flight selectedFlight;
-    private List<Flight> currentSearchResults; // Store current search results for filtering/sorting
+    private FlightSearchQuery currentQuery; // Search whose results are listed, re-run with the chosen filter/sort
+    private String nextPageToken; // Continues the listed results, null once all are loaded
+    private boolean loadingPage;
     
     // Airport codes for dropdown
     private final String[] airports = {
@@ -86,6 +106,7 @@ public class FlightSearchController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         ServiceLocator serviceLocator = ServiceLocator.getInstance();
         flightService = serviceLocator.getFlightService();
+        pricingService = PricingService.getInstance();
         currentUser = (User) NavigationManager.getInstance().getSharedData("currentUser");
         searchResults = FXCollections.observableArrayList();
         
@@ -136,6 +157,12 @@ public class FlightSearchController implements Initializable {
             filterComboBox.setOnAction(e -> handleSortOrFilterChange());
         }
         
+        // Results list only creates cards for the rows on screen
+        if (flightResultsList != null) {
+            flightResultsList.setItems(searchResults);
+            flightResultsList.setCellFactory(list -> new FlightCardCell());
+        }
+        
         // Setup button actions
         setupButtonActions();
     }
@@ -197,20 +224,14 @@ public class FlightSearchController implements Initializable {
     }
     
     private void loadInitialData() {
-        // Load all flights (always get fresh data from service)
-        List<Flight> allFlights = flightService.getAllFlights();
-        
-        // Initialize current search results with all flights
-        currentSearchResults = new ArrayList<>(allFlights);
-        
-        if (flightResultsContainer != null) {
-            // Load flights for customer search results
-            displayFlights(allFlights);
+        if (flightResultsList != null) {
+            // Load the first page of all flights for customer search results
+            showResults(FlightSearchQuery.allFlights(selectedFilter(), selectedSortKey()));
         }
         
         if (adminFlightsContainer != null) {
-            // Load flights for admin view
-            displayAdminFlights(allFlights);
+            // Load flights for admin view (always get fresh data from service)
+            displayAdminFlights(flightService.getAllFlights());
         }
         
         // If this is flight details view, load selected flight data
@@ -247,7 +268,7 @@ public class FlightSearchController implements Initializable {
         Label timeInfo = new Label(String.format("Departure: %s | Arrival: %s", departureTime, arrivalTime));
         
         Label detailsInfo = new Label(String.format("$%.2f | %d/%d seats | %s", 
-            flight.getBasePrice(), flight.getAvailableSeats(), flight.getTotalSeats(), 
+            fareOf(flight), flight.getAvailableSeats(), flight.getTotalSeats(), 
             flight.getStatus() != null ? flight.getStatus() : "Unknown"));
         
         Button viewDetailsBtn = new Button("View Details");
@@ -289,22 +310,49 @@ public class FlightSearchController implements Initializable {
             else if (passengerText.contains("5")) passengers = 5;
         }
         
-        // Perform search
-        List<Flight> searchResults = flightService.searchFlights(from, to, date, passengers);
+        // Perform search and display the first page, filtered and sorted by the service
+        FlightPage firstPage = showResults(
+            new FlightSearchQuery(from, to, date, passengers, selectedFilter(), selectedSortKey()));
         
-        // Store the search results for filtering/sorting
-        currentSearchResults = new ArrayList<>(searchResults);
-        
-        // Apply filters and sorting
-        searchResults = applyFilters(searchResults);
-        searchResults = applySorting(searchResults);
-        
-        // Display results
-        displayFlights(searchResults);
-        
-        if (searchResults.isEmpty()) {
-            showAlert("No flights found for the selected criteria.");
+        if (firstPage.getFlights().isEmpty()) {
+            // Offer connecting itineraries when there is no direct flight
+            List<Itinerary> connections = flightService.searchConnections(from, to, date, passengers);
+            if (connections.isEmpty()) {
+                showAlert("No flights found for the selected criteria." + describeNearbyDates(from, to, date, passengers));
+            } else {
+                showAlert("No direct flights found. Connecting options:\n" + describeItineraries(connections));
+            }
+        }
+    }
+    
+    /**
+     * Describe the best itineraries, one per line
+     */
+    private String describeItineraries(List<Itinerary> itineraries) {
+        StringBuilder description = new StringBuilder();
+        for (Itinerary itinerary : itineraries.subList(0, Math.min(5, itineraries.size()))) {
+            String legs = itinerary.getLegs().stream()
+                .map(leg -> leg.getFlightNumber() + " " + leg.getDepartureAirport() + "→" + leg.getArrivalAirport())
+                .collect(Collectors.joining(", "));
+            long minutes = itinerary.getTotalDuration().toMinutes();
+            description.append(String.format("%s (%d stop%s, %dh %02dm, $%.2f)%n", legs, itinerary.getStops(),
+                itinerary.getStops() == 1 ? "" : "s", minutes / 60, minutes % 60, itinerary.getTotalPrice()));
+        }
+        return description.toString();
+    }
+    
+    /**
+     * Describe the cheapest fares on the days around the requested date, from the fare calendar
+     */
+    private String describeNearbyDates(String from, String to, LocalDate date, int passengers) {
+        StringBuilder description = new StringBuilder();
+        for (DayFare day : flightService.getFareCalendar(from, to, date, NEARBY_DAYS, passengers)) {
+            if (day.isAvailable()) {
+                description.append(String.format("%s: from $%.2f (%d flight%s)%n", day.getDate(), day.getLowestFare(),
+                    day.getFlightCount(), day.getFlightCount() == 1 ? "" : "s"));
+            }
         }
+        return description.length() == 0 ? "" : "\n\nFlights on nearby dates:\n" + description;
     }
     
     @FXML
@@ -330,97 +378,80 @@ public class FlightSearchController implements Initializable {
         }
         
         // Show all flights
-        List<Flight> allFlights = flightService.getAllFlights();
-        displayFlights(allFlights);
+        showResults(FlightSearchQuery.allFlights(selectedFilter(), selectedSortKey()));
         
         showAlert("Search has been reset. Showing all available flights.");
     }
 
     private void handleSortOrFilterChange() {
-        if (currentSearchResults == null || currentSearchResults.isEmpty()) {
-            // If no search has been performed, show all flights
-            List<Flight> allFlights = flightService.getAllFlights();
-            currentSearchResults = new ArrayList<>(allFlights);
-        }
-        
-        // Apply current filters and sorting to stored results
-        List<Flight> filteredResults = applyFilters(currentSearchResults);
-        List<Flight> sortedResults = applySorting(filteredResults);
-        
-        // Display the results
-        displayFlights(sortedResults);
+        // Re-run the current search, or list all flights if no search has been performed
+        FlightSearchQuery query = currentQuery != null
+            ? currentQuery.withView(selectedFilter(), selectedSortKey())
+            : FlightSearchQuery.allFlights(selectedFilter(), selectedSortKey());
+        showResults(query);
     }
     
-    private List<Flight> applyFilters(List<Flight> flights) {
-        if (filterComboBox == null || filterComboBox.getValue() == null) {
-            return flights;
-        }
-        
-        String filter = filterComboBox.getValue();
-        
-        switch (filter) {
-            case "Direct Flights Only":
-                // Assuming all current flights are direct for simplicity
-                return flights;
-            case "Morning Flights":
-                return flights.stream()
-                    .filter(f -> f.getDepartureTime() != null && f.getDepartureTime().getHour() < 12)
-                    .collect(Collectors.toList());
-            case "Evening Flights":
-                return flights.stream()
-                    .filter(f -> f.getDepartureTime() != null && f.getDepartureTime().getHour() >= 18)
-                    .collect(Collectors.toList());
-            case "All Flights":
-            default:
-                return flights;
-        }
+    private FlightFilter selectedFilter() {
+        return filterComboBox != null ? FlightFilter.fromDisplayName(filterComboBox.getValue()) : FlightFilter.ALL;
+    }
+    
+    private FlightSortKey selectedSortKey() {
+        return sortComboBox != null ? FlightSortKey.fromDisplayName(sortComboBox.getValue()) : null;
+    }
+    
+    /**
+     * Lowest current fare of a flight, from the pricing service's cached quote
+     */
+    private double fareOf(Flight flight) {
+        return pricingService.getQuote(flight).getLowestFare();
+    }
+    
+    /**
+     * List the first page of a query's results, replacing what was shown
+     */
+    private FlightPage showResults(FlightSearchQuery query) {
+        currentQuery = query;
+        FlightPage page = flightService.searchFlights(query, null, PAGE_SIZE);
+        nextPageToken = page.getNextPageToken();
+        searchResults.setAll(page.getFlights());
+        if (flightResultsList != null) {
+            flightResultsList.scrollTo(0);
+        }
+        return page;
     }
     
-    private List<Flight> applySorting(List<Flight> flights) {
-        if (sortComboBox == null || sortComboBox.getValue() == null) {
-            return flights;
-        }
-        
-        String sort = sortComboBox.getValue();
-        
-        switch (sort) {
-            case "Price (Low to High)":
-                return flights.stream()
-                    .filter(f -> f.getBasePrice() > 0) // Filter out flights with invalid prices
-                    .sorted((f1, f2) -> Double.compare(f1.getBasePrice(), f2.getBasePrice()))
-                    .collect(Collectors.toList());
-            case "Price (High to Low)":
-                return flights.stream()
-                    .filter(f -> f.getBasePrice() > 0) // Filter out flights with invalid prices
-                    .sorted((f1, f2) -> Double.compare(f2.getBasePrice(), f1.getBasePrice()))
-                    .collect(Collectors.toList());
-            case "Departure Time":
-                return flights.stream()
-                    .filter(f -> f.getDepartureTime() != null) // Filter out flights with null departure times
-                    .sorted((f1, f2) -> f1.getDepartureTime().compareTo(f2.getDepartureTime()))
-                    .collect(Collectors.toList());
-            case "Duration":
-                return flights.stream()
-                    .filter(f -> f.getDepartureTime() != null && f.getArrivalTime() != null)
-                    .sorted((f1, f2) -> {
-                        long duration1 = java.time.Duration.between(f1.getDepartureTime(), f1.getArrivalTime()).toMinutes();
-                        long duration2 = java.time.Duration.between(f2.getDepartureTime(), f2.getArrivalTime()).toMinutes();
-                        return Long.compare(duration1, duration2);
-                    })
-                    .collect(Collectors.toList());
-            default:
-                return flights;
+    /**
+     * Append the next page of the current results, if there is one
+     */
+    private void loadNextPage() {
+        if (loadingPage || currentQuery == null || nextPageToken == null) return;
+        
+        loadingPage = true;
+        try {
+            FlightPage page = flightService.searchFlights(currentQuery, nextPageToken, PAGE_SIZE);
+            nextPageToken = page.getNextPageToken();
+            searchResults.addAll(page.getFlights());
+        } finally {
+            loadingPage = false;
         }
     }
     
-    private void displayFlights(List<Flight> flights) {
-        if (flightResultsContainer == null) return;
-        
-        flightResultsContainer.getChildren().clear();
-        
-        for (Flight flight : flights) {
-            VBox flightCard = createFlightCard(flight);
-            flightResultsContainer.getChildren().add(flightCard);
+    /**
+     * List cell showing a flight as a card; the list reuses cells, so only visible rows get nodes.
+     * Showing the last loaded row fetches the next page.
+     */
+    private class FlightCardCell extends ListCell<Flight> {
+        @Override
+        protected void updateItem(Flight flight, boolean empty) {
+            super.updateItem(flight, empty);
+            if (empty || flight == null) {
+                setGraphic(null);
+                return;
+            }
+            setGraphic(createFlightCard(flight));
+            if (getIndex() >= searchResults.size() - 1 && nextPageToken != null) {
+                Platform.runLater(FlightSearchController.this::loadNextPage);
+            }
         }
     }
     
@@ -441,7 +472,7 @@ public class FlightSearchController implements Initializable {
         Label timeInfo = new Label(String.format("Departure: %s | Arrival: %s", departureTime, arrivalTime));
         
         Label priceInfo = new Label(String.format("$%.2f | %d seats available", 
-            flight.getBasePrice(), flight.getAvailableSeats()));
+            fareOf(flight), flight.getAvailableSeats()));
         
         // Add status information for customers
         String status = flight.getStatus() != null ? flight.getStatus().getDisplayName() : "Unknown";
@@ -503,7 +534,7 @@ public class FlightSearchController implements Initializable {
             
             // Create payment details (simplified for demo)
             PaymentDetails paymentDetails = new PaymentDetails();
-            paymentDetails.setAmount(flight.getBasePrice());
+            paymentDetails.setAmount(pricingService.price(flight, passengers, new ArrayList<>()).getTotal());
             paymentDetails.setCardNumber("DEMO-1234");
             paymentDetails.setCardholderName(customer.getFirstName() + " " + customer.getLastName());
             
@@ -539,8 +570,8 @@ public class FlightSearchController implements Initializable {
     private void displayFlightDetails() {
         if (selectedFlight == null) return;
         
-        // Refresh flight data from database to ensure we have the latest status
-        Optional<Flight> updatedFlightOpt = flightService.getFlightDetails(selectedFlight.getFlightNumber());
+        // Refresh flight data from database to ensure we have the latest status and seat count
+        Optional<Flight> updatedFlightOpt = flightService.getFlightById(selectedFlight.getFlightId());
         if (updatedFlightOpt.isPresent()) {
             selectedFlight = updatedFlightOpt.get();
             // Update shared data with fresh flight information
@@ -604,10 +635,21 @@ public class FlightSearchController implements Initializable {
         
         confirmation.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
-                selectedFlight.setStatus(model.FlightStatus.CANCELLED);
-                flightService.updateFlight(selectedFlight);
-                displayFlightDetails();
-                showAlert("Flight has been cancelled successfully.");
+                // Rebooking touches every booking on the flight, so it runs off the FX thread
+                Flight flight = selectedFlight;
+                CompletableFuture.supplyAsync(() -> flightService.rebookCancelledFlight(flight))
+                    .whenComplete((outcomes, error) -> Platform.runLater(() -> {
+                        if (error != null || flight.getStatus() != model.FlightStatus.CANCELLED) {
+                            showAlert("The flight could not be cancelled. Please try again.");
+                            return;
+                        }
+                        long rebooked = outcomes.stream()
+                            .filter(outcome -> outcome.getStatus() == model.RebookingStatus.REBOOKED)
+                            .count();
+                        displayFlightDetails();
+                        showAlert("Flight has been cancelled successfully. " + rebooked + " of " + outcomes.size()
+                                  + " booking(s) moved to other flights.");
+                    }));
             }
         });
     }
@@ -618,7 +660,11 @@ public class FlightSearchController implements Initializable {
     
     private void loadMoreFlights() {
         // Load additional flights if available
-        showAlert("All available flights are displayed.");
+        if (nextPageToken == null) {
+            showAlert("All available flights are displayed.");
+            return;
+        }
+        loadNextPage();
     }
     
     private void addNewFlight() {
@@ -2,19 +2,28 @@ package dao;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import model.Booking;
 import util.DataManager;
+import util.EntityStore;
 
 /**
- * Data Access Object for Booking operations
+ * Data Access Object for Booking operations, backed by the JSON entity store
  */
-public class BookingDAO {
-    private DataManager dataManager;
+public class BookingDAO implements BookingRepository {
+    // Secondary indexes on the shared booking store, maintained by every save, update and delete
+    private static final String BY_CUSTOMER = "customerId";
+    private static final String BY_FLIGHT = "flightId";
+    private static final String BY_REFERENCE = "bookingReference";
+
+    private EntityStore<Booking> bookings;
 
     public BookingDAO() {
-        this.dataManager = new DataManager();
+        this.bookings = new DataManager().getBookingStore();
+        bookings.addIndex(BY_CUSTOMER, Booking::getCustomerId);
+        bookings.addIndex(BY_FLIGHT, Booking::getFlightId);
+        bookings.addIndex(BY_REFERENCE, Booking::getBookingReference);
     }
 
     /**
@@ -25,9 +34,7 @@ public class BookingDAO {
     public boolean save(Booking booking) {
         try {
             System.out.println("BookingDAO: Attempting to save booking: " + booking.getBookingId());
-            List<Booking> bookings = dataManager.loadBookings();
-            bookings.add(booking);
-            boolean result = dataManager.saveBookings(bookings);
+            boolean result = bookings.insert(booking);
             System.out.println("BookingDAO: Save result for booking " + booking.getBookingId() + ": " + result);
             return result;
         } catch (Exception e) {
@@ -44,20 +51,27 @@ public class BookingDAO {
      */
     public boolean update(Booking booking) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            for (int i = 0; i < bookings.size(); i++) {
-                if (bookings.get(i).getBookingId() != null && bookings.get(i).getBookingId().equals(booking.getBookingId())) {
-                    bookings.set(i, booking);
-                    return dataManager.saveBookings(bookings);
-                }
-            }
-            return false;
+            return bookings.update(booking);
         } catch (Exception e) {
             System.err.println("Error updating booking: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Update an existing booking, sharing the disk flush with other concurrent writes
+     * @param booking Booking to update
+     * @return Future completed with true once the update is durable
+     */
+    public CompletableFuture<Boolean> updateAsync(Booking booking) {
+        try {
+            return bookings.updateAsync(booking);
+        } catch (Exception e) {
+            System.err.println("Error updating booking: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
     /**
      * Delete a booking
      * @param bookingId Booking ID to delete
@@ -65,9 +79,7 @@ public class BookingDAO {
      */
     public boolean delete(String bookingId) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            bookings.removeIf(booking -> booking.getBookingId() != null && booking.getBookingId().equals(bookingId));
-            return dataManager.saveBookings(bookings);
+            return bookings.delete(bookingId);
         } catch (Exception e) {
             System.err.println("Error deleting booking: " + e.getMessage());
             return false;
@@ -81,10 +93,7 @@ public class BookingDAO {
      */
     public Optional<Booking> findById(String bookingId) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            return bookings.stream()
-                .filter(booking -> booking.getBookingId() != null && booking.getBookingId().equals(bookingId))
-                .findFirst();
+            return bookings.findById(bookingId);
         } catch (Exception e) {
             System.err.println("Error finding booking by ID: " + e.getMessage());
             return Optional.empty();
@@ -98,10 +107,7 @@ public class BookingDAO {
      */
     public List<Booking> findByCustomerId(String customerId) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            return bookings.stream()
-                .filter(booking -> booking.getCustomerId() != null && booking.getCustomerId().equals(customerId))
-                .collect(Collectors.toList());
+            return bookings.findByIndex(BY_CUSTOMER, customerId);
         } catch (Exception e) {
             System.err.println("Error finding bookings by customer ID: " + e.getMessage());
             e.printStackTrace();
@@ -110,16 +116,14 @@ public class BookingDAO {
     }
 
     /**
-     * Find booking by reference
-     * @param bookingReference Booking reference
+     * Find booking by reference, falling back to the booking ID for bookings issued without one
+     * @param bookingReference Booking reference or booking ID
      * @return Booking if found
      */
     public Optional<Booking> findByReference(String bookingReference) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            return bookings.stream()
-                .filter(booking -> booking.getBookingId() != null && booking.getBookingId().contains(bookingReference))
-                .findFirst();
+            Optional<Booking> booking = bookings.findFirstByIndex(BY_REFERENCE, bookingReference);
+            return booking.isPresent() ? booking : bookings.findById(bookingReference);
         } catch (Exception e) {
             System.err.println("Error finding booking by reference: " + e.getMessage());
             return Optional.empty();
@@ -132,7 +136,7 @@ public class BookingDAO {
      */
     public List<Booking> findAll() {
         try {
-            return dataManager.loadBookings();
+            return bookings.findAll();
         } catch (Exception e) {
             System.err.println("Error loading all bookings: " + e.getMessage());
             return List.of();
@@ -146,10 +150,7 @@ public class BookingDAO {
      */
     public List<Booking> findByFlightId(String flightId) {
         try {
-            List<Booking> bookings = dataManager.loadBookings();
-            return bookings.stream()
-                .filter(booking -> booking.getFlightId() != null && booking.getFlightId().equals(flightId))
-                .collect(Collectors.toList());
+            return bookings.findByIndex(BY_FLIGHT, flightId);
         } catch (Exception e) {
             System.err.println("Error finding bookings by flight ID: " + e.getMessage());
             return List.of();
@@ -0,0 +1,76 @@
+package dao;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.Booking;
+
+/**
+ * Storage operations for bookings, implemented by each storage backend
+ */
+public interface BookingRepository {
+
+    /**
+     * Save a new booking
+     * @param booking Booking to save
+     * @return true if save successful
+     */
+    boolean save(Booking booking);
+
+    /**
+     * Update an existing booking
+     * @param booking Booking to update
+     * @return true if update successful
+     */
+    boolean update(Booking booking);
+
+    /**
+     * Update an existing booking, sharing the disk flush with other concurrent writes
+     * where the backend supports it
+     * @param booking Booking to update
+     * @return Future completed with true once the update is durable
+     */
+    CompletableFuture<Boolean> updateAsync(Booking booking);
+
+    /**
+     * Delete a booking
+     * @param bookingId Booking ID to delete
+     * @return true if delete successful
+     */
+    boolean delete(String bookingId);
+
+    /**
+     * Find booking by ID
+     * @param bookingId Booking ID
+     * @return Booking if found
+     */
+    Optional<Booking> findById(String bookingId);
+
+    /**
+     * Find bookings by customer ID
+     * @param customerId Customer ID
+     * @return List of customer bookings
+     */
+    List<Booking> findByCustomerId(String customerId);
+
+    /**
+     * Find booking by reference, falling back to the booking ID for bookings issued without one
+     * @param bookingReference Booking reference or booking ID
+     * @return Booking if found
+     */
+    Optional<Booking> findByReference(String bookingReference);
+
+    /**
+     * Find all bookings
+     * @return List of all bookings
+     */
+    List<Booking> findAll();
+
+    /**
+     * Find bookings by flight ID
+     * @param flightId Flight ID
+     * @return List of bookings for the flight
+     */
+    List<Booking> findByFlightId(String flightId);
+}
@@ -0,0 +1,73 @@
+package dao;
+
+import java.util.Optional;
+
+import util.SqlDatabase;
+
+/**
+ * Creates the DAOs for the configured storage backend.
+ * The backend is chosen with -Dpikachu.storage: "json" (default) keeps the JSON data files,
+ * "sql" uses the embedded SQL database. If the database cannot be opened the JSON store is used.
+ */
+public final class DAOFactory {
+    private static final String STORAGE = System.getProperty("pikachu.storage", "json");
+
+    private DAOFactory() {
+    }
+
+    /**
+     * @return Flight DAO for the configured backend
+     */
+    public static FlightRepository flights() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlFlightDAO(database.get()) : new FlightDAO();
+    }
+
+    /**
+     * @return Booking DAO for the configured backend
+     */
+    public static BookingRepository bookings() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlBookingDAO(database.get()) : new BookingDAO();
+    }
+
+    /**
+     * @return Ticket DAO for the configured backend
+     */
+    public static TicketRepository tickets() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlTicketDAO(database.get()) : new TicketDAO();
+    }
+
+    /**
+     * @return User DAO for the configured backend
+     */
+    public static UserRepository users() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlUserDAO(database.get()) : new UserDAO();
+    }
+
+    /**
+     * @return Seat map DAO for the configured backend
+     */
+    public static SeatMapRepository seatMaps() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlSeatMapDAO(database.get()) : new SeatMapDAO();
+    }
+
+    /**
+     * Start a transaction over flights and bookings on the configured backend
+     * @return Empty transaction
+     */
+    public static Transaction beginTransaction() {
+        Optional<SqlDatabase> database = sqlDatabase();
+        return database.isPresent() ? new SqlTransaction(database.get()) : new JsonTransaction();
+    }
+
+    private static Optional<SqlDatabase> sqlDatabase() {
+        if (!"sql".equalsIgnoreCase(STORAGE)) {
+            return Optional.empty();
+        }
+        return SqlDatabase.getInstance();
+    }
+}
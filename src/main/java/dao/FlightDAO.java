@@ -1,21 +1,39 @@
 package dao;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import model.Flight;
 import util.DataManager;
+import util.EntityStore;
 
 /**
- * Data Access Object for Flight operations
+ * Data Access Object for Flight operations, backed by the JSON entity store
  */
-public class FlightDAO {
-    private DataManager dataManager;
+public class FlightDAO implements FlightRepository {
+    // Indexes on the shared flight store. Sorted keys end with the departure time so every
+    // range scan returns flights in departure order; airport codes are upper-cased.
+    private static final String BY_NUMBER = "flightNumber";
+    private static final String BY_ROUTE = "route";
+    private static final String BY_DEPARTURE = "departure";
+    private static final String BY_ORIGIN = "origin";
+    private static final String BY_DESTINATION = "destination";
+    private static final char SEPARATOR = '|';
+    private static final DateTimeFormatter SORTABLE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private EntityStore<Flight> flights;
 
     public FlightDAO() {
-        this.dataManager = new DataManager();
+        this.flights = new DataManager().getFlightStore();
+        flights.addIndex(BY_NUMBER, Flight::getFlightNumber);
+        flights.addSortedIndex(BY_ROUTE, flight -> departureKey(flight,
+            airport(flight.getDepartureAirport()), airport(flight.getArrivalAirport())));
+        flights.addSortedIndex(BY_DEPARTURE, flight -> departureKey(flight));
+        flights.addSortedIndex(BY_ORIGIN, flight -> departureKey(flight, airport(flight.getDepartureAirport())));
+        flights.addSortedIndex(BY_DESTINATION, flight -> departureKey(flight, airport(flight.getArrivalAirport())));
     }
 
     /**
@@ -25,9 +43,7 @@ public class FlightDAO {
      */
     public boolean save(Flight flight) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            flights.add(flight);
-            return dataManager.saveFlights(flights);
+            return flights.insert(flight);
         } catch (Exception e) {
             System.err.println("Error saving flight: " + e.getMessage());
             return false;
@@ -41,14 +57,7 @@ public class FlightDAO {
      */
     public boolean update(Flight flight) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            for (int i = 0; i < flights.size(); i++) {
-                if (flights.get(i).getFlightId().equals(flight.getFlightId())) {
-                    flights.set(i, flight);
-                    return dataManager.saveFlights(flights);
-                }
-            }
-            return false;
+            return flights.update(flight);
         } catch (Exception e) {
             System.err.println("Error updating flight: " + e.getMessage());
             return false;
@@ -62,9 +71,7 @@ public class FlightDAO {
      */
     public boolean delete(String flightId) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            flights.removeIf(flight -> flight.getFlightId().equals(flightId));
-            return dataManager.saveFlights(flights);
+            return flights.delete(flightId);
         } catch (Exception e) {
             System.err.println("Error deleting flight: " + e.getMessage());
             return false;
@@ -78,10 +85,7 @@ public class FlightDAO {
      */
     public Optional<Flight> findById(String flightId) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> flight.getFlightId().equals(flightId))
-                .findFirst();
+            return flights.findById(flightId);
         } catch (Exception e) {
             System.err.println("Error finding flight by ID: " + e.getMessage());
             return Optional.empty();
@@ -95,10 +99,7 @@ public class FlightDAO {
      */
     public Optional<Flight> findByFlightNumber(String flightNumber) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> flight.getFlightNumber().equals(flightNumber))
-                .findFirst();
+            return flights.findFirstByIndex(BY_NUMBER, flightNumber);
         } catch (Exception e) {
             System.err.println("Error finding flight by number: " + e.getMessage());
             return Optional.empty();
@@ -114,12 +115,8 @@ public class FlightDAO {
      */
     public List<Flight> findFlights(String origin, String destination, LocalDate departureDate) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> flight.getDepartureAirport().equalsIgnoreCase(origin))
-                .filter(flight -> flight.getArrivalAirport().equalsIgnoreCase(destination))
-                .filter(flight -> flight.getDepartureTime().toLocalDate().equals(departureDate))
-                .collect(Collectors.toList());
+            String route = prefix(airport(origin), airport(destination));
+            return flights.findRange(BY_ROUTE, route + departureDate, route + departureDate.plusDays(1));
         } catch (Exception e) {
             System.err.println("Error finding flights: " + e.getMessage());
             return List.of();
@@ -132,7 +129,7 @@ public class FlightDAO {
      */
     public List<Flight> findAll() {
         try {
-            return dataManager.loadFlights();
+            return flights.findAll();
         } catch (Exception e) {
             System.err.println("Error loading all flights: " + e.getMessage());
             return List.of();
@@ -147,13 +144,7 @@ public class FlightDAO {
      */
     public List<Flight> findByDateRange(LocalDate startDate, LocalDate endDate) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> {
-                    LocalDate flightDate = flight.getDepartureTime().toLocalDate();
-                    return !flightDate.isBefore(startDate) && !flightDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
+            return flights.findRange(BY_DEPARTURE, startDate.toString(), endDate.plusDays(1).toString());
         } catch (Exception e) {
             System.err.println("Error finding flights by date range: " + e.getMessage());
             return List.of();
@@ -167,10 +158,7 @@ public class FlightDAO {
      */
     public List<Flight> findByOrigin(String origin) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> flight.getDepartureAirport().equalsIgnoreCase(origin))
-                .collect(Collectors.toList());
+            return flights.findByPrefix(BY_ORIGIN, prefix(airport(origin)));
         } catch (Exception e) {
             System.err.println("Error finding flights by origin: " + e.getMessage());
             return List.of();
@@ -184,13 +172,36 @@ public class FlightDAO {
      */
     public List<Flight> findByDestination(String destination) {
         try {
-            List<Flight> flights = dataManager.loadFlights();
-            return flights.stream()
-                .filter(flight -> flight.getArrivalAirport().equalsIgnoreCase(destination))
-                .collect(Collectors.toList());
+            return flights.findByPrefix(BY_DESTINATION, prefix(airport(destination)));
         } catch (Exception e) {
             System.err.println("Error finding flights by destination: " + e.getMessage());
             return List.of();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Build a sort key from the given components followed by the departure time
+     * @return Sort key, or null for flights without an airport or departure time
+     */
+    private static String departureKey(Flight flight, String... components) {
+        LocalDateTime departure = flight.getDepartureTime();
+        for (String component : components) {
+            if (component == null) {
+                return null;
+            }
+        }
+        return departure != null ? prefix(components) + departure.format(SORTABLE_TIME) : null;
+    }
+
+    private static String prefix(String... components) {
+        StringBuilder key = new StringBuilder();
+        for (String component : components) {
+            key.append(component).append(SEPARATOR);
+        }
+        return key.toString();
+    }
+
+    private static String airport(String code) {
+        return code != null ? code.trim().toUpperCase() : null;
+    }
+}
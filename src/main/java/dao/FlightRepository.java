@@ -0,0 +1,85 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import model.Flight;
+
+/**
+ * Storage operations for flights, implemented by each storage backend
+ */
+public interface FlightRepository {
+
+    /**
+     * Save a new flight
+     * @param flight Flight to save
+     * @return true if save successful
+     */
+    boolean save(Flight flight);
+
+    /**
+     * Update an existing flight
+     * @param flight Flight to update
+     * @return true if update successful
+     */
+    boolean update(Flight flight);
+
+    /**
+     * Delete a flight
+     * @param flightId Flight ID to delete
+     * @return true if delete successful
+     */
+    boolean delete(String flightId);
+
+    /**
+     * Find flight by ID
+     * @param flightId Flight ID
+     * @return Flight if found
+     */
+    Optional<Flight> findById(String flightId);
+
+    /**
+     * Find flight by flight number
+     * @param flightNumber Flight number
+     * @return Flight if found
+     */
+    Optional<Flight> findByFlightNumber(String flightNumber);
+
+    /**
+     * Find flights by origin, destination and date
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param departureDate Departure date
+     * @return List of matching flights
+     */
+    List<Flight> findFlights(String origin, String destination, LocalDate departureDate);
+
+    /**
+     * Find all flights
+     * @return List of all flights
+     */
+    List<Flight> findAll();
+
+    /**
+     * Find flights by date range
+     * @param startDate Start date
+     * @param endDate End date
+     * @return List of flights in date range
+     */
+    List<Flight> findByDateRange(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find flights by origin
+     * @param origin Origin airport code
+     * @return List of flights from origin
+     */
+    List<Flight> findByOrigin(String origin);
+
+    /**
+     * Find flights by destination
+     * @param destination Destination airport code
+     * @return List of flights to destination
+     */
+    List<Flight> findByDestination(String destination);
+}
@@ -0,0 +1,35 @@
+package dao;
+
+import model.Booking;
+import model.Flight;
+import util.DataManager;
+import util.UnitOfWork;
+
+/**
+ * Transaction over the JSON stores, committed as a single journal write
+ */
+public class JsonTransaction implements Transaction {
+    private final DataManager dataManager;
+    private final UnitOfWork unitOfWork = new UnitOfWork();
+
+    public JsonTransaction() {
+        this.dataManager = new DataManager();
+    }
+
+    @Override
+    public Transaction saveFlight(Flight flight) {
+        unitOfWork.put(dataManager.getFlightStore(), flight);
+        return this;
+    }
+
+    @Override
+    public Transaction saveBooking(Booking booking) {
+        unitOfWork.put(dataManager.getBookingStore(), booking);
+        return this;
+    }
+
+    @Override
+    public boolean commit() {
+        return unitOfWork.commit();
+    }
+}
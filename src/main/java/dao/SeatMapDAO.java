@@ -0,0 +1,61 @@
+package dao;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.SeatMap;
+import util.DataManager;
+import util.EntityStore;
+
+/**
+ * Data Access Object for per-flight seat maps
+ */
+public class SeatMapDAO implements SeatMapRepository {
+    private EntityStore<SeatMap> seatMaps;
+
+    public SeatMapDAO() {
+        this.seatMaps = new DataManager().getSeatMapStore();
+    }
+
+    /**
+     * Find the seat map of a flight
+     * @param flightId Flight ID
+     * @return Seat map if one has been created
+     */
+    public Optional<SeatMap> findByFlightId(String flightId) {
+        try {
+            return seatMaps.findById(flightId);
+        } catch (Exception e) {
+            System.err.println("Error finding seat map: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save a seat map, sharing the disk write with other concurrent seat changes
+     * @param seatMap Seat map to save
+     * @return Future completed with true once the seat map is durable
+     */
+    public CompletableFuture<Boolean> saveAsync(SeatMap seatMap) {
+        try {
+            return seatMaps.insertAsync(seatMap);
+        } catch (Exception e) {
+            System.err.println("Error saving seat map: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Delete the seat map of a flight
+     * @param flightId Flight ID
+     * @return true if delete successful
+     */
+    public boolean delete(String flightId) {
+        try {
+            return seatMaps.delete(flightId);
+        } catch (Exception e) {
+            System.err.println("Error deleting seat map: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package dao;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.SeatMap;
+
+/**
+ * Storage operations for per-flight seat maps, implemented by each storage backend.
+ * Seats are claimed and released on the seat map itself, so every lookup of a flight's map
+ * must return the same instance until the map is deleted.
+ */
+public interface SeatMapRepository {
+
+    /**
+     * Find the seat map of a flight
+     * @param flightId Flight ID
+     * @return Seat map if one has been created
+     */
+    Optional<SeatMap> findByFlightId(String flightId);
+
+    /**
+     * Save a seat map, sharing the disk write with other concurrent seat changes
+     * where the backend supports it
+     * @param seatMap Seat map to save
+     * @return Future completed with true once the seat map is durable
+     */
+    CompletableFuture<Boolean> saveAsync(SeatMap seatMap);
+
+    /**
+     * Delete the seat map of a flight
+     * @param flightId Flight ID
+     * @return true if delete successful
+     */
+    boolean delete(String flightId);
+}
@@ -0,0 +1,115 @@
+package dao;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.Booking;
+import util.JsonCodec;
+import util.SqlDatabase;
+
+/**
+ * Data Access Object for Booking operations, backed by the embedded SQL database
+ */
+public class SqlBookingDAO implements BookingRepository {
+    private static final String SELECT = "SELECT doc FROM bookings";
+
+    private SqlDatabase database;
+
+    public SqlBookingDAO(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(Booking booking) {
+        try {
+            return database.update(SqlDatabase.bookingInsert(), SqlDatabase.bookingParams(booking)) > 0;
+        } catch (Exception e) {
+            System.err.println("BookingDAO: Error saving booking: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean update(Booking booking) {
+        try {
+            return database.update(SqlDatabase.bookingUpdate(), SqlDatabase.bookingParams(booking)) > 0;
+        } catch (Exception e) {
+            System.err.println("Error updating booking: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Update an existing booking; the database commits each statement on its own
+     * @param booking Booking to update
+     * @return Completed future holding the update result
+     */
+    @Override
+    public CompletableFuture<Boolean> updateAsync(Booking booking) {
+        return CompletableFuture.completedFuture(update(booking));
+    }
+
+    @Override
+    public boolean delete(String bookingId) {
+        try {
+            return database.update("DELETE FROM bookings WHERE booking_id = ?", bookingId) > 0;
+        } catch (Exception e) {
+            System.err.println("Error deleting booking: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<Booking> findById(String bookingId) {
+        try {
+            return database.queryFirst(JsonCodec.BOOKING, SELECT + " WHERE booking_id = ?", bookingId);
+        } catch (Exception e) {
+            System.err.println("Error finding booking by ID: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Booking> findByCustomerId(String customerId) {
+        try {
+            return database.query(JsonCodec.BOOKING, SELECT + " WHERE customer_id = ?", customerId);
+        } catch (Exception e) {
+            System.err.println("Error finding bookings by customer ID: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public Optional<Booking> findByReference(String bookingReference) {
+        try {
+            Optional<Booking> booking = database.queryFirst(JsonCodec.BOOKING,
+                SELECT + " WHERE booking_reference = ?", bookingReference);
+            return booking.isPresent() ? booking : findById(bookingReference);
+        } catch (Exception e) {
+            System.err.println("Error finding booking by reference: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Booking> findAll() {
+        try {
+            return database.query(JsonCodec.BOOKING, SELECT);
+        } catch (Exception e) {
+            System.err.println("Error loading all bookings: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Booking> findByFlightId(String flightId) {
+        try {
+            return database.query(JsonCodec.BOOKING, SELECT + " WHERE flight_id = ?", flightId);
+        } catch (Exception e) {
+            System.err.println("Error finding bookings by flight ID: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+}
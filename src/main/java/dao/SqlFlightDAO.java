@@ -0,0 +1,125 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import model.Flight;
+import util.JsonCodec;
+import util.SqlDatabase;
+
+/**
+ * Data Access Object for Flight operations, backed by the embedded SQL database
+ */
+public class SqlFlightDAO implements FlightRepository {
+    private static final String SELECT = "SELECT doc FROM flights";
+
+    private SqlDatabase database;
+
+    public SqlFlightDAO(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(Flight flight) {
+        try {
+            return database.update(SqlDatabase.flightInsert(), SqlDatabase.flightParams(flight)) > 0;
+        } catch (Exception e) {
+            System.err.println("Error saving flight: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean update(Flight flight) {
+        try {
+            return database.update(SqlDatabase.flightUpdate(), SqlDatabase.flightParams(flight)) > 0;
+        } catch (Exception e) {
+            System.err.println("Error updating flight: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String flightId) {
+        try {
+            return database.update("DELETE FROM flights WHERE flight_id = ?", flightId) > 0;
+        } catch (Exception e) {
+            System.err.println("Error deleting flight: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<Flight> findById(String flightId) {
+        try {
+            return database.queryFirst(JsonCodec.FLIGHT, SELECT + " WHERE flight_id = ?", flightId);
+        } catch (Exception e) {
+            System.err.println("Error finding flight by ID: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<Flight> findByFlightNumber(String flightNumber) {
+        try {
+            return database.queryFirst(JsonCodec.FLIGHT, SELECT + " WHERE flight_number = ?", flightNumber);
+        } catch (Exception e) {
+            System.err.println("Error finding flight by number: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Flight> findFlights(String origin, String destination, LocalDate departureDate) {
+        try {
+            return database.query(JsonCodec.FLIGHT,
+                SELECT + " WHERE departure_airport = ? AND arrival_airport = ? AND departure_date = ? ORDER BY departure_time",
+                SqlDatabase.upper(origin), SqlDatabase.upper(destination), departureDate);
+        } catch (Exception e) {
+            System.err.println("Error finding flights: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Flight> findAll() {
+        try {
+            return database.query(JsonCodec.FLIGHT, SELECT);
+        } catch (Exception e) {
+            System.err.println("Error loading all flights: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Flight> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        try {
+            return database.query(JsonCodec.FLIGHT,
+                SELECT + " WHERE departure_date BETWEEN ? AND ? ORDER BY departure_time", startDate, endDate);
+        } catch (Exception e) {
+            System.err.println("Error finding flights by date range: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Flight> findByOrigin(String origin) {
+        try {
+            return database.query(JsonCodec.FLIGHT, SELECT + " WHERE departure_airport = ? ORDER BY departure_time", SqlDatabase.upper(origin));
+        } catch (Exception e) {
+            System.err.println("Error finding flights by origin: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Flight> findByDestination(String destination) {
+        try {
+            return database.query(JsonCodec.FLIGHT, SELECT + " WHERE arrival_airport = ? ORDER BY departure_time", SqlDatabase.upper(destination));
+        } catch (Exception e) {
+            System.err.println("Error finding flights by destination: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dao;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.SeatMap;
+import util.JsonCodec;
+import util.SqlDatabase;
+
+/**
+ * Data Access Object for per-flight seat maps, backed by the embedded SQL database.
+ * Each flight's map is read from the database once and the same instance handed out
+ * afterwards, as the JSON store does; every save writes the row.
+ */
+public class SqlSeatMapDAO implements SeatMapRepository {
+    private static final String SELECT = "SELECT doc FROM seat_maps";
+
+    // Seat maps read so far, shared by every instance so they all hand out the same map
+    private static final Map<String, SeatMap> loaded = new ConcurrentHashMap<>();
+
+    private SqlDatabase database;
+
+    public SqlSeatMapDAO(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Optional<SeatMap> findByFlightId(String flightId) {
+        if (flightId == null) {
+            return Optional.empty();
+        }
+        try {
+            SeatMap seatMap = loaded.get(flightId);
+            if (seatMap != null) {
+                return Optional.of(seatMap);
+            }
+            Optional<SeatMap> stored = database.queryFirst(JsonCodec.SEAT_MAP, SELECT + " WHERE flight_id = ?", flightId);
+            return stored.map(map -> loaded.computeIfAbsent(flightId, key -> map));
+        } catch (Exception e) {
+            System.err.println("Error finding seat map: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save a seat map; the database commits each statement on its own
+     * @param seatMap Seat map to save
+     * @return Completed future holding the save result
+     */
+    @Override
+    public CompletableFuture<Boolean> saveAsync(SeatMap seatMap) {
+        try {
+            loaded.put(seatMap.getFlightId(), seatMap);
+            return CompletableFuture.completedFuture(
+                database.update(SqlDatabase.seatMapMerge(), SqlDatabase.seatMapParams(seatMap)) > 0);
+        } catch (Exception e) {
+            System.err.println("Error saving seat map: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    @Override
+    public boolean delete(String flightId) {
+        if (flightId == null) {
+            return false;
+        }
+        try {
+            loaded.remove(flightId);
+            return database.update("DELETE FROM seat_maps WHERE flight_id = ?", flightId) > 0;
+        } catch (Exception e) {
+            System.err.println("Error deleting seat map: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.Ticket;
+import model.TicketStatus;
+import util.JsonCodec;
+import util.SqlDatabase;
+import util.TextIndex;
+
+/**
+ * Data Access Object for Ticket operations, backed by the embedded SQL database
+ */
+public class SqlTicketDAO implements TicketRepository {
+    private static final String SELECT = "SELECT doc FROM tickets";
+
+    // Full-text index over the tickets table, built on the first search and kept up to date
+    // by this DAO's writes; guarded by SqlTicketDAO.class
+    private static TextIndex searchIndex;
+
+    private SqlDatabase database;
+
+    public SqlTicketDAO(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(Ticket ticket) {
+        try {
+            boolean saved = database.update(SqlDatabase.ticketInsert(), SqlDatabase.ticketParams(ticket)) > 0;
+            if (saved) {
+                indexTicket(ticket);
+            }
+            return saved;
+        } catch (Exception e) {
+            System.err.println("Error saving ticket: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean update(Ticket ticket) {
+        try {
+            boolean updated = database.update(SqlDatabase.ticketUpdate(), SqlDatabase.ticketParams(ticket)) > 0;
+            if (updated) {
+                indexTicket(ticket);
+            }
+            return updated;
+        } catch (Exception e) {
+            System.err.println("Error updating ticket: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Update an existing ticket; the database commits each statement on its own
+     * @param ticket Ticket to update
+     * @return Completed future holding the update result
+     */
+    @Override
+    public CompletableFuture<Boolean> updateAsync(Ticket ticket) {
+        return CompletableFuture.completedFuture(update(ticket));
+    }
+
+    /**
+     * Tickets are given IDs when they are imported, so there is nothing to repair
+     * @return true
+     */
+    @Override
+    public boolean fixEmptyTicketIds() {
+        return true;
+    }
+
+    @Override
+    public boolean delete(String ticketId) {
+        try {
+            boolean deleted = database.update("DELETE FROM tickets WHERE ticket_id = ?", ticketId) > 0;
+            if (deleted) {
+                synchronized (SqlTicketDAO.class) {
+                    if (searchIndex != null) {
+                        searchIndex.remove(ticketId);
+                    }
+                }
+            }
+            return deleted;
+        } catch (Exception e) {
+            System.err.println("Error deleting ticket: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<Ticket> findById(String ticketId) {
+        try {
+            return database.queryFirst(JsonCodec.TICKET, SELECT + " WHERE ticket_id = ?", ticketId);
+        } catch (Exception e) {
+            System.err.println("Error finding ticket by ID: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Ticket> findByCustomerId(String customerId) {
+        try {
+            return database.query(JsonCodec.TICKET, SELECT + " WHERE customer_id = ?", customerId);
+        } catch (Exception e) {
+            System.err.println("Error finding tickets by customer ID: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Ticket> findByStatus(TicketStatus status) {
+        try {
+            return database.query(JsonCodec.TICKET, SELECT + " WHERE status = ?", status);
+        } catch (Exception e) {
+            System.err.println("Error finding tickets by status: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Ticket> findAll() {
+        try {
+            return database.query(JsonCodec.TICKET, SELECT);
+        } catch (Exception e) {
+            System.err.println("Error loading all tickets: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm, int limit) {
+        try {
+            List<String> ticketIds;
+            synchronized (SqlTicketDAO.class) {
+                if (searchIndex == null) {
+                    TextIndex index = new TextIndex();
+                    for (Ticket ticket : findAll()) {
+                        index.add(ticket.getTicketId(), TicketDAO.searchableText(ticket));
+                    }
+                    searchIndex = index;
+                }
+                ticketIds = searchIndex.search(TicketDAO.typeAheadQuery(searchTerm), limit);
+            }
+            List<Ticket> matches = new ArrayList<>(ticketIds.size());
+            for (String ticketId : ticketIds) {
+                findById(ticketId).ifPresent(matches::add);
+            }
+            return matches;
+        } catch (Exception e) {
+            System.err.println("Error searching tickets: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static void indexTicket(Ticket ticket) {
+        synchronized (SqlTicketDAO.class) {
+            if (searchIndex != null) {
+                searchIndex.add(ticket.getTicketId(), TicketDAO.searchableText(ticket));
+            }
+        }
+    }
+
+    @Override
+    public List<Ticket> findByAssignedAgent(String agentId) {
+        try {
+            return database.query(JsonCodec.TICKET, SELECT + " WHERE assigned_to = ?", agentId);
+        } catch (Exception e) {
+            System.err.println("Error finding tickets by assigned agent: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
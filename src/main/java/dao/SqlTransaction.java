@@ -0,0 +1,49 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Booking;
+import model.Flight;
+import util.SqlDatabase;
+
+/**
+ * Transaction over the embedded SQL database, committed as one database transaction
+ */
+public class SqlTransaction implements Transaction {
+    private final SqlDatabase database;
+    private final List<String> statements = new ArrayList<>();
+    private final List<Object[]> params = new ArrayList<>();
+
+    public SqlTransaction(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Transaction saveFlight(Flight flight) {
+        statements.add(SqlDatabase.flightMerge());
+        params.add(SqlDatabase.flightParams(flight));
+        return this;
+    }
+
+    @Override
+    public Transaction saveBooking(Booking booking) {
+        statements.add(SqlDatabase.bookingMerge());
+        params.add(SqlDatabase.bookingParams(booking));
+        return this;
+    }
+
+    @Override
+    public boolean commit() {
+        if (statements.isEmpty()) {
+            return true;
+        }
+        try {
+            database.updateAll(statements, params);
+            return true;
+        } catch (Exception e) {
+            System.err.println("SqlTransaction: Error committing " + statements.size() + " changes: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import model.Admin;
+import model.Customer;
+import model.User;
+import model.UserRole;
+import util.JsonCodec;
+import util.SqlDatabase;
+
+/**
+ * Data Access Object for User entities, backed by the embedded SQL database
+ */
+public class SqlUserDAO implements UserRepository {
+    private static final String SELECT = "SELECT doc FROM users";
+
+    private SqlDatabase database;
+
+    public SqlUserDAO(SqlDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean save(User user) {
+        try {
+            return database.update(SqlDatabase.userInsert(), SqlDatabase.userParams(user)) > 0;
+        } catch (Exception e) {
+            System.err.println("Error saving user: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean update(User user) {
+        try {
+            return database.update(SqlDatabase.userUpdate(), SqlDatabase.userParams(user)) > 0;
+        } catch (Exception e) {
+            System.err.println("Error updating user: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<User> findById(String userId) {
+        try {
+            return database.queryFirst(JsonCodec.USER, SELECT + " WHERE user_id = ?", userId);
+        } catch (Exception e) {
+            System.err.println("Error finding user by ID: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        try {
+            return database.queryFirst(JsonCodec.USER, SELECT + " WHERE username = ?", username);
+        } catch (Exception e) {
+            System.err.println("Error finding user by username: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        try {
+            return database.queryFirst(JsonCodec.USER, SELECT + " WHERE email = ?", email);
+        } catch (Exception e) {
+            System.err.println("Error finding user by email: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Customer> findAllCustomers() {
+        List<Customer> customers = new ArrayList<>();
+        for (User user : findByRole(UserRole.CUSTOMER)) {
+            if (user instanceof Customer) {
+                customers.add((Customer) user);
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public List<Admin> findAllAdmins() {
+        List<Admin> admins = new ArrayList<>();
+        for (User user : findByRole(UserRole.ADMIN)) {
+            if (user instanceof Admin) {
+                admins.add((Admin) user);
+            }
+        }
+        return admins;
+    }
+
+    @Override
+    public boolean deleteById(String userId) {
+        try {
+            return database.update("DELETE FROM users WHERE user_id = ?", userId) > 0;
+        } catch (Exception e) {
+            System.err.println("Error deleting user: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        try {
+            return database.query(JsonCodec.USER, SELECT);
+        } catch (Exception e) {
+            System.err.println("Error finding all users: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<User> findByRole(UserRole role) {
+        try {
+            return database.query(JsonCodec.USER, SELECT + " WHERE role = ?", role);
+        } catch (Exception e) {
+            System.err.println("Error finding users by role: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+}
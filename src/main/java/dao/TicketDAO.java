@@ -1,21 +1,33 @@
 package dao;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import model.Ticket;
+import model.TicketReply;
 import model.TicketStatus;
 import util.DataManager;
+import util.EntityStore;
+import util.IdGenerator;
+import util.TextIndex;
 
 /**
- * Data Access Object for Ticket operations
+ * Data Access Object for Ticket operations, backed by the JSON entity store
  */
-public class TicketDAO {
+public class TicketDAO implements TicketRepository {
+    // Full-text index on the shared ticket store, maintained by every save, update and delete
+    private static final String BY_TEXT = "text";
+
     private DataManager dataManager;
+    private EntityStore<Ticket> tickets;
 
     public TicketDAO() {
         this.dataManager = new DataManager();
+        this.tickets = dataManager.getTicketStore();
+        tickets.addTextIndex(BY_TEXT, TicketDAO::searchableText);
     }
 
     /**
@@ -25,9 +37,7 @@ public class TicketDAO {
      */
     public boolean save(Ticket ticket) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            tickets.add(ticket);
-            return dataManager.saveTickets(tickets);
+            return tickets.insert(ticket);
         } catch (Exception e) {
             System.err.println("Error saving ticket: " + e.getMessage());
             return false;
@@ -41,49 +51,63 @@ public class TicketDAO {
      */
     public boolean update(Ticket ticket) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            
             // First, try to find by ticket ID
-            for (int i = 0; i < tickets.size(); i++) {
-                if (tickets.get(i).getTicketId().equals(ticket.getTicketId())) {
-                    tickets.set(i, ticket);
-                    return dataManager.saveTickets(tickets);
-                }
+            if (tickets.findById(ticket.getTicketId()).isPresent()) {
+                return tickets.update(ticket);
             }
             
             // If not found by ID, try to find by other unique identifiers
             // This handles the case where existing tickets have empty IDs
-            for (int i = 0; i < tickets.size(); i++) {
-                Ticket existingTicket = tickets.get(i);
-                if (existingTicket.getTicketId().isEmpty() && 
-                    existingTicket.getSubject().equals(ticket.getSubject()) &&
-                    existingTicket.getCustomerId().equals(ticket.getCustomerId()) &&
-                    existingTicket.getCreatedAt().equals(ticket.getCreatedAt())) {
-                    
-                    // Update the existing ticket with the new ticket's ID and data
-                    ticket.setTicketId(generateTicketId());
-                    tickets.set(i, ticket);
-                    return dataManager.saveTickets(tickets);
-                }
-            }
+            String subject = ticket.getSubject();
+            String customerId = ticket.getCustomerId();
+            LocalDateTime createdAt = ticket.getCreatedAt();
+            String originalId = ticket.getTicketId();
             
-            return false;
+            // Update the existing ticket with the new ticket's ID and data
+            ticket.setTicketId(generateTicketId());
+            boolean replaced = tickets.replaceFirst(existingTicket ->
+                existingTicket.getTicketId().isEmpty() && 
+                existingTicket.getSubject().equals(subject) &&
+                existingTicket.getCustomerId().equals(customerId) &&
+                existingTicket.getCreatedAt().equals(createdAt), ticket);
+            if (!replaced) {
+                ticket.setTicketId(originalId);
+            }
+            return replaced;
         } catch (Exception e) {
             System.err.println("Error updating ticket: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Update an existing ticket, sharing the disk flush with other concurrent writes
+     * @param ticket Ticket to update
+     * @return Future completed with true once the update is durable
+     */
+    public CompletableFuture<Boolean> updateAsync(Ticket ticket) {
+        try {
+            if (tickets.findById(ticket.getTicketId()).isPresent()) {
+                return tickets.updateAsync(ticket);
+            }
+            // Tickets without a usable ID are repaired through the synchronous path
+            return CompletableFuture.completedFuture(update(ticket));
+        } catch (Exception e) {
+            System.err.println("Error updating ticket: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
     /**
      * Fix existing tickets with empty IDs
      * @return true if fix successful
      */
     public boolean fixEmptyTicketIds() {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
+            List<Ticket> allTickets = tickets.findAll();
             boolean hasChanges = false;
             
-            for (Ticket ticket : tickets) {
+            for (Ticket ticket : allTickets) {
                 if (ticket.getTicketId() == null || ticket.getTicketId().trim().isEmpty()) {
                     ticket.setTicketId(generateTicketId());
                     hasChanges = true;
@@ -91,7 +115,7 @@ public class TicketDAO {
             }
             
             if (hasChanges) {
-                return dataManager.saveTickets(tickets);
+                return dataManager.saveTickets(allTickets);
             }
             
             return true; // No changes needed
@@ -106,7 +130,7 @@ public class TicketDAO {
      * @return Generated ticket ID
      */
     private String generateTicketId() {
-        return "TKT_" + System.currentTimeMillis();
+        return IdGenerator.nextId("TKT");
     }
 
     /**
@@ -116,9 +140,7 @@ public class TicketDAO {
      */
     public boolean delete(String ticketId) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            tickets.removeIf(ticket -> ticket.getTicketId().equals(ticketId));
-            return dataManager.saveTickets(tickets);
+            return tickets.delete(ticketId);
         } catch (Exception e) {
             System.err.println("Error deleting ticket: " + e.getMessage());
             return false;
@@ -132,10 +154,7 @@ public class TicketDAO {
      */
     public Optional<Ticket> findById(String ticketId) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            return tickets.stream()
-                .filter(ticket -> ticket.getTicketId().equals(ticketId))
-                .findFirst();
+            return tickets.findById(ticketId);
         } catch (Exception e) {
             System.err.println("Error finding ticket by ID: " + e.getMessage());
             return Optional.empty();
@@ -149,7 +168,7 @@ public class TicketDAO {
      */
     public List<Ticket> findByCustomerId(String customerId) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
+            List<Ticket> tickets = this.tickets.findAll();
             System.out.println("TicketDAO: Total tickets loaded: " + tickets.size());
             System.out.println("TicketDAO: Searching for customer ID: '" + customerId + "'");
             
@@ -185,10 +204,7 @@ public class TicketDAO {
      */
     public List<Ticket> findByStatus(TicketStatus status) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            return tickets.stream()
-                .filter(ticket -> ticket.getStatus() == status)
-                .collect(Collectors.toList());
+            return tickets.findAll(ticket -> ticket.getStatus() == status);
         } catch (Exception e) {
             System.err.println("Error finding tickets by status: " + e.getMessage());
             return List.of();
@@ -201,7 +217,7 @@ public class TicketDAO {
      */
     public List<Ticket> findAll() {
         try {
-            return dataManager.loadTickets();
+            return tickets.findAll();
         } catch (Exception e) {
             System.err.println("Error loading all tickets: " + e.getMessage());
             return List.of();
@@ -209,25 +225,59 @@ public class TicketDAO {
     }
 
     /**
-     * Search tickets by subject or description
-     * @param searchTerm Search term
-     * @return List of matching tickets
+     * Search tickets by subject, description, category and replies
+     * @param searchTerm Words that must all appear; the last word also matches longer words while it is being typed
+     * @param limit Most tickets to return
+     * @return Up to limit matching tickets, best match first
      */
-    public List<Ticket> searchTickets(String searchTerm) {
+    public List<Ticket> searchTickets(String searchTerm, int limit) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            String lowerSearchTerm = searchTerm.toLowerCase();
-            return tickets.stream()
-                .filter(ticket -> 
-                    ticket.getSubject().toLowerCase().contains(lowerSearchTerm) ||
-                    ticket.getDescription().toLowerCase().contains(lowerSearchTerm))
-                .collect(Collectors.toList());
+            return tickets.search(BY_TEXT, typeAheadQuery(searchTerm), limit);
         } catch (Exception e) {
             System.err.println("Error searching tickets: " + e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * Text of a ticket that searches look at, one field per section
+     * @param ticket Ticket
+     * @return Subject, description, category and reply messages
+     */
+    static String searchableText(Ticket ticket) {
+        StringBuilder text = new StringBuilder();
+        appendField(text, ticket.getSubject());
+        appendField(text, ticket.getDescription());
+        appendField(text, ticket.getCategory());
+        if (ticket.getReplies() != null) {
+            for (TicketReply reply : ticket.getReplies()) {
+                appendField(text, reply != null ? reply.getMessage() : null);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void appendField(StringBuilder text, String field) {
+        if (field != null && !field.isEmpty()) {
+            text.append(field).append(TextIndex.FIELD_SEPARATOR);
+        }
+    }
+
+    /**
+     * Turn a search box entry into an index query; a plain last word is matched as a prefix
+     * so results narrow as the agent types
+     * @param searchTerm Text typed by the user
+     * @return Query for the text index
+     */
+    static String typeAheadQuery(String searchTerm) {
+        String query = searchTerm.trim();
+        if (query.isEmpty() || Character.isWhitespace(searchTerm.charAt(searchTerm.length() - 1))
+                || query.endsWith("*") || query.endsWith("\"")) {
+            return query;
+        }
+        return query + "*";
+    }
+
     /**
      * Find tickets assigned to a specific agent
      * @param agentId Agent ID
@@ -235,11 +285,8 @@ public class TicketDAO {
      */
     public List<Ticket> findByAssignedAgent(String agentId) {
         try {
-            List<Ticket> tickets = dataManager.loadTickets();
-            return tickets.stream()
-                .filter(ticket -> ticket.getAssignedTo() != null && 
-                        ticket.getAssignedTo().equals(agentId))
-                .collect(Collectors.toList());
+            return tickets.findAll(ticket -> ticket.getAssignedTo() != null && 
+                    ticket.getAssignedTo().equals(agentId));
         } catch (Exception e) {
             System.err.println("Error finding tickets by assigned agent: " + e.getMessage());
             return List.of();
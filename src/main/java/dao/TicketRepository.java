@@ -0,0 +1,100 @@
+package dao;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import model.Ticket;
+import model.TicketStatus;
+
+/**
+ * Storage operations for support tickets, implemented by each storage backend
+ */
+public interface TicketRepository {
+
+    /**
+     * Save a new ticket
+     * @param ticket Ticket to save
+     * @return true if save successful
+     */
+    boolean save(Ticket ticket);
+
+    /**
+     * Update an existing ticket
+     * @param ticket Ticket to update
+     * @return true if update successful
+     */
+    boolean update(Ticket ticket);
+
+    /**
+     * Update an existing ticket, sharing the disk flush with other concurrent writes
+     * where the backend supports it
+     * @param ticket Ticket to update
+     * @return Future completed with true once the update is durable
+     */
+    CompletableFuture<Boolean> updateAsync(Ticket ticket);
+
+    /**
+     * Fix existing tickets with empty IDs
+     * @return true if fix successful
+     */
+    boolean fixEmptyTicketIds();
+
+    /**
+     * Delete a ticket
+     * @param ticketId Ticket ID to delete
+     * @return true if delete successful
+     */
+    boolean delete(String ticketId);
+
+    /**
+     * Find ticket by ID
+     * @param ticketId Ticket ID
+     * @return Ticket if found
+     */
+    Optional<Ticket> findById(String ticketId);
+
+    /**
+     * Find tickets by customer ID
+     * @param customerId Customer ID
+     * @return List of customer tickets
+     */
+    List<Ticket> findByCustomerId(String customerId);
+
+    /**
+     * Find tickets by status
+     * @param status Ticket status
+     * @return List of tickets with specified status
+     */
+    List<Ticket> findByStatus(TicketStatus status);
+
+    /**
+     * Find all tickets
+     * @return List of all tickets
+     */
+    List<Ticket> findAll();
+
+    /**
+     * Search tickets by subject, description, category and replies
+     * @param searchTerm Words that must all appear; "quoted words" must appear together
+     * @return Every matching ticket, best match first
+     */
+    default List<Ticket> searchTickets(String searchTerm) {
+        return searchTickets(searchTerm, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search tickets by subject, description, category and replies, keeping only the best matches
+     * @param searchTerm Words that must all appear; "quoted words" must appear together
+     * @param limit Most tickets to return
+     * @return Up to limit matching tickets, best match first
+     */
+    List<Ticket> searchTickets(String searchTerm, int limit);
+
+    /**
+     * Find tickets assigned to a specific agent
+     * @param agentId Agent ID
+     * @return List of assigned tickets
+     */
+    List<Ticket> findByAssignedAgent(String agentId);
+}
@@ -0,0 +1,32 @@
+package dao;
+
+import model.Booking;
+import model.Flight;
+
+/**
+ * Set of flight and booking writes that are committed together.
+ * Either every write takes effect or none does, and the commit costs one durable write
+ * instead of one per entity.
+ */
+public interface Transaction {
+
+    /**
+     * Add or replace a flight
+     * @param flight Flight to save
+     * @return This transaction
+     */
+    Transaction saveFlight(Flight flight);
+
+    /**
+     * Add or replace a booking
+     * @param booking Booking to save
+     * @return This transaction
+     */
+    Transaction saveBooking(Booking booking);
+
+    /**
+     * Write every change atomically
+     * @return true if all changes were committed, false if none were
+     */
+    boolean commit();
+}
@@ -2,19 +2,20 @@ package dao;
 
 import model.*;
 import util.DataManager;
+import util.EntityStore;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
 
 /**
  * Data Access Object for User entities.
- * Handles all database operations for users.
+ * Handles all database operations for users against the JSON entity store.
  */
-public class UserDAO {
-    private DataManager dataManager;
+public class UserDAO implements UserRepository {
+    private EntityStore<User> users;
 
     public UserDAO() {
-        this.dataManager = new DataManager();
+        this.users = new DataManager().getUserStore();
     }
 
     /**
@@ -24,9 +25,7 @@ public class UserDAO {
      */
     public boolean save(User user) {
         try {
-            List<User> users = dataManager.loadUsers();
-            users.add(user);
-            return dataManager.saveUsers(users);
+            return users.insert(user);
         } catch (Exception e) {
             System.err.println("Error saving user: " + e.getMessage());
             return false;
@@ -40,14 +39,7 @@ public class UserDAO {
      */
     public boolean update(User user) {
         try {
-            List<User> users = dataManager.loadUsers();
-            for (int i = 0; i < users.size(); i++) {
-                if (users.get(i).getUserId().equals(user.getUserId())) {
-                    users.set(i, user);
-                    return dataManager.saveUsers(users);
-                }
-            }
-            return false; // User not found
+            return users.update(user); // false if user not found
         } catch (Exception e) {
             System.err.println("Error updating user: " + e.getMessage());
             return false;
@@ -61,10 +53,7 @@ public class UserDAO {
      */
     public Optional<User> findById(String userId) {
         try {
-            List<User> users = dataManager.loadUsers();
-            return users.stream()
-                       .filter(user -> user.getUserId().equals(userId))
-                       .findFirst();
+            return users.findById(userId);
         } catch (Exception e) {
             System.err.println("Error finding user by ID: " + e.getMessage());
             return Optional.empty();
@@ -78,10 +67,7 @@ public class UserDAO {
      */
     public Optional<User> findByUsername(String username) {
         try {
-            List<User> users = dataManager.loadUsers();
-            return users.stream()
-                       .filter(user -> user.getUsername().equals(username))
-                       .findFirst();
+            return users.findFirst(user -> user.getUsername().equals(username));
         } catch (Exception e) {
             System.err.println("Error finding user by username: " + e.getMessage());
             return Optional.empty();
@@ -95,10 +81,7 @@ public class UserDAO {
      */
     public Optional<User> findByEmail(String email) {
         try {
-            List<User> users = dataManager.loadUsers();
-            return users.stream()
-                       .filter(user -> user.getEmail().equals(email))
-                       .findFirst();
+            return users.findFirst(user -> user.getEmail().equals(email));
         } catch (Exception e) {
             System.err.println("Error finding user by email: " + e.getMessage());
             return Optional.empty();
@@ -129,10 +112,9 @@ public class UserDAO {
      */
     public List<Customer> findAllCustomers() {
         try {
-            List<User> users = dataManager.loadUsers();
             List<Customer> customers = new ArrayList<>();
             
-            for (User user : users) {
+            for (User user : users.findAll(user -> user instanceof Customer)) {
                 if (user instanceof Customer) {
                     customers.add((Customer) user);
                 }
@@ -151,10 +133,9 @@ public class UserDAO {
      */
     public List<Admin> findAllAdmins() {
         try {
-            List<User> users = dataManager.loadUsers();
             List<Admin> admins = new ArrayList<>();
             
-            for (User user : users) {
+            for (User user : users.findAll(user -> user instanceof Admin)) {
                 if (user instanceof Admin) {
                     admins.add((Admin) user);
                 }
@@ -174,11 +155,8 @@ public class UserDAO {
      */
     public boolean deleteById(String userId) {
         try {
-            List<User> users = dataManager.loadUsers();
-            boolean removed = users.removeIf(user -> user.getUserId().equals(userId));
-            
-            if (removed) {
-                return dataManager.saveUsers(users);
+            if (users.findById(userId).isPresent()) {
+                return users.delete(userId);
             }
             
             return false; // User not found
@@ -194,7 +172,7 @@ public class UserDAO {
      */
     public List<User> findAll() {
         try {
-            return dataManager.loadUsers();
+            return users.findAll();
         } catch (Exception e) {
             System.err.println("Error finding all users: " + e.getMessage());
             return new ArrayList<>();
@@ -0,0 +1,92 @@
+package dao;
+
+import java.util.List;
+import java.util.Optional;
+
+import model.Admin;
+import model.Customer;
+import model.User;
+
+/**
+ * Storage operations for users, implemented by each storage backend
+ */
+public interface UserRepository {
+
+    /**
+     * Save a new user
+     * @param user User to save
+     * @return true if save successful
+     */
+    boolean save(User user);
+
+    /**
+     * Update an existing user
+     * @param user User to update
+     * @return true if update successful
+     */
+    boolean update(User user);
+
+    /**
+     * Find user by ID
+     * @param userId User ID
+     * @return User if found
+     */
+    Optional<User> findById(String userId);
+
+    /**
+     * Find user by username
+     * @param username Username
+     * @return User if found
+     */
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Find user by email
+     * @param email Email address
+     * @return User if found
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Check if username exists
+     * @param username Username to check
+     * @return true if exists
+     */
+    default boolean existsByUsername(String username) {
+        return findByUsername(username).isPresent();
+    }
+
+    /**
+     * Check if email exists
+     * @param email Email to check
+     * @return true if exists
+     */
+    default boolean existsByEmail(String email) {
+        return findByEmail(email).isPresent();
+    }
+
+    /**
+     * Get all customers
+     * @return List of customers
+     */
+    List<Customer> findAllCustomers();
+
+    /**
+     * Get all admins
+     * @return List of admins
+     */
+    List<Admin> findAllAdmins();
+
+    /**
+     * Delete user by ID
+     * @param userId User ID
+     * @return true if deletion successful
+     */
+    boolean deleteById(String userId);
+
+    /**
+     * Get all users
+     * @return List of all users
+     */
+    List<User> findAll();
+}
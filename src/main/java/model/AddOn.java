@@ -52,29 +52,3 @@ public class AddOn {
                 '}';
     }
 }
-
-/**
- * Enum for add-on categories
- */
-enum AddOnCategory {
-    BAGGAGE("Extra Baggage"),
-    SEAT("Seat Selection"),
-    MEAL("Meal Upgrade"),
-    INSURANCE("Travel Insurance"),
-    LOUNGE("Lounge Access");
-
-    private final String displayName;
-
-    AddOnCategory(String displayName) {
-        this.displayName = displayName;
-    }
-
-    public String getDisplayName() {
-        return displayName;
-    }
-
-    @Override
-    public String toString() {
-        return displayName;
-    }
-} 
\ No newline at end of file
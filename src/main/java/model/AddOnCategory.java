@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * Enum for add-on categories
+ */
+public enum AddOnCategory {
+    BAGGAGE("Extra Baggage"),
+    SEAT("Seat Selection"),
+    MEAL("Meal Upgrade"),
+    INSURANCE("Travel Insurance"),
+    LOUNGE("Lounge Access");
+
+    private final String displayName;
+
+    AddOnCategory(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
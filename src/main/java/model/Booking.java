@@ -23,6 +23,7 @@ public class Booking {
     private LocalDateTime confirmationDate;
     private String bookingReference;
     private LocalDateTime cancellationDate;
+    private LocalDateTime holdExpiresAt; // When an unpaid booking's seat hold runs out; null once settled
 
     public Booking() {
         this.bookingDate = LocalDateTime.now();
@@ -137,6 +138,9 @@ public class Booking {
     public String getBookingReference() { return bookingReference; }
     public void setBookingReference(String bookingReference) { this.bookingReference = bookingReference; }
 
+    public LocalDateTime getHoldExpiresAt() { return holdExpiresAt; }
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) { this.holdExpiresAt = holdExpiresAt; }
+
     public LocalDateTime getCancellationDate() { return cancellationDate; }
     public void setCancellationDate(LocalDateTime cancellationDate) { this.cancellationDate = cancellationDate; }
 
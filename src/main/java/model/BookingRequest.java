@@ -0,0 +1,44 @@
+package model;
+
+import java.util.List;
+
+/**
+ * One booking to be created as part of a batch, e.g. one party of a group or charter reservation.
+ */
+public class BookingRequest {
+    private Customer customer;
+    private Flight flight;
+    private List<Passenger> passengers;
+    private PaymentDetails paymentDetails;
+    private SeatPreference seatPreference;
+
+    public BookingRequest() {
+        this.seatPreference = SeatPreference.NO_PREFERENCE;
+    }
+
+    public BookingRequest(Customer customer, Flight flight, List<Passenger> passengers, PaymentDetails paymentDetails) {
+        this();
+        this.customer = customer;
+        this.flight = flight;
+        this.passengers = passengers;
+        this.paymentDetails = paymentDetails;
+    }
+
+    // Getters and Setters
+    public Customer getCustomer() { return customer; }
+    public void setCustomer(Customer customer) { this.customer = customer; }
+
+    public Flight getFlight() { return flight; }
+    public void setFlight(Flight flight) { this.flight = flight; }
+
+    public List<Passenger> getPassengers() { return passengers; }
+    public void setPassengers(List<Passenger> passengers) { this.passengers = passengers; }
+
+    public PaymentDetails getPaymentDetails() { return paymentDetails; }
+    public void setPaymentDetails(PaymentDetails paymentDetails) { this.paymentDetails = paymentDetails; }
+
+    public SeatPreference getSeatPreference() { return seatPreference; }
+    public void setSeatPreference(SeatPreference seatPreference) {
+        this.seatPreference = seatPreference != null ? seatPreference : SeatPreference.NO_PREFERENCE;
+    }
+}
@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * Outcome of one request in a batch of bookings: the created booking, or why it was rejected.
+ */
+public class BookingResult {
+    private final BookingRequest request;
+    private final Booking booking;
+    private final String message;
+
+    private BookingResult(BookingRequest request, Booking booking, String message) {
+        this.request = request;
+        this.booking = booking;
+        this.message = message;
+    }
+
+    public static BookingResult success(BookingRequest request, Booking booking) {
+        return new BookingResult(request, booking, "Booking created");
+    }
+
+    public static BookingResult failure(BookingRequest request, String message) {
+        return new BookingResult(request, null, message);
+    }
+
+    public boolean isSuccess() { return booking != null; }
+
+    public BookingRequest getRequest() { return request; }
+
+    public Booking getBooking() { return booking; }
+
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Booking " + booking.getBookingId() : "Rejected: " + message;
+    }
+}
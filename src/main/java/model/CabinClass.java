@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Enum for cabin classes
+ */
+public enum CabinClass {
+    ECONOMY("Economy"),
+    BUSINESS("Business");
+
+    private final String displayName;
+
+    CabinClass(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Find the cabin class shown with the given name, e.g. a seat map cabin name
+     * @param displayName Display name
+     * @return Matching cabin class, or ECONOMY if none matches
+     */
+    public static CabinClass fromDisplayName(String displayName) {
+        for (CabinClass cabinClass : values()) {
+            if (cabinClass.displayName.equalsIgnoreCase(displayName)) {
+                return cabinClass;
+            }
+        }
+        return ECONOMY;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,42 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Cheapest fare of one day in a route's fare calendar.
+ */
+public class DayFare {
+    private final LocalDate date;
+    private final Flight cheapestFlight;
+    private final double lowestFare;
+    private final int flightCount;
+
+    public DayFare(LocalDate date, Flight cheapestFlight, double lowestFare, int flightCount) {
+        this.date = date;
+        this.cheapestFlight = cheapestFlight;
+        this.lowestFare = lowestFare;
+        this.flightCount = flightCount;
+    }
+
+    /**
+     * @return true if at least one flight that day has enough seats
+     */
+    public boolean isAvailable() {
+        return cheapestFlight != null;
+    }
+
+    // Getters
+    public LocalDate getDate() { return date; }
+    public Flight getCheapestFlight() { return cheapestFlight; }
+    public double getLowestFare() { return lowestFare; }
+    public int getFlightCount() { return flightCount; }
+
+    @Override
+    public String toString() {
+        return "DayFare{" +
+                "date=" + date +
+                ", lowestFare=" + (isAvailable() ? lowestFare : "none") +
+                ", flights=" + flightCount +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Precomputed adult fares of one flight, per cabin class, before passenger discounts,
+ * add-ons and taxes. Quotes are immutable; a new quote replaces the old one when the
+ * flight is edited or moves into another demand bucket. The seat counts are those at the
+ * time the quote was computed.
+ */
+public class FareQuote {
+    private final String flightNumber;
+    private final Map<CabinClass, Double> fares;
+    private final int availableSeats;
+    private final int totalSeats;
+    private final double demandMultiplier;
+    private final LocalDateTime validUntil;
+    private final LocalDateTime computedAt;
+
+    public FareQuote(String flightNumber, Map<CabinClass, Double> fares, int availableSeats, int totalSeats,
+                     double demandMultiplier, LocalDateTime validUntil) {
+        this.flightNumber = flightNumber;
+        this.fares = Collections.unmodifiableMap(new EnumMap<>(fares));
+        this.availableSeats = availableSeats;
+        this.totalSeats = totalSeats;
+        this.demandMultiplier = demandMultiplier;
+        this.validUntil = validUntil;
+        this.computedAt = LocalDateTime.now();
+    }
+
+    /**
+     * @param cabinClass Cabin class
+     * @return Adult fare in the cabin, or the economy fare if the cabin was not quoted
+     */
+    public double getFare(CabinClass cabinClass) {
+        Double fare = fares.get(cabinClass);
+        return fare != null ? fare : fares.getOrDefault(CabinClass.ECONOMY, 0.0);
+    }
+
+    /**
+     * @return Lowest adult fare on the flight, e.g. for "from" prices in search results
+     */
+    public double getLowestFare() {
+        return fares.values().stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
+    }
+
+    /**
+     * @return Share of seats sold when the quote was computed, from 0 to 1
+     */
+    public double getLoadFactor() {
+        return totalSeats > 0 ? 1.0 - (double) availableSeats / totalSeats : 0.0;
+    }
+
+    // Getters
+    public String getFlightNumber() { return flightNumber; }
+    public Map<CabinClass, Double> getFares() { return fares; }
+    public int getAvailableSeats() { return availableSeats; }
+    public int getTotalSeats() { return totalSeats; }
+    public double getDemandMultiplier() { return demandMultiplier; }
+    // Time the flight enters its next time-to-departure bucket, or null if its fares never change with time
+    public LocalDateTime getValidUntil() { return validUntil; }
+    public LocalDateTime getComputedAt() { return computedAt; }
+
+    @Override
+    public String toString() {
+        return "FareQuote{" +
+                "flightNumber='" + flightNumber + '\'' +
+                ", fares=" + fares +
+                ", availableSeats=" + availableSeats +
+                ", demandMultiplier=" + demandMultiplier +
+                '}';
+    }
+}
@@ -45,6 +45,29 @@ public class Flight {
         calculateDuration();
     }
 
+    /**
+     * Copy another flight
+     * @param other Flight to copy
+     */
+    public Flight(Flight other) {
+        this.flightId = other.flightId;
+        this.flightNumber = other.flightNumber;
+        this.airline = other.airline;
+        this.departureAirport = other.departureAirport;
+        this.arrivalAirport = other.arrivalAirport;
+        this.departureTime = other.departureTime;
+        this.arrivalTime = other.arrivalTime;
+        this.basePrice = other.basePrice;
+        this.economyPrice = other.economyPrice;
+        this.businessPrice = other.businessPrice;
+        this.totalSeats = other.totalSeats;
+        this.availableSeats = other.availableSeats;
+        this.status = other.status;
+        this.aircraft = other.aircraft;
+        this.duration = other.duration;
+        this.notes = other.notes;
+    }
+
     /**
      * Calculate flight duration in hours
      */
@@ -0,0 +1,59 @@
+package model;
+
+/**
+ * Enum for the filters that narrow flight search results
+ */
+public enum FlightFilter {
+    ALL("All Flights"),
+    DIRECT("Direct Flights Only"),
+    MORNING("Morning Flights"),
+    EVENING("Evening Flights");
+
+    private final String displayName;
+
+    FlightFilter(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Check if a flight passes this filter
+     * @param flight Flight to check
+     * @return true if the flight is kept
+     */
+    public boolean matches(Flight flight) {
+        switch (this) {
+            case MORNING:
+                return flight.getDepartureTime() != null && flight.getDepartureTime().getHour() < 12;
+            case EVENING:
+                return flight.getDepartureTime() != null && flight.getDepartureTime().getHour() >= 18;
+            case DIRECT:
+                // Every stored flight is a single direct leg
+            case ALL:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Find the filter shown with the given name, e.g. a filter combo box value
+     * @param displayName Display name
+     * @return Matching filter, or ALL if none matches
+     */
+    public static FlightFilter fromDisplayName(String displayName) {
+        for (FlightFilter filter : values()) {
+            if (filter.displayName.equalsIgnoreCase(displayName)) {
+                return filter;
+            }
+        }
+        return ALL;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,41 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of flight search results and the token that continues after it.
+ */
+public class FlightPage {
+    private final List<Flight> flights;
+    private final String nextPageToken;
+    private final int matchCount;
+
+    public FlightPage(List<Flight> flights, String nextPageToken, int matchCount) {
+        this.flights = Collections.unmodifiableList(flights);
+        this.nextPageToken = nextPageToken;
+        this.matchCount = matchCount;
+    }
+
+    /**
+     * @return true if there are more results after this page
+     */
+    public boolean hasMore() {
+        return nextPageToken != null;
+    }
+
+    // Getters
+    public List<Flight> getFlights() { return flights; }
+    public String getNextPageToken() { return nextPageToken; }
+    /** @return Number of flights the query matched when its results were last computed */
+    public int getMatchCount() { return matchCount; }
+
+    @Override
+    public String toString() {
+        return "FlightPage{" +
+                "flights=" + flights.size() +
+                ", matches=" + matchCount +
+                ", hasMore=" + hasMore() +
+                '}';
+    }
+}
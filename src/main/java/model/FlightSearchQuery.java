@@ -0,0 +1,91 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * What a flight search asks for: a route and day, or every flight, with a filter and sort order.
+ */
+public class FlightSearchQuery {
+    private final String origin;
+    private final String destination;
+    private final LocalDate departureDate;
+    private final int passengers;
+    private final FlightFilter filter;
+    private final FlightSortKey sortKey;
+
+    /**
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param departureDate Departure date
+     * @param passengers Number of passengers that must fit on the flight
+     * @param filter Filter to apply, ALL if null
+     * @param sortKey Sort order, or null to list flights by flight ID
+     */
+    public FlightSearchQuery(String origin, String destination, LocalDate departureDate, int passengers,
+                             FlightFilter filter, FlightSortKey sortKey) {
+        this.origin = origin;
+        this.destination = destination;
+        this.departureDate = departureDate;
+        this.passengers = passengers;
+        this.filter = filter != null ? filter : FlightFilter.ALL;
+        this.sortKey = sortKey;
+    }
+
+    /**
+     * Query for every flight regardless of route, date or status, as shown before any search
+     */
+    public static FlightSearchQuery allFlights(FlightFilter filter, FlightSortKey sortKey) {
+        return new FlightSearchQuery(null, null, null, 0, filter, sortKey);
+    }
+
+    /**
+     * @return The same search with another filter and sort order
+     */
+    public FlightSearchQuery withView(FlightFilter filter, FlightSortKey sortKey) {
+        return new FlightSearchQuery(origin, destination, departureDate, passengers, filter, sortKey);
+    }
+
+    /**
+     * @return true if the query is for one route and day, false if it lists every flight
+     */
+    public boolean isRouteSearch() {
+        return origin != null && destination != null && departureDate != null;
+    }
+
+    // Getters
+    public String getOrigin() { return origin; }
+    public String getDestination() { return destination; }
+    public LocalDate getDepartureDate() { return departureDate; }
+    public int getPassengers() { return passengers; }
+    public FlightFilter getFilter() { return filter; }
+    public FlightSortKey getSortKey() { return sortKey; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FlightSearchQuery)) return false;
+        FlightSearchQuery that = (FlightSearchQuery) o;
+        return passengers == that.passengers
+                && Objects.equals(origin, that.origin)
+                && Objects.equals(destination, that.destination)
+                && Objects.equals(departureDate, that.departureDate)
+                && filter == that.filter
+                && sortKey == that.sortKey;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(origin, destination, departureDate, passengers, filter, sortKey);
+    }
+
+    @Override
+    public String toString() {
+        return "FlightSearchQuery{" +
+                "route=" + (isRouteSearch() ? origin + "-" + destination + " on " + departureDate : "all") +
+                ", passengers=" + passengers +
+                ", filter=" + filter.name() +
+                ", sort=" + (sortKey != null ? sortKey.name() : "flight ID") +
+                '}';
+    }
+}
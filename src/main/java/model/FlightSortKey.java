@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * Enum for the orders flight search results can be listed in
+ */
+public enum FlightSortKey {
+    PRICE_LOW_TO_HIGH("Price (Low to High)"),
+    PRICE_HIGH_TO_LOW("Price (High to Low)"),
+    DEPARTURE_TIME("Departure Time"),
+    DURATION("Duration");
+
+    private final String displayName;
+
+    FlightSortKey(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Find the sort order shown with the given name, e.g. a sort combo box value
+     * @param displayName Display name
+     * @return Matching sort order, or null to list flights by flight ID
+     */
+    public static FlightSortKey fromDisplayName(String displayName) {
+        for (FlightSortKey sortKey : values()) {
+            if (sortKey.displayName.equalsIgnoreCase(displayName)) {
+                return sortKey;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,64 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A journey of one or more connecting flights from an origin to a destination.
+ */
+public class Itinerary {
+    private final List<Flight> legs;
+    private final double totalPrice;
+
+    public Itinerary(List<Flight> legs, double totalPrice) {
+        this.legs = Collections.unmodifiableList(legs);
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * @return Number of connections, 0 for a direct flight
+     */
+    public int getStops() {
+        return legs.size() - 1;
+    }
+
+    /**
+     * @return Time from the first departure to the last arrival, including connections
+     */
+    public Duration getTotalDuration() {
+        return Duration.between(getDepartureTime(), getArrivalTime());
+    }
+
+    public String getOrigin() {
+        return legs.get(0).getDepartureAirport();
+    }
+
+    public String getDestination() {
+        return legs.get(legs.size() - 1).getArrivalAirport();
+    }
+
+    public LocalDateTime getDepartureTime() {
+        return legs.get(0).getDepartureTime();
+    }
+
+    public LocalDateTime getArrivalTime() {
+        return legs.get(legs.size() - 1).getArrivalTime();
+    }
+
+    // Getters
+    public List<Flight> getLegs() { return legs; }
+    public double getTotalPrice() { return totalPrice; }
+
+    @Override
+    public String toString() {
+        return "Itinerary{" +
+                "legs=" + legs.stream().map(Flight::getFlightNumber).collect(Collectors.joining(" > ")) +
+                ", stops=" + getStops() +
+                ", duration=" + getTotalDuration() +
+                ", price=" + totalPrice +
+                '}';
+    }
+}
@@ -83,27 +83,3 @@ public class Passenger {
                 '}';
     }
 }
-
-/**
- * Enum for passenger types
- */
-enum PassengerType {
-    ADULT("Adult"),
-    CHILD("Child"),
-    INFANT("Infant");
-
-    private final String displayName;
-
-    PassengerType(String displayName) {
-        this.displayName = displayName;
-    }
-
-    public String getDisplayName() {
-        return displayName;
-    }
-
-    @Override
-    public String toString() {
-        return displayName;
-    }
-} 
\ No newline at end of file
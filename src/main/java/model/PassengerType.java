@@ -0,0 +1,25 @@
+package model;
+
+/**
+ * Enum for passenger types
+ */
+public enum PassengerType {
+    ADULT("Adult"),
+    CHILD("Child"),
+    INFANT("Infant");
+
+    private final String displayName;
+
+    PassengerType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -130,28 +130,3 @@ enum PaymentMethod {
         return displayName;
     }
 }
-
-/**
- * Enum for payment status
- */
-enum PaymentStatus {
-    PENDING("Pending"),
-    COMPLETED("Completed"),
-    FAILED("Failed"),
-    REFUNDED("Refunded");
-
-    private final String displayName;
-
-    PaymentStatus(String displayName) {
-        this.displayName = displayName;
-    }
-
-    public String getDisplayName() {
-        return displayName;
-    }
-
-    @Override
-    public String toString() {
-        return displayName;
-    }
-} 
\ No newline at end of file
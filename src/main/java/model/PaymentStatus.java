@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * Enum for payment status
+ */
+public enum PaymentStatus {
+    PENDING("Pending"),
+    COMPLETED("Completed"),
+    FAILED("Failed"),
+    REFUNDED("Refunded");
+
+    private final String displayName;
+
+    PaymentStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Price of a booking split into its parts, as shown on the payment screen.
+ */
+public class PriceBreakdown {
+    private final double fares;
+    private final double addOns;
+    private final double taxes;
+
+    public PriceBreakdown(double fares, double addOns, double taxes) {
+        this.fares = fares;
+        this.addOns = addOns;
+        this.taxes = taxes;
+    }
+
+    /**
+     * @return Amount payable: fares, add-ons and taxes
+     */
+    public double getTotal() {
+        return fares + addOns + taxes;
+    }
+
+    // Getters
+    public double getFares() { return fares; }
+    public double getAddOns() { return addOns; }
+    public double getTaxes() { return taxes; }
+
+    @Override
+    public String toString() {
+        return "PriceBreakdown{" +
+                "fares=" + fares +
+                ", addOns=" + addOns +
+                ", taxes=" + taxes +
+                ", total=" + getTotal() +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Enum for the ways flight fares react to demand
+ */
+public enum PricingMode {
+    STANDARD("Standard"),
+    DEMAND("Demand-based");
+
+    private final String displayName;
+
+    PricingMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Find a mode by name or display name, e.g. from a system property
+     * @param name Name such as "demand"
+     * @return Matching mode, or STANDARD if none matches
+     */
+    public static PricingMode fromName(String name) {
+        for (PricingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name) || mode.displayName.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return STANDARD;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * What happened to one booking when its flight was cancelled.
+ */
+public class RebookingOutcome {
+    private final String bookingId;
+    private final int passengers;
+    private final RebookingStatus status;
+    private final String newFlightNumber;
+    private final String message;
+
+    public RebookingOutcome(String bookingId, int passengers, RebookingStatus status,
+                            String newFlightNumber, String message) {
+        this.bookingId = bookingId;
+        this.passengers = passengers;
+        this.status = status;
+        this.newFlightNumber = newFlightNumber;
+        this.message = message;
+    }
+
+    public String getBookingId() { return bookingId; }
+
+    public int getPassengers() { return passengers; }
+
+    public RebookingStatus getStatus() { return status; }
+
+    public String getNewFlightNumber() { return newFlightNumber; }
+
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return bookingId + ": " + status + (newFlightNumber != null ? " to " + newFlightNumber : "")
+            + (message != null ? " (" + message + ")" : "");
+    }
+}
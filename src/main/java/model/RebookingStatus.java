@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * Enum for the outcome of moving a booking off a cancelled flight
+ */
+public enum RebookingStatus {
+    REBOOKED("Rebooked"),
+    CANCELLED("Cancelled - no alternative flight"),
+    SKIPPED("Skipped"),
+    FAILED("Failed");
+
+    private final String displayName;
+
+    RebookingStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,415 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Seat occupancy of one flight.
+ * The cabin layout (rows, seat letters and aisles) is derived from the aircraft type and
+ * total seat count, so only the occupancy needs storing: one bit per seat, with each cabin
+ * occupying a contiguous range of the flight's bitset. Claiming or releasing a seat is a
+ * single bit operation.
+ */
+public class SeatMap {
+    // Seat letters per row; a space marks an aisle
+    private static final String NARROW_BUSINESS = "AC DF";
+    private static final String NARROW_ECONOMY = "ABC DEF";
+    private static final String WIDE_BUSINESS = "AC DG HK";
+    private static final String WIDE_ECONOMY = "ABC DEF HJK";
+    private static final String JUMBO_ECONOMY = "ABC DEFG HJK";
+
+    // Smaller aircraft are configured as a single economy cabin
+    private static final int MIN_SEATS_FOR_BUSINESS = 100;
+
+    private final String flightId;
+    private final String aircraft;
+    private final int totalSeats;
+    private final List<Cabin> cabins = new ArrayList<>();
+    private final BitSet occupied;
+
+    public SeatMap(String flightId, String aircraft, int totalSeats) {
+        this.flightId = flightId;
+        this.aircraft = aircraft;
+        this.totalSeats = Math.max(0, totalSeats);
+        this.occupied = new BitSet(this.totalSeats);
+        buildCabins();
+    }
+
+    /**
+     * Create an empty seat map for a flight
+     * @param flight Flight
+     * @return Seat map with every seat free
+     */
+    public static SeatMap forFlight(Flight flight) {
+        return new SeatMap(flight.getFlightId(), flight.getAircraft(), flight.getTotalSeats());
+    }
+
+    private void buildCabins() {
+        String type = aircraft != null ? aircraft.toUpperCase() : "";
+        String businessLayout = NARROW_BUSINESS;
+        String economyLayout = NARROW_ECONOMY;
+        int businessRows = 3;
+        if (type.contains("777") || type.contains("747") || type.contains("A380")) {
+            businessLayout = WIDE_BUSINESS;
+            economyLayout = JUMBO_ECONOMY;
+            businessRows = 4;
+        } else if (type.contains("787") || type.contains("767") || type.contains("A330")
+                   || type.contains("A340") || type.contains("A350")) {
+            businessLayout = WIDE_BUSINESS;
+            economyLayout = WIDE_ECONOMY;
+            businessRows = 4;
+        }
+
+        int businessSeats = 0;
+        if (totalSeats >= MIN_SEATS_FOR_BUSINESS) {
+            businessSeats = businessRows * businessLayout.replace(" ", "").length();
+        }
+        int nextRow = 1;
+        if (businessSeats > 0) {
+            Cabin business = new Cabin("Business", nextRow, businessLayout, 0, businessSeats);
+            cabins.add(business);
+            nextRow += business.rows;
+        }
+        cabins.add(new Cabin("Economy", nextRow, economyLayout, businessSeats, totalSeats - businessSeats));
+    }
+
+    // ==================== SEAT OPERATIONS ====================
+
+    /**
+     * Claim a specific seat
+     * @param seatNumber Seat label such as "12C"
+     * @return true if the seat exists and was free
+     */
+    public synchronized boolean claim(String seatNumber) {
+        int index = indexOf(seatNumber);
+        if (index < 0 || occupied.get(index)) {
+            return false;
+        }
+        occupied.set(index);
+        return true;
+    }
+
+    /**
+     * Release a specific seat
+     * @param seatNumber Seat label
+     * @return true if the seat exists and was occupied
+     */
+    public synchronized boolean release(String seatNumber) {
+        int index = indexOf(seatNumber);
+        if (index < 0 || !occupied.get(index)) {
+            return false;
+        }
+        occupied.clear(index);
+        return true;
+    }
+
+    /**
+     * @param seatNumber Seat label
+     * @return true if the seat exists and is occupied
+     */
+    public synchronized boolean isOccupied(String seatNumber) {
+        int index = indexOf(seatNumber);
+        return index >= 0 && occupied.get(index);
+    }
+
+    /**
+     * Claim seats for a party: adjacent seats in one row when possible, otherwise the
+     * best individual seats. Nothing is claimed if there are not enough free seats.
+     * @param count Number of seats
+     * @param preference Preferred seat type
+     * @return Claimed seat labels, empty if the party does not fit
+     */
+    public synchronized List<String> claimSeats(int count, SeatPreference preference) {
+        if (count <= 0 || getFreeCount() < count) {
+            return Collections.emptyList();
+        }
+        List<String> seats = findAdjacent(count, preference);
+        if (seats.isEmpty()) {
+            seats = new ArrayList<>();
+            BitSet taken = (BitSet) occupied.clone();
+            for (int i = 0; i < count; i++) {
+                int index = nextFree(taken, preference);
+                taken.set(index);
+                seats.add(labelOf(index));
+            }
+        }
+        for (String seat : seats) {
+            occupied.set(indexOf(seat));
+        }
+        return seats;
+    }
+
+    /**
+     * Find a run of free, adjacent seats in one row without crossing an aisle.
+     * Runs containing a seat of the preferred type are returned first.
+     * @param count Number of seats
+     * @param preference Preferred seat type
+     * @return Seat labels of the first matching run, empty if none exists
+     */
+    public synchronized List<String> findAdjacent(int count, SeatPreference preference) {
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        if (preference != null && preference != SeatPreference.NO_PREFERENCE) {
+            List<String> preferred = scanAdjacent(count, preference);
+            if (!preferred.isEmpty()) {
+                return preferred;
+            }
+        }
+        return scanAdjacent(count, null);
+    }
+
+    /**
+     * Find the first free seat of the preferred type, or any free seat
+     * @param preference Preferred seat type
+     * @return Seat label, empty if the flight is full
+     */
+    public synchronized Optional<String> findFree(SeatPreference preference) {
+        if (getFreeCount() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(labelOf(nextFree(occupied, preference)));
+    }
+
+    /**
+     * @return Labels of every occupied seat in cabin order
+     */
+    public synchronized List<String> getOccupiedSeats() {
+        List<String> seats = new ArrayList<>(occupied.cardinality());
+        for (int i = occupied.nextSetBit(0); i >= 0; i = occupied.nextSetBit(i + 1)) {
+            seats.add(labelOf(i));
+        }
+        return seats;
+    }
+
+    /**
+     * @return Number of occupied seats
+     */
+    public synchronized int getOccupiedCount() {
+        return occupied.cardinality();
+    }
+
+    /**
+     * @return Number of free seats
+     */
+    public synchronized int getFreeCount() {
+        return totalSeats - occupied.cardinality();
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    /**
+     * @return Occupancy bits, one per seat in cabin order
+     */
+    public synchronized byte[] toByteArray() {
+        return occupied.toByteArray();
+    }
+
+    /**
+     * Replace the occupancy with stored bits; bits beyond the seat count are ignored
+     * @param bits Bits from {@link #toByteArray()}
+     */
+    public synchronized void loadOccupancy(byte[] bits) {
+        occupied.clear();
+        if (bits != null) {
+            BitSet stored = BitSet.valueOf(bits);
+            for (int i = stored.nextSetBit(0); i >= 0 && i < totalSeats; i = stored.nextSetBit(i + 1)) {
+                occupied.set(i);
+            }
+        }
+    }
+
+    // ==================== LAYOUT ====================
+
+    /**
+     * Resolve a seat label to its bit index
+     * @param seatNumber Seat label such as "12C"
+     * @return Bit index, or -1 if the seat does not exist
+     */
+    public int indexOf(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() < 2) {
+            return -1;
+        }
+        String label = seatNumber.trim().toUpperCase();
+        char letter = label.charAt(label.length() - 1);
+        int row;
+        try {
+            row = Integer.parseInt(label.substring(0, label.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        for (Cabin cabin : cabins) {
+            if (row >= cabin.firstRow && row < cabin.firstRow + cabin.rows) {
+                int column = cabin.letters.indexOf(letter);
+                if (column < 0) {
+                    return -1;
+                }
+                int offset = (row - cabin.firstRow) * cabin.letters.length() + column;
+                return offset < cabin.seatCount ? cabin.startIndex + offset : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param index Bit index
+     * @return Seat label for the index
+     */
+    public String labelOf(int index) {
+        Cabin cabin = cabinOf(index);
+        int offset = index - cabin.startIndex;
+        int width = cabin.letters.length();
+        return (cabin.firstRow + offset / width) + String.valueOf(cabin.letters.charAt(offset % width));
+    }
+
+    /**
+     * @param seatNumber Seat label
+     * @return Window, aisle or middle, or empty if the seat does not exist
+     */
+    public Optional<SeatPreference> seatTypeOf(String seatNumber) {
+        int index = indexOf(seatNumber);
+        return index >= 0 ? Optional.of(typeOf(index)) : Optional.empty();
+    }
+
+    /**
+     * @param seatNumber Seat label
+     * @return Name of the cabin containing the seat, or empty if the seat does not exist
+     */
+    public Optional<String> cabinOf(String seatNumber) {
+        int index = indexOf(seatNumber);
+        return index >= 0 ? Optional.of(cabinOf(index).name) : Optional.empty();
+    }
+
+    private Cabin cabinOf(int index) {
+        for (Cabin cabin : cabins) {
+            if (index >= cabin.startIndex && index < cabin.startIndex + cabin.seatCount) {
+                return cabin;
+            }
+        }
+        throw new IndexOutOfBoundsException("Seat index " + index + " outside flight " + flightId);
+    }
+
+    private SeatPreference typeOf(int index) {
+        Cabin cabin = cabinOf(index);
+        return cabin.columnTypes[(index - cabin.startIndex) % cabin.letters.length()];
+    }
+
+    /**
+     * First seat not set in the given bits, preferring the requested seat type.
+     * The caller guarantees at least one free seat.
+     */
+    private int nextFree(BitSet taken, SeatPreference preference) {
+        if (preference != null && preference != SeatPreference.NO_PREFERENCE) {
+            for (int i = taken.nextClearBit(0); i < totalSeats; i = taken.nextClearBit(i + 1)) {
+                if (typeOf(i) == preference) {
+                    return i;
+                }
+            }
+        }
+        return taken.nextClearBit(0);
+    }
+
+    /**
+     * Slide a window of the requested size over every aisle-bounded block of every row
+     */
+    private List<String> scanAdjacent(int count, SeatPreference required) {
+        for (Cabin cabin : cabins) {
+            int width = cabin.letters.length();
+            for (int row = 0; row < cabin.rows; row++) {
+                int rowStart = cabin.startIndex + row * width;
+                for (int[] block : cabin.blocks) {
+                    int end = Math.min(block[1], cabin.startIndex + cabin.seatCount - rowStart);
+                    for (int first = block[0]; first + count <= end; first++) {
+                        if (isRunFree(rowStart + first, count) && (required == null || runHas(cabin, first, count, required))) {
+                            List<String> seats = new ArrayList<>(count);
+                            for (int i = 0; i < count; i++) {
+                                seats.add(labelOf(rowStart + first + i));
+                            }
+                            return seats;
+                        }
+                    }
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private boolean isRunFree(int start, int count) {
+        int nextTaken = occupied.nextSetBit(start);
+        return nextTaken < 0 || nextTaken >= start + count;
+    }
+
+    private boolean runHas(Cabin cabin, int firstColumn, int count, SeatPreference type) {
+        for (int column = firstColumn; column < firstColumn + count; column++) {
+            if (cabin.columnTypes[column] == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters
+
+    public String getFlightId() { return flightId; }
+
+    public String getAircraft() { return aircraft; }
+
+    public int getTotalSeats() { return totalSeats; }
+
+    /**
+     * @return Cabin names with their first row, e.g. "Business (rows 1-3)"
+     */
+    public List<String> getCabinDescriptions() {
+        List<String> descriptions = new ArrayList<>();
+        for (Cabin cabin : cabins) {
+            descriptions.add(cabin.name + " (rows " + cabin.firstRow + "-" + (cabin.firstRow + cabin.rows - 1) + ")");
+        }
+        return descriptions;
+    }
+
+    /**
+     * One cabin: a block of rows sharing a seat layout and a range of the occupancy bits
+     */
+    private static final class Cabin {
+        private final String name;
+        private final int firstRow;
+        private final int rows;
+        private final String letters;
+        private final SeatPreference[] columnTypes;
+        // [first column, end column) of each group of seats between aisles
+        private final List<int[]> blocks = new ArrayList<>();
+        private final int startIndex;
+        private final int seatCount;
+
+        Cabin(String name, int firstRow, String layout, int startIndex, int seatCount) {
+            this.name = name;
+            this.firstRow = firstRow;
+            this.letters = layout.replace(" ", "");
+            this.startIndex = startIndex;
+            this.seatCount = Math.max(0, seatCount);
+            this.rows = (this.seatCount + letters.length() - 1) / letters.length();
+
+            int column = 0;
+            for (String group : layout.split(" ")) {
+                blocks.add(new int[] { column, column + group.length() });
+                column += group.length();
+            }
+            int width = letters.length();
+            this.columnTypes = new SeatPreference[width];
+            for (int[] block : blocks) {
+                for (int c = block[0]; c < block[1]; c++) {
+                    if (c == 0 || c == width - 1) {
+                        columnTypes[c] = SeatPreference.WINDOW;
+                    } else if (c == block[0] || c == block[1] - 1) {
+                        columnTypes[c] = SeatPreference.AISLE;
+                    } else {
+                        columnTypes[c] = SeatPreference.MIDDLE;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * Enum for passenger seat preferences
+ */
+public enum SeatPreference {
+    WINDOW("Window"),
+    AISLE("Aisle"),
+    MIDDLE("Middle"),
+    NO_PREFERENCE("No Preference");
+
+    private final String displayName;
+
+    SeatPreference(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Find the preference shown with the given display name
+     * @param displayName Display name, e.g. from a combo box
+     * @return Matching preference, or NO_PREFERENCE if none matches
+     */
+    public static SeatPreference fromDisplayName(String displayName) {
+        for (SeatPreference preference : values()) {
+            if (preference.displayName.equalsIgnoreCase(displayName)) {
+                return preference;
+            }
+        }
+        return NO_PREFERENCE;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
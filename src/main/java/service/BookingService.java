@@ -1,30 +1,58 @@
 package service;
 
+import model.AddOn;
 import model.Booking;
 import model.Flight;
 import model.Customer;
 import model.Passenger;
 import model.PaymentDetails;
 import model.BookingStatus;
-import dao.BookingDAO;
-import dao.FlightDAO;
+import model.SeatPreference;
+import model.BookingRequest;
+import model.BookingResult;
+import model.RebookingOutcome;
+import model.RebookingStatus;
+import dao.BookingRepository;
+import dao.DAOFactory;
+import dao.Transaction;
+import dao.FlightRepository;
+import util.IdGenerator;
+import util.ReferenceGenerator;
+import util.StripedLockManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Service class for booking-related operations including booking creation, confirmation, and cancellation.
  */
 public class BookingService {
-    private BookingDAO bookingDAO;
-    private FlightDAO flightDAO;
-    private FlightService flightService;
+    // Length of PNR-style booking references
+    private static final int REFERENCE_LENGTH = 6;
+    // Number of booking references the collision filter is sized for, configurable with -Dpikachu.reference.capacity
+    private static final long REFERENCE_CAPACITY = Long.getLong("pikachu.reference.capacity", 1_000_000);
+
+    private static ReferenceGenerator referenceGenerator;
+
+    private BookingRepository bookingDAO;
+    private FlightRepository flightDAO;
+    private SeatInventory seatInventory;
+    private SeatMapService seatMapService;
+    private SeatHoldService seatHoldService;
+    private PricingService pricingService;
 
     public BookingService() {
-        this.bookingDAO = new BookingDAO();
-        this.flightDAO = new FlightDAO();
-        this.flightService = new FlightService();
+        this.bookingDAO = DAOFactory.bookings();
+        this.flightDAO = DAOFactory.flights();
+        this.seatInventory = SeatInventory.getInstance();
+        this.seatMapService = SeatMapService.getInstance();
+        this.seatHoldService = SeatHoldService.getInstance();
+        this.pricingService = PricingService.getInstance();
     }
 
     /**
@@ -36,46 +64,188 @@ public class BookingService {
      * @return Booking if successful, null otherwise
      */
     public Booking createBooking(Customer customer, Flight flight, List<Passenger> passengers, PaymentDetails paymentDetails) {
+        return createBooking(customer, flight, passengers, paymentDetails, SeatPreference.NO_PREFERENCE);
+    }
+
+    /**
+     * Create a new booking, seating the passengers according to a seat preference.
+     * The seats are held for a limited time; a booking that is not confirmed before
+     * the hold expires is cancelled and its seats are released.
+     * @param customer Customer making the booking
+     * @param flight Flight to book
+     * @param passengers List of passengers
+     * @param paymentDetails Payment information
+     * @param seatPreference Preferred seat type
+     * @return Booking if successful, null otherwise
+     */
+    public Booking createBooking(Customer customer, Flight flight, List<Passenger> passengers,
+                                 PaymentDetails paymentDetails, SeatPreference seatPreference) {
+        return createBooking(customer, flight, passengers, paymentDetails, seatPreference, new ArrayList<>());
+    }
+
+    /**
+     * Create a new booking with add-ons, seating the passengers according to a seat preference.
+     * The booking is priced by the pricing service once the passengers are seated.
+     * @param customer Customer making the booking
+     * @param flight Flight to book
+     * @param passengers List of passengers
+     * @param paymentDetails Payment information
+     * @param seatPreference Preferred seat type
+     * @param addOns Add-ons bought with the booking
+     * @return Booking if successful, null otherwise
+     */
+    public Booking createBooking(Customer customer, Flight flight, List<Passenger> passengers,
+                                 PaymentDetails paymentDetails, SeatPreference seatPreference, List<AddOn> addOns) {
         try {
             // Validate booking data
             if (!validateBookingData(customer, flight, passengers, paymentDetails)) {
                 return null;
             }
 
-            // Check seat availability
-            if (!flightService.checkSeatAvailability(flight.getFlightNumber(), passengers.size())) {
-                System.err.println("Not enough seats available");
-                return null;
+            // Bookings on the same flight are serialized; other flights proceed in parallel
+            return seatInventory.withFlightLocks(() -> {
+                // Check and reserve seats in one atomic step
+                if (!seatInventory.reserve(flight.getFlightId(), passengers.size())) {
+                    System.err.println("Not enough seats available");
+                    return null;
+                }
+
+                // Give each passenger a seat on the flight's seat map
+                if (!seatMapService.assignSeats(flight, passengers, seatPreference)) {
+                    System.err.println("No seats left on the seat map");
+                    seatInventory.release(flight.getFlightId(), passengers.size());
+                    return null;
+                }
+
+                // Create booking
+                Booking booking = newBooking(customer, flight, passengers, paymentDetails, addOns);
+
+                // Save the booking and the flight's new seat count in one transaction
+                if (seatInventory.commit(DAOFactory.beginTransaction().saveBooking(booking), flight.getFlightId())) {
+                    seatHoldService.placeHold(booking);
+                    return booking;
+                } else {
+                    // Release seats if booking failed
+                    seatInventory.release(flight.getFlightId(), passengers.size());
+                    seatMapService.releaseSeats(flight, passengers);
+                    return null;
+                }
+            }, flight.getFlightId());
+        } catch (Exception e) {
+            System.err.println("Error creating booking: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Create a batch of bookings, e.g. for a group or charter reservation.
+     * Every request is validated first, then the seats of all flights involved are reserved
+     * in one pass under the flights' locks and every booking is saved in a single transaction.
+     * Parties in a batch are not limited to 9 passengers; only the flight's capacity applies.
+     * @param requests Bookings to create
+     * @return One result per request, in request order
+     */
+    public List<BookingResult> createBookings(List<BookingRequest> requests) {
+        List<BookingResult> results = new ArrayList<>();
+        if (requests == null || requests.isEmpty()) {
+            return results;
+        }
+
+        // Validate everything before touching any inventory; results are kept by request index
+        Set<String> flightIds = new LinkedHashSet<>();
+        for (BookingRequest request : requests) {
+            if (request == null || !validateBookingData(request.getCustomer(), request.getFlight(),
+                                                        request.getPassengers(), request.getPaymentDetails(), Integer.MAX_VALUE)) {
+                results.add(BookingResult.failure(request, "Invalid booking data"));
+            } else {
+                results.add(null);
+                flightIds.add(request.getFlight().getFlightId());
             }
+        }
 
-            // Reserve seats
-            if (!flightService.reserveSeats(flight.getFlightNumber(), passengers.size())) {
-                System.err.println("Failed to reserve seats");
+        try {
+            seatInventory.withFlightLocks(() -> {
+                saveBatch(requests, results);
                 return null;
+            }, flightIds.toArray(new String[0]));
+        } catch (Exception e) {
+            System.err.println("Error creating bookings: " + e.getMessage());
+        }
+
+        // Requests an error kept from being reached still get a result
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, BookingResult.failure(requests.get(i), "Booking failed"));
             }
+        }
+        return results;
+    }
 
-            // Create booking
-            Booking booking = new Booking();
-            booking.setBookingId(generateBookingId());
-            booking.setCustomerId(customer.getUserId());
-            booking.setFlightId(flight.getFlightId());
-            booking.setPassengers(passengers);
-            booking.setPaymentDetails(paymentDetails);
-            booking.setBookingDate(LocalDateTime.now());
-            booking.setStatus(BookingStatus.PENDING);
-            booking.setTotalPrice(calculateTotalAmount(flight, passengers));
-
-            // Save booking
-            if (bookingDAO.save(booking)) {
-                return booking;
-            } else {
-                // Release seats if booking failed
-                flightService.releaseSeats(flight.getFlightNumber(), passengers.size());
-                return null;
+    /**
+     * Reserve, seat and save the requests of a batch that have no result yet; the caller holds
+     * the flights' locks. The bookings are saved in a single transaction. If that fails or an
+     * error interrupts the batch, every seat taken for it is given back and its bookings fail.
+     * @param requests Requests of the batch
+     * @param results Result of each request by index, null for those still to be booked
+     */
+    private void saveBatch(List<BookingRequest> requests, List<BookingResult> results) {
+        List<Integer> reserved = new ArrayList<>();
+        boolean committed = false;
+        try {
+            // Reserve and seat each party
+            Transaction transaction = DAOFactory.beginTransaction();
+            Set<String> bookedFlightIds = new LinkedHashSet<>();
+            for (int i = 0; i < requests.size(); i++) {
+                if (results.get(i) != null) {
+                    continue;
+                }
+                BookingRequest request = requests.get(i);
+                Flight flight = request.getFlight();
+                List<Passenger> passengers = request.getPassengers();
+                if (!seatInventory.reserve(flight.getFlightId(), passengers.size())) {
+                    results.set(i, BookingResult.failure(request, "Not enough seats available on " + flight.getFlightNumber()));
+                    continue;
+                }
+                if (!seatMapService.assignSeats(flight, passengers, request.getSeatPreference())) {
+                    seatInventory.release(flight.getFlightId(), passengers.size());
+                    results.set(i, BookingResult.failure(request, "No seats left on the seat map of " + flight.getFlightNumber()));
+                    continue;
+                }
+                reserved.add(i);
+                Booking booking = newBooking(request.getCustomer(), flight, passengers, request.getPaymentDetails(), new ArrayList<>());
+                transaction.saveBooking(booking);
+                bookedFlightIds.add(flight.getFlightId());
+                results.set(i, BookingResult.success(request, booking));
             }
+
+            // Save every booking and the new seat counts in one transaction
+            committed = reserved.isEmpty() || seatInventory.commit(transaction, bookedFlightIds.toArray(new String[0]));
+            if (!committed) {
+                releaseBatch(requests, results, reserved, "Bookings could not be saved");
+                return;
+            }
+            for (int i : reserved) {
+                seatHoldService.placeHold(results.get(i).getBooking());
+            }
+            System.out.println("Created " + reserved.size() + " of " + requests.size() + " bookings in batch");
         } catch (Exception e) {
-            System.err.println("Error creating booking: " + e.getMessage());
-            return null;
+            System.err.println("Error creating bookings: " + e.getMessage());
+            if (!committed) {
+                releaseBatch(requests, results, reserved, "Booking failed");
+            }
+        }
+    }
+
+    /**
+     * Give back the seats of a batch's unsaved bookings and fail them
+     */
+    private void releaseBatch(List<BookingRequest> requests, List<BookingResult> results,
+                              List<Integer> reserved, String message) {
+        for (int i : reserved) {
+            BookingRequest request = requests.get(i);
+            seatInventory.release(request.getFlight().getFlightId(), request.getPassengers().size());
+            seatMapService.releaseSeats(request.getFlight(), request.getPassengers());
+            results.set(i, BookingResult.failure(request, message));
         }
     }
 
@@ -85,23 +255,41 @@ public class BookingService {
      * @return true if confirmation successful
      */
     public boolean confirmBooking(String bookingId) {
-        try {
-            Optional<Booking> bookingOpt = bookingDAO.findById(bookingId);
-            if (bookingOpt.isEmpty()) {
+        // Hold the flight's lock so a cancellation or expiry cannot interleave with the confirmation
+        try (LockedBooking locked = lockBooking(bookingId)) {
+            if (locked == null) {
                 return false;
             }
 
-            Booking booking = bookingOpt.get();
+            Booking booking = locked.booking;
             if (booking.getStatus() != BookingStatus.PENDING) {
                 return false;
             }
 
             // Process payment (simplified)
             if (processPayment(booking.getPaymentDetails())) {
+                // An expired hold no longer owns the seats; expiry cancels the booking once it gets the lock
+                if (seatHoldService.isExpired(bookingId)) {
+                    System.err.println("Seat hold expired for booking " + bookingId);
+                    return false;
+                }
+                String previousReference = booking.getBookingReference();
+                LocalDateTime previousHoldExpiry = booking.getHoldExpiresAt();
                 booking.setStatus(BookingStatus.CONFIRMED);
                 booking.setConfirmationDate(LocalDateTime.now());
                 booking.setBookingReference(generateBookingReference());
-                return bookingDAO.update(booking);
+                booking.setHoldExpiresAt(null);
+                if (!bookingDAO.update(booking)) {
+                    booking.setStatus(BookingStatus.PENDING);
+                    booking.setConfirmationDate(null);
+                    booking.setBookingReference(previousReference);
+                    booking.setHoldExpiresAt(previousHoldExpiry);
+                    return false;
+                }
+
+                // Settle the hold only now; an expiry that fired meanwhile waits on the lock and finds the booking confirmed
+                seatHoldService.confirm(bookingId);
+                return true;
             }
 
             return false;
@@ -118,13 +306,12 @@ public class BookingService {
      * @return true if cancellation successful
      */
     public boolean cancelBooking(String bookingId, String customerId) {
-        try {
-            Optional<Booking> bookingOpt = bookingDAO.findById(bookingId);
-            if (bookingOpt.isEmpty()) {
+        try (LockedBooking locked = lockBooking(bookingId)) {
+            if (locked == null) {
                 return false;
             }
 
-            Booking booking = bookingOpt.get();
+            Booking booking = locked.booking;
             
             // Verify ownership
             if (!booking.getCustomerId().equals(customerId)) {
@@ -136,17 +323,38 @@ public class BookingService {
                 return false;
             }
 
+            // An expired hold cancels the booking and releases its seats itself
+            if (seatHoldService.isExpired(bookingId)) {
+                return false;
+            }
+
             // Release seats
             Optional<Flight> flightOpt = flightDAO.findById(booking.getFlightId());
-            if (flightOpt.isPresent()) {
-                flightService.releaseSeats(flightOpt.get().getFlightNumber(), booking.getPassengers().size());
+            String flightId = flightOpt.map(Flight::getFlightId).orElse(null);
+            int seats = booking.getPassengers().size();
+            if (flightId != null) {
+                seatInventory.release(flightId, seats);
             }
 
-            // Update booking status
+            // Save the cancellation and the released seat count in one transaction
+            BookingStatus previousStatus = booking.getStatus();
+            LocalDateTime previousHoldExpiry = booking.getHoldExpiresAt();
             booking.setStatus(BookingStatus.CANCELLED);
             booking.setCancellationDate(LocalDateTime.now());
-            
-            return bookingDAO.update(booking);
+            booking.setHoldExpiresAt(null);
+            if (seatInventory.commit(DAOFactory.beginTransaction().saveBooking(booking), flightId)) {
+                seatHoldService.release(bookingId);
+                flightOpt.ifPresent(flight -> seatMapService.releaseSeats(flight, booking.getPassengers()));
+                return true;
+            }
+
+            booking.setStatus(previousStatus);
+            booking.setCancellationDate(null);
+            booking.setHoldExpiresAt(previousHoldExpiry);
+            if (flightId != null) {
+                seatInventory.reserve(flightId, seats);
+            }
+            return false;
         } catch (Exception e) {
             System.err.println("Error cancelling booking: " + e.getMessage());
             return false;
@@ -180,6 +388,15 @@ public class BookingService {
         return bookingDAO.findByReference(bookingReference);
     }
 
+    /**
+     * Get the time a PENDING booking's seat hold runs out
+     * @param bookingId Booking ID
+     * @return Expiry time, or empty if the booking holds no seats
+     */
+    public Optional<LocalDateTime> getHoldExpiry(String bookingId) {
+        return seatHoldService.getExpiry(bookingId);
+    }
+
     /**
      * Get all bookings (for admin use)
      * @return List of all bookings
@@ -195,40 +412,261 @@ public class BookingService {
      * @return true if modification successful
      */
     public boolean modifyBooking(String bookingId, Flight newFlight) {
-        try {
-            Optional<Booking> bookingOpt = bookingDAO.findById(bookingId);
-            if (bookingOpt.isEmpty()) {
+        // Both flights stay locked until the move is committed
+        try (LockedBooking locked = lockBooking(bookingId, newFlight.getFlightId())) {
+            if (locked == null) {
                 return false;
             }
 
-            Booking booking = bookingOpt.get();
+            Booking booking = locked.booking;
+            if (booking.getStatus() == BookingStatus.CANCELLED) {
+                return false;
+            }
             
-            // Release seats from old flight
-            Optional<Flight> oldFlightOpt = flightDAO.findById(booking.getFlightId());
-            if (oldFlightOpt.isPresent()) {
-                flightService.releaseSeats(oldFlightOpt.get().getFlightNumber(), booking.getPassengers().size());
+            int seats = booking.getPassengers().size();
+
+            // Reserve seats on the new flight first so a failed move keeps the old seats
+            if (!seatInventory.reserve(newFlight.getFlightId(), seats)) {
+                return false;
             }
 
-            // Reserve seats on new flight
-            if (!flightService.reserveSeats(newFlight.getFlightNumber(), booking.getPassengers().size())) {
-                // Re-reserve seats on old flight if new reservation fails
-                if (oldFlightOpt.isPresent()) {
-                    flightService.reserveSeats(oldFlightOpt.get().getFlightNumber(), booking.getPassengers().size());
-                }
+            // Seat the passengers on the new flight, keeping their seat numbers where those are free
+            List<String> oldSeatNumbers = new ArrayList<>();
+            for (Passenger passenger : booking.getPassengers()) {
+                oldSeatNumbers.add(passenger.getSeatNumber());
+            }
+            if (!seatMapService.assignSeats(newFlight, booking.getPassengers(), SeatPreference.NO_PREFERENCE)) {
+                seatInventory.release(newFlight.getFlightId(), seats);
                 return false;
             }
 
-            // Update booking
+            // Release seats from old flight
+            Optional<Flight> oldFlightOpt = flightDAO.findById(booking.getFlightId());
+            String oldInventoryId = oldFlightOpt.map(Flight::getFlightId).orElse(null);
+            if (oldInventoryId != null) {
+                seatInventory.release(oldInventoryId, seats);
+            }
+
+            // Save the moved booking and both flights' seat counts in one transaction
+            String oldFlightId = booking.getFlightId();
+            double oldTotalAmount = booking.getTotalPrice();
             booking.setFlightId(newFlight.getFlightId());
-            booking.setTotalAmount(calculateTotalAmount(newFlight, booking.getPassengers()));
-            
-            return bookingDAO.update(booking);
+            booking.setTotalAmount(calculateTotalAmount(newFlight, booking.getPassengers(), booking.getAddOns()));
+            if (seatInventory.commit(DAOFactory.beginTransaction().saveBooking(booking),
+                                     newFlight.getFlightId(), oldInventoryId)) {
+                oldFlightOpt.ifPresent(flight -> seatMapService.releaseSeatNumbers(flight, oldSeatNumbers));
+                return true;
+            }
+
+            // Put the booking back on its old flight and seats
+            booking.setFlightId(oldFlightId);
+            booking.setTotalAmount(oldTotalAmount);
+            seatMapService.releaseSeats(newFlight, booking.getPassengers());
+            for (int i = 0; i < booking.getPassengers().size(); i++) {
+                booking.getPassengers().get(i).setSeatNumber(oldSeatNumbers.get(i));
+            }
+            seatInventory.release(newFlight.getFlightId(), seats);
+            if (oldInventoryId != null) {
+                seatInventory.reserve(oldInventoryId, seats);
+            }
+            return false;
         } catch (Exception e) {
             System.err.println("Error modifying booking: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Move a booking off a cancelled flight onto the first alternative with room for the whole party,
+     * or cancel it if none has. Like the other changes to a booking, each step locks the booking's
+     * flight (and the alternative tried) and re-reads the booking under the locks; a booking that was
+     * cancelled or moved off the cancelled flight meanwhile is skipped.
+     * The passengers keep the price they paid.
+     * @param bookingId Booking on the cancelled flight
+     * @param cancelledFlight Flight that was cancelled
+     * @param alternatives Candidate flights in order of preference
+     * @return Outcome for the booking
+     */
+    public RebookingOutcome rebookFromCancelledFlight(String bookingId, Flight cancelledFlight, List<Flight> alternatives) {
+        try {
+            // The party size does not change, so it can be read before taking any lock
+            int partySize = bookingDAO.findById(bookingId).map(booking -> booking.getPassengers().size()).orElse(0);
+            for (Flight alternative : alternatives) {
+                // Cheap check first; the reservation under the locks is what guarantees capacity
+                if (seatInventory.getAvailableSeats(alternative.getFlightId()) < partySize) {
+                    continue;
+                }
+                try (LockedBooking locked = lockBooking(bookingId, alternative.getFlightId())) {
+                    RebookingOutcome skipped = checkRebookable(bookingId, locked, cancelledFlight);
+                    if (skipped != null) {
+                        return skipped;
+                    }
+                    RebookingOutcome outcome = moveToAlternative(locked.booking, alternative);
+                    // No outcome means the alternative had no room; try the next one
+                    if (outcome != null) {
+                        return outcome;
+                    }
+                }
+            }
+
+            // No alternative has room: cancel the booking
+            try (LockedBooking locked = lockBooking(bookingId)) {
+                RebookingOutcome skipped = checkRebookable(bookingId, locked, cancelledFlight);
+                if (skipped != null) {
+                    return skipped;
+                }
+                Booking booking = locked.booking;
+                int seats = booking.getPassengers().size();
+                BookingStatus previousStatus = booking.getStatus();
+                LocalDateTime previousHoldExpiry = booking.getHoldExpiresAt();
+                booking.setStatus(BookingStatus.CANCELLED);
+                booking.setCancellationDate(LocalDateTime.now());
+                booking.setHoldExpiresAt(null);
+                if (DAOFactory.beginTransaction().saveBooking(booking).commit()) {
+                    seatHoldService.release(bookingId);
+                    return new RebookingOutcome(bookingId, seats, RebookingStatus.CANCELLED, null, null);
+                }
+
+                booking.setStatus(previousStatus);
+                booking.setCancellationDate(null);
+                booking.setHoldExpiresAt(previousHoldExpiry);
+                return new RebookingOutcome(bookingId, seats, RebookingStatus.FAILED, null, "Cancellation could not be saved");
+            }
+        } catch (Exception e) {
+            System.err.println("Error rebooking booking " + bookingId + ": " + e.getMessage());
+            return new RebookingOutcome(bookingId, 0, RebookingStatus.FAILED, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Check that a locked booking is still an active booking on the cancelled flight
+     * @return Outcome to report if the booking must be left alone, or null to rebook it
+     */
+    private RebookingOutcome checkRebookable(String bookingId, LockedBooking locked, Flight cancelledFlight) {
+        if (locked == null) {
+            return new RebookingOutcome(bookingId, 0, RebookingStatus.FAILED, null, "Booking not found");
+        }
+        Booking booking = locked.booking;
+        int seats = booking.getPassengers().size();
+        if (booking.getStatus() != BookingStatus.CONFIRMED && booking.getStatus() != BookingStatus.PENDING) {
+            return new RebookingOutcome(bookingId, seats, RebookingStatus.SKIPPED, null, "No longer active");
+        }
+        // Older bookings reference the flight number instead of the flight ID
+        if (!Objects.equals(booking.getFlightId(), cancelledFlight.getFlightId())
+                && !Objects.equals(booking.getFlightId(), cancelledFlight.getFlightNumber())) {
+            return new RebookingOutcome(bookingId, seats, RebookingStatus.SKIPPED, null, "Already moved to another flight");
+        }
+        // An expired hold cancels the booking and releases its seats itself
+        if (seatHoldService.isExpired(bookingId)) {
+            return new RebookingOutcome(bookingId, seats, RebookingStatus.SKIPPED, null, "Seat hold expired");
+        }
+        return null;
+    }
+
+    /**
+     * Move a booking onto an alternative flight; the caller holds the locks of both flights
+     * @return Outcome, or null if the alternative has no room for the whole party
+     */
+    private RebookingOutcome moveToAlternative(Booking booking, Flight alternative) {
+        String bookingId = booking.getBookingId();
+        int seats = booking.getPassengers().size();
+        if (!seatInventory.reserve(alternative.getFlightId(), seats)) {
+            return null;
+        }
+        String oldFlightId = booking.getFlightId();
+        List<String> oldSeatNumbers = new ArrayList<>();
+        for (Passenger passenger : booking.getPassengers()) {
+            oldSeatNumbers.add(passenger.getSeatNumber());
+        }
+        if (!seatMapService.assignSeats(alternative, booking.getPassengers(), SeatPreference.NO_PREFERENCE)) {
+            seatInventory.release(alternative.getFlightId(), seats);
+            return null;
+        }
+        booking.setFlightId(alternative.getFlightId());
+        if (seatInventory.commit(DAOFactory.beginTransaction().saveBooking(booking), alternative.getFlightId())) {
+            return new RebookingOutcome(bookingId, seats, RebookingStatus.REBOOKED, alternative.getFlightNumber(), null);
+        }
+
+        booking.setFlightId(oldFlightId);
+        seatMapService.releaseSeats(alternative, booking.getPassengers());
+        for (int i = 0; i < seats; i++) {
+            booking.getPassengers().get(i).setSeatNumber(oldSeatNumbers.get(i));
+        }
+        seatInventory.release(alternative.getFlightId(), seats);
+        return new RebookingOutcome(bookingId, seats, RebookingStatus.FAILED, null, "Rebooking could not be saved");
+    }
+
+    /**
+     * Lock the flight a booking is on, together with further flights, and re-read the booking under the locks.
+     * If the booking moved to another flight before the locks were taken they are retaken for its new flight.
+     * @param bookingId Booking ID
+     * @param otherFlightIds Further flights to lock
+     * @return Locked booking, or null if the booking does not exist
+     */
+    private LockedBooking lockBooking(String bookingId, String... otherFlightIds) {
+        while (true) {
+            Optional<Booking> bookingOpt = bookingDAO.findById(bookingId);
+            if (bookingOpt.isEmpty()) {
+                return null;
+            }
+            String flightId = bookingOpt.get().getFlightId();
+            String[] flightIds = new String[otherFlightIds.length + 1];
+            flightIds[0] = flightId;
+            System.arraycopy(otherFlightIds, 0, flightIds, 1, otherFlightIds.length);
+
+            StripedLockManager.Held locks = seatInventory.lockFlights(flightIds);
+            Optional<Booking> current = bookingDAO.findById(bookingId);
+            if (current.isPresent() && Objects.equals(current.get().getFlightId(), flightId)) {
+                return new LockedBooking(current.get(), locks);
+            }
+            locks.close();
+        }
+    }
+
+    /**
+     * A booking read while holding the locks of its flight
+     */
+    private static final class LockedBooking implements AutoCloseable {
+        private final Booking booking;
+        private final StripedLockManager.Held locks;
+
+        LockedBooking(Booking booking, StripedLockManager.Held locks) {
+            this.booking = booking;
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            locks.close();
+        }
+    }
+
+
+    /**
+     * Build a new PENDING booking
+     * @param customer Customer making the booking
+     * @param flight Flight booked
+     * @param passengers Seated passengers
+     * @param paymentDetails Payment information
+     * @param addOns Add-ons bought with the booking
+     * @return Unsaved booking, carrying the expiry of the seat hold it gets once saved
+     */
+    private Booking newBooking(Customer customer, Flight flight, List<Passenger> passengers,
+                               PaymentDetails paymentDetails, List<AddOn> addOns) {
+        Booking booking = new Booking();
+        booking.setBookingId(generateBookingId());
+        booking.setCustomerId(customer.getUserId());
+        booking.setFlightId(flight.getFlightId());
+        booking.setPassengers(passengers);
+        booking.setPaymentDetails(paymentDetails);
+        booking.setBookingDate(LocalDateTime.now());
+        booking.setStatus(BookingStatus.PENDING);
+        booking.setHoldExpiresAt(seatHoldService.newExpiry());
+        booking.setAddOns(new ArrayList<>(addOns));
+        booking.setTotalPrice(calculateTotalAmount(flight, passengers, addOns));
+        return booking;
+    }
+
     /**
      * Validate booking data
      * @param customer Customer
@@ -238,23 +676,38 @@ public class BookingService {
      * @return true if valid
      */
     private boolean validateBookingData(Customer customer, Flight flight, List<Passenger> passengers, PaymentDetails paymentDetails) {
+        return validateBookingData(customer, flight, passengers, paymentDetails, 9); // Maximum 9 passengers per booking
+    }
+
+    /**
+     * Validate booking data
+     * @param customer Customer
+     * @param flight Flight
+     * @param passengers Passenger list
+     * @param paymentDetails Payment details
+     * @param maxPassengers Largest party allowed in one booking
+     * @return true if valid
+     */
+    private boolean validateBookingData(Customer customer, Flight flight, List<Passenger> passengers,
+                                        PaymentDetails paymentDetails, int maxPassengers) {
         if (customer == null || flight == null || passengers == null || paymentDetails == null) {
             return false;
         }
         if (passengers.isEmpty()) {
             return false;
         }
-        return passengers.size() <= 9; // Maximum 9 passengers per booking
+        return passengers.size() <= maxPassengers;
     }
 
     /**
      * Calculate total amount for booking
      * @param flight Flight
      * @param passengers Passenger list
-     * @return Total amount
+     * @param addOns Add-ons bought with the booking
+     * @return Total amount including add-ons and taxes
      */
-    private double calculateTotalAmount(Flight flight, List<Passenger> passengers) {
-        return flight.getBasePrice() * passengers.size();
+    private double calculateTotalAmount(Flight flight, List<Passenger> passengers, List<AddOn> addOns) {
+        return pricingService.price(flight, passengers, addOns).getTotal();
     }
 
     /**
@@ -273,14 +726,31 @@ public class BookingService {
      * @return Generated booking ID
      */
     private String generateBookingId() {
-        return "BKG_" + System.currentTimeMillis();
+        return IdGenerator.nextId("BKG");
     }
 
     /**
-     * Generate booking reference
+     * Generate a PNR-style booking reference that no other booking uses
      * @return Generated booking reference
      */
     private String generateBookingReference() {
-        return "PK" + System.currentTimeMillis() % 1000000;
+        return getReferenceGenerator().next();
+    }
+
+    /**
+     * Get the shared reference generator, seeding its collision filter with the stored references on first use
+     */
+    private ReferenceGenerator getReferenceGenerator() {
+        synchronized (BookingService.class) {
+            if (referenceGenerator == null) {
+                List<String> existing = bookingDAO.findAll().stream()
+                        .map(Booking::getBookingReference)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                referenceGenerator = new ReferenceGenerator(REFERENCE_LENGTH, REFERENCE_CAPACITY, existing,
+                        reference -> bookingDAO.findByReference(reference).isPresent());
+            }
+            return referenceGenerator;
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,351 @@
+package service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dao.DAOFactory;
+import dao.FlightRepository;
+import model.CabinClass;
+import model.Flight;
+import model.FlightStatus;
+import model.Itinerary;
+
+/**
+ * Finds direct and connecting itineraries over the whole flight network.
+ * Flights are kept in a time-expanded graph: airports are nodes and every bookable flight
+ * is an edge, stored in arrays sorted by departure time both per departure airport and per
+ * route. A search expands from the origin's departures on the travel date and follows
+ * connections whose layover lies within the configured limits, so each step is a binary
+ * search plus a scan of the departures inside the layover window. The last leg of a
+ * connection is looked up on the route to the destination directly, which keeps 2-stop
+ * searches bounded. The graph is built on first use and updated flight by flight as
+ * flights are created, edited, cancelled or deleted.
+ */
+public class ConnectionSearchService {
+    // Shortest layover between connecting flights, configurable with -Dpikachu.connections.minMinutes
+    private static final long MIN_CONNECTION_MINUTES = Long.getLong("pikachu.connections.minMinutes", 45);
+    // Longest layover between connecting flights, configurable with -Dpikachu.connections.maxMinutes
+    private static final long MAX_CONNECTION_MINUTES = Long.getLong("pikachu.connections.maxMinutes", 360);
+    // Most itineraries returned by one search, configurable with -Dpikachu.connections.maxResults
+    private static final int MAX_RESULTS = Integer.getInteger("pikachu.connections.maxResults", 20);
+    // Most connections in one itinerary
+    public static final int MAX_STOPS = 2;
+
+    private static final Edge[] NO_EDGES = new Edge[0];
+    private static final Comparator<Edge> BY_DEPARTURE = Comparator.comparingLong((Edge edge) -> edge.departure)
+            .thenComparing(edge -> edge.flightId);
+
+    private static ConnectionSearchService instance;
+
+    private final FlightRepository flightDAO;
+    private final SeatInventory seatInventory;
+    private final PricingService pricingService;
+    // Sorted, copy-on-write edge arrays, so searches never lock
+    private final Map<String, Edge[]> departuresByAirport = new ConcurrentHashMap<>();
+    private final Map<String, Edge[]> departuresByRoute = new ConcurrentHashMap<>();
+    // Edge of every flight in the graph, guarded by this
+    private final Map<String, Edge> edgesByFlightId = new HashMap<>();
+    private volatile boolean built = false;
+
+    private ConnectionSearchService(FlightRepository flightDAO) {
+        this.flightDAO = flightDAO;
+        this.seatInventory = SeatInventory.getInstance();
+        this.pricingService = PricingService.getInstance();
+    }
+
+    /**
+     * Get the shared connection search service
+     */
+    public static synchronized ConnectionSearchService getInstance() {
+        if (instance == null) {
+            instance = new ConnectionSearchService(DAOFactory.flights());
+        }
+        return instance;
+    }
+
+    /**
+     * Find itineraries from an origin to a destination departing on a given date.
+     * Every leg must have enough seats for the party. Results are ranked by total travel
+     * time, then by price.
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param departureDate Date of the first departure
+     * @param passengers Number of passengers
+     * @param maxStops Most connections allowed, from 0 to {@link #MAX_STOPS}
+     * @return Best itineraries, at most the configured number of results
+     */
+    public List<Itinerary> search(String origin, String destination, LocalDate departureDate, int passengers, int maxStops) {
+        try {
+            ensureBuilt();
+            String from = airport(origin);
+            String to = airport(destination);
+            if (from == null || to == null || from.equals(to) || departureDate == null) {
+                return List.of();
+            }
+            int stops = Math.max(0, Math.min(MAX_STOPS, maxStops));
+            long dayStart = minutes(departureDate.atStartOfDay());
+
+            List<Edge[]> paths = new ArrayList<>();
+            Edge[] firstLegs = departuresByAirport.getOrDefault(from, NO_EDGES);
+            for (int i = lowerBound(firstLegs, dayStart); i < firstLegs.length && firstLegs[i].departure < dayStart + 1440; i++) {
+                Edge first = firstLegs[i];
+                if (!hasSeats(first, passengers)) {
+                    continue;
+                }
+                if (first.destination.equals(to)) {
+                    paths.add(new Edge[] { first });
+                    continue;
+                }
+                if (stops < 1) {
+                    continue;
+                }
+                // One stop: flights on the route from the connecting airport to the destination
+                for (Edge second : connections(departuresByRoute.get(route(first.destination, to)), first)) {
+                    if (hasSeats(second, passengers)) {
+                        paths.add(new Edge[] { first, second });
+                    }
+                }
+                if (stops < 2) {
+                    continue;
+                }
+                // Two stops: any onward flight to an airport with a route to the destination
+                for (Edge second : connections(departuresByAirport.get(first.destination), first)) {
+                    if (second.destination.equals(to) || second.destination.equals(from)
+                            || !departuresByRoute.containsKey(route(second.destination, to))
+                            || !hasSeats(second, passengers)) {
+                        continue;
+                    }
+                    for (Edge third : connections(departuresByRoute.get(route(second.destination, to)), second)) {
+                        if (hasSeats(third, passengers)) {
+                            paths.add(new Edge[] { first, second, third });
+                        }
+                    }
+                }
+            }
+            return rank(paths);
+        } catch (Exception e) {
+            System.err.println("Error searching connections: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Add, move or remove a flight in the graph after it was saved
+     * @param flight Flight as saved
+     */
+    public synchronized void flightChanged(Flight flight) {
+        if (!built || flight == null || flight.getFlightId() == null) {
+            return;
+        }
+        removeEdge(flight.getFlightId());
+        addEdge(flight);
+    }
+
+    /**
+     * Remove a deleted flight from the graph
+     * @param flightId Flight ID
+     */
+    public synchronized void flightRemoved(String flightId) {
+        if (built && flightId != null) {
+            removeEdge(flightId);
+        }
+    }
+
+    /**
+     * @return Number of flights in the graph
+     */
+    public synchronized int getFlightCount() {
+        ensureBuilt();
+        return edgesByFlightId.size();
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (built) {
+                return;
+            }
+            Map<String, List<Edge>> byAirport = new HashMap<>();
+            Map<String, List<Edge>> byRoute = new HashMap<>();
+            for (Flight flight : flightDAO.findAll()) {
+                Edge edge = edgeOf(flight);
+                if (edge == null) {
+                    continue;
+                }
+                edgesByFlightId.put(edge.flightId, edge);
+                byAirport.computeIfAbsent(edge.origin, key -> new ArrayList<>()).add(edge);
+                byRoute.computeIfAbsent(route(edge.origin, edge.destination), key -> new ArrayList<>()).add(edge);
+            }
+            byAirport.forEach((key, edges) -> departuresByAirport.put(key, sorted(edges)));
+            byRoute.forEach((key, edges) -> departuresByRoute.put(key, sorted(edges)));
+            built = true;
+            System.out.println("ConnectionSearchService: Built flight graph with " + edgesByFlightId.size()
+                    + " flights between " + departuresByAirport.size() + " airports");
+        }
+    }
+
+    private void addEdge(Flight flight) {
+        Edge edge = edgeOf(flight);
+        if (edge == null) {
+            return;
+        }
+        edgesByFlightId.put(edge.flightId, edge);
+        departuresByAirport.compute(edge.origin, (key, edges) -> insert(edges, edge));
+        departuresByRoute.compute(route(edge.origin, edge.destination), (key, edges) -> insert(edges, edge));
+    }
+
+    private void removeEdge(String flightId) {
+        Edge edge = edgesByFlightId.remove(flightId);
+        if (edge == null) {
+            return;
+        }
+        departuresByAirport.computeIfPresent(edge.origin, (key, edges) -> remove(edges, edge));
+        departuresByRoute.computeIfPresent(route(edge.origin, edge.destination), (key, edges) -> remove(edges, edge));
+    }
+
+    /**
+     * Departures from a sorted edge array that connect with an arriving flight
+     */
+    private List<Edge> connections(Edge[] departures, Edge arriving) {
+        if (departures == null) {
+            return List.of();
+        }
+        long earliest = arriving.arrival + MIN_CONNECTION_MINUTES;
+        long latest = arriving.arrival + MAX_CONNECTION_MINUTES;
+        List<Edge> result = new ArrayList<>();
+        for (int i = lowerBound(departures, earliest); i < departures.length && departures[i].departure <= latest; i++) {
+            result.add(departures[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Turn found paths into itineraries, shortest travel time first, then cheapest
+     */
+    private List<Itinerary> rank(List<Edge[]> paths) {
+        List<Itinerary> itineraries = new ArrayList<>();
+        for (Edge[] path : paths) {
+            List<Flight> legs = new ArrayList<>();
+            double price = 0.0;
+            for (Edge edge : path) {
+                legs.add(edge.flight);
+                price += pricingService.getQuote(edge.flight).getFare(CabinClass.ECONOMY);
+            }
+            itineraries.add(new Itinerary(legs, price));
+        }
+        itineraries.sort(Comparator.comparing(Itinerary::getTotalDuration)
+                .thenComparingDouble(Itinerary::getTotalPrice));
+        return itineraries.size() > MAX_RESULTS ? new ArrayList<>(itineraries.subList(0, MAX_RESULTS)) : itineraries;
+    }
+
+    private boolean hasSeats(Edge edge, int passengers) {
+        return seatInventory.getAvailableSeats(edge.flight.getFlightId()) >= passengers;
+    }
+
+    /**
+     * @return Edge of a bookable flight, or null if the flight cannot be part of an itinerary
+     */
+    private static Edge edgeOf(Flight flight) {
+        if (flight.getFlightId() == null || flight.getDepartureTime() == null || flight.getArrivalTime() == null
+                || (flight.getStatus() != FlightStatus.SCHEDULED && flight.getStatus() != FlightStatus.BOARDING)) {
+            return null;
+        }
+        String origin = airport(flight.getDepartureAirport());
+        String destination = airport(flight.getArrivalAirport());
+        if (origin == null || destination == null || origin.equals(destination)) {
+            return null;
+        }
+        return new Edge(flight, origin, destination);
+    }
+
+    private static Edge[] sorted(List<Edge> edges) {
+        Edge[] array = edges.toArray(NO_EDGES);
+        Arrays.sort(array, BY_DEPARTURE);
+        return array;
+    }
+
+    private static Edge[] insert(Edge[] edges, Edge edge) {
+        Edge[] current = edges != null ? edges : NO_EDGES;
+        int index = Arrays.binarySearch(current, edge, BY_DEPARTURE);
+        int position = index >= 0 ? index : -index - 1;
+        Edge[] result = new Edge[current.length + 1];
+        System.arraycopy(current, 0, result, 0, position);
+        result[position] = edge;
+        System.arraycopy(current, position, result, position + 1, current.length - position);
+        return result;
+    }
+
+    private static Edge[] remove(Edge[] edges, Edge edge) {
+        int index = Arrays.binarySearch(edges, edge, BY_DEPARTURE);
+        if (index < 0) {
+            return edges;
+        }
+        if (edges.length == 1) {
+            return null;
+        }
+        Edge[] result = new Edge[edges.length - 1];
+        System.arraycopy(edges, 0, result, 0, index);
+        System.arraycopy(edges, index + 1, result, index, edges.length - index - 1);
+        return result;
+    }
+
+    /**
+     * @return Index of the first edge departing at or after the given minute
+     */
+    private static int lowerBound(Edge[] edges, long departure) {
+        int low = 0;
+        int high = edges.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edges[middle].departure < departure) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long minutes(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static String route(String origin, String destination) {
+        return origin + "|" + destination;
+    }
+
+    private static String airport(String code) {
+        return code != null && !code.isBlank() ? code.trim().toUpperCase() : null;
+    }
+
+    /**
+     * A flight as an edge of the graph, with times in minutes
+     */
+    private static final class Edge {
+        private final Flight flight;
+        private final String flightId;
+        private final String origin;
+        private final String destination;
+        private final long departure;
+        private final long arrival;
+
+        Edge(Flight flight, String origin, String destination) {
+            this.flight = flight;
+            this.flightId = flight.getFlightId();
+            this.origin = origin;
+            this.destination = destination;
+            this.departure = minutes(flight.getDepartureTime());
+            this.arrival = minutes(flight.getArrivalTime());
+        }
+    }
+}
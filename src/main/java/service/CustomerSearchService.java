@@ -0,0 +1,343 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dao.DAOFactory;
+import dao.UserRepository;
+import model.Customer;
+
+/**
+ * Finds customers whose name, email, phone or user ID contains the search text, whatever its length.
+ * Every customer gets a row number. Each field is lowercased and split into trigrams, and
+ * each trigram keeps the sorted rows containing it, so a search of three or more characters
+ * only checks the rows of its rarest trigram. Shorter searches match most customers anyway and
+ * check the text of every row the filters leave. Active status and creation month are bitmaps over
+ * the rows, so filters are a few bitwise ANDs. The index is built from the user store on
+ * first use and updated customer by customer as customers are registered or updated.
+ */
+public class CustomerSearchService {
+    // Separates fields in a row's search text; no query can match across it
+    private static final char FIELD_SEPARATOR = '\n';
+    // Searches shorter than this check every row instead of using the trigram index
+    private static final int TRIGRAM = 3;
+
+    private static CustomerSearchService instance;
+
+    private final UserRepository userDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowsByUserId = new HashMap<>();
+    private final List<Customer> customers = new ArrayList<>();
+    // Lowercase fields of every row, joined with the field separator
+    private final List<String> texts = new ArrayList<>();
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet active = new BitSet();
+    private final BitSet noCreationDate = new BitSet();
+    private final TreeMap<YearMonth, BitSet> createdByMonth = new TreeMap<>();
+    // Creation month of every row, null when it has none
+    private final List<YearMonth> monthOfRow = new ArrayList<>();
+    private volatile boolean built = false;
+
+    private CustomerSearchService(UserRepository userDAO) {
+        this.userDAO = userDAO;
+    }
+
+    /**
+     * Get the shared customer search service
+     */
+    public static synchronized CustomerSearchService getInstance() {
+        if (instance == null) {
+            instance = new CustomerSearchService(DAOFactory.users());
+        }
+        return instance;
+    }
+
+    /**
+     * Find customers matching a search text and filters
+     * @param searchText Text found anywhere in first name, last name, email, phone or user ID; blank matches all
+     * @param activeOnly true for active customers, false for inactive ones, null for both
+     * @param createdSince Earliest creation time, or null for any; customers without one always pass
+     * @return Matching customers in the order they are stored
+     */
+    public List<Customer> search(String searchText, Boolean activeOnly, LocalDateTime createdSince) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            if (activeOnly != null) {
+                if (activeOnly) {
+                    matches.and(active);
+                } else {
+                    matches.andNot(active);
+                }
+            }
+            if (createdSince != null) {
+                matches.and(createdSinceMask(createdSince));
+            }
+
+            String text = searchText != null ? searchText.trim().toLowerCase(Locale.ROOT) : "";
+            if (!text.isEmpty()) {
+                matches.and(substringMatches(text, matches));
+            }
+
+            List<Customer> result = new ArrayList<>(matches.cardinality());
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                result.add(customers.get(row));
+            }
+            return result;
+        } catch (Exception e) {
+            System.err.println("CustomerSearchService: Error searching customers: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Build the index in the background, so the first search does not wait for it
+     * @return Completes once the index is built
+     */
+    public CompletableFuture<Void> prepare() {
+        return CompletableFuture.runAsync(this::ensureBuilt);
+    }
+
+    /**
+     * Re-index a customer after it was registered or updated
+     * @param customer Customer as saved
+     */
+    public void customerChanged(Customer customer) {
+        if (!built || customer == null || customer.getUserId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(customer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of customers indexed
+     */
+    public int getIndexedCount() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                for (Customer customer : userDAO.findAllCustomers()) {
+                    if (customer.getUserId() != null) {
+                        index(customer);
+                    }
+                }
+                built = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a customer or bring its row up to date; a customer keeps its row for good
+     */
+    private void index(Customer customer) {
+        Integer existing = rowsByUserId.get(customer.getUserId());
+        int row = existing != null ? existing : customers.size();
+        String text = searchText(customer);
+        if (existing == null) {
+            rowsByUserId.put(customer.getUserId(), row);
+            customers.add(customer);
+            texts.add(text);
+            monthOfRow.add(null);
+            addText(row, text);
+        } else {
+            customers.set(row, customer);
+            String previous = texts.get(row);
+            if (!previous.equals(text)) {
+                removeText(row, previous);
+                texts.set(row, text);
+                addText(row, text);
+            }
+        }
+        live.set(row);
+        active.set(row, customer.isActive());
+
+        YearMonth previousMonth = monthOfRow.set(row, null);
+        if (previousMonth != null) {
+            createdByMonth.get(previousMonth).clear(row);
+        }
+        noCreationDate.clear(row);
+        if (customer.getCreatedAt() != null) {
+            YearMonth month = YearMonth.from(customer.getCreatedAt());
+            createdByMonth.computeIfAbsent(month, m -> new BitSet()).set(row);
+            monthOfRow.set(row, month);
+        } else {
+            noCreationDate.set(row);
+        }
+    }
+
+    private void addText(int row, String text) {
+        for (long trigram : trigramsOf(text)) {
+            trigrams.computeIfAbsent(trigram, t -> new IntList()).insert(row);
+        }
+    }
+
+    private void removeText(int row, String text) {
+        for (long trigram : trigramsOf(text)) {
+            IntList rows = trigrams.get(trigram);
+            if (rows != null && rows.remove(row) && rows.size == 0) {
+                trigrams.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Candidate rows whose text contains a search text. A text of three or more characters only
+     * checks the rows of its rarest trigram; a shorter one checks every candidate.
+     */
+    private BitSet substringMatches(String text, BitSet candidates) {
+        BitSet matches = new BitSet();
+        if (text.length() < TRIGRAM) {
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (texts.get(row).contains(text)) {
+                    matches.set(row);
+                }
+            }
+            return matches;
+        }
+        IntList rarest = null;
+        for (long trigram : trigramsOf(text)) {
+            IntList rows = trigrams.get(trigram);
+            if (rows == null) {
+                return matches;
+            }
+            if (rarest == null || rows.size < rarest.size) {
+                rarest = rows;
+            }
+        }
+        if (rarest == null) {
+            return matches;
+        }
+        for (int i = 0; i < rarest.size; i++) {
+            int row = rarest.values[i];
+            if (candidates.get(row) && texts.get(row).contains(text)) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rows created at or after a time, or without a creation time
+     */
+    private BitSet createdSinceMask(LocalDateTime createdSince) {
+        BitSet mask = (BitSet) noCreationDate.clone();
+        YearMonth firstMonth = YearMonth.from(createdSince);
+        for (Map.Entry<YearMonth, BitSet> month : createdByMonth.tailMap(firstMonth, false).entrySet()) {
+            mask.or(month.getValue());
+        }
+        // Only the first month needs its rows checked one by one
+        BitSet partial = createdByMonth.get(firstMonth);
+        if (partial != null) {
+            for (int row = partial.nextSetBit(0); row >= 0; row = partial.nextSetBit(row + 1)) {
+                LocalDateTime createdAt = customers.get(row).getCreatedAt();
+                if (createdAt != null && !createdAt.isBefore(createdSince)) {
+                    mask.set(row);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static String searchText(Customer customer) {
+        return lower(customer.getFirstName()) + FIELD_SEPARATOR
+                + lower(customer.getLastName()) + FIELD_SEPARATOR
+                + lower(customer.getEmail()) + FIELD_SEPARATOR
+                + lower(customer.getPhoneNumber()) + FIELD_SEPARATOR
+                + lower(customer.getUserId());
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Distinct trigrams of a text that lie inside one field, each packed into a long
+     */
+    private static long[] trigramsOf(String text) {
+        long[] packed = new long[Math.max(0, text.length() - TRIGRAM + 1)];
+        int count = 0;
+        for (int i = 0; i + TRIGRAM <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a != FIELD_SEPARATOR && b != FIELD_SEPARATOR && c != FIELD_SEPARATOR) {
+                packed[count++] = ((long) a << 32) | ((long) b << 16) | c;
+            }
+        }
+        long[] distinct = Arrays.copyOf(packed, count);
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[unique++] = distinct[i];
+            }
+        }
+        return Arrays.copyOf(distinct, unique);
+    }
+
+    /**
+     * Sorted list of rows
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void insert(int value) {
+            // New rows are always the highest, so building the index only appends
+            int index = size == 0 || values[size - 1] < value ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
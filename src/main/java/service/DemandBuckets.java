@@ -0,0 +1,109 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Fare multipliers by load factor and time to departure.
+ * Fares only change when a flight moves into another bucket, so a cached quote stays valid
+ * while bookings and cancellations keep the flight inside its load-factor bucket and until
+ * the next time-to-departure boundary passes.
+ */
+public class DemandBuckets {
+    private final double[] loadFactors;
+    private final double[] loadMultipliers;
+    private final long[] hoursBeforeDeparture;
+    private final double[] timeMultipliers;
+
+    /**
+     * @param loadFactors Ascending load factors at which a new bucket starts
+     * @param loadMultipliers Fare multiplier of each load-factor bucket, one more than the thresholds
+     * @param daysBeforeDeparture Descending days before departure at which a new bucket starts
+     * @param timeMultipliers Fare multiplier of each time bucket, one more than the thresholds
+     */
+    public DemandBuckets(double[] loadFactors, double[] loadMultipliers, int[] daysBeforeDeparture, double[] timeMultipliers) {
+        if (loadMultipliers.length != loadFactors.length + 1 || timeMultipliers.length != daysBeforeDeparture.length + 1) {
+            throw new IllegalArgumentException("Each bucket needs one multiplier");
+        }
+        this.loadFactors = loadFactors.clone();
+        this.loadMultipliers = loadMultipliers.clone();
+        this.hoursBeforeDeparture = Arrays.stream(daysBeforeDeparture).mapToLong(days -> days * 24L).toArray();
+        this.timeMultipliers = timeMultipliers.clone();
+    }
+
+    /**
+     * Buckets of standard pricing: a single surcharge once the flight is nearly full
+     * @param surchargeLoadFactor Load factor from which the surcharge applies
+     * @param surchargeRate Surcharge as a share of the fare
+     * @return Standard buckets
+     */
+    public static DemandBuckets standard(double surchargeLoadFactor, double surchargeRate) {
+        return new DemandBuckets(new double[] { surchargeLoadFactor }, new double[] { 1.0, 1 + surchargeRate },
+                new int[0], new double[] { 1.0 });
+    }
+
+    /**
+     * Buckets of demand-based pricing: emptier flights are discounted, fuller flights and
+     * late bookings pay progressively more
+     * @return Demand buckets
+     */
+    public static DemandBuckets demand() {
+        return new DemandBuckets(
+                new double[] { 0.5, 0.7, 0.85, 0.95 }, new double[] { 0.9, 1.0, 1.15, 1.35, 1.6 },
+                new int[] { 21, 7, 3, 1 }, new double[] { 1.0, 1.05, 1.15, 1.3, 1.5 });
+    }
+
+    /**
+     * @param availableSeats Seats available
+     * @param totalSeats Seats on the flight
+     * @return Load-factor bucket, 0 for the emptiest
+     */
+    public int loadBucketOf(int availableSeats, int totalSeats) {
+        double loadFactor = totalSeats > 0 ? 1.0 - (double) availableSeats / totalSeats : 0.0;
+        int bucket = 0;
+        while (bucket < loadFactors.length && loadFactor >= loadFactors[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * @param departureTime Departure time, or null if unknown
+     * @param now Current time
+     * @return Time bucket, 0 for the earliest bookings
+     */
+    public int timeBucketOf(LocalDateTime departureTime, LocalDateTime now) {
+        if (departureTime == null) {
+            return 0;
+        }
+        long hoursLeft = Duration.between(now, departureTime).toHours();
+        int bucket = 0;
+        while (bucket < hoursBeforeDeparture.length && hoursLeft < hoursBeforeDeparture[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * @param departureTime Departure time, or null if unknown
+     * @param now Current time
+     * @return First time after now at which the flight enters its next time bucket, or null if it never will
+     */
+    public LocalDateTime nextTimeBoundary(LocalDateTime departureTime, LocalDateTime now) {
+        if (departureTime == null) {
+            return null;
+        }
+        int bucket = timeBucketOf(departureTime, now);
+        return bucket < hoursBeforeDeparture.length ? departureTime.minusHours(hoursBeforeDeparture[bucket]) : null;
+    }
+
+    /**
+     * @param loadBucket Load-factor bucket
+     * @param timeBucket Time bucket
+     * @return Fare multiplier of the combined bucket
+     */
+    public double multiplierOf(int loadBucket, int timeBucket) {
+        return loadMultipliers[loadBucket] * timeMultipliers[timeBucket];
+    }
+}
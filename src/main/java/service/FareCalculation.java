@@ -0,0 +1,118 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import model.AddOn;
+import model.CabinClass;
+import model.FareQuote;
+import model.Flight;
+import model.Passenger;
+
+/**
+ * Inputs and running amounts of one pass through the pricing pipeline.
+ * A quote calculation prices one cabin class of a flight and produces its adult fare;
+ * a booking calculation starts from a flight's quote and prices a party of passengers.
+ */
+public class FareCalculation {
+    private final Flight flight;
+    private final int availableSeats;
+    private final int totalSeats;
+    private final CabinClass cabinClass;
+    private final FareQuote quote;
+    private final List<Passenger> passengers;
+    private final List<CabinClass> passengerCabins;
+    private final List<AddOn> addOns;
+    private final double demandMultiplier;
+
+    private double fare;
+    private double passengerFares;
+    private double addOnTotal;
+    private double taxes;
+
+    private FareCalculation(Flight flight, int availableSeats, int totalSeats, CabinClass cabinClass, FareQuote quote,
+                            List<Passenger> passengers, List<CabinClass> passengerCabins, List<AddOn> addOns,
+                            double demandMultiplier) {
+        this.flight = flight;
+        this.availableSeats = availableSeats;
+        this.totalSeats = totalSeats;
+        this.cabinClass = cabinClass;
+        this.quote = quote;
+        this.passengers = passengers;
+        this.passengerCabins = passengerCabins;
+        this.addOns = addOns;
+        this.demandMultiplier = demandMultiplier;
+    }
+
+    /**
+     * Start pricing one cabin class of a flight
+     * @param flight Flight
+     * @param cabinClass Cabin class to price
+     * @param availableSeats Seats currently available on the flight
+     * @param totalSeats Seats on the flight
+     * @param demandMultiplier Fare multiplier of the flight's demand bucket
+     * @return New quote calculation
+     */
+    public static FareCalculation forQuote(Flight flight, CabinClass cabinClass, int availableSeats, int totalSeats,
+                                           double demandMultiplier) {
+        return new FareCalculation(flight, availableSeats, totalSeats, cabinClass, null,
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), demandMultiplier);
+    }
+
+    /**
+     * Start pricing a party of passengers from a flight's quote
+     * @param flight Flight
+     * @param quote Current quote of the flight
+     * @param passengers Passengers to price
+     * @param passengerCabins Cabin class of each passenger, in passenger order
+     * @param addOns Add-ons bought with the booking
+     * @return New booking calculation
+     */
+    public static FareCalculation forBooking(Flight flight, FareQuote quote, List<Passenger> passengers,
+                                             List<CabinClass> passengerCabins, List<AddOn> addOns) {
+        return new FareCalculation(flight, quote.getAvailableSeats(), quote.getTotalSeats(), null, quote,
+                Collections.unmodifiableList(new ArrayList<>(passengers)),
+                Collections.unmodifiableList(new ArrayList<>(passengerCabins)),
+                addOns != null ? Collections.unmodifiableList(new ArrayList<>(addOns)) : Collections.emptyList(),
+                quote.getDemandMultiplier());
+    }
+
+    /**
+     * @return Share of seats sold, from 0 to 1
+     */
+    public double getLoadFactor() {
+        return totalSeats > 0 ? 1.0 - (double) availableSeats / totalSeats : 0.0;
+    }
+
+    /**
+     * @return true for a booking calculation, false for a quote calculation
+     */
+    public boolean isBooking() {
+        return quote != null;
+    }
+
+    // Inputs
+    public Flight getFlight() { return flight; }
+    public int getAvailableSeats() { return availableSeats; }
+    public int getTotalSeats() { return totalSeats; }
+    public CabinClass getCabinClass() { return cabinClass; }
+    public FareQuote getQuote() { return quote; }
+    public List<Passenger> getPassengers() { return passengers; }
+    public List<CabinClass> getPassengerCabins() { return passengerCabins; }
+    public List<AddOn> getAddOns() { return addOns; }
+    public double getDemandMultiplier() { return demandMultiplier; }
+
+    // Running amounts
+    public double getFare() { return fare; }
+    public void setFare(double fare) { this.fare = fare; }
+
+    public double getPassengerFares() { return passengerFares; }
+    public void setPassengerFares(double passengerFares) { this.passengerFares = passengerFares; }
+
+    public double getAddOnTotal() { return addOnTotal; }
+    public void setAddOnTotal(double addOnTotal) { this.addOnTotal = addOnTotal; }
+
+    public double getTaxes() { return taxes; }
+    public void setTaxes(double taxes) { this.taxes = taxes; }
+}
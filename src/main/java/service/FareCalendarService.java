@@ -0,0 +1,220 @@
+package service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.DAOFactory;
+import dao.FlightRepository;
+import model.DayFare;
+import model.FareQuote;
+import model.Flight;
+import model.FlightStatus;
+
+/**
+ * Cheapest fare per day on a route, for flexible-date searches.
+ * For every route and day that has been asked for, the bookable flights are kept sorted by
+ * fare, so a calendar of many days is answered from memory with one lookup per day; seat
+ * availability is checked live, so bookings never invalidate a day. A day is recomputed only
+ * when one of its flights' fares may have changed (the pricing service discarded its quote),
+ * when a flight on the route is created, edited or deleted, or when a fare's time-to-departure
+ * bucket ends.
+ */
+public class FareCalendarService {
+    // Longest calendar returned by one query, configurable with -Dpikachu.calendar.maxDays
+    private static final int MAX_DAYS = Integer.getInteger("pikachu.calendar.maxDays", 366);
+
+    private static FareCalendarService instance;
+
+    private final FlightRepository flightDAO;
+    private final SeatInventory seatInventory;
+    private final PricingService pricingService;
+    private final Map<String, RouteDay> days = new ConcurrentHashMap<>();
+    // Days each flight ID was found on, so fare changes reach the right entries
+    private final Map<String, Set<String>> daysByFlight = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private FareCalendarService(FlightRepository flightDAO) {
+        this.flightDAO = flightDAO;
+        this.seatInventory = SeatInventory.getInstance();
+        this.pricingService = PricingService.getInstance();
+        pricingService.addListener(this::quotesInvalidated);
+    }
+
+    /**
+     * Get the shared fare calendar service
+     */
+    public static synchronized FareCalendarService getInstance() {
+        if (instance == null) {
+            instance = new FareCalendarService(DAOFactory.flights());
+        }
+        return instance;
+    }
+
+    /**
+     * Get the cheapest available fare of every day in a date range
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param startDate First day, inclusive
+     * @param endDate Last day, inclusive
+     * @param passengers Number of passengers that must fit on the flight
+     * @return One entry per day in date order, at most the configured number of days
+     */
+    public List<DayFare> getCalendar(String origin, String destination, LocalDate startDate, LocalDate endDate, int passengers) {
+        List<DayFare> calendar = new ArrayList<>();
+        String route = route(origin, destination);
+        if (route == null || startDate == null || endDate == null) {
+            return calendar;
+        }
+        try {
+            long nowMillis = System.currentTimeMillis();
+            LocalDate date = startDate;
+            while (!date.isAfter(endDate) && calendar.size() < MAX_DAYS) {
+                calendar.add(dayFor(route, origin, destination, date, nowMillis).lowest(date, passengers));
+                date = date.plusDays(1);
+            }
+        } catch (Exception e) {
+            System.err.println("Error building fare calendar: " + e.getMessage());
+        }
+        return calendar;
+    }
+
+    /**
+     * Recompute the days a flight was on and the day it is on now, after it was saved
+     * @param flight Flight as saved
+     */
+    public void flightChanged(Flight flight) {
+        invalidations.incrementAndGet();
+        invalidateFlight(flight.getFlightId());
+        String route = route(flight.getDepartureAirport(), flight.getArrivalAirport());
+        if (route != null && flight.getDepartureTime() != null) {
+            days.remove(key(route, flight.getDepartureTime().toLocalDate()));
+        }
+    }
+
+    /**
+     * @return Number of route days held in memory
+     */
+    public int getCachedDayCount() {
+        return days.size();
+    }
+
+    private RouteDay dayFor(String route, String origin, String destination, LocalDate date, long nowMillis) {
+        String key = key(route, date);
+        RouteDay cached = days.get(key);
+        if (cached != null && nowMillis < cached.validUntilMillis) {
+            return cached;
+        }
+
+        long stamp = invalidations.get();
+        List<FlightFare> fares = new ArrayList<>();
+        long validUntilMillis = Long.MAX_VALUE;
+        for (Flight flight : flightDAO.findFlights(origin, destination, date)) {
+            if (flight.getStatus() != FlightStatus.SCHEDULED && flight.getStatus() != FlightStatus.BOARDING) {
+                continue;
+            }
+            FareQuote quote = pricingService.getQuote(flight);
+            fares.add(new FlightFare(flight, quote.getLowestFare()));
+            if (quote.getValidUntil() != null) {
+                validUntilMillis = Math.min(validUntilMillis, toMillis(quote.getValidUntil()));
+            }
+            if (flight.getFlightId() != null) {
+                daysByFlight.computeIfAbsent(flight.getFlightId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+        FlightFare[] sorted = fares.toArray(new FlightFare[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(fare -> fare.fare));
+
+        RouteDay day = new RouteDay(sorted, validUntilMillis);
+        days.put(key, day);
+        // A fare change while the day was computed found nothing to invalidate yet
+        if (invalidations.get() != stamp) {
+            days.remove(key, day);
+        }
+        return day;
+    }
+
+    private void quotesInvalidated(String flightId) {
+        invalidations.incrementAndGet();
+        if (flightId == null) {
+            days.clear();
+            daysByFlight.clear();
+        } else {
+            invalidateFlight(flightId);
+        }
+    }
+
+    private void invalidateFlight(String flightId) {
+        Set<String> keys = flightId != null ? daysByFlight.remove(flightId) : null;
+        if (keys != null) {
+            for (String key : keys) {
+                days.remove(key);
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String route(String origin, String destination) {
+        if (origin == null || destination == null || origin.isBlank() || destination.isBlank()) {
+            return null;
+        }
+        return origin.trim().toUpperCase() + "|" + destination.trim().toUpperCase();
+    }
+
+    private static String key(String route, LocalDate date) {
+        return route + "|" + date;
+    }
+
+    /**
+     * Bookable flights of one route on one day, cheapest first
+     */
+    private final class RouteDay {
+        private final FlightFare[] fares;
+        private final long validUntilMillis;
+
+        RouteDay(FlightFare[] fares, long validUntilMillis) {
+            this.fares = fares;
+            this.validUntilMillis = validUntilMillis;
+        }
+
+        /**
+         * @return Cheapest flight with room for the party, checked against the live seat inventory
+         */
+        DayFare lowest(LocalDate date, int passengers) {
+            FlightFare cheapest = null;
+            int available = 0;
+            for (FlightFare fare : fares) {
+                if (seatInventory.getAvailableSeats(fare.flight.getFlightId()) >= passengers) {
+                    available++;
+                    if (cheapest == null) {
+                        cheapest = fare;
+                    }
+                }
+            }
+            return cheapest != null
+                    ? new DayFare(date, cheapest.flight, cheapest.fare, available)
+                    : new DayFare(date, null, 0.0, 0);
+        }
+    }
+
+    private static final class FlightFare {
+        private final Flight flight;
+        private final double fare;
+
+        FlightFare(Flight flight, double fare) {
+            this.flight = flight;
+            this.fare = fare;
+        }
+    }
+}
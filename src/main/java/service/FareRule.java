@@ -0,0 +1,17 @@
+package service;
+
+/**
+ * One step of the pricing pipeline.
+ * Quote rules run once per flight and cabin class and adjust the adult fare that is cached
+ * in the flight's {@link model.FareQuote}; booking rules run for every price request and turn
+ * the quoted fares into passenger fares, add-on charges and taxes.
+ */
+@FunctionalInterface
+public interface FareRule {
+
+    /**
+     * Apply the rule to a calculation in progress
+     * @param calculation Inputs and running amounts of the calculation
+     */
+    void apply(FareCalculation calculation);
+}
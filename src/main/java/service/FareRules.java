@@ -0,0 +1,88 @@
+package service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import model.AddOn;
+import model.CabinClass;
+import model.Flight;
+import model.Passenger;
+import model.PassengerType;
+
+/**
+ * Built-in fare rules used by {@link PricingService}.
+ */
+public final class FareRules {
+
+    private FareRules() {
+    }
+
+    /**
+     * Quote rule: start from the flight's price for the cabin.
+     * Economy uses the economy price, falling back to the base price; business uses the
+     * business price, falling back to the base price times a multiplier.
+     * @param businessMultiplier Business fare as a multiple of the base price
+     * @return Cabin fare rule
+     */
+    public static FareRule cabinFare(double businessMultiplier) {
+        return calculation -> {
+            Flight flight = calculation.getFlight();
+            if (calculation.getCabinClass() == CabinClass.BUSINESS) {
+                calculation.setFare(flight.getBusinessPrice() > 0
+                        ? flight.getBusinessPrice() : flight.getBasePrice() * businessMultiplier);
+            } else {
+                calculation.setFare(flight.getEconomyPrice() > 0 ? flight.getEconomyPrice() : flight.getBasePrice());
+            }
+        };
+    }
+
+    /**
+     * Quote rule: scale the fare by the multiplier of the flight's load-factor and
+     * time-to-departure bucket (see {@link DemandBuckets})
+     * @return Demand rule
+     */
+    public static FareRule demandFare() {
+        return calculation -> calculation.setFare(calculation.getFare() * calculation.getDemandMultiplier());
+    }
+
+    /**
+     * Booking rule: price every passenger at the quoted fare of their cabin, scaled by passenger type
+     * @param multipliers Share of the adult fare paid by each passenger type; missing types pay the adult fare
+     * @return Passenger type rule
+     */
+    public static FareRule passengerTypeFare(Map<PassengerType, Double> multipliers) {
+        Map<PassengerType, Double> copy = new EnumMap<>(PassengerType.class);
+        copy.putAll(multipliers);
+        return calculation -> {
+            List<Passenger> passengers = calculation.getPassengers();
+            List<CabinClass> cabins = calculation.getPassengerCabins();
+            double total = 0.0;
+            for (int i = 0; i < passengers.size(); i++) {
+                PassengerType type = passengers.get(i).getType() != null ? passengers.get(i).getType() : PassengerType.ADULT;
+                total += calculation.getQuote().getFare(cabins.get(i)) * copy.getOrDefault(type, 1.0);
+            }
+            calculation.setPassengerFares(total);
+        };
+    }
+
+    /**
+     * Booking rule: charge every available add-on bought with the booking
+     * @return Add-on rule
+     */
+    public static FareRule addOnCharges() {
+        return calculation -> calculation.setAddOnTotal(calculation.getAddOns().stream()
+                .filter(AddOn::isAvailable)
+                .mapToDouble(AddOn::getPrice)
+                .sum());
+    }
+
+    /**
+     * Booking rule: tax the passenger fares
+     * @param rate Tax as a share of the fares
+     * @return Tax rule
+     */
+    public static FareRule tax(double rate) {
+        return calculation -> calculation.setTaxes(calculation.getPassengerFares() * rate);
+    }
+}
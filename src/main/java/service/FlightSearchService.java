@@ -0,0 +1,470 @@
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dao.DAOFactory;
+import dao.FlightRepository;
+import model.Flight;
+import model.FlightFilter;
+import model.FlightPage;
+import model.FlightSearchQuery;
+import model.FlightSortKey;
+import model.FlightStatus;
+
+/**
+ * Pages through flight search results in a stable order.
+ * The flights a route and day (or the whole schedule) match are read once and kept for the
+ * most recent queries. Each result set holds one order per sort key, sorted the first time it
+ * is asked for with the flight ID as tie-breaker, and one bitmask per filter, so changing the
+ * sort or filter only walks an existing order and skips masked rows. Without a sort key flights
+ * are listed by flight ID.
+ * Price orders are dropped when fares change; everything is dropped when flights change. A flight
+ * whose seat count changes is replaced by a copy with the new count the next time a page lists it. A
+ * page token names the last row of the previous page by its sort value and flight ID rather than
+ * its index, in every order, so paging continues at the right place even after flights were added
+ * or removed and the results recomputed.
+ * Seat availability is checked live as each page is read.
+ */
+public class FlightSearchService {
+    // Flights per page when the caller does not choose, configurable with -Dpikachu.search.pageSize
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("pikachu.search.pageSize", 50);
+    // Result sets kept for paging, configurable with -Dpikachu.search.cachedQueries
+    private static final int CACHED_QUERIES = Integer.getInteger("pikachu.search.cachedQueries", 32);
+    // Largest page returned by one call
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static FlightSearchService instance;
+
+    private final FlightRepository flightDAO;
+    private final SeatInventory seatInventory;
+    private final PricingService pricingService;
+    // Most recently used result sets, guarded by this
+    private final Map<String, ResultSet> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResultSet> eldest) {
+            return size() > CACHED_QUERIES;
+        }
+    };
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong fareChanges = new AtomicLong();
+
+    private FlightSearchService(FlightRepository flightDAO) {
+        this.flightDAO = flightDAO;
+        this.seatInventory = SeatInventory.getInstance();
+        this.pricingService = PricingService.getInstance();
+        pricingService.addListener(flightId -> faresChanged());
+        seatInventory.addListener((flightId, availableSeats, totalSeats) -> seatsChanged(flightId));
+    }
+
+    /**
+     * Get the shared flight search service
+     */
+    public static synchronized FlightSearchService getInstance() {
+        if (instance == null) {
+            instance = new FlightSearchService(DAOFactory.flights());
+        }
+        return instance;
+    }
+
+    /**
+     * Get one page of the flights matching a query
+     * @param query What to search for
+     * @param pageToken Token of the previous page, or null for the first page
+     * @param pageSize Most flights to return
+     * @return The page, empty if the token is not valid for this query
+     */
+    public FlightPage search(FlightSearchQuery query, String pageToken, int pageSize) {
+        try {
+            ResultSet resultSet = resultsFor(query);
+            View view = resultSet.view(query.getSortKey());
+            BitSet mask = resultSet.masks.get(query.getFilter());
+            int matchCount = view.countMatching(query.getFilter(), mask);
+
+            int start = 0;
+            if (pageToken != null) {
+                Position after = Position.decode(pageToken, query.getSortKey());
+                if (after == null) {
+                    System.err.println("FlightSearchService: Ignoring page token from another query");
+                    return new FlightPage(List.of(), null, matchCount);
+                }
+                start = view.indexAfter(after);
+            }
+
+            int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+            List<Flight> page = new ArrayList<>(Math.min(limit, view.size() - start));
+            int index = start;
+            int last = -1;
+            for (; index < view.size() && page.size() < limit; index++) {
+                if (isListed(resultSet, view.order[index], mask, query)) {
+                    page.add(resultSet.flightAt(view.order[index]));
+                    last = index;
+                }
+            }
+            // Only hand out a token if another listed flight follows
+            while (index < view.size() && !isListed(resultSet, view.order[index], mask, query)) {
+                index++;
+            }
+            String nextPageToken = index < view.size() && last >= 0
+                    ? view.positionOf(last).encode(query.getSortKey())
+                    : null;
+            return new FlightPage(page, nextPageToken, matchCount);
+        } catch (Exception e) {
+            System.err.println("FlightSearchService: Error searching flights: " + e.getMessage());
+            return new FlightPage(List.of(), null, 0);
+        }
+    }
+
+    /**
+     * Drop all kept results, after a flight was created, edited or deleted
+     */
+    public synchronized void flightsChanged() {
+        invalidations.incrementAndGet();
+        results.clear();
+    }
+
+    /**
+     * @return Number of queries whose results are kept
+     */
+    public synchronized int getCachedQueryCount() {
+        return results.size();
+    }
+
+    private ResultSet resultsFor(FlightSearchQuery query) {
+        String key = key(query);
+        synchronized (this) {
+            ResultSet cached = results.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long stamp = invalidations.get();
+        ResultSet resultSet = new ResultSet(query.isRouteSearch()
+                ? flightDAO.findFlights(query.getOrigin(), query.getDestination(), query.getDepartureDate())
+                : flightDAO.findAll(), query.isRouteSearch());
+        synchronized (this) {
+            // A change while the results were computed may not be in them
+            if (invalidations.get() == stamp) {
+                results.put(key, resultSet);
+            }
+        }
+        return resultSet;
+    }
+
+    private boolean isListed(ResultSet resultSet, int row, BitSet mask, FlightSearchQuery query) {
+        if (mask != null && !mask.get(row)) {
+            return false;
+        }
+        return query.getPassengers() <= 0
+                || seatInventory.getAvailableSeats(resultSet.flights[row].getFlightId()) >= query.getPassengers();
+    }
+
+    private synchronized void faresChanged() {
+        fareChanges.incrementAndGet();
+        for (ResultSet resultSet : results.values()) {
+            resultSet.views.remove(FlightSortKey.PRICE_LOW_TO_HIGH);
+            resultSet.views.remove(FlightSortKey.PRICE_HIGH_TO_LOW);
+        }
+    }
+
+    private synchronized void seatsChanged(String flightId) {
+        for (ResultSet resultSet : results.values()) {
+            if (resultSet.rowsById.containsKey(flightId)) {
+                resultSet.stale.add(flightId);
+            }
+        }
+    }
+
+    private static String key(FlightSearchQuery query) {
+        return query.isRouteSearch()
+                ? query.getOrigin().trim().toUpperCase() + "|" + query.getDestination().trim().toUpperCase()
+                        + "|" + query.getDepartureDate()
+                : "*";
+    }
+
+    private static String nameOf(FlightSortKey sortKey) {
+        return sortKey != null ? sortKey.name() : "FLIGHT_ID";
+    }
+
+    /**
+     * Flights matching one route and day, or the whole schedule, with their sort orders and filter masks
+     */
+    private final class ResultSet {
+        private final Flight[] flights;
+        private final String[] flightIds;
+        private final Map<String, Integer> rowsById = new HashMap<>();
+        // Flights whose seat count changed since they were last listed, and their refreshed copies
+        private final Set<String> stale = ConcurrentHashMap.newKeySet();
+        private final Map<String, Flight> refreshed = new ConcurrentHashMap<>();
+        // Rows each filter keeps; filters that keep every row have no mask
+        private final Map<FlightFilter, BitSet> masks = new EnumMap<>(FlightFilter.class);
+        private final Map<FlightSortKey, View> views = new ConcurrentHashMap<>();
+        private final View idOrder;
+
+        ResultSet(List<Flight> source, boolean bookableOnly) {
+            List<Flight> kept = new ArrayList<>(source.size());
+            for (Flight flight : source) {
+                if (!bookableOnly || flight.getStatus() == FlightStatus.SCHEDULED || flight.getStatus() == FlightStatus.BOARDING) {
+                    kept.add(flight);
+                }
+            }
+            flights = kept.toArray(new Flight[0]);
+            flightIds = new String[flights.length];
+            for (int row = 0; row < flights.length; row++) {
+                flightIds[row] = flights[row].getFlightId() != null ? flights[row].getFlightId() : "";
+                rowsById.put(flightIds[row], row);
+            }
+
+            for (FlightFilter filter : FlightFilter.values()) {
+                BitSet mask = new BitSet(flights.length);
+                for (int row = 0; row < flights.length; row++) {
+                    if (filter.matches(flights[row])) {
+                        mask.set(row);
+                    }
+                }
+                if (mask.cardinality() < flights.length) {
+                    masks.put(filter, mask);
+                }
+            }
+
+            // Every flight has the same sort value, so the flight ID alone orders them
+            idOrder = sortedView(new double[flights.length]);
+        }
+
+        /**
+         * @return The flight in a row, copied with its current seat count if that changed since it was read
+         */
+        Flight flightAt(int row) {
+            String flightId = flightIds[row];
+            if (stale.remove(flightId)) {
+                Flight copy = new Flight(flights[row]);
+                copy.setAvailableSeats(seatInventory.getAvailableSeats(flightId));
+                refreshed.put(flightId, copy);
+                return copy;
+            }
+            return refreshed.getOrDefault(flightId, flights[row]);
+        }
+
+        /**
+         * @return The rows in a sort order, sorting them the first time the order is asked for
+         */
+        View view(FlightSortKey sortKey) {
+            if (sortKey == null) {
+                return idOrder;
+            }
+            View view = views.get(sortKey);
+            if (view != null) {
+                return view;
+            }
+
+            long stamp = fareChanges.get();
+            if (sortKey == FlightSortKey.PRICE_HIGH_TO_LOW) {
+                view = view(FlightSortKey.PRICE_LOW_TO_HIGH).reversed();
+            } else {
+                view = sorted(sortKey);
+            }
+            // Fares that changed while a price order was sorted may not be in it
+            boolean priceOrder = sortKey == FlightSortKey.PRICE_LOW_TO_HIGH || sortKey == FlightSortKey.PRICE_HIGH_TO_LOW;
+            if (!priceOrder || fareChanges.get() == stamp) {
+                views.putIfAbsent(sortKey, view);
+            }
+            return view;
+        }
+
+        private View sorted(FlightSortKey sortKey) {
+            double[] values = new double[flights.length];
+            for (int row = 0; row < flights.length; row++) {
+                values[row] = sortValue(flights[row], sortKey);
+            }
+            return sortedView(values);
+        }
+
+        /**
+         * @return Rows ordered by sort value and flight ID, leaving out rows whose value is NaN
+         */
+        private View sortedView(double[] values) {
+            Integer[] rows = new Integer[flights.length];
+            int count = 0;
+            for (int row = 0; row < flights.length; row++) {
+                if (!Double.isNaN(values[row])) {
+                    rows[count++] = row;
+                }
+            }
+            Arrays.sort(rows, 0, count, (a, b) -> compareRows(values, a, b));
+
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = rows[i];
+            }
+            return new View(this, order, values, false);
+        }
+
+        private int compareRows(double[] values, int a, int b) {
+            int byValue = Double.compare(values[a], values[b]);
+            if (byValue != 0) {
+                return byValue;
+            }
+            int byId = flightIds[a].compareTo(flightIds[b]);
+            return byId != 0 ? byId : Integer.compare(a, b);
+        }
+
+        /**
+         * Value a flight is ordered by, or NaN if the sort order leaves it out
+         */
+        private double sortValue(Flight flight, FlightSortKey sortKey) {
+            switch (sortKey) {
+                case PRICE_LOW_TO_HIGH:
+                case PRICE_HIGH_TO_LOW:
+                    // Flights without a valid price are left out of price orders
+                    double fare = pricingService.getQuote(flight).getLowestFare();
+                    return fare > 0 ? fare : Double.NaN;
+                case DEPARTURE_TIME:
+                    return flight.getDepartureTime() != null
+                            ? flight.getDepartureTime().toEpochSecond(ZoneOffset.UTC)
+                            : Double.NaN;
+                case DURATION:
+                    return flight.getDepartureTime() != null && flight.getArrivalTime() != null
+                            ? Duration.between(flight.getDepartureTime(), flight.getArrivalTime()).toMinutes()
+                            : Double.NaN;
+                default:
+                    return Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Rows of a result set in one sort order
+     */
+    private static final class View {
+        private final ResultSet resultSet;
+        private final int[] order;
+        // Sort value of every row, by row
+        private final double[] values;
+        private final boolean descending;
+        private final Map<FlightFilter, Integer> matchCounts = new ConcurrentHashMap<>();
+
+        View(ResultSet resultSet, int[] order, double[] values, boolean descending) {
+            this.resultSet = resultSet;
+            this.order = order;
+            this.values = values;
+            this.descending = descending;
+        }
+
+        int size() {
+            return order.length;
+        }
+
+        /**
+         * @return The same rows in the opposite order, without sorting again
+         */
+        View reversed() {
+            int[] reversed = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                reversed[i] = order[order.length - 1 - i];
+            }
+            return new View(resultSet, reversed, values, !descending);
+        }
+
+        Position positionOf(int index) {
+            int row = order[index];
+            return new Position(values[row], resultSet.flightIds[row], row);
+        }
+
+        /**
+         * @return Number of rows in this order a filter keeps
+         */
+        int countMatching(FlightFilter filter, BitSet mask) {
+            if (mask == null) {
+                return order.length;
+            }
+            return matchCounts.computeIfAbsent(filter, key -> {
+                int count = 0;
+                for (int row : order) {
+                    if (mask.get(row)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        }
+
+        /**
+         * @return Index of the first row ordered after a position
+         */
+        int indexAfter(Position position) {
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int comparison = positionOf(mid).compareTo(position);
+                if ((descending ? -comparison : comparison) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Place of a flight in a sort order: sort value, then flight ID. The row number only separates
+     * flights stored under the same ID; it is not stable across recomputed results.
+     */
+    private static final class Position implements Comparable<Position> {
+        private final double sortValue;
+        private final String flightId;
+        private final int ordinal;
+
+        Position(double sortValue, String flightId, int ordinal) {
+            this.sortValue = sortValue;
+            this.flightId = flightId;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int byValue = Double.compare(sortValue, other.sortValue);
+            if (byValue != 0) {
+                return byValue;
+            }
+            int byId = flightId.compareTo(other.flightId);
+            return byId != 0 ? byId : Integer.compare(ordinal, other.ordinal);
+        }
+
+        String encode(FlightSortKey sortKey) {
+            String token = nameOf(sortKey) + ":" + Long.toHexString(Double.doubleToLongBits(sortValue)) + ":" + ordinal + ":" + flightId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @return The position a token names, or null if it is malformed or for another sort order
+         */
+        static Position decode(String token, FlightSortKey sortKey) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 4);
+                if (parts.length != 4 || !parts[0].equals(nameOf(sortKey))) {
+                    return null;
+                }
+                return new Position(Double.longBitsToDouble(Long.parseUnsignedLong(parts[1], 16)),
+                        parts[3], Integer.parseInt(parts[2]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,22 +1,50 @@
 package service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
-import dao.FlightDAO;
+import dao.BookingRepository;
+import dao.DAOFactory;
+import dao.FlightRepository;
+import model.Booking;
+import model.BookingStatus;
+import model.DayFare;
 import model.Flight;
+import model.FlightPage;
+import model.FlightSearchQuery;
 import model.FlightStatus;
+import model.Itinerary;
+import model.RebookingOutcome;
+import model.RebookingStatus;
+import util.IdGenerator;
 
 /**
  * Service class for flight-related operations including search, management, and booking.
  */
 public class FlightService {
-    private FlightDAO flightDAO;
+    // Days after a cancelled departure searched for alternative flights, configurable with -Dpikachu.disruption.searchDays
+    private static final int REBOOKING_SEARCH_DAYS = Integer.getInteger("pikachu.disruption.searchDays", 3);
+    // Bookings rebooked by one task before the work is no longer split
+    private static final int REBOOKING_BATCH_SIZE = 16;
+
+    private static ForkJoinPool rebookingPool;
+
+    private FlightRepository flightDAO;
+    private BookingService bookingService;
 
     public FlightService() {
-        this.flightDAO = new FlightDAO();
+        this.flightDAO = DAOFactory.flights();
     }
 
     /**
@@ -40,6 +68,57 @@ public class FlightService {
         }
     }
 
+    /**
+     * Get one page of search results in the query's sort order
+     * @param query Route and day, or all flights, with the filter and sort order to apply
+     * @param pageToken Token of the previous page, or null for the first page
+     * @param pageSize Most flights to return
+     * @return The page and the token that continues after it
+     */
+    public FlightPage searchFlights(FlightSearchQuery query, String pageToken, int pageSize) {
+        return FlightSearchService.getInstance().search(query, pageToken, pageSize);
+    }
+
+    /**
+     * Search direct and connecting itineraries with up to two stops
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param departureDate Date of the first departure
+     * @param passengers Number of passengers
+     * @return Itineraries ranked by total travel time, then price
+     */
+    public List<Itinerary> searchConnections(String origin, String destination, LocalDate departureDate, int passengers) {
+        return ConnectionSearchService.getInstance()
+            .search(origin, destination, departureDate, passengers, ConnectionSearchService.MAX_STOPS);
+    }
+
+    /**
+     * Get the cheapest available fare per day on a route, for the days around a date
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param date Middle of the window
+     * @param daysEachSide Days before and after the date to include
+     * @param passengers Number of passengers
+     * @return One entry per day in date order
+     */
+    public List<DayFare> getFareCalendar(String origin, String destination, LocalDate date, int daysEachSide, int passengers) {
+        return FareCalendarService.getInstance()
+            .getCalendar(origin, destination, date.minusDays(daysEachSide), date.plusDays(daysEachSide), passengers);
+    }
+
+    /**
+     * Get the cheapest available fare per day on a route for a whole month
+     * @param origin Origin airport code
+     * @param destination Destination airport code
+     * @param month Month
+     * @param passengers Number of passengers
+     * @return One entry per day of the month
+     */
+    public List<DayFare> getFareCalendar(String origin, String destination, YearMonth month, int passengers) {
+        return FareCalendarService.getInstance()
+            .getCalendar(origin, destination, month.atDay(1), month.atEndOfMonth(), passengers);
+    }
+
     /**
      * Get flight details by flight number
      * @param flightNumber Flight number
@@ -49,6 +128,16 @@ public class FlightService {
         return flightDAO.findByFlightNumber(flightNumber);
     }
 
+    /**
+     * Get a flight as currently stored
+     * @param flightId Flight ID; bookings made before flights had their own IDs hold the flight number instead
+     * @return Flight if found
+     */
+    public Optional<Flight> getFlightById(String flightId) {
+        Optional<Flight> flight = flightDAO.findById(flightId);
+        return flight.isPresent() ? flight : flightDAO.findByFlightNumber(flightId);
+    }
+
     /**
      * Get all flights (for admin/management use)
      * @return List of all flights
@@ -72,7 +161,11 @@ public class FlightService {
 
             Flight flight = flightOpt.get();
             flight.setStatus(status);
-            return flightDAO.update(flight);
+            if (!flightDAO.update(flight)) {
+                return false;
+            }
+            flightSaved(flight);
+            return true;
         } catch (Exception e) {
             System.err.println("Error updating flight status: " + e.getMessage());
             return false;
@@ -81,35 +174,23 @@ public class FlightService {
 
     /**
      * Check seat availability
-     * @param flightNumber Flight number
+     * @param flightId Flight ID
      * @param requestedSeats Number of seats requested
      * @return true if seats available
      */
-    public boolean checkSeatAvailability(String flightNumber, int requestedSeats) {
-        Optional<Flight> flightOpt = flightDAO.findByFlightNumber(flightNumber);
-        return flightOpt.map(flight -> flight.getAvailableSeats() >= requestedSeats).orElse(false);
+    public boolean checkSeatAvailability(String flightId, int requestedSeats) {
+        return SeatInventory.getInstance().getAvailableSeats(flightId) >= requestedSeats;
     }
 
     /**
      * Reserve seats on a flight
-     * @param flightNumber Flight number
+     * @param flightId Flight ID
      * @param numberOfSeats Number of seats to reserve
      * @return true if reservation successful
      */
-    public boolean reserveSeats(String flightNumber, int numberOfSeats) {
+    public boolean reserveSeats(String flightId, int numberOfSeats) {
         try {
-            Optional<Flight> flightOpt = flightDAO.findByFlightNumber(flightNumber);
-            if (flightOpt.isEmpty()) {
-                return false;
-            }
-
-            Flight flight = flightOpt.get();
-            if (flight.getAvailableSeats() < numberOfSeats) {
-                return false;
-            }
-
-            flight.setAvailableSeats(flight.getAvailableSeats() - numberOfSeats);
-            return flightDAO.update(flight);
+            return SeatInventory.getInstance().reserve(flightId, numberOfSeats);
         } catch (Exception e) {
             System.err.println("Error reserving seats: " + e.getMessage());
             return false;
@@ -118,20 +199,13 @@ public class FlightService {
 
     /**
      * Release seats on a flight (for cancellations)
-     * @param flightNumber Flight number
+     * @param flightId Flight ID
      * @param numberOfSeats Number of seats to release
      * @return true if release successful
      */
-    public boolean releaseSeats(String flightNumber, int numberOfSeats) {
+    public boolean releaseSeats(String flightId, int numberOfSeats) {
         try {
-            Optional<Flight> flightOpt = flightDAO.findByFlightNumber(flightNumber);
-            if (flightOpt.isEmpty()) {
-                return false;
-            }
-
-            Flight flight = flightOpt.get();
-            flight.setAvailableSeats(flight.getAvailableSeats() + numberOfSeats);
-            return flightDAO.update(flight);
+            return SeatInventory.getInstance().release(flightId, numberOfSeats);
         } catch (Exception e) {
             System.err.println("Error releasing seats: " + e.getMessage());
             return false;
@@ -155,7 +229,11 @@ public class FlightService {
             }
 
             flight.setFlightId(generateFlightId());
-            return flightDAO.save(flight);
+            if (!flightDAO.save(flight)) {
+                return false;
+            }
+            flightSaved(flight);
+            return true;
         } catch (Exception e) {
             System.err.println("Error creating flight: " + e.getMessage());
             return false;
@@ -173,7 +251,13 @@ public class FlightService {
                 return false;
             }
 
-            return flightDAO.update(flight);
+            // Carry capacity changes into the seat inventory and save its current count
+            SeatInventory.getInstance().synchronize(flight);
+            if (!flightDAO.update(flight)) {
+                return false;
+            }
+            flightSaved(flight);
+            return true;
         } catch (Exception e) {
             System.err.println("Error updating flight: " + e.getMessage());
             return false;
@@ -186,7 +270,154 @@ public class FlightService {
      * @return true if deletion successful
      */
     public boolean deleteFlight(String flightId) {
-        return flightDAO.delete(flightId);
+        Optional<Flight> flightOpt = flightDAO.findById(flightId);
+        boolean deleted = flightDAO.delete(flightId);
+        if (deleted && flightOpt.isPresent()) {
+            SeatInventory.getInstance().evict(flightId);
+            PricingService.getInstance().invalidate(flightId);
+            ConnectionSearchService.getInstance().flightRemoved(flightId);
+            FareCalendarService.getInstance().flightChanged(flightOpt.get());
+            FlightSearchService.getInstance().flightsChanged();
+        }
+        return deleted;
+    }
+
+    /**
+     * Cancel a flight and move its passengers to other flights on the same route.
+     * Every booking on the flight is found through the booking index and rebooked onto the
+     * earliest alternative departing within the search window that still has room for the
+     * whole party; bookings with no such alternative are cancelled. Rebooking runs on a fork-join
+     * pool; each booking is moved under the locks of the cancelled flight and the alternative, and
+     * seats are taken through the seat inventory, so no alternative is oversold.
+     * Confirmed bookings and larger parties are placed first.
+     * @param cancelledFlight Flight being cancelled; keeps its previous status if the cancellation cannot be saved
+     * @return Outcome for every booking on the flight, or an empty list if the cancellation was not saved
+     */
+    public List<RebookingOutcome> rebookCancelledFlight(Flight cancelledFlight) {
+        if (cancelledFlight == null) {
+            return List.of();
+        }
+        try {
+            // The cancellation must be saved before any passenger is moved off the flight
+            FlightStatus previousStatus = cancelledFlight.getStatus();
+            cancelledFlight.setStatus(FlightStatus.CANCELLED);
+            if (!updateFlight(cancelledFlight)) {
+                cancelledFlight.setStatus(previousStatus);
+                System.err.println("Error rebooking cancelled flight: cancellation of " + cancelledFlight.getFlightNumber() + " could not be saved");
+                return List.of();
+            }
+
+            List<Booking> affected = findBookingsOnFlight(cancelledFlight);
+            affected.sort(Comparator.comparing((Booking booking) -> booking.getStatus() != BookingStatus.CONFIRMED)
+                .thenComparing(booking -> -booking.getPassengers().size()));
+            List<Flight> alternatives = findAlternativeFlights(cancelledFlight);
+
+            long start = System.nanoTime();
+            List<RebookingOutcome> outcomes = rebookingPool().invoke(new RebookingTask(affected, cancelledFlight, alternatives));
+            long rebooked = outcomes.stream().filter(outcome -> outcome.getStatus() == RebookingStatus.REBOOKED).count();
+            System.out.println("FlightService: Rebooked " + rebooked + " of " + outcomes.size() + " bookings from cancelled flight "
+                               + cancelledFlight.getFlightNumber() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return outcomes;
+        } catch (Exception e) {
+            System.err.println("Error rebooking cancelled flight: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Find every booking on a flight; older bookings reference the flight number instead of the flight ID
+     */
+    private List<Booking> findBookingsOnFlight(Flight flight) {
+        BookingRepository bookingDAO = DAOFactory.bookings();
+        Map<String, Booking> bookings = new LinkedHashMap<>();
+        for (Booking booking : bookingDAO.findByFlightId(flight.getFlightId())) {
+            bookings.put(booking.getBookingId(), booking);
+        }
+        if (!flight.getFlightNumber().equals(flight.getFlightId())) {
+            for (Booking booking : bookingDAO.findByFlightId(flight.getFlightNumber())) {
+                bookings.putIfAbsent(booking.getBookingId(), booking);
+            }
+        }
+        List<Booking> active = new ArrayList<>();
+        for (Booking booking : bookings.values()) {
+            if (booking.getStatus() != BookingStatus.CANCELLED) {
+                active.add(booking);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Find bookable flights on the same route departing after the cancelled flight, earliest first
+     */
+    private List<Flight> findAlternativeFlights(Flight cancelledFlight) {
+        LocalDateTime departure = cancelledFlight.getDepartureTime() != null
+            ? cancelledFlight.getDepartureTime() : LocalDateTime.now();
+        List<Flight> alternatives = new ArrayList<>();
+        for (int day = 0; day <= REBOOKING_SEARCH_DAYS; day++) {
+            for (Flight flight : flightDAO.findFlights(cancelledFlight.getDepartureAirport(),
+                                                       cancelledFlight.getArrivalAirport(),
+                                                       departure.toLocalDate().plusDays(day))) {
+                boolean bookable = flight.getStatus() == FlightStatus.SCHEDULED || flight.getStatus() == FlightStatus.DELAYED;
+                if (bookable
+                    && !Objects.equals(flight.getFlightId(), cancelledFlight.getFlightId())
+                    && flight.getDepartureTime() != null
+                    && !flight.getDepartureTime().isBefore(departure)) {
+                    alternatives.add(flight);
+                }
+            }
+        }
+        alternatives.sort(Comparator.comparing(Flight::getDepartureTime));
+        return alternatives;
+    }
+
+    private synchronized BookingService bookingService() {
+        if (bookingService == null) {
+            bookingService = new BookingService();
+        }
+        return bookingService;
+    }
+
+    private static synchronized ForkJoinPool rebookingPool() {
+        if (rebookingPool == null) {
+            rebookingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return rebookingPool;
+    }
+
+    /**
+     * Rebooks a slice of the affected bookings, splitting it in half until it is small enough
+     */
+    private class RebookingTask extends RecursiveTask<List<RebookingOutcome>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Booking> bookings;
+        private final Flight cancelledFlight;
+        private final List<Flight> alternatives;
+
+        RebookingTask(List<Booking> bookings, Flight cancelledFlight, List<Flight> alternatives) {
+            this.bookings = bookings;
+            this.cancelledFlight = cancelledFlight;
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        protected List<RebookingOutcome> compute() {
+            if (bookings.size() <= REBOOKING_BATCH_SIZE) {
+                List<RebookingOutcome> outcomes = new ArrayList<>();
+                for (Booking booking : bookings) {
+                    outcomes.add(bookingService().rebookFromCancelledFlight(booking.getBookingId(), cancelledFlight, alternatives));
+                }
+                return outcomes;
+            }
+            int middle = bookings.size() / 2;
+            RebookingTask first = new RebookingTask(bookings.subList(0, middle), cancelledFlight, alternatives);
+            RebookingTask second = new RebookingTask(bookings.subList(middle, bookings.size()), cancelledFlight, alternatives);
+            first.fork();
+            List<RebookingOutcome> outcomes = new ArrayList<>(second.compute());
+            outcomes.addAll(0, first.join());
+            return outcomes;
+        }
     }
 
     /**
@@ -218,11 +449,22 @@ public class FlightService {
         return true;
     }
 
+    /**
+     * Bring the fare quotes, connection graph and fare calendar up to date after a flight was saved
+     * @param flight Flight as saved
+     */
+    private void flightSaved(Flight flight) {
+        PricingService.getInstance().invalidate(flight.getFlightId());
+        ConnectionSearchService.getInstance().flightChanged(flight);
+        FareCalendarService.getInstance().flightChanged(flight);
+        FlightSearchService.getInstance().flightsChanged();
+    }
+
     /**
      * Generate unique flight ID
      * @return Generated flight ID
      */
     private String generateFlightId() {
-        return "FLT_" + System.currentTimeMillis();
+        return IdGenerator.nextId("FLT");
     }
 } 
\ No newline at end of file
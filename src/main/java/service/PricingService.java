@@ -0,0 +1,348 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.AddOn;
+import model.CabinClass;
+import model.FareQuote;
+import model.Flight;
+import model.Passenger;
+import model.PassengerType;
+import model.PriceBreakdown;
+import model.PricingMode;
+import model.SeatMap;
+
+/**
+ * Single place where fares and booking prices are computed.
+ * Prices come from a pipeline of {@link FareRule}s in two stages. Quote rules (cabin fares,
+ * demand multipliers) depend only on the flight and its demand bucket, so their result is
+ * cached per flight as a {@link FareQuote}. Booking rules (passenger types, add-ons, taxes)
+ * run on top of the cached quote for every price request.
+ * <p>
+ * A flight's demand bucket is its load-factor bucket combined with its time-to-departure
+ * bucket (see {@link DemandBuckets}). Seat changes reported by the seat inventory only drop
+ * a cached quote when they move the flight into another load-factor bucket, and a quote
+ * expires when the flight crosses its next time-to-departure boundary, so a stream of
+ * bookings recomputes fares only for flights whose bucket actually changed.
+ */
+public class PricingService {
+    // Business fare as a multiple of the base price when a flight has no business price, configurable with -Dpikachu.pricing.businessMultiplier
+    private static final double BUSINESS_MULTIPLIER = doubleProperty("pikachu.pricing.businessMultiplier", 1.5);
+    // Tax as a share of the passenger fares, configurable with -Dpikachu.pricing.taxRate
+    private static final double TAX_RATE = doubleProperty("pikachu.pricing.taxRate", 0.15);
+    // Share of seats sold from which the surcharge applies, configurable with -Dpikachu.pricing.surchargeLoadFactor
+    private static final double SURCHARGE_LOAD_FACTOR = doubleProperty("pikachu.pricing.surchargeLoadFactor", 0.8);
+    // Surcharge on nearly full flights as a share of the fare, configurable with -Dpikachu.pricing.surchargeRate
+    private static final double SURCHARGE_RATE = doubleProperty("pikachu.pricing.surchargeRate", 0.1);
+    // Pricing mode at startup (standard or demand), configurable with -Dpikachu.pricing.mode
+    private static final PricingMode DEFAULT_MODE = PricingMode.fromName(System.getProperty("pikachu.pricing.mode", "standard"));
+
+    private static PricingService instance;
+
+    private final SeatInventory seatInventory;
+    private final SeatMapService seatMapService;
+    private final List<FareRule> quoteRules = new CopyOnWriteArrayList<>();
+    private final List<FareRule> bookingRules = new CopyOnWriteArrayList<>();
+    // Keyed by flight ID, as every departure of a flight number has its own seats and fares
+    private final Map<String, CachedQuote> quotes = new ConcurrentHashMap<>();
+    private final AtomicLong quoteComputations = new AtomicLong();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile PricingMode mode;
+    private volatile DemandBuckets buckets;
+
+    private PricingService(SeatInventory seatInventory, SeatMapService seatMapService) {
+        this.seatInventory = seatInventory;
+        this.seatMapService = seatMapService;
+
+        setMode(DEFAULT_MODE);
+        quoteRules.add(FareRules.cabinFare(BUSINESS_MULTIPLIER));
+        quoteRules.add(FareRules.demandFare());
+
+        Map<PassengerType, Double> passengerMultipliers = new EnumMap<>(PassengerType.class);
+        passengerMultipliers.put(PassengerType.ADULT, 1.0);
+        passengerMultipliers.put(PassengerType.CHILD, 0.75);
+        passengerMultipliers.put(PassengerType.INFANT, 0.1);
+        bookingRules.add(FareRules.passengerTypeFare(passengerMultipliers));
+        bookingRules.add(FareRules.addOnCharges());
+        bookingRules.add(FareRules.tax(TAX_RATE));
+
+        seatInventory.addListener(this::seatsChanged);
+    }
+
+    /**
+     * Get the shared pricing service
+     */
+    public static synchronized PricingService getInstance() {
+        if (instance == null) {
+            instance = new PricingService(SeatInventory.getInstance(), SeatMapService.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Get a flight's current fares, computing them only if the cached quote is out of date
+     * @param flight Flight
+     * @return Adult fare per cabin class
+     */
+    public FareQuote getQuote(Flight flight) {
+        String flightId = flight.getFlightId();
+        CachedQuote cached = flightId != null ? quotes.get(flightId) : null;
+        if (cached != null && cached.matches(flight, System.currentTimeMillis())) {
+            return cached.quote;
+        }
+
+        DemandBuckets current = buckets;
+        LocalDateTime now = LocalDateTime.now();
+        int availableSeats = seatInventory.getAvailableSeats(flight.getFlightId());
+        int loadBucket = current.loadBucketOf(availableSeats, flight.getTotalSeats());
+        int timeBucket = current.timeBucketOf(flight.getDepartureTime(), now);
+        FareQuote quote = computeQuote(flight, availableSeats, current.multiplierOf(loadBucket, timeBucket),
+                current.nextTimeBoundary(flight.getDepartureTime(), now));
+        if (flightId != null) {
+            CachedQuote entry = new CachedQuote(flight, quote, current, loadBucket);
+            quotes.put(flightId, entry);
+            // A bucket change while the quote was computed found nothing to invalidate yet
+            if (buckets != current || current.loadBucketOf(seatInventory.getAvailableSeats(flight.getFlightId()),
+                    flight.getTotalSeats()) != loadBucket) {
+                if (quotes.remove(flightId, entry)) {
+                    notifyListeners(flightId);
+                }
+            }
+        }
+        return quote;
+    }
+
+    /**
+     * Price a booking
+     * @param flight Flight booked
+     * @param passengers Passengers; those already seated are priced in their seat's cabin, the rest in economy
+     * @param addOns Add-ons bought with the booking
+     * @return Price breakdown
+     */
+    public PriceBreakdown price(Flight flight, List<Passenger> passengers, List<AddOn> addOns) {
+        FareCalculation calculation = FareCalculation.forBooking(flight, getQuote(flight), passengers,
+                cabinsOf(flight, passengers), addOns);
+        for (FareRule rule : bookingRules) {
+            rule.apply(calculation);
+        }
+        return new PriceBreakdown(calculation.getPassengerFares(), calculation.getAddOnTotal(), calculation.getTaxes());
+    }
+
+    /**
+     * Price a booking for adult passengers in economy, e.g. before passenger details are known
+     * @param flight Flight booked
+     * @param adults Number of adult passengers
+     * @param addOns Add-ons bought with the booking
+     * @return Price breakdown
+     */
+    public PriceBreakdown price(Flight flight, int adults, List<AddOn> addOns) {
+        List<Passenger> passengers = new ArrayList<>();
+        for (int i = 0; i < adults; i++) {
+            passengers.add(new Passenger());
+        }
+        return price(flight, passengers, addOns);
+    }
+
+    /**
+     * Add a rule to the quote stage; cached quotes are discarded
+     * @param rule Rule run after the existing quote rules
+     */
+    public void addQuoteRule(FareRule rule) {
+        quoteRules.add(rule);
+        invalidateAll();
+    }
+
+    /**
+     * Add a rule to the booking stage
+     * @param rule Rule run after the existing booking rules
+     */
+    public void addBookingRule(FareRule rule) {
+        bookingRules.add(rule);
+    }
+
+    /**
+     * Switch how fares react to demand; cached quotes are discarded
+     * @param mode Pricing mode
+     */
+    public void setMode(PricingMode mode) {
+        this.mode = mode;
+        this.buckets = mode == PricingMode.DEMAND
+                ? DemandBuckets.demand()
+                : DemandBuckets.standard(SURCHARGE_LOAD_FACTOR, SURCHARGE_RATE);
+        invalidateAll();
+    }
+
+    /**
+     * @return Current pricing mode
+     */
+    public PricingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Discard a flight's cached quote, e.g. after the flight is deleted
+     * @param flightId Flight ID
+     */
+    public void invalidate(String flightId) {
+        if (flightId != null) {
+            quotes.remove(flightId);
+            notifyListeners(flightId);
+        }
+    }
+
+    /**
+     * Discard every cached quote
+     */
+    public void invalidateAll() {
+        quotes.clear();
+        notifyListeners(null);
+    }
+
+    /**
+     * Be told whenever cached quotes are discarded, i.e. a flight's fares may have changed
+     * @param listener Listener, called on the thread that discarded the quote
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return Number of flights with a cached quote
+     */
+    public int getCachedQuoteCount() {
+        return quotes.size();
+    }
+
+    /**
+     * @return Number of quotes computed since startup
+     */
+    public long getQuoteComputationCount() {
+        return quoteComputations.get();
+    }
+
+    /**
+     * Drop a flight's quote if a seat change moved it into another load-factor bucket
+     */
+    private void seatsChanged(String flightId, int availableSeats, int totalSeats) {
+        DemandBuckets current = buckets;
+        CachedQuote cached = quotes.get(flightId);
+        if (cached != null && (cached.buckets != current || cached.loadBucket != current.loadBucketOf(availableSeats, totalSeats))
+                && quotes.remove(flightId, cached)) {
+            notifyListeners(flightId);
+        }
+    }
+
+    private void notifyListeners(String flightId) {
+        for (Listener listener : listeners) {
+            try {
+                listener.quotesInvalidated(flightId);
+            } catch (Exception e) {
+                System.err.println("PricingService: Error notifying listener for flight " + flightId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private FareQuote computeQuote(Flight flight, int availableSeats, double demandMultiplier, LocalDateTime validUntil) {
+        quoteComputations.incrementAndGet();
+        Map<CabinClass, Double> fares = new EnumMap<>(CabinClass.class);
+        for (CabinClass cabinClass : CabinClass.values()) {
+            FareCalculation calculation = FareCalculation.forQuote(flight, cabinClass, availableSeats,
+                    flight.getTotalSeats(), demandMultiplier);
+            for (FareRule rule : quoteRules) {
+                rule.apply(calculation);
+            }
+            fares.put(cabinClass, calculation.getFare());
+        }
+        return new FareQuote(flight.getFlightNumber(), fares, availableSeats, flight.getTotalSeats(), demandMultiplier, validUntil);
+    }
+
+    private List<CabinClass> cabinsOf(Flight flight, List<Passenger> passengers) {
+        boolean seated = passengers.stream().anyMatch(passenger -> isSeat(passenger.getSeatNumber()));
+        if (!seated) {
+            return Collections.nCopies(passengers.size(), CabinClass.ECONOMY);
+        }
+        SeatMap seatMap = seatMapService.getSeatMap(flight);
+        List<CabinClass> cabins = new ArrayList<>();
+        for (Passenger passenger : passengers) {
+            cabins.add(isSeat(passenger.getSeatNumber())
+                    ? seatMap.cabinOf(passenger.getSeatNumber()).map(CabinClass::fromDisplayName).orElse(CabinClass.ECONOMY)
+                    : CabinClass.ECONOMY);
+        }
+        return cabins;
+    }
+
+    private static boolean isSeat(String seatNumber) {
+        return seatNumber != null && !seatNumber.isBlank() && !"TBD".equalsIgnoreCase(seatNumber);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        try {
+            return Double.parseDouble(System.getProperty(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("PricingService: Invalid value for " + name + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Receives notice of discarded quotes
+     */
+    public interface Listener {
+
+        /**
+         * @param flightId Flight whose quote was discarded, or null if every quote was
+         */
+        void quotesInvalidated(String flightId);
+    }
+
+    /**
+     * A flight's quote together with the flight fields and demand bucket it was computed from
+     */
+    private static final class CachedQuote {
+        private final FareQuote quote;
+        private final DemandBuckets buckets;
+        private final int loadBucket;
+        private final long validUntilMillis;
+        private final double basePrice;
+        private final double economyPrice;
+        private final double businessPrice;
+        private final int totalSeats;
+        private final LocalDateTime departureTime;
+
+        CachedQuote(Flight flight, FareQuote quote, DemandBuckets buckets, int loadBucket) {
+            this.quote = quote;
+            this.buckets = buckets;
+            this.loadBucket = loadBucket;
+            this.validUntilMillis = quote.getValidUntil() != null
+                    ? quote.getValidUntil().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Long.MAX_VALUE;
+            this.basePrice = flight.getBasePrice();
+            this.economyPrice = flight.getEconomyPrice();
+            this.businessPrice = flight.getBusinessPrice();
+            this.totalSeats = flight.getTotalSeats();
+            this.departureTime = flight.getDepartureTime();
+        }
+
+        /**
+         * @return true if the flight's pricing fields are unchanged and its time bucket has not ended
+         */
+        boolean matches(Flight flight, long nowMillis) {
+            return nowMillis < validUntilMillis
+                    && basePrice == flight.getBasePrice()
+                    && economyPrice == flight.getEconomyPrice()
+                    && businessPrice == flight.getBusinessPrice()
+                    && totalSeats == flight.getTotalSeats()
+                    && Objects.equals(departureTime, flight.getDepartureTime());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import dao.BookingRepository;
+import dao.DAOFactory;
+import dao.FlightRepository;
+import model.Booking;
+import model.BookingStatus;
+import model.Flight;
+import util.TimingWheel;
+
+/**
+ * Time-limited holds on the seats of PENDING bookings.
+ * A hold is placed when a booking is created and settled when it is confirmed or cancelled.
+ * Holds that outlive their TTL are expired by a timing wheel: the seats go back to the
+ * flight's inventory and seat map, then the booking is cancelled. Each booking saves its hold's
+ * expiry, so on startup the holds still running when the previous run stopped are placed again.
+ */
+public class SeatHoldService {
+    // How long a checkout may keep its seats, configurable with -Dpikachu.hold.ttlSeconds
+    private static final long HOLD_TTL_MILLIS = Long.getLong("pikachu.hold.ttlSeconds", 900) * 1000;
+    // Resolution of the expiry wheel, configurable with -Dpikachu.hold.tickMillis
+    private static final long TICK_MILLIS = Long.getLong("pikachu.hold.tickMillis", 1000);
+
+    private static SeatHoldService instance;
+
+    private final BookingRepository bookingDAO;
+    private final FlightRepository flightDAO;
+    private final SeatInventory seatInventory;
+    private final SeatMapService seatMapService;
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final TimingWheel<String> wheel;
+
+    private SeatHoldService(BookingRepository bookingDAO, FlightRepository flightDAO) {
+        this.bookingDAO = bookingDAO;
+        this.flightDAO = flightDAO;
+        this.seatInventory = SeatInventory.getInstance();
+        this.seatMapService = SeatMapService.getInstance();
+        this.wheel = new TimingWheel<>("SeatHold-Expiry", TICK_MILLIS, this::expire);
+    }
+
+    /**
+     * Get the shared seat hold service
+     */
+    public static synchronized SeatHoldService getInstance() {
+        if (instance == null) {
+            instance = new SeatHoldService(DAOFactory.bookings(), DAOFactory.flights());
+            instance.restoreHolds();
+        }
+        return instance;
+    }
+
+    /**
+     * @return Expiry of a hold placed now, to be saved with the booking as its hold expiry
+     */
+    public LocalDateTime newExpiry() {
+        return LocalDateTime.now().plusNanos(HOLD_TTL_MILLIS * 1_000_000);
+    }
+
+    /**
+     * Hold a PENDING booking's seats until its saved hold expiry, or for the configured TTL if it has none
+     * @param booking Booking whose seats are already reserved
+     * @return Time the hold expires
+     */
+    public LocalDateTime placeHold(Booking booking) {
+        if (booking.getHoldExpiresAt() == null) {
+            return placeHold(booking, HOLD_TTL_MILLIS);
+        }
+        return placeHold(booking, Math.max(0, Duration.between(LocalDateTime.now(), booking.getHoldExpiresAt()).toMillis()));
+    }
+
+    /**
+     * Hold a PENDING booking's seats for a given time
+     * @param booking Booking whose seats are already reserved
+     * @param ttlMillis How long the hold lasts in milliseconds
+     * @return Time the hold expires
+     */
+    public LocalDateTime placeHold(Booking booking, long ttlMillis) {
+        String bookingId = booking.getBookingId();
+        Hold hold = new Hold(LocalDateTime.now().plusNanos(ttlMillis * 1_000_000));
+        Hold previous = holds.put(bookingId, hold);
+        if (previous != null && previous.state.compareAndSet(HoldState.HELD, HoldState.RELEASED)) {
+            previous.timeout.cancel();
+        }
+        hold.timeout = wheel.schedule(bookingId, ttlMillis);
+        return hold.expiresAt;
+    }
+
+    /**
+     * @param bookingId Booking ID
+     * @return true if the booking's hold expired and expiry is returning its seats
+     */
+    public boolean isExpired(String bookingId) {
+        Hold hold = holds.get(bookingId);
+        return hold != null && hold.state.get() == HoldState.EXPIRED;
+    }
+
+    /**
+     * Settle a booking's hold once its confirmation has been saved
+     * @param bookingId Booking ID
+     * @return true if the seats were still held (or the booking never had a hold),
+     *         false if the hold expired or was already released by a cancellation
+     */
+    public boolean confirm(String bookingId) {
+        return settle(bookingId, false);
+    }
+
+    /**
+     * Settle a booking's hold once its cancellation has been saved
+     * @param bookingId Booking ID
+     * @return true if the hold was released here or already, false if expiry took it
+     */
+    public boolean release(String bookingId) {
+        return settle(bookingId, true);
+    }
+
+    /**
+     * @param bookingId Booking ID
+     * @return Time the booking's hold expires, if it is still held
+     */
+    public Optional<LocalDateTime> getExpiry(String bookingId) {
+        Hold hold = holds.get(bookingId);
+        return hold != null && hold.state.get() == HoldState.HELD ? Optional.of(hold.expiresAt) : Optional.empty();
+    }
+
+    /**
+     * @return Number of holds currently active
+     */
+    public int getActiveHoldCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Stop expiring holds
+     */
+    public void shutdown() {
+        wheel.shutdown();
+    }
+
+    /**
+     * Hold again the seats of bookings whose hold was still running when the previous run stopped,
+     * for what remains of it; holds already past their expiry are expired at once.
+     * PENDING bookings without a stored hold expiry were never held and are left alone.
+     */
+    private void restoreHolds() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (Booking booking : bookingDAO.findAll()) {
+                if (booking.getStatus() != BookingStatus.PENDING || booking.getBookingId() == null
+                        || booking.getHoldExpiresAt() == null) {
+                    continue;
+                }
+                long remainingMillis = Duration.between(now, booking.getHoldExpiresAt()).toMillis();
+                if (remainingMillis > 0) {
+                    placeHold(booking, remainingMillis);
+                } else {
+                    holds.put(booking.getBookingId(), new Hold(now));
+                    expire(booking.getBookingId());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("SeatHoldService: Error restoring seat holds: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move a hold out of HELD
+     * @param bookingId Booking ID
+     * @param releasedSettles Whether a hold another caller already released counts as settled
+     * @return true if this call settled the hold, or there was none to settle
+     */
+    private boolean settle(String bookingId, boolean releasedSettles) {
+        Hold hold = holds.get(bookingId);
+        if (hold == null) {
+            return true;
+        }
+        if (!hold.state.compareAndSet(HoldState.HELD, HoldState.RELEASED)) {
+            return releasedSettles && hold.state.get() == HoldState.RELEASED;
+        }
+        holds.remove(bookingId, hold);
+        if (hold.timeout != null) {
+            hold.timeout.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Return an abandoned booking's seats to its flight, then cancel the booking
+     */
+    private void expire(String bookingId) {
+        Hold hold = holds.get(bookingId);
+        if (hold == null || !hold.state.compareAndSet(HoldState.HELD, HoldState.EXPIRED)) {
+            return;
+        }
+        try {
+            // Serialize with bookings and moves on the same flight, retaking the lock if the booking moved
+            while (true) {
+                Optional<Booking> bookingOpt = bookingDAO.findById(bookingId);
+                if (bookingOpt.isEmpty()) {
+                    return;
+                }
+                String flightId = bookingOpt.get().getFlightId();
+                boolean settled = seatInventory.withFlightLocks(() -> {
+                    Optional<Booking> current = bookingDAO.findById(bookingId);
+                    if (current.isEmpty() || current.get().getStatus() != BookingStatus.PENDING) {
+                        return true;
+                    }
+                    if (Objects.equals(current.get().getFlightId(), flightId)) {
+                        cancelExpired(current.get());
+                        return true;
+                    }
+                    return false;
+                }, flightId);
+                if (settled) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("SeatHoldService: Error expiring hold for booking " + bookingId + ": " + e.getMessage());
+        } finally {
+            holds.remove(bookingId, hold);
+        }
+    }
+
+    /**
+     * Return the seats of an expired booking and cancel it; the caller holds the flight's lock
+     */
+    private void cancelExpired(Booking booking) {
+        Optional<Flight> flightOpt = flightDAO.findById(booking.getFlightId());
+        String flightId = flightOpt.map(Flight::getFlightId).orElse(null);
+        if (flightOpt.isPresent()) {
+            seatInventory.release(flightId, booking.getPassengers().size());
+            seatMapService.releaseSeats(flightOpt.get(), booking.getPassengers());
+        }
+
+        // The cancellation and the released seat count are saved in one transaction
+        booking.setStatus(BookingStatus.CANCELLED);
+        booking.setCancellationDate(LocalDateTime.now());
+        booking.setHoldExpiresAt(null);
+        if (!seatInventory.commit(DAOFactory.beginTransaction().saveBooking(booking), flightId)) {
+            System.err.println("SeatHoldService: Error cancelling expired booking " + booking.getBookingId());
+        } else {
+            System.out.println("SeatHoldService: Hold expired for booking " + booking.getBookingId());
+        }
+    }
+
+    private enum HoldState { HELD, RELEASED, EXPIRED }
+
+    /**
+     * Hold on one booking's seats; exactly one of confirm, release or expiry moves it out of HELD
+     */
+    private static final class Hold {
+        private final LocalDateTime expiresAt;
+        private final AtomicReference<HoldState> state = new AtomicReference<>(HoldState.HELD);
+        private volatile TimingWheel.Timeout<String> timeout;
+
+        Hold(LocalDateTime expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import dao.DAOFactory;
+import dao.FlightRepository;
+import dao.Transaction;
+import model.Flight;
+import util.StripedLockManager;
+
+/**
+ * Authoritative count of available seats per flight.
+ * Each flight has an atomic counter that is reserved and released with compare-and-set,
+ * so concurrent bookings never oversell and never contend on a shared lock.
+ * Counters are keyed by flight ID rather than flight number, because a daily service flies
+ * under the same number on every date and each departure has its own seats.
+ * Counters are seeded from the stored flight on first use and written back to the
+ * flight store asynchronously after they change, unless a booking change carries them
+ * in its own transaction through {@link #commit(Transaction, String...)}.
+ */
+public class SeatInventory {
+    // Delay before changed counters are written back, configurable with -Dpikachu.inventory.flushMillis
+    private static final long FLUSH_DELAY_MILLIS = Long.getLong("pikachu.inventory.flushMillis", 50);
+    // Number of per-flight lock stripes, configurable with -Dpikachu.inventory.lockStripes
+    private static final int LOCK_STRIPES = Integer.getInteger("pikachu.inventory.lockStripes", 64);
+
+    private static SeatInventory instance;
+
+    private final FlightRepository flightDAO;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final StripedLockManager flightLocks = new StripedLockManager(LOCK_STRIPES);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher;
+
+    private SeatInventory(FlightRepository flightDAO) {
+        this.flightDAO = flightDAO;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SeatInventory-Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the shared seat inventory
+     */
+    public static synchronized SeatInventory getInstance() {
+        if (instance == null) {
+            instance = new SeatInventory(DAOFactory.flights());
+        }
+        return instance;
+    }
+
+    /**
+     * Serialize multi-step changes to the given flights, such as moving a booking between them.
+     * Counters stay lock-free; the locks order the steps that read and write several counters,
+     * seat maps and bookings. Changes to other flights proceed in parallel.
+     * @param flightIds Flights to lock; null IDs are ignored
+     * @return Handle that releases the locks when closed
+     */
+    public StripedLockManager.Held lockFlights(String... flightIds) {
+        return flightLocks.lock(flightIds);
+    }
+
+    /**
+     * Run work while holding the locks of the given flights, see {@link #lockFlights(String...)}
+     * @param work Work to run
+     * @param flightIds Flights to lock; null IDs are ignored
+     * @return Result of the work
+     */
+    public <T> T withFlightLocks(Supplier<T> work, String... flightIds) {
+        StripedLockManager.Held locks = lockFlights(flightIds);
+        try {
+            return work.get();
+        } finally {
+            locks.close();
+        }
+    }
+
+    /**
+     * Take seats from a flight's inventory
+     * @param flightId Flight ID
+     * @param seats Number of seats to reserve
+     * @return true if the seats were available and are now reserved
+     */
+    public boolean reserve(String flightId, int seats) {
+        if (seats <= 0) {
+            return false;
+        }
+        Counter counter = counterFor(flightId);
+        if (counter == null) {
+            return false;
+        }
+        while (true) {
+            int available = counter.available.get();
+            if (available < seats) {
+                return false;
+            }
+            if (counter.available.compareAndSet(available, available - seats)) {
+                markDirty(flightId);
+                notifyListeners(flightId, counter);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return seats to a flight's inventory; the count never exceeds the flight's capacity
+     * @param flightId Flight ID
+     * @param seats Number of seats to release
+     * @return true if the flight exists
+     */
+    public boolean release(String flightId, int seats) {
+        Counter counter = counterFor(flightId);
+        if (counter == null) {
+            return false;
+        }
+        if (seats <= 0) {
+            return true;
+        }
+        while (true) {
+            int available = counter.available.get();
+            int capacity = counter.capacity;
+            int released = Math.min(capacity, available + seats);
+            if (counter.available.compareAndSet(available, released)) {
+                markDirty(flightId);
+                notifyListeners(flightId, counter);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param flightId Flight ID
+     * @return Seats currently available, or 0 for an unknown flight
+     */
+    public int getAvailableSeats(String flightId) {
+        Counter counter = counterFor(flightId);
+        return counter != null ? counter.available.get() : 0;
+    }
+
+    /**
+     * Bring a flight's counter in line with an edited flight before it is saved.
+     * A change of total seats moves the available count by the same amount, and the
+     * flight is given the current available count so the save does not overwrite it.
+     * @param flight Flight about to be saved
+     */
+    public void synchronize(Flight flight) {
+        Counter counter = counters.get(flight.getFlightId());
+        if (counter == null) {
+            return;
+        }
+        synchronized (counter) {
+            int delta = flight.getTotalSeats() - counter.capacity;
+            counter.capacity = flight.getTotalSeats();
+            while (true) {
+                int available = counter.available.get();
+                int adjusted = Math.max(0, Math.min(counter.capacity, available + delta));
+                if (counter.available.compareAndSet(available, adjusted)) {
+                    flight.setAvailableSeats(adjusted);
+                    break;
+                }
+            }
+        }
+        notifyListeners(flight.getFlightId(), counter);
+    }
+
+    /**
+     * Be told about every change to a flight's seat count
+     * @param listener Listener, called on the thread that changed the count
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Forget a flight's counter, e.g. after the flight is deleted
+     * @param flightId Flight ID
+     */
+    public void evict(String flightId) {
+        if (flightId != null) {
+            counters.remove(flightId);
+            dirty.remove(flightId);
+        }
+    }
+
+    /**
+     * Commit a transaction together with the current seat counts of the given flights.
+     * The counts are saved in the same durable write, so the background writer skips them;
+     * if the commit fails they are left for the background writer again. The transaction
+     * saves copies of the flights, so the stored flights keep their count until it commits.
+     * @param transaction Transaction holding the booking changes
+     * @param flightIds IDs of the flights whose counts the transaction changed
+     * @return true if the transaction committed
+     */
+    public boolean commit(Transaction transaction, String... flightIds) {
+        for (String flightId : flightIds) {
+            Counter counter = counterFor(flightId);
+            if (counter == null) {
+                continue;
+            }
+            Optional<Flight> flight = flightDAO.findById(flightId);
+            if (flight.isPresent()) {
+                dirty.remove(flightId);
+                Flight updated = new Flight(flight.get());
+                updated.setAvailableSeats(counter.available.get());
+                transaction.saveFlight(updated);
+            }
+        }
+        if (transaction.commit()) {
+            return true;
+        }
+        for (String flightId : flightIds) {
+            if (flightId != null && counters.containsKey(flightId)) {
+                markDirty(flightId);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write every changed counter back to the flight store
+     * @return true if every write succeeded
+     */
+    public boolean flush() {
+        flushScheduled.set(false);
+        boolean success = true;
+        for (String flightId : dirty) {
+            dirty.remove(flightId);
+            Counter counter = counters.get(flightId);
+            if (counter == null) {
+                continue;
+            }
+            try {
+                Optional<Flight> flight = flightDAO.findById(flightId);
+                if (flight.isEmpty()) {
+                    continue;
+                }
+                // Save a copy, as commit() does, so readers of the stored flight never see it change
+                Flight updated = new Flight(flight.get());
+                updated.setAvailableSeats(counter.available.get());
+                if (!flightDAO.update(updated)) {
+                    throw new IllegalStateException("update rejected");
+                }
+            } catch (Exception e) {
+                System.err.println("SeatInventory: Error saving seats for flight " + flightId + ": " + e.getMessage());
+                dirty.add(flightId);
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Flush pending counters and stop the background writer
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private Counter counterFor(String flightId) {
+        if (flightId == null) {
+            return null;
+        }
+        Counter counter = counters.get(flightId);
+        if (counter != null) {
+            return counter;
+        }
+        Optional<Flight> flight = flightDAO.findById(flightId);
+        if (flight.isEmpty()) {
+            return null;
+        }
+        return counters.computeIfAbsent(flightId,
+            key -> new Counter(flight.get().getAvailableSeats(), flight.get().getTotalSeats()));
+    }
+
+    private void markDirty(String flightId) {
+        dirty.add(flightId);
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Writer already stopped; the caller's next flush() picks the change up
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void notifyListeners(String flightId, Counter counter) {
+        for (Listener listener : listeners) {
+            try {
+                listener.seatsChanged(flightId, counter.available.get(), counter.capacity);
+            } catch (Exception e) {
+                System.err.println("SeatInventory: Error notifying listener for flight " + flightId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Receives changes to flights' seat counts
+     */
+    public interface Listener {
+
+        /**
+         * @param flightId Flight ID
+         * @param availableSeats Seats available after the change
+         * @param totalSeats Seats on the flight
+         */
+        void seatsChanged(String flightId, int availableSeats, int totalSeats);
+    }
+
+    /**
+     * Available seats of one flight and the capacity releases are bounded by
+     */
+    private static final class Counter {
+        private final AtomicInteger available;
+        private volatile int capacity;
+
+        Counter(int available, int capacity) {
+            this.available = new AtomicInteger(Math.max(0, available));
+            this.capacity = Math.max(capacity, available);
+        }
+    }
+}
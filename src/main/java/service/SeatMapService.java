@@ -0,0 +1,150 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import dao.DAOFactory;
+import dao.SeatMapRepository;
+import model.Flight;
+import model.Passenger;
+import model.SeatMap;
+import model.SeatPreference;
+
+/**
+ * Assigns and releases individual seats using each flight's seat map.
+ * Seat maps are created on first use and saved asynchronously after every change.
+ */
+public class SeatMapService {
+    private static SeatMapService instance;
+
+    private final SeatMapRepository seatMapDAO;
+
+    private SeatMapService(SeatMapRepository seatMapDAO) {
+        this.seatMapDAO = seatMapDAO;
+    }
+
+    /**
+     * Get the shared seat map service
+     */
+    public static synchronized SeatMapService getInstance() {
+        if (instance == null) {
+            instance = new SeatMapService(DAOFactory.seatMaps());
+        }
+        return instance;
+    }
+
+    /**
+     * Get the seat map of a flight, creating it on first use.
+     * A map whose aircraft or seat count no longer matches the flight is rebuilt,
+     * keeping every occupied seat that still exists.
+     * @param flight Flight
+     * @return Seat map of the flight
+     */
+    public synchronized SeatMap getSeatMap(Flight flight) {
+        Optional<SeatMap> existing = seatMapDAO.findByFlightId(flight.getFlightId());
+        if (existing.isPresent() && matches(existing.get(), flight)) {
+            return existing.get();
+        }
+        SeatMap seatMap = SeatMap.forFlight(flight);
+        if (existing.isPresent()) {
+            for (String seat : existing.get().getOccupiedSeats()) {
+                seatMap.claim(seat);
+            }
+        }
+        seatMapDAO.saveAsync(seatMap);
+        return seatMap;
+    }
+
+    /**
+     * Give every passenger a seat. Passengers who already hold a valid, free seat keep it;
+     * the rest are seated together where possible, honouring the seat preference.
+     * Nothing is claimed if the party does not fit.
+     * @param flight Flight
+     * @param passengers Passengers to seat; their seat numbers are updated
+     * @param preference Preferred seat type
+     * @return true if every passenger has a seat
+     */
+    public boolean assignSeats(Flight flight, List<Passenger> passengers, SeatPreference preference) {
+        try {
+            SeatMap seatMap = getSeatMap(flight);
+            synchronized (seatMap) {
+                List<String> claimed = new ArrayList<>();
+                List<Passenger> unseated = new ArrayList<>();
+                for (Passenger passenger : passengers) {
+                    if (seatMap.claim(passenger.getSeatNumber())) {
+                        claimed.add(passenger.getSeatNumber());
+                    } else {
+                        unseated.add(passenger);
+                    }
+                }
+
+                List<String> seats = seatMap.claimSeats(unseated.size(), preference);
+                if (seats.size() < unseated.size()) {
+                    for (String seat : claimed) {
+                        seatMap.release(seat);
+                    }
+                    return false;
+                }
+                for (int i = 0; i < unseated.size(); i++) {
+                    unseated.get(i).setSeatNumber(seats.get(i));
+                }
+            }
+            seatMapDAO.saveAsync(seatMap);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error assigning seats: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Free the seats held by passengers
+     * @param flight Flight
+     * @param passengers Passengers whose seats are released
+     */
+    public void releaseSeats(Flight flight, List<Passenger> passengers) {
+        List<String> seatNumbers = new ArrayList<>();
+        for (Passenger passenger : passengers) {
+            seatNumbers.add(passenger.getSeatNumber());
+        }
+        releaseSeatNumbers(flight, seatNumbers);
+    }
+
+    /**
+     * Free seats by label
+     * @param flight Flight
+     * @param seatNumbers Seat labels to release; unknown labels are ignored
+     */
+    public void releaseSeatNumbers(Flight flight, List<String> seatNumbers) {
+        try {
+            SeatMap seatMap = getSeatMap(flight);
+            boolean changed = false;
+            for (String seatNumber : seatNumbers) {
+                changed |= seatMap.release(seatNumber);
+            }
+            if (changed) {
+                seatMapDAO.saveAsync(seatMap);
+            }
+        } catch (Exception e) {
+            System.err.println("Error releasing seats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Find free adjacent seats without claiming them
+     * @param flight Flight
+     * @param count Number of seats
+     * @param preference Preferred seat type
+     * @return Seat labels, empty if no run of that size is free
+     */
+    public List<String> findAdjacentSeats(Flight flight, int count, SeatPreference preference) {
+        return getSeatMap(flight).findAdjacent(count, preference);
+    }
+
+    private boolean matches(SeatMap seatMap, Flight flight) {
+        String aircraft = flight.getAircraft() != null ? flight.getAircraft() : "";
+        String mapped = seatMap.getAircraft() != null ? seatMap.getAircraft() : "";
+        return seatMap.getTotalSeats() == flight.getTotalSeats() && mapped.equals(aircraft);
+    }
+}
@@ -4,19 +4,23 @@ import model.Ticket;
 import model.Customer;
 import model.TicketStatus;
 import model.TicketPriority;
-import dao.TicketDAO;
+import dao.DAOFactory;
+import dao.TicketRepository;
+import util.IdGenerator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class for ticket-related operations including submission, tracking, and management.
  */
 public class TicketService {
-    private TicketDAO ticketDAO;
+    private TicketRepository ticketDAO;
 
     public TicketService() {
-        this.ticketDAO = new TicketDAO();
+        this.ticketDAO = DAOFactory.tickets();
         // Fix any existing tickets with empty IDs
         fixEmptyTicketIds();
     }
@@ -144,6 +148,39 @@ public class TicketService {
         }
     }
     
+    /**
+     * Update several tickets at once (bulk admin edits).
+     * The updates are committed together instead of flushing the ticket file once per ticket.
+     * @param tickets Tickets to update
+     * @return Number of tickets updated
+     */
+    public int updateTickets(List<Ticket> tickets) {
+        if (tickets == null || tickets.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (Ticket ticket : tickets) {
+                if (ticket == null || ticket.getTicketId() == null) {
+                    continue;
+                }
+                ticket.setUpdatedAt(LocalDateTime.now());
+                results.add(ticketDAO.updateAsync(ticket));
+            }
+            int updated = 0;
+            for (CompletableFuture<Boolean> result : results) {
+                if (result.join()) {
+                    updated++;
+                }
+            }
+            return updated;
+        } catch (Exception e) {
+            System.err.println("Error updating tickets: " + e.getMessage());
+            return 0;
+        }
+    }
+
     /**
      * Get tickets by customer ID
      * @param customerId Customer ID
@@ -239,6 +276,6 @@ public class TicketService {
      * @return Generated ticket ID
      */
     private String generateTicketId() {
-        return "TKT_" + System.currentTimeMillis();
+        return IdGenerator.nextId("TKT");
     }
 }
\ No newline at end of file
@@ -1,21 +1,24 @@
 package service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-import dao.UserDAO;
+import dao.DAOFactory;
+import dao.UserRepository;
 import model.Customer;
 import model.User;
+import util.IdGenerator;
 
 /**
  * Service class for user-related operations including registration, login, and profile management.
  */
 public class UserService {
     
-    private UserDAO userDAO;
+    private UserRepository userDAO;
 
     public UserService() {
-        this.userDAO = new UserDAO();
+        this.userDAO = DAOFactory.users();
     }
 
     /**
@@ -53,7 +56,11 @@ public class UserService {
             user.setUserId(generateUserId());
 
             // Save user
-            return userDAO.save(user);
+            if (!userDAO.save(user)) {
+                return false;
+            }
+            userSaved(user);
+            return true;
         } catch (Exception e) {
             System.err.println("Error registering user: " + e.getMessage());
             return false;
@@ -116,7 +123,11 @@ public class UserService {
 
             // Update the user
             user.updateProfile();
-            return userDAO.update(user);
+            if (!userDAO.update(user)) {
+                return false;
+            }
+            userSaved(user);
+            return true;
         } catch (Exception e) {
             System.err.println("Error updating user profile: " + e.getMessage());
             return false;
@@ -161,6 +172,24 @@ public class UserService {
         return userDAO.findAllCustomers();
     }
 
+    /**
+     * Search customers by name, email, phone or user ID (for admin use)
+     * @param searchText Text to find in any of those fields; blank matches every customer
+     * @param activeOnly true for active customers, false for inactive ones, null for both
+     * @param createdSince Earliest account creation time, or null for any
+     * @return Matching customers
+     */
+    public List<Customer> searchCustomers(String searchText, Boolean activeOnly, LocalDateTime createdSince) {
+        return CustomerSearchService.getInstance().search(searchText, activeOnly, createdSince);
+    }
+
+    /**
+     * Start building the customer search index in the background (for admin use)
+     */
+    public void prepareCustomerSearch() {
+        CustomerSearchService.getInstance().prepare();
+    }
+
     /**
      * Find user by ID
      * @param userId User ID
@@ -184,13 +213,27 @@ public class UserService {
 
             User user = userOpt.get();
             user.setActive(false);
-            return userDAO.update(user);
+            if (!userDAO.update(user)) {
+                return false;
+            }
+            userSaved(user);
+            return true;
         } catch (Exception e) {
             System.err.println("Error deactivating user: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Bring the customer search index up to date after a user was saved
+     * @param user User as saved
+     */
+    private void userSaved(User user) {
+        if (user instanceof Customer) {
+            CustomerSearchService.getInstance().customerChanged((Customer) user);
+        }
+    }
+
     /**
      * Validate user data
      * @param user User to validate
@@ -245,6 +288,6 @@ public class UserService {
      * @return Generated user ID
      */
     private String generateUserId() {
-        return "USER_" + System.currentTimeMillis();
+        return IdGenerator.nextId("USER");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,499 @@
+package util;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.AddOn;
+import model.AddOnCategory;
+import model.Admin;
+import model.AirlineManagement;
+import model.Booking;
+import model.BookingStatus;
+import model.Customer;
+import model.FAQ;
+import model.Flight;
+import model.FlightStatus;
+import model.Passenger;
+import model.PassengerType;
+import model.PaymentDetails;
+import model.PaymentStatus;
+import model.RefundMethod;
+import model.RefundRequest;
+import model.RefundStatus;
+import model.Ticket;
+import model.TicketPriority;
+import model.TicketReply;
+import model.TicketStatus;
+import model.User;
+
+/**
+ * Row layout of a model type in a {@link BinarySnapshot}.
+ * Every record is written as one fixed-width main row whose first field is the record ID;
+ * nested lists are written as rows in child sections and referenced by first index and count.
+ * Fields persisted match those of the corresponding {@link JsonCodec}.
+ *
+ * @param <T> Model type
+ */
+public abstract class BinaryCodec<T> {
+
+    public static final BinaryCodec<Flight> FLIGHT = new FlightCodec();
+    public static final BinaryCodec<Booking> BOOKING = new BookingCodec();
+    public static final BinaryCodec<Ticket> TICKET = new TicketCodec();
+    public static final BinaryCodec<User> USER = new UserCodec();
+    public static final BinaryCodec<RefundRequest> REFUND = new RefundCodec();
+    public static final BinaryCodec<FAQ> FAQ_ENTRY = new FAQCodec();
+
+    /**
+     * @return Number of sections, including the main section
+     */
+    protected int sectionCount() {
+        return 1;
+    }
+
+    /**
+     * Write one record: exactly one row in section 0 plus any child rows
+     * @param value Record to write
+     * @param out Snapshot encoder
+     * @throws IOException If encoding fails
+     */
+    protected abstract void encode(T value, BinarySnapshot.Encoder out) throws IOException;
+
+    /**
+     * Decode one record
+     * @param snapshot Mapped snapshot
+     * @param row Row index in section 0
+     * @return Decoded record
+     */
+    protected abstract T decode(BinarySnapshot<T> snapshot, int row);
+
+    protected static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    protected static <E extends Enum<E>> E enumValue(Class<E> type, String name, E fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    // ==================== MODEL CODECS ====================
+
+    private static class FlightCodec extends BinaryCodec<Flight> {
+        @Override
+        protected void encode(Flight flight, BinarySnapshot.Encoder out) throws IOException {
+            out.row(0)
+                .string(flight.getFlightId())
+                .string(flight.getFlightNumber())
+                .string(flight.getAirline())
+                .string(flight.getDepartureAirport())
+                .string(flight.getArrivalAirport())
+                .dateTime(flight.getDepartureTime())
+                .dateTime(flight.getArrivalTime())
+                .float64(flight.getBasePrice())
+                .float64(flight.getEconomyPrice())
+                .float64(flight.getBusinessPrice())
+                .int32(flight.getTotalSeats())
+                .int32(flight.getAvailableSeats())
+                .string(name(flight.getStatus()))
+                .string(flight.getAircraft())
+                .float64(flight.getDuration())
+                .string(flight.getNotes())
+                .end();
+        }
+
+        @Override
+        protected Flight decode(BinarySnapshot<Flight> snapshot, int row) {
+            BinarySnapshot<Flight>.Row in = snapshot.row(0, row);
+            Flight flight = new Flight();
+            flight.setFlightId(in.string());
+            flight.setFlightNumber(in.string());
+            flight.setAirline(in.string());
+            flight.setDepartureAirport(in.string());
+            flight.setArrivalAirport(in.string());
+            flight.setDepartureTime(in.dateTime());
+            flight.setArrivalTime(in.dateTime());
+            flight.setBasePrice(in.float64());
+            flight.setEconomyPrice(in.float64());
+            flight.setBusinessPrice(in.float64());
+            flight.setTotalSeats(in.int32());
+            flight.setAvailableSeats(in.int32());
+            flight.setStatus(enumValue(FlightStatus.class, in.string(), FlightStatus.SCHEDULED));
+            flight.setAircraft(in.string());
+            flight.setDuration(in.float64());
+            flight.setNotes(in.string());
+            return flight;
+        }
+    }
+
+    private static class BookingCodec extends BinaryCodec<Booking> {
+        private static final int PASSENGERS = 1;
+        private static final int ADD_ONS = 2;
+
+        @Override
+        protected int sectionCount() {
+            return 3;
+        }
+
+        @Override
+        protected void encode(Booking booking, BinarySnapshot.Encoder out) throws IOException {
+            int firstPassenger = out.rowCount(PASSENGERS);
+            for (Passenger passenger : booking.getPassengers()) {
+                out.row(PASSENGERS)
+                    .string(passenger.getPassengerId())
+                    .string(passenger.getFirstName())
+                    .string(passenger.getLastName())
+                    .date(passenger.getDateOfBirth())
+                    .string(passenger.getPassportNumber())
+                    .string(passenger.getNationality())
+                    .string(passenger.getGender())
+                    .string(name(passenger.getType()))
+                    .string(passenger.getSeatNumber())
+                    .end();
+            }
+            int firstAddOn = out.rowCount(ADD_ONS);
+            for (AddOn addOn : booking.getAddOns()) {
+                out.row(ADD_ONS)
+                    .string(addOn.getAddOnId())
+                    .string(addOn.getName())
+                    .string(addOn.getDescription())
+                    .float64(addOn.getPrice())
+                    .string(name(addOn.getCategory()))
+                    .bool(addOn.isAvailable())
+                    .end();
+            }
+
+            PaymentDetails payment = booking.getPaymentDetails();
+            out.row(0)
+                .string(booking.getBookingId())
+                .string(booking.getCustomerId())
+                .string(booking.getFlightId())
+                .dateTime(booking.getBookingDate())
+                .string(name(booking.getStatus()))
+                .float64(booking.getTotalPrice())
+                .string(booking.getBookingReference())
+                .dateTime(booking.getConfirmationDate())
+                .dateTime(booking.getCancellationDate())
+                .dateTime(booking.getHoldExpiresAt())
+                .string(booking.getReturnFlightId())
+                .bool(booking.isRoundTrip())
+                .bool(payment != null)
+                .string(payment != null ? payment.getPaymentId() : null)
+                .string(payment != null ? payment.getCardNumber() : null)
+                .string(payment != null ? payment.getCardholderName() : null)
+                .float64(payment != null ? payment.getAmount() : 0.0)
+                .string(payment != null ? name(payment.getStatus()) : null)
+                .int32(firstPassenger)
+                .int32(out.rowCount(PASSENGERS) - firstPassenger)
+                .int32(firstAddOn)
+                .int32(out.rowCount(ADD_ONS) - firstAddOn)
+                .end();
+        }
+
+        @Override
+        protected Booking decode(BinarySnapshot<Booking> snapshot, int row) {
+            BinarySnapshot<Booking>.Row in = snapshot.row(0, row);
+            Booking booking = new Booking();
+            booking.setBookingId(in.string());
+            booking.setCustomerId(in.string());
+            booking.setFlightId(in.string());
+            booking.setBookingDate(in.dateTime());
+            booking.setStatus(enumValue(BookingStatus.class, in.string(), BookingStatus.PENDING));
+            double totalPrice = in.float64();
+            booking.setBookingReference(in.string());
+            booking.setConfirmationDate(in.dateTime());
+            booking.setCancellationDate(in.dateTime());
+            // Version 1 rows have no hold expiry
+            if (snapshot.getVersion() >= 2) {
+                booking.setHoldExpiresAt(in.dateTime());
+            }
+            booking.setReturnFlightId(in.string());
+            booking.setRoundTrip(in.bool());
+
+            boolean hasPayment = in.bool();
+            String paymentId = in.string();
+            String cardNumber = in.string();
+            String cardholderName = in.string();
+            double amount = in.float64();
+            String paymentStatus = in.string();
+            if (hasPayment) {
+                PaymentDetails payment = new PaymentDetails();
+                payment.setPaymentId(paymentId);
+                payment.setCardNumber(cardNumber);
+                payment.setCardholderName(cardholderName);
+                payment.setAmount(amount);
+                payment.setStatus(enumValue(PaymentStatus.class, paymentStatus, PaymentStatus.PENDING));
+                booking.setPaymentDetails(payment);
+            }
+
+            int firstPassenger = in.int32();
+            int passengerCount = in.int32();
+            List<Passenger> passengers = new ArrayList<>(passengerCount);
+            for (int i = 0; i < passengerCount; i++) {
+                BinarySnapshot<Booking>.Row p = snapshot.row(PASSENGERS, firstPassenger + i);
+                Passenger passenger = new Passenger();
+                passenger.setPassengerId(p.string());
+                passenger.setFirstName(p.string());
+                passenger.setLastName(p.string());
+                passenger.setDateOfBirth(p.date());
+                passenger.setPassportNumber(p.string());
+                passenger.setNationality(p.string());
+                passenger.setGender(p.string());
+                passenger.setType(enumValue(PassengerType.class, p.string(), PassengerType.ADULT));
+                passenger.setSeatNumber(p.string());
+                passengers.add(passenger);
+            }
+            booking.setPassengers(passengers);
+
+            int firstAddOn = in.int32();
+            int addOnCount = in.int32();
+            List<AddOn> addOns = new ArrayList<>(addOnCount);
+            for (int i = 0; i < addOnCount; i++) {
+                BinarySnapshot<Booking>.Row a = snapshot.row(ADD_ONS, firstAddOn + i);
+                AddOn addOn = new AddOn();
+                addOn.setAddOnId(a.string());
+                addOn.setName(a.string());
+                addOn.setDescription(a.string());
+                addOn.setPrice(a.float64());
+                addOn.setCategory(enumValue(AddOnCategory.class, a.string(), null));
+                addOn.setAvailable(a.bool());
+                addOns.add(addOn);
+            }
+            booking.setAddOns(addOns);
+
+            // Total is set last: adding add-ons recalculates it from the base price
+            booking.setTotalPrice(totalPrice);
+            return booking;
+        }
+    }
+
+    private static class TicketCodec extends BinaryCodec<Ticket> {
+        private static final int REPLIES = 1;
+
+        @Override
+        protected int sectionCount() {
+            return 2;
+        }
+
+        @Override
+        protected void encode(Ticket ticket, BinarySnapshot.Encoder out) throws IOException {
+            int firstReply = out.rowCount(REPLIES);
+            for (TicketReply reply : ticket.getReplies()) {
+                out.row(REPLIES)
+                    .string(reply.getResponderId())
+                    .string(reply.getResponderName())
+                    .string(reply.getMessage())
+                    .dateTime(reply.getTimestamp())
+                    .end();
+            }
+
+            out.row(0)
+                .string(ticket.getTicketId())
+                .string(ticket.getCustomerId())
+                .string(ticket.getCustomerName())
+                .string(ticket.getCustomerEmail())
+                .string(ticket.getSubject())
+                .string(ticket.getDescription())
+                .string(ticket.getCategory())
+                .string(name(ticket.getPriority()))
+                .string(name(ticket.getStatus()))
+                .string(ticket.getAssignedTo())
+                .dateTime(ticket.getCreatedAt())
+                .dateTime(ticket.getUpdatedAt())
+                .dateTime(ticket.getSubmissionDate())
+                .string(ticket.getClosedBy())
+                .dateTime(ticket.getCloseDate())
+                .int32(firstReply)
+                .int32(out.rowCount(REPLIES) - firstReply)
+                .end();
+        }
+
+        @Override
+        protected Ticket decode(BinarySnapshot<Ticket> snapshot, int row) {
+            BinarySnapshot<Ticket>.Row in = snapshot.row(0, row);
+            Ticket ticket = new Ticket();
+            ticket.setTicketId(in.string());
+            ticket.setCustomerId(in.string());
+            ticket.setCustomerName(in.string());
+            ticket.setCustomerEmail(in.string());
+            ticket.setSubject(in.string());
+            ticket.setDescription(in.string());
+            ticket.setCategory(in.string());
+            ticket.setPriority(enumValue(TicketPriority.class, in.string(), TicketPriority.MEDIUM));
+            // Status is applied before updatedAt since setting it touches the timestamp
+            ticket.setStatus(enumValue(TicketStatus.class, in.string(), TicketStatus.OPEN));
+            ticket.setAssignedTo(in.string());
+            ticket.setCreatedAt(in.dateTime());
+            ticket.setUpdatedAt(in.dateTime());
+            ticket.setSubmissionDate(in.dateTime());
+            ticket.setClosedBy(in.string());
+            ticket.setCloseDate(in.dateTime());
+
+            int firstReply = in.int32();
+            int replyCount = in.int32();
+            List<TicketReply> replies = new ArrayList<>(replyCount);
+            for (int i = 0; i < replyCount; i++) {
+                BinarySnapshot<Ticket>.Row r = snapshot.row(REPLIES, firstReply + i);
+                TicketReply reply = new TicketReply();
+                reply.setResponderId(r.string());
+                reply.setResponderName(r.string());
+                reply.setMessage(r.string());
+                reply.setTimestamp(r.dateTime());
+                replies.add(reply);
+            }
+            ticket.setReplies(replies);
+            return ticket;
+        }
+    }
+
+    private static class UserCodec extends BinaryCodec<User> {
+        @Override
+        protected void encode(User user, BinarySnapshot.Encoder out) throws IOException {
+            String department = null;
+            String passportNumber = null;
+            String nationality = null;
+            if (user instanceof Admin) {
+                department = ((Admin) user).getDepartment();
+            } else if (user instanceof AirlineManagement) {
+                department = ((AirlineManagement) user).getDepartment();
+            } else if (user instanceof Customer) {
+                passportNumber = ((Customer) user).getPassportNumber();
+                nationality = ((Customer) user).getNationality();
+            }
+
+            out.row(0)
+                .string(user.getUserId())
+                .string(user.getUsername())
+                .string(user.getPassword())
+                .string(user.getEmail())
+                .string(user.getFirstName())
+                .string(user.getLastName())
+                .string(user.getPhoneNumber())
+                .string(name(user.getRole()))
+                .dateTime(user.getCreatedAt())
+                .dateTime(user.getLastLogin())
+                .bool(user.isActive())
+                .string(department)
+                .string(passportNumber)
+                .string(nationality)
+                .end();
+        }
+
+        @Override
+        protected User decode(BinarySnapshot<User> snapshot, int row) {
+            BinarySnapshot<User>.Row in = snapshot.row(0, row);
+            String userId = in.string();
+            String username = in.string();
+            String password = in.string();
+            String email = in.string();
+            String firstName = in.string();
+            String lastName = in.string();
+            String phoneNumber = in.string();
+            String role = in.string();
+            LocalDateTime createdAt = in.dateTime();
+            LocalDateTime lastLogin = in.dateTime();
+            boolean active = in.bool();
+            String department = in.string();
+            String passportNumber = in.string();
+            String nationality = in.string();
+
+            String phone = phoneNumber != null ? phoneNumber : "";
+            User user;
+            if ("ADMIN".equals(role)) {
+                user = new Admin(userId, username, password, email, firstName, lastName, phone,
+                                 department != null ? department : "General");
+            } else if ("AIRLINE_MANAGEMENT".equals(role)) {
+                user = new AirlineManagement(userId, username, password, email, firstName, lastName, phone,
+                                             department != null ? department : "General");
+            } else {
+                user = new Customer(userId, username, password, email, firstName, lastName, phone,
+                                    passportNumber != null ? passportNumber : "TEMP123",
+                                    nationality != null ? nationality : "USA");
+            }
+            if (createdAt != null) {
+                user.setCreatedAt(createdAt);
+            }
+            user.setLastLogin(lastLogin);
+            user.setActive(active);
+            return user;
+        }
+    }
+
+    private static class RefundCodec extends BinaryCodec<RefundRequest> {
+        @Override
+        protected void encode(RefundRequest refund, BinarySnapshot.Encoder out) throws IOException {
+            out.row(0)
+                .string(refund.getRefundId())
+                .string(refund.getBookingId())
+                .string(refund.getCustomerId())
+                .string(refund.getReason())
+                .float64(refund.getRefundAmount())
+                .string(name(refund.getStatus()))
+                .dateTime(refund.getRequestDate())
+                .dateTime(refund.getReviewDate())
+                .string(refund.getReviewedBy())
+                .string(refund.getRejectionReason())
+                .string(name(refund.getRefundMethod()))
+                .end();
+        }
+
+        @Override
+        protected RefundRequest decode(BinarySnapshot<RefundRequest> snapshot, int row) {
+            BinarySnapshot<RefundRequest>.Row in = snapshot.row(0, row);
+            RefundRequest refund = new RefundRequest();
+            refund.setRefundId(in.string());
+            refund.setBookingId(in.string());
+            refund.setCustomerId(in.string());
+            refund.setReason(in.string());
+            refund.setRefundAmount(in.float64());
+            refund.setStatus(enumValue(RefundStatus.class, in.string(), RefundStatus.PENDING));
+            refund.setRequestDate(in.dateTime());
+            refund.setReviewDate(in.dateTime());
+            refund.setReviewedBy(in.string());
+            refund.setRejectionReason(in.string());
+            refund.setRefundMethod(enumValue(RefundMethod.class, in.string(), null));
+            return refund;
+        }
+    }
+
+    private static class FAQCodec extends BinaryCodec<FAQ> {
+        @Override
+        protected void encode(FAQ faq, BinarySnapshot.Encoder out) throws IOException {
+            out.row(0)
+                .string(faq.getFaqId())
+                .string(faq.getQuestion())
+                .string(faq.getAnswer())
+                .string(faq.getCategory())
+                .dateTime(faq.getCreatedAt())
+                .dateTime(faq.getUpdatedAt())
+                .string(faq.getCreatedBy())
+                .string(faq.getUpdatedBy())
+                .bool(faq.isActive())
+                .int32(faq.getViewCount())
+                .end();
+        }
+
+        @Override
+        protected FAQ decode(BinarySnapshot<FAQ> snapshot, int row) {
+            BinarySnapshot<FAQ>.Row in = snapshot.row(0, row);
+            FAQ faq = new FAQ();
+            faq.setFaqId(in.string());
+            faq.setQuestion(in.string());
+            faq.setAnswer(in.string());
+            faq.setCategory(in.string());
+            faq.setCreatedAt(in.dateTime());
+            faq.setUpdatedAt(in.dateTime());
+            faq.setCreatedBy(in.string());
+            faq.setUpdatedBy(in.string());
+            faq.setActive(in.bool());
+            faq.setViewCount(in.int32());
+            return faq;
+        }
+    }
+}
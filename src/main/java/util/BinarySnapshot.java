@@ -0,0 +1,422 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of a collection, read through a memory-mapped file.
+ * Records are stored as fixed-width rows, so any record can be located without
+ * reading the ones before it, and every string is stored once in a shared string table.
+ * Opening a snapshot only maps the file; records and strings are decoded on first access.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * header:   int magic, int version, int sectionCount, int reserved, long stringTableOffset
+ * sections: sectionCount x (long offset, int rowCount, int rowSize), then the rows of each section
+ * strings:  int count, int[count + 1] offsets into the string bytes, UTF-8 string bytes
+ * </pre>
+ * Section 0 holds one row per record and its first field is always the record ID.
+ * Further sections hold child rows (passengers, replies) referenced by index range.
+ *
+ * @param <T> Record type
+ */
+public class BinarySnapshot<T> implements EntityStore.LazySnapshot<T> {
+
+    private static final int MAGIC = 0x504B4253; // "PKBS"
+    // Raised whenever a codec's row layout changes; codecs still decode rows of older versions
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int SECTION_ENTRY_SIZE = 16;
+
+    // Stored in place of null references and timestamps
+    private static final int NULL_STRING = -1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final BinaryCodec<T> codec;
+    private final int version;
+    private final int[] sectionOffsets;
+    private final int[] rowCounts;
+    private final int[] rowSizes;
+    private final int stringCount;
+    private final int stringOffsetsPosition;
+    private final int stringBytesPosition;
+    private final String[] strings;
+
+    private BinarySnapshot(ByteBuffer buffer, BinaryCodec<T> codec) throws IOException {
+        this.buffer = buffer;
+        this.codec = codec;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary snapshot");
+        }
+        this.version = buffer.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary snapshot version " + version);
+        }
+        int sectionCount = buffer.getInt(8);
+        if (sectionCount != codec.sectionCount()) {
+            throw new IOException("Binary snapshot has " + sectionCount + " sections, expected " + codec.sectionCount());
+        }
+        int stringTableOffset = checkedOffset(buffer.getLong(16));
+
+        sectionOffsets = new int[sectionCount];
+        rowCounts = new int[sectionCount];
+        rowSizes = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            int entry = HEADER_SIZE + i * SECTION_ENTRY_SIZE;
+            sectionOffsets[i] = checkedOffset(buffer.getLong(entry));
+            rowCounts[i] = buffer.getInt(entry + 8);
+            rowSizes[i] = buffer.getInt(entry + 12);
+            if ((long) sectionOffsets[i] + (long) rowCounts[i] * rowSizes[i] > stringTableOffset) {
+                throw new IOException("Binary snapshot section " + i + " is truncated");
+            }
+        }
+
+        stringCount = buffer.getInt(stringTableOffset);
+        stringOffsetsPosition = stringTableOffset + 4;
+        stringBytesPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+        if (stringCount < 0 || stringBytesPosition > buffer.limit()
+            || stringBytesPosition + buffer.getInt(stringOffsetsPosition + stringCount * 4) > buffer.limit()) {
+            throw new IOException("Binary snapshot string table is truncated");
+        }
+        strings = new String[stringCount];
+    }
+
+    private int checkedOffset(long offset) throws IOException {
+        if (offset < 0 || offset > buffer.limit()) {
+            throw new IOException("Binary snapshot offset out of range: " + offset);
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Map a snapshot file. Only the header is read; records are decoded on demand.
+     * @param fileName Snapshot file
+     * @param codec Codec for the record type
+     * @return Mapped snapshot
+     * @throws IOException If the file cannot be mapped or is not a valid snapshot
+     */
+    public static <T> BinarySnapshot<T> open(String fileName, BinaryCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot too large to map: " + fileName);
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinarySnapshot<>(buffer, codec);
+        }
+    }
+
+    /**
+     * Encode records as a binary snapshot
+     * @param out Output stream (not closed)
+     * @param codec Codec for the record type
+     * @param records Records to write
+     * @throws IOException If writing fails
+     */
+    public static <T> void write(OutputStream out, BinaryCodec<T> codec, List<T> records) throws IOException {
+        Encoder encoder = new Encoder(codec.sectionCount());
+        for (T record : records) {
+            int before = encoder.rowCount(0);
+            codec.encode(record, encoder);
+            if (encoder.rowCount(0) != before + 1) {
+                throw new IllegalStateException("Binary codec must write exactly one main row per record");
+            }
+        }
+        encoder.writeTo(out);
+    }
+
+    // ==================== LAZY ACCESS ====================
+
+    @Override
+    public int size() {
+        return rowCounts[0];
+    }
+
+    @Override
+    public String idAt(int row) {
+        return string(buffer.getInt(rowPosition(0, row)));
+    }
+
+    @Override
+    public T decode(int row) {
+        return codec.decode(this, row);
+    }
+
+    /**
+     * @return Format version the snapshot was written with
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param section Section index
+     * @return Number of rows in the section
+     */
+    public int rowCount(int section) {
+        return rowCounts[section];
+    }
+
+    /**
+     * Start reading a row
+     * @param section Section index
+     * @param row Row index within the section
+     * @return Reader positioned at the first field of the row
+     */
+    public Row row(int section, int row) {
+        return new Row(rowPosition(section, row));
+    }
+
+    private int rowPosition(int section, int row) {
+        if (row < 0 || row >= rowCounts[section]) {
+            throw new IndexOutOfBoundsException("Row " + row + " of section " + section);
+        }
+        return sectionOffsets[section] + row * rowSizes[section];
+    }
+
+    /**
+     * Decode a string table entry, caching it for later lookups
+     */
+    private String string(int index) {
+        if (index == NULL_STRING) {
+            return null;
+        }
+        String value = strings[index];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsetsPosition + index * 4);
+            int end = buffer.getInt(stringOffsetsPosition + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringBytesPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Sequential reader over the fields of one row
+     */
+    public final class Row {
+        private int position;
+
+        private Row(int position) {
+            this.position = position;
+        }
+
+        public String string() {
+            int index = buffer.getInt(position);
+            position += 4;
+            return BinarySnapshot.this.string(index);
+        }
+
+        public int int32() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        public long int64() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        public double float64() {
+            double value = buffer.getDouble(position);
+            position += 8;
+            return value;
+        }
+
+        public boolean bool() {
+            boolean value = buffer.get(position) != 0;
+            position += 1;
+            return value;
+        }
+
+        public LocalDateTime dateTime() {
+            long seconds = int64();
+            int nanos = int32();
+            return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+
+        public LocalDate date() {
+            long epochDay = int64();
+            return epochDay == NULL_TIME ? null : LocalDate.ofEpochDay(epochDay);
+        }
+    }
+
+    // ==================== ENCODING ====================
+
+    /**
+     * Collects the rows and strings of a snapshot while it is being encoded
+     */
+    public static final class Encoder {
+        private final ByteArrayOutputStream[] sections;
+        private final int[] rowCounts;
+        private final int[] rowSizes;
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<byte[]> stringBytes = new ArrayList<>();
+        private int stringLength = 0;
+
+        private Encoder(int sectionCount) {
+            sections = new ByteArrayOutputStream[sectionCount];
+            rowCounts = new int[sectionCount];
+            rowSizes = new int[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                sections[i] = new ByteArrayOutputStream();
+                rowSizes[i] = -1;
+            }
+        }
+
+        /**
+         * Start a new row; it is added to the section when {@link RowWriter#end()} is called
+         * @param section Section index
+         * @return Writer for the row's fields
+         */
+        public RowWriter row(int section) {
+            return new RowWriter(this, section);
+        }
+
+        /**
+         * @param section Section index
+         * @return Number of rows written to the section so far
+         */
+        public int rowCount(int section) {
+            return rowCounts[section];
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            Integer index = stringIndex.get(value);
+            if (index == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                index = stringBytes.size();
+                stringBytes.add(bytes);
+                stringIndex.put(value, index);
+                stringLength += bytes.length;
+            }
+            return index;
+        }
+
+        private void addRow(int section, byte[] row) {
+            if (rowSizes[section] == -1) {
+                rowSizes[section] = row.length;
+            } else if (rowSizes[section] != row.length) {
+                throw new IllegalStateException("Rows of section " + section + " must have a fixed width");
+            }
+            sections[section].write(row, 0, row.length);
+            rowCounts[section]++;
+        }
+
+        private void writeTo(OutputStream target) throws IOException {
+            DataOutputStream out = new DataOutputStream(target);
+            long offset = HEADER_SIZE + (long) sections.length * SECTION_ENTRY_SIZE;
+            long[] offsets = new long[sections.length];
+            for (int i = 0; i < sections.length; i++) {
+                offsets[i] = offset;
+                offset += sections[i].size();
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sections.length);
+            out.writeInt(0);
+            out.writeLong(offset);
+            for (int i = 0; i < sections.length; i++) {
+                out.writeLong(offsets[i]);
+                out.writeInt(rowCounts[i]);
+                out.writeInt(Math.max(rowSizes[i], 0));
+            }
+            for (ByteArrayOutputStream section : sections) {
+                section.writeTo(out);
+            }
+
+            out.writeInt(stringBytes.size());
+            int position = 0;
+            for (byte[] bytes : stringBytes) {
+                out.writeInt(position);
+                position += bytes.length;
+            }
+            out.writeInt(stringLength);
+            for (byte[] bytes : stringBytes) {
+                out.write(bytes);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the fields of one fixed-width row
+     */
+    public static final class RowWriter {
+        private final Encoder encoder;
+        private final int section;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private RowWriter(Encoder encoder, int section) {
+            this.encoder = encoder;
+            this.section = section;
+        }
+
+        public RowWriter string(String value) throws IOException {
+            out.writeInt(encoder.intern(value));
+            return this;
+        }
+
+        public RowWriter int32(int value) throws IOException {
+            out.writeInt(value);
+            return this;
+        }
+
+        public RowWriter int64(long value) throws IOException {
+            out.writeLong(value);
+            return this;
+        }
+
+        public RowWriter float64(double value) throws IOException {
+            out.writeDouble(value);
+            return this;
+        }
+
+        public RowWriter bool(boolean value) throws IOException {
+            out.writeByte(value ? 1 : 0);
+            return this;
+        }
+
+        public RowWriter dateTime(LocalDateTime value) throws IOException {
+            out.writeLong(value != null ? value.toEpochSecond(ZoneOffset.UTC) : NULL_TIME);
+            out.writeInt(value != null ? value.getNano() : 0);
+            return this;
+        }
+
+        public RowWriter date(LocalDate value) throws IOException {
+            out.writeLong(value != null ? value.toEpochDay() : NULL_TIME);
+            return this;
+        }
+
+        /**
+         * Add the finished row to its section
+         */
+        public void end() {
+            encoder.addRow(section, bytes.toByteArray());
+        }
+    }
+}
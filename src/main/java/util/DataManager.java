@@ -1,29 +1,31 @@
 package util;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import model.Admin;
 import model.Booking;
-import model.BookingStatus;
 import model.Customer;
 import model.FAQ;
 import model.Flight;
-import model.FlightStatus;
-import model.Passenger;
-import model.PaymentDetails;
 import model.RefundRequest;
+import model.SeatMap;
 import model.Ticket;
-import model.TicketPriority;
-import model.TicketReply;
-import model.TicketStatus;
 import model.User;
 
 /**
@@ -40,14 +42,100 @@ public class DataManager {
     private static final String TICKETS_FILE = DATA_DIR + "tickets.json";
     private static final String REFUNDS_FILE = DATA_DIR + "refunds.json";
     private static final String FAQS_FILE = DATA_DIR + "faqs.json";
-
-    // User database management
-    private static List<User> userDatabase = new ArrayList<>();
-    private static boolean usersInitialized = false;
+    private static final String SEAT_MAPS_FILE = DATA_DIR + "seatmaps.json";
+    private static final String JOURNAL_FILE = DATA_DIR + "journal.log";
+    private static final String TICKETS_LOG = DATA_DIR + "tickets.log";
+
+    // Number of generation snapshots kept per data file, configurable with -Dpikachu.snapshot.retention
+    private static final int SNAPSHOT_RETENTION = Integer.getInteger("pikachu.snapshot.retention", 5);
+
+    // Keep collections in memory-mapped binary snapshots (*.bin) for fast startup, enabled with -Dpikachu.snapshot.binary=true.
+    // JSON files remain the import/export format: a JSON file newer than its binary snapshot is imported on load.
+    private static final boolean BINARY_SNAPSHOTS = Boolean.getBoolean("pikachu.snapshot.binary");
+
+    // Group commit: asynchronous writes arriving within the window, or up to the batch size, share one disk flush
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = Long.getLong("pikachu.groupcommit.windowMillis", 5);
+    private static final int GROUP_COMMIT_MAX_RECORDS = Integer.getInteger("pikachu.groupcommit.maxRecords", 256);
+
+    // How often pending mutation log records are folded into the JSON snapshots
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+
+    // In-memory entity stores, shared by every DataManager instance and loaded once
+    private static EntityStore<User> userStore;
+    private static EntityStore<Flight> flightStore;
+    private static EntityStore<Booking> bookingStore;
+    private static EntityStore<Ticket> ticketStore;
+    private static EntityStore<RefundRequest> refundStore;
+    private static EntityStore<FAQ> faqStore;
+    private static EntityStore<SeatMap> seatMapStore;
+    // Journal shared by the flight and booking stores so a booking and its seat count commit together
+    private static Journal journal;
+    private static ScheduledExecutorService compactor;
+    private static final Map<String, SnapshotFile> snapshotFiles = new ConcurrentHashMap<>();
 
     public DataManager() {
         ensureDataDirectoryExists();
         initializeDataFiles();
+        initializeStores(this);
+    }
+
+    /**
+     * Create the shared entity stores on first use
+     * @param owner DataManager providing the file readers and writers
+     */
+    private static synchronized void initializeStores(DataManager owner) {
+        if (userStore != null) {
+            return;
+        }
+        userStore = new EntityStore<>("users", User::getUserId, owner::loadUsersFromFile, owner::saveUsersToFile);
+        journal = new Journal(JOURNAL_FILE);
+        flightStore = new EntityStore<>("flights", Flight::getFlightId, owner::loadFlightsFromFile, owner::saveFlightsToFile,
+                                        new MutationLog<>(journal, "flights", JsonCodec.FLIGHT));
+        bookingStore = new EntityStore<>("bookings", Booking::getBookingId, owner::loadBookingsFromFile, owner::saveBookingsToFile,
+                                         new MutationLog<>(journal, "bookings", JsonCodec.BOOKING));
+        ticketStore = new EntityStore<>("tickets", Ticket::getTicketId, owner::loadTicketsFromFile, owner::saveTicketsToFile,
+                                        new MutationLog<>(TICKETS_LOG, JsonCodec.TICKET));
+        refundStore = new EntityStore<>("refunds", RefundRequest::getRefundId, owner::loadRefundsFromFile, owner::saveRefundsToFile);
+        faqStore = new EntityStore<>("FAQs", FAQ::getFaqId, owner::loadFAQsFromFile, owner::saveFAQsToFile);
+        seatMapStore = new EntityStore<>("seat maps", SeatMap::getFlightId, owner::loadSeatMapsFromFile, owner::saveSeatMapsToFile);
+        for (EntityStore<?> store : List.of(userStore, flightStore, bookingStore, ticketStore, refundStore, faqStore, seatMapStore)) {
+            store.enableGroupCommit(GROUP_COMMIT_WINDOW_MILLIS, GROUP_COMMIT_MAX_RECORDS);
+        }
+        if (BINARY_SNAPSHOTS) {
+            userStore.setLazyLoader(() -> openBinarySnapshot(USERS_FILE, BinaryCodec.USER));
+            flightStore.setLazyLoader(() -> openBinarySnapshot(FLIGHTS_FILE, BinaryCodec.FLIGHT));
+            bookingStore.setLazyLoader(() -> openBinarySnapshot(BOOKINGS_FILE, BinaryCodec.BOOKING));
+            ticketStore.setLazyLoader(() -> openBinarySnapshot(TICKETS_FILE, BinaryCodec.TICKET));
+            refundStore.setLazyLoader(() -> openBinarySnapshot(REFUNDS_FILE, BinaryCodec.REFUND));
+            faqStore.setLazyLoader(() -> openBinarySnapshot(FAQS_FILE, BinaryCodec.FAQ_ENTRY));
+        }
+        startCompactor();
+    }
+
+    /**
+     * Start the background task that folds the journal and the ticket mutation log into snapshots
+     */
+    private static void startCompactor() {
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DataManager-Compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(DataManager::compactLogs,
+                                         COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fold pending flight, booking and ticket mutations into their JSON snapshots
+     */
+    public static void compactLogs() {
+        try {
+            flightStore.checkpoint();
+            bookingStore.checkpoint();
+            ticketStore.checkpoint();
+        } catch (Exception e) {
+            System.err.println("Error compacting mutation logs: " + e.getMessage());
+        }
     }
 
     /**
@@ -70,6 +158,7 @@ public class DataManager {
         initializeFileIfNotExists(TICKETS_FILE, "[]");
         initializeFileIfNotExists(REFUNDS_FILE, "[]");
         initializeFileIfNotExists(FAQS_FILE, "[]");
+        initializeFileIfNotExists(SEAT_MAPS_FILE, "[]");
     }
 
     /**
@@ -79,7 +168,8 @@ public class DataManager {
      */
     private void initializeFileIfNotExists(String fileName, String defaultContent) {
         File file = new File(fileName);
-        if (!file.exists()) {
+        // A fresh empty JSON file would be newer than the binary snapshot and replace its contents on import
+        if (!file.exists() && binarySnapshotFile(fileName).currentVersion() == null) {
             try (FileWriter writer = new FileWriter(file)) {
                 writer.write(defaultContent);
             } catch (IOException e) {
@@ -90,69 +180,87 @@ public class DataManager {
 
     // ==================== PUBLIC INTERFACE ====================
 
+    // Entity stores (reads are served from memory, writes go through to disk)
+    public EntityStore<User> getUserStore() {
+        return userStore;
+    }
+
+    public EntityStore<Flight> getFlightStore() {
+        return flightStore;
+    }
+
+    public EntityStore<Booking> getBookingStore() {
+        return bookingStore;
+    }
+
+    public EntityStore<Ticket> getTicketStore() {
+        return ticketStore;
+    }
+
+    public EntityStore<RefundRequest> getRefundStore() {
+        return refundStore;
+    }
+
+    public EntityStore<FAQ> getFAQStore() {
+        return faqStore;
+    }
+
+    public EntityStore<SeatMap> getSeatMapStore() {
+        return seatMapStore;
+    }
+
     // User operations
     public List<User> loadUsers() {
-        return loadUsersFromFile();
+        return userStore.findAll();
     }
 
     public boolean saveUsers(List<User> users) {
-        try {
-            // Update the in-memory database
-            userDatabase.clear();
-            userDatabase.addAll(users);
-            
-            // Use the new persistent save method
-            saveUsers();
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error saving users: " + e.getMessage());
-            return false;
-        }
+        return userStore.replaceAll(users);
     }
 
     // Flight operations
     public List<Flight> loadFlights() {
-        return loadFlightsFromFile();
+        return flightStore.findAll();
     }
 
     public boolean saveFlights(List<Flight> flights) {
-        return saveFlightsToFile(flights);
+        return flightStore.replaceAll(flights);
     }
 
     // Booking operations
     public List<Booking> loadBookings() {
-        return loadBookingsFromFile();
+        return bookingStore.findAll();
     }
 
     public boolean saveBookings(List<Booking> bookings) {
-        return saveBookingsToFile(bookings);
+        return bookingStore.replaceAll(bookings);
     }
 
     // Ticket operations
     public List<Ticket> loadTickets() {
-        return loadTicketsFromFile();
+        return ticketStore.findAll();
     }
 
     public boolean saveTickets(List<Ticket> tickets) {
-        return saveTicketsToFile(tickets);
+        return ticketStore.replaceAll(tickets);
     }
 
     // Refund operations
     public List<RefundRequest> loadRefunds() {
-        return loadRefundsFromFile();
+        return refundStore.findAll();
     }
 
     public boolean saveRefunds(List<RefundRequest> refunds) {
-        return saveRefundsToFile(refunds);
+        return refundStore.replaceAll(refunds);
     }
 
     // FAQ operations
     public List<FAQ> loadFAQs() {
-        return loadFAQsFromFile();
+        return faqStore.findAll();
     }
 
     public boolean saveFAQs(List<FAQ> faqs) {
-        return saveFAQsToFile(faqs);
+        return faqStore.replaceAll(faqs);
     }
 
     // ==================== PRIVATE IMPLEMENTATION ====================
@@ -166,24 +274,14 @@ public class DataManager {
             File usersFile = new File(USERS_FILE);
             boolean hasExistingUsers = usersFile.exists() && usersFile.length() > 50; // More than just empty JSON
             
+            List<User> userDatabase = new ArrayList<>();
+            
             // If users file exists with content, load users from file
             if (hasExistingUsers) {
-                // Clear current database and load from file
-                userDatabase.clear();
-                
-                String content = readFileContent(USERS_FILE);
-                if (!content.trim().equals("[]") && !content.trim().isEmpty()) {
-                    // Parse JSON content to load users
-                    List<User> loadedUsers = parseUsersFromJSON(content);
-                    userDatabase.addAll(loadedUsers);
-                    System.out.println("Loaded " + userDatabase.size() + " users from file");
-                }
-            }
-            
-            // Initialize default users only if no existing data and not already initialized
-            if (!usersInitialized && !hasExistingUsers) {
-                userDatabase.clear();
-                
+                userDatabase.addAll(readJsonFile(USERS_FILE, JsonCodec.USER));
+                System.out.println("Loaded " + userDatabase.size() + " users from file");
+            } else {
+                // Initialize default users only if no existing data
                 // Password "123456" hashed using the same method as UserService
                 String hashedPassword = "HASH_" + "123456".hashCode();
                 
@@ -233,14 +331,13 @@ public class DataManager {
                                                "Michael", "Wang", "987-654-3218", "YZA567", "Malaysia");
                 userDatabase.add(customer9);
                 
-                usersInitialized = true;
                 System.out.println("Created sample users: " + userDatabase.size() + " users loaded");
                 
                 // Save sample users to file
-                saveUsers();
+                saveUsersToFile(userDatabase);
             }
             
-            return new ArrayList<>(userDatabase); // Return copy of the list
+            return userDatabase;
         } catch (Exception e) {
             System.err.println("Error loading users: " + e.getMessage());
             return new ArrayList<>();
@@ -251,43 +348,22 @@ public class DataManager {
      * Save current user database to file - preserves existing users
      */
     public void saveUsers() {
+        userStore.flush();
+    }
+
+    /**
+     * Save users to file
+     * @param existingUsers Users to write
+     * @return true if save successful
+     */
+    private boolean saveUsersToFile(List<User> existingUsers) {
         try {
-            File file = new File(USERS_FILE);
-            file.getParentFile().mkdirs();
-            
-            // Use the current userDatabase as the source of truth
-            List<User> existingUsers = new ArrayList<>(userDatabase);
-            
-            // Write all users to file
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write("[\n");
-                for (int i = 0; i < existingUsers.size(); i++) {
-                    User user = existingUsers.get(i);
-                    writer.write("  {\n");
-                    writer.write("    \"userId\": \"" + user.getUserId() + "\",\n");
-                    writer.write("    \"username\": \"" + user.getUsername() + "\",\n");
-                    writer.write("    \"password\": \"" + user.getPassword() + "\",\n");
-                    writer.write("    \"email\": \"" + user.getEmail() + "\",\n");
-                    writer.write("    \"firstName\": \"" + user.getFirstName() + "\",\n");
-                    writer.write("    \"lastName\": \"" + user.getLastName() + "\",\n");
-                    writer.write("    \"phoneNumber\": \"" + (user.getPhoneNumber() != null ? user.getPhoneNumber() : "") + "\",\n");
-                    writer.write("    \"role\": \"" + user.getRole().name() + "\",\n");
-                    writer.write("    \"createdAt\": \"" + (user.getCreatedAt() != null ? user.getCreatedAt().toString() : "") + "\",\n");
-                    writer.write("    \"lastLogin\": \"" + (user.getLastLogin() != null ? user.getLastLogin().toString() : "") + "\",\n");
-                    writer.write("    \"isActive\": " + user.isActive() + "\n");
-                    writer.write("  }");
-                    if (i < existingUsers.size() - 1) {
-                        writer.write(",");
-                    }
-                    writer.write("\n");
-                }
-                writer.write("]\n");
-            }
-            
+            writeSnapshot(USERS_FILE, JsonCodec.USER, BinaryCodec.USER, existingUsers);
             System.out.println("Successfully saved " + existingUsers.size() + " users to persistent storage");
-            
+            return true;
         } catch (Exception e) {
             System.err.println("Error saving users to file: " + e.getMessage());
+            return false;
         }
     }
 
@@ -296,281 +372,25 @@ public class DataManager {
      */
     private List<Flight> loadFlightsFromFile() {
         try {
-            String content = readFileContent(FLIGHTS_FILE);
-            
-            // If file is empty or doesn't exist, return empty list
-            if (content.trim().equals("[]") || content.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            List<Flight> flights = new ArrayList<>();
-            
-            // Simple JSON parsing for flights
-            // Remove brackets and split by flight objects
-            content = content.trim();
-            if (content.startsWith("[")) {
-                content = content.substring(1);
-            }
-            if (content.endsWith("]")) {
-                content = content.substring(0, content.length() - 1);
-            }
-            
-            // Split by flight objects (look for closing and opening braces)
-            String[] flightBlocks = content.split("\\},\\s*\\{");
-            
-            for (String block : flightBlocks) {
-                if (block.trim().isEmpty()) {
-                    continue;
-                }
-                
-                // Clean up the block
-                block = block.trim();
-                if (!block.startsWith("{")) {
-                    block = "{" + block;
-                }
-                if (!block.endsWith("}")) {
-                    block = block + "}";
-                }
-                
-                try {
-                    Flight flight = parseFlightFromJson(block);
-                    if (flight != null) {
-                        flights.add(flight);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing flight: " + e.getMessage());
-                    // Continue with next flight
-                }
-            }
-            
+            List<Flight> flights = readJsonFile(FLIGHTS_FILE, JsonCodec.FLIGHT);
             System.out.println("Loaded " + flights.size() + " flights from " + FLIGHTS_FILE);
             return flights;
-            
         } catch (Exception e) {
             System.err.println("Error loading flights from file: " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
-    /**
-     * Parse a flight object from JSON string
-     * @param jsonBlock JSON string representing a flight
-     * @return Flight object
-     */
-    private Flight parseFlightFromJson(String jsonBlock) {
-        try {
-            Flight flight = new Flight();
-            
-            // Extract fields using simple string manipulation
-            String flightNumber = extractJsonValue(jsonBlock, "flightNumber");
-            String origin = extractJsonValue(jsonBlock, "origin");
-            String destination = extractJsonValue(jsonBlock, "destination");
-            String departureTimeStr = extractJsonValue(jsonBlock, "departureTime");
-            String arrivalTimeStr = extractJsonValue(jsonBlock, "arrivalTime");
-            String priceStr = extractJsonValue(jsonBlock, "price");
-            String availableSeatsStr = extractJsonValue(jsonBlock, "availableSeats");
-            String totalSeatsStr = extractJsonValue(jsonBlock, "totalSeats");
-            String aircraft = extractJsonValue(jsonBlock, "aircraft");
-            String status = extractJsonValue(jsonBlock, "status");
-            
-            // Set flight properties with null checks
-            if (flightNumber != null && !flightNumber.trim().isEmpty()) {
-                flight.setFlightId("FL_" + flightNumber); // Generate ID from flight number
-                flight.setFlightNumber(flightNumber);
-            } else {
-                flight.setFlightId("FL_UNKNOWN_" + System.currentTimeMillis());
-                flight.setFlightNumber("UNKNOWN");
-            }
-            
-            flight.setAirline("Pikachu Airlines"); // Default airline
-            flight.setDepartureAirport(origin != null && !origin.trim().isEmpty() ? origin : "TBD");
-            flight.setArrivalAirport(destination != null && !destination.trim().isEmpty() ? destination : "TBD");
-            flight.setAircraft(aircraft != null && !aircraft.trim().isEmpty() ? aircraft : "Unknown Aircraft");
-            
-            // Parse dates (format: 2025-01-04T08:00:00)
-            if (departureTimeStr != null && !departureTimeStr.trim().isEmpty()) {
-                try {
-                    flight.setDepartureTime(LocalDateTime.parse(departureTimeStr));
-                } catch (Exception e) {
-                    System.err.println("Error parsing departure time: " + departureTimeStr);
-                    // Set default time if parsing fails
-                    flight.setDepartureTime(LocalDateTime.now().plusDays(1));
-                }
-            } else {
-                flight.setDepartureTime(LocalDateTime.now().plusDays(1));
-            }
-            
-            if (arrivalTimeStr != null && !arrivalTimeStr.trim().isEmpty()) {
-                try {
-                    flight.setArrivalTime(LocalDateTime.parse(arrivalTimeStr));
-                } catch (Exception e) {
-                    System.err.println("Error parsing arrival time: " + arrivalTimeStr);
-                    // Set default time if parsing fails
-                    flight.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(2));
-                }
-            } else {
-                flight.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(2));
-            }
-            
-            // Parse numeric values
-            if (priceStr != null && !priceStr.trim().isEmpty()) {
-                try {
-                    flight.setBasePrice(Double.parseDouble(priceStr));
-                } catch (NumberFormatException e) {
-                    flight.setBasePrice(0.0);
-                }
-            } else {
-                flight.setBasePrice(0.0);
-            }
-            
-            if (availableSeatsStr != null && !availableSeatsStr.trim().isEmpty()) {
-                try {
-                    flight.setAvailableSeats(Integer.parseInt(availableSeatsStr));
-                } catch (NumberFormatException e) {
-                    flight.setAvailableSeats(0);
-                }
-            } else {
-                flight.setAvailableSeats(0);
-            }
-            
-            if (totalSeatsStr != null && !totalSeatsStr.trim().isEmpty()) {
-                try {
-                    flight.setTotalSeats(Integer.parseInt(totalSeatsStr));
-                } catch (NumberFormatException e) {
-                    flight.setTotalSeats(180);
-                }
-            } else {
-                flight.setTotalSeats(180);
-            }
-            
-            // Parse status
-            if (status != null && !status.trim().isEmpty()) {
-                try {
-                    // Map JSON status values to enum values
-                    FlightStatus flightStatus;
-                    switch (status) {
-                        case "ON_TIME":
-                            flightStatus = FlightStatus.SCHEDULED;
-                            break;
-                        case "DELAYED":
-                            flightStatus = FlightStatus.DELAYED;
-                            break;
-                        case "CANCELLED":
-                            flightStatus = FlightStatus.CANCELLED;
-                            break;
-                        default:
-                            flightStatus = FlightStatus.SCHEDULED;
-                    }
-                    flight.setStatus(flightStatus);
-                } catch (IllegalArgumentException e) {
-                    flight.setStatus(FlightStatus.SCHEDULED); // Default status
-                }
-            } else {
-                flight.setStatus(FlightStatus.SCHEDULED);
-            }
-            
-            return flight;
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing flight JSON: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Extract a value from JSON string
-     * @param json JSON string
-     * @param key Key to extract
-     * @return Extracted value or null
-     */
-    private String extractJsonValue(String json, String key) {
-        try {
-            // Use a pattern that handles newlines and indentation
-            String pattern = "\"" + key + "\"\\s*:\\s*";
-            
-            // Create a Pattern object with multiline flag to handle newlines
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern, java.util.regex.Pattern.DOTALL);
-            java.util.regex.Matcher m = p.matcher(json);
-            
-            if (!m.find()) {
-                return null;
-            }
-            
-            int startIndex = m.end();
-            
-            // Check if value is a string (starts with quote)
-            boolean isString = json.charAt(startIndex) == '"';
-            
-            if (isString) {
-                startIndex++; // Skip opening quote
-                int endIndex = json.indexOf('"', startIndex);
-                if (endIndex == -1) {
-                    return null;
-                }
-                String result = json.substring(startIndex, endIndex);
-                return result;
-            } else {
-                // Numeric or boolean value
-                int endIndex = json.indexOf(',', startIndex);
-                if (endIndex == -1) {
-                    endIndex = json.indexOf('}', startIndex);
-                }
-                if (endIndex == -1) {
-                    return null;
-                }
-                return json.substring(startIndex, endIndex).trim();
-            }
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
     /**
      * Save flights to file
      */
     private boolean saveFlightsToFile(List<Flight> flights) {
         try {
-            System.out.println("Saving " + flights.size() + " flights to file");
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("[\n");
-            
-            for (int i = 0; i < flights.size(); i++) {
-                Flight flight = flights.get(i);
-                jsonBuilder.append("  {\n");
-                jsonBuilder.append("    \"flightId\": \"").append(escapeJson(flight.getFlightId())).append("\",\n");
-                jsonBuilder.append("    \"flightNumber\": \"").append(escapeJson(flight.getFlightNumber())).append("\",\n");
-                jsonBuilder.append("    \"airline\": \"").append(escapeJson(flight.getAirline())).append("\",\n");
-                jsonBuilder.append("    \"departureAirport\": \"").append(escapeJson(flight.getDepartureAirport())).append("\",\n");
-                jsonBuilder.append("    \"arrivalAirport\": \"").append(escapeJson(flight.getArrivalAirport())).append("\",\n");
-                jsonBuilder.append("    \"departureTime\": \"").append(flight.getDepartureTime() != null ? flight.getDepartureTime().toString() : "").append("\",\n");
-                jsonBuilder.append("    \"arrivalTime\": \"").append(flight.getArrivalTime() != null ? flight.getArrivalTime().toString() : "").append("\",\n");
-                jsonBuilder.append("    \"basePrice\": ").append(flight.getBasePrice()).append(",\n");
-                jsonBuilder.append("    \"totalSeats\": ").append(flight.getTotalSeats()).append(",\n");
-                jsonBuilder.append("    \"availableSeats\": ").append(flight.getAvailableSeats()).append(",\n");
-                jsonBuilder.append("    \"status\": \"").append(flight.getStatus() != null ? flight.getStatus().name() : "SCHEDULED").append("\",\n");
-                jsonBuilder.append("    \"aircraft\": \"").append(escapeJson(flight.getAircraft())).append("\",\n");
-                jsonBuilder.append("    \"duration\": ").append(flight.getDuration()).append("\n");
-                jsonBuilder.append("  }");
-                
-                if (i < flights.size() - 1) {
-                    jsonBuilder.append(",");
-                }
-                jsonBuilder.append("\n");
-            }
-            
-            jsonBuilder.append("]");
-            
-            try (FileWriter writer = new FileWriter(FLIGHTS_FILE)) {
-                writer.write(jsonBuilder.toString());
-            }
-            
+            writeSnapshot(FLIGHTS_FILE, JsonCodec.FLIGHT, BinaryCodec.FLIGHT, flights);
             System.out.println("Successfully saved " + flights.size() + " flights to " + FLIGHTS_FILE);
             return true;
-            
         } catch (Exception e) {
             System.err.println("Error saving flights: " + e.getMessage());
-            e.printStackTrace();
             return false;
         }
     }
@@ -580,56 +400,9 @@ public class DataManager {
      */
     private List<Booking> loadBookingsFromFile() {
         try {
-            String content = readFileContent(BOOKINGS_FILE);
-            
-            // If file is empty or doesn't exist, return empty list
-            if (content.trim().equals("[]") || content.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            List<Booking> bookings = new ArrayList<>();
-            
-            // Simple JSON parsing for bookings
-            // Remove brackets and split by booking objects
-            content = content.trim();
-            if (content.startsWith("[")) {
-                content = content.substring(1);
-            }
-            if (content.endsWith("]")) {
-                content = content.substring(0, content.length() - 1);
-            }
-            
-            // Split by booking objects (look for closing and opening braces)
-            String[] bookingBlocks = content.split("\\},\\s*\\{");
-            
-            for (String block : bookingBlocks) {
-                if (block.trim().isEmpty()) {
-                    continue;
-                }
-                
-                // Clean up the block
-                block = block.trim();
-                if (!block.startsWith("{")) {
-                    block = "{" + block;
-                }
-                if (!block.endsWith("}")) {
-                    block = block + "}";
-                }
-                
-                try {
-                    Booking booking = parseBookingFromJson(block);
-                    if (booking != null) {
-                        bookings.add(booking);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing booking: " + e.getMessage());
-                    // Continue with next booking
-                }
-            }
-            
+            List<Booking> bookings = readJsonFile(BOOKINGS_FILE, JsonCodec.BOOKING);
             System.out.println("Loaded " + bookings.size() + " bookings from " + BOOKINGS_FILE);
             return bookings;
-            
         } catch (Exception e) {
             System.err.println("Error loading bookings from file: " + e.getMessage());
             return new ArrayList<>();
@@ -641,678 +414,254 @@ public class DataManager {
      */
     private boolean saveBookingsToFile(List<Booking> bookings) {
         try {
-            System.out.println("DataManager: Attempting to save " + bookings.size() + " bookings to file");
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("[\n");
-            
-            for (int i = 0; i < bookings.size(); i++) {
-                Booking booking = bookings.get(i);
-                jsonBuilder.append(bookingToJson(booking));
-                
-                if (i < bookings.size() - 1) {
-                    jsonBuilder.append(",\n");
-                } else {
-                    jsonBuilder.append("\n");
-                }
-            }
-            
-            jsonBuilder.append("]");
-            
-            try (FileWriter writer = new FileWriter(BOOKINGS_FILE)) {
-                writer.write(jsonBuilder.toString());
-            }
-            
+            writeSnapshot(BOOKINGS_FILE, JsonCodec.BOOKING, BinaryCodec.BOOKING, bookings);
             System.out.println("DataManager: Successfully saved " + bookings.size() + " bookings to " + BOOKINGS_FILE);
             return true;
-            
         } catch (Exception e) {
             System.err.println("DataManager: Error saving bookings to file: " + e.getMessage());
-            e.printStackTrace();
             return false;
         }
     }
 
     /**
-     * Parse a booking object from JSON string
-     * @param jsonBlock JSON string representing a booking
-     * @return Booking object
+     * Load tickets from file
      */
-    private Booking parseBookingFromJson(String jsonBlock) {
+    private List<Ticket> loadTicketsFromFile() {
         try {
-            Booking booking = new Booking();
-            
-            // Extract fields using simple string manipulation
-            String bookingId = extractJsonValue(jsonBlock, "bookingId");
-            String userId = extractJsonValue(jsonBlock, "userId");
-            String flightId = extractJsonValue(jsonBlock, "flightId");
-            String bookingDateStr = extractJsonValue(jsonBlock, "bookingDate");
-            String status = extractJsonValue(jsonBlock, "status");
-            String totalAmountStr = extractJsonValue(jsonBlock, "totalAmount");
-            
-            // Set booking properties
-            booking.setBookingId(bookingId);
-            booking.setCustomerId(userId); // Maps JSON userId to model customerId
-            booking.setFlightId(flightId);
-            
-            // Parse booking date
-            if (bookingDateStr != null && !bookingDateStr.isEmpty()) {
-                try {
-                    booking.setBookingDate(LocalDateTime.parse(bookingDateStr));
-                } catch (Exception e) {
-                    System.err.println("Error parsing booking date: " + e.getMessage());
-                }
-            }
-            
-            // Parse status
-            if (status != null && !status.isEmpty()) {
-                try {
-                    booking.setStatus(BookingStatus.valueOf(status.toUpperCase()));
-                } catch (Exception e) {
-                    System.err.println("Error parsing booking status: " + e.getMessage());
-                    booking.setStatus(BookingStatus.PENDING);
-                }
-            }
-            
-            // Parse total amount
-            if (totalAmountStr != null && !totalAmountStr.isEmpty()) {
-                try {
-                    booking.setTotalPrice(Double.parseDouble(totalAmountStr));
-                } catch (Exception e) {
-                    System.err.println("Error parsing total amount: " + e.getMessage());
-                }
-            }
-            
-            // Parse passengers array
-            parseBookingPassengers(jsonBlock, booking);
-            
-            // Parse payment details
-            parseBookingPaymentDetails(jsonBlock, booking);
-            
-            return booking;
-            
+            List<Ticket> tickets = readJsonFile(TICKETS_FILE, JsonCodec.TICKET);
+            System.out.println("Loaded " + tickets.size() + " tickets from " + TICKETS_FILE);
+            return tickets;
         } catch (Exception e) {
-            System.err.println("Error parsing booking from JSON: " + e.getMessage());
-            return null;
+            System.err.println("Error loading tickets from file: " + e.getMessage());
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Convert booking to JSON string
-     * @param booking Booking object
-     * @return JSON string
+     * Save tickets to file
      */
-    private String bookingToJson(Booking booking) {
-        StringBuilder json = new StringBuilder();
-        json.append("  {\n");
-        json.append("    \"bookingId\": \"").append(escapeJson(booking.getBookingId())).append("\",\n");
-        json.append("    \"userId\": \"").append(escapeJson(booking.getCustomerId())).append("\",\n");
-        json.append("    \"flightId\": \"").append(escapeJson(booking.getFlightId())).append("\",\n");
-        json.append("    \"bookingDate\": \"").append(booking.getBookingDate() != null ? booking.getBookingDate().toString() : "").append("\",\n");
-        json.append("    \"status\": \"").append(booking.getStatus() != null ? booking.getStatus().name() : "PENDING").append("\",\n");
-        json.append("    \"totalAmount\": ").append(booking.getTotalPrice()).append(",\n");
-        
-        // Add passengers array
-        json.append("    \"passengers\": [\n");
-        List<Passenger> passengers = booking.getPassengers();
-        if (passengers != null && !passengers.isEmpty()) {
-            for (int i = 0; i < passengers.size(); i++) {
-                Passenger passenger = passengers.get(i);
-                json.append("      {\n");
-                json.append("        \"passengerId\": \"").append(escapeJson(passenger.getPassengerId())).append("\",\n");
-                json.append("        \"name\": \"").append(escapeJson(passenger.getFullName())).append("\",\n");
-                json.append("        \"dateOfBirth\": \"").append(passenger.getDateOfBirth() != null ? passenger.getDateOfBirth().toString() : "").append("\",\n");
-                json.append("        \"passengerType\": \"Adult\",\n");
-                json.append("        \"seatNumber\": \"").append(escapeJson(passenger.getSeatNumber())).append("\"\n");
-                json.append("      }");
-                if (i < passengers.size() - 1) {
-                    json.append(",");
-                }
-                json.append("\n");
-            }
-        }
-        json.append("    ],\n");
-        
-        // Add payment details
-        json.append("    \"paymentDetails\": {\n");
-        PaymentDetails payment = booking.getPaymentDetails();
-        if (payment != null) {
-            json.append("      \"cardNumber\": \"").append(escapeJson(payment.getCardNumber())).append("\",\n");
-            json.append("      \"cardHolderName\": \"").append(escapeJson(payment.getCardholderName())).append("\",\n");
-            json.append("      \"amount\": ").append(payment.getAmount()).append(",\n");
-            json.append("      \"paymentStatus\": \"PENDING\"\n");
-        } else {
-            json.append("      \"cardNumber\": \"\",\n");
-            json.append("      \"cardHolderName\": \"\",\n");
-            json.append("      \"amount\": 0.0,\n");
-            json.append("      \"paymentStatus\": \"PENDING\"\n");
+    private boolean saveTicketsToFile(List<Ticket> tickets) {
+        try {
+            writeSnapshot(TICKETS_FILE, JsonCodec.TICKET, BinaryCodec.TICKET, tickets);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error saving tickets: " + e.getMessage());
+            return false;
         }
-        json.append("    }\n");
-        json.append("  }");
-        
-        return json.toString();
     }
 
     /**
-     * Parse passengers from booking JSON
-     * @param jsonBlock JSON block
-     * @param booking Booking object to populate
+     * Load refunds from file
      */
-    private void parseBookingPassengers(String jsonBlock, Booking booking) {
+    private List<RefundRequest> loadRefundsFromFile() {
         try {
-            // Find the passengers array in the JSON
-            int passengersStart = jsonBlock.indexOf("\"passengers\":");
-            if (passengersStart == -1) {
-                return;
-            }
-            
-            // Find the start of the array
-            int arrayStart = jsonBlock.indexOf("[", passengersStart);
-            if (arrayStart == -1) {
-                return;
-            }
-            
-            // Find the matching closing bracket
-            int arrayEnd = findMatchingBracket(jsonBlock, arrayStart, '[', ']');
-            if (arrayEnd == -1) {
-                return;
-            }
-            
-            String passengersJson = jsonBlock.substring(arrayStart + 1, arrayEnd);
-            if (passengersJson.trim().isEmpty()) {
-                return;
-            }
-            
-            // Split by passenger objects
-            String[] passengerBlocks = passengersJson.split("\\},\\s*\\{");
-            
-            for (String passengerBlock : passengerBlocks) {
-                if (passengerBlock.trim().isEmpty()) {
-                    continue;
-                }
-                
-                // Clean up the block
-                passengerBlock = passengerBlock.trim();
-                if (!passengerBlock.startsWith("{")) {
-                    passengerBlock = "{" + passengerBlock;
-                }
-                if (!passengerBlock.endsWith("}")) {
-                    passengerBlock = passengerBlock + "}";
-                }
-                
-                // Parse individual passenger
-                String passengerId = extractJsonValue(passengerBlock, "passengerId");
-                String name = extractJsonValue(passengerBlock, "name");
-                String dateOfBirthStr = extractJsonValue(passengerBlock, "dateOfBirth");
-                String seatNumber = extractJsonValue(passengerBlock, "seatNumber");
-                
-                if (name != null && !name.trim().isEmpty()) {
-                    Passenger passenger = new Passenger();
-                    passenger.setPassengerId(passengerId);
-                    
-                    // Split name into first and last
-                    String[] nameParts = name.split("\\s+", 2);
-                    if (nameParts.length > 0) {
-                        passenger.setFirstName(nameParts[0]);
-                        if (nameParts.length > 1) {
-                            passenger.setLastName(nameParts[1]);
-                        }
-                    }
-                    
-                    // Parse date of birth
-                    if (dateOfBirthStr != null && !dateOfBirthStr.isEmpty()) {
-                        try {
-                            passenger.setDateOfBirth(java.time.LocalDate.parse(dateOfBirthStr));
-                        } catch (Exception e) {
-                            System.err.println("Error parsing passenger date of birth: " + e.getMessage());
-                        }
-                    }
-                    
-                    // Passenger type defaults to ADULT if not specified
-                    
-                    passenger.setSeatNumber(seatNumber);
-                    booking.getPassengers().add(passenger);
-                }
-            }
-            
+            return readJsonFile(REFUNDS_FILE, JsonCodec.REFUND);
         } catch (Exception e) {
-            System.err.println("Error parsing booking passengers: " + e.getMessage());
+            System.err.println("Error loading refunds from file: " + e.getMessage());
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Parse payment details from booking JSON
-     * @param jsonBlock JSON block
-     * @param booking Booking object to populate
+     * Save refunds to file
      */
-    private void parseBookingPaymentDetails(String jsonBlock, Booking booking) {
+    private boolean saveRefundsToFile(List<RefundRequest> refunds) {
         try {
-            // Find the paymentDetails object in the JSON
-            int paymentStart = jsonBlock.indexOf("\"paymentDetails\":");
-            if (paymentStart == -1) {
-                return;
-            }
-            
-            // Find the start of the object
-            int objectStart = jsonBlock.indexOf("{", paymentStart);
-            if (objectStart == -1) {
-                return;
-            }
-            
-            // Find the matching closing brace
-            int objectEnd = findMatchingBracket(jsonBlock, objectStart, '{', '}');
-            if (objectEnd == -1) {
-                return;
-            }
-            
-            String paymentJson = jsonBlock.substring(objectStart, objectEnd + 1);
-            
-            // Parse payment fields
-            String cardNumber = extractJsonValue(paymentJson, "cardNumber");
-            String cardHolderName = extractJsonValue(paymentJson, "cardHolderName");
-            String amountStr = extractJsonValue(paymentJson, "amount");
-            
-            PaymentDetails payment = new PaymentDetails();
-            payment.setCardNumber(cardNumber);
-            payment.setCardholderName(cardHolderName);
-            
-            // Parse amount
-            if (amountStr != null && !amountStr.isEmpty()) {
-                try {
-                    payment.setAmount(Double.parseDouble(amountStr));
-                } catch (Exception e) {
-                    System.err.println("Error parsing payment amount: " + e.getMessage());
-                }
-            }
-            
-            // Payment status defaults to PENDING if not specified
-            
-            booking.setPaymentDetails(payment);
-            
+            writeSnapshot(REFUNDS_FILE, JsonCodec.REFUND, BinaryCodec.REFUND, refunds);
+            return true;
         } catch (Exception e) {
-            System.err.println("Error parsing booking payment details: " + e.getMessage());
+            System.err.println("Error saving refunds: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Load tickets from file
+     * Load FAQs from file
      */
-    private List<Ticket> loadTicketsFromFile() {
+    private List<FAQ> loadFAQsFromFile() {
         try {
-            String content = readFileContent(TICKETS_FILE);
-            
-            // If file is empty or doesn't exist, return empty list
-            if (content.trim().equals("[]") || content.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            List<Ticket> tickets = new ArrayList<>();
-            
-            // Simple JSON parsing for tickets
-            // Remove brackets and split by ticket objects
-            content = content.trim();
-            if (content.startsWith("[")) {
-                content = content.substring(1);
-            }
-            if (content.endsWith("]")) {
-                content = content.substring(0, content.length() - 1);
-            }
-            
-            // Split by ticket objects (look for closing and opening braces)
-            String[] ticketBlocks = content.split("\\},\\s*\\{");
-            
-            for (String block : ticketBlocks) {
-                if (block.trim().isEmpty()) {
-                    continue;
-                }
-                
-                // Clean up the block
-                block = block.trim();
-                if (!block.startsWith("{")) {
-                    block = "{" + block;
-                }
-                if (!block.endsWith("}")) {
-                    block = block + "}";
-                }
-                
-                try {
-                    Ticket ticket = parseTicketFromJson(block);
-                    if (ticket != null) {
-                        tickets.add(ticket);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing ticket: " + e.getMessage());
-                    // Continue with next ticket
-                }
-            }
-            
-            System.out.println("Loaded " + tickets.size() + " tickets from " + TICKETS_FILE);
-            return tickets;
-            
+            return readJsonFile(FAQS_FILE, JsonCodec.FAQ_ENTRY);
         } catch (Exception e) {
-            System.err.println("Error loading tickets from file: " + e.getMessage());
+            System.err.println("Error loading FAQs from file: " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
     /**
-     * Parse a ticket object from JSON string
-     * @param jsonBlock JSON string representing a ticket
-     * @return Ticket object
+     * Save FAQs to file
      */
-    private Ticket parseTicketFromJson(String jsonBlock) {
+    private boolean saveFAQsToFile(List<FAQ> faqs) {
         try {
-            Ticket ticket = new Ticket();
-            
-            // Extract fields using simple string manipulation
-            String ticketId = extractJsonValue(jsonBlock, "ticketId");
-            String customerId = extractJsonValue(jsonBlock, "customerId");
-            String customerName = extractJsonValue(jsonBlock, "customerName");
-            String customerEmail = extractJsonValue(jsonBlock, "customerEmail");
-            String subject = extractJsonValue(jsonBlock, "subject");
-            String description = extractJsonValue(jsonBlock, "description");
-            String category = extractJsonValue(jsonBlock, "category");
-            String priority = extractJsonValue(jsonBlock, "priority");
-            String status = extractJsonValue(jsonBlock, "status");
-            String assignedTo = extractJsonValue(jsonBlock, "assignedTo");
-            String createdAtStr = extractJsonValue(jsonBlock, "createdAt");
-            String updatedAtStr = extractJsonValue(jsonBlock, "updatedAt");
-            
-            // Debug: Log the extracted customerId only for non-empty values
-            if (customerId != null && !customerId.trim().isEmpty()) {
-                System.out.println("DataManager: Parsing ticket " + ticketId + " with customerId: '" + customerId + "'");
-            }
-            
-            // Set ticket properties
-            ticket.setTicketId(ticketId);
-            ticket.setCustomerId(customerId);
-            ticket.setCustomerName(customerName);
-            ticket.setCustomerEmail(customerEmail);
-            ticket.setSubject(subject);
-            ticket.setDescription(description);
-            ticket.setCategory(category);
-            ticket.setAssignedTo(assignedTo);
-            
-            // Parse priority
-            if (priority != null && !priority.trim().isEmpty()) {
-                try {
-                    ticket.setPriority(TicketPriority.valueOf(priority.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    ticket.setPriority(TicketPriority.MEDIUM);
-                }
-            }
-            
-            // Parse status
-            if (status != null && !status.trim().isEmpty()) {
-                try {
-                    ticket.setStatus(TicketStatus.valueOf(status.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    ticket.setStatus(TicketStatus.OPEN);
-                }
-            }
-            
-            // Parse dates (format: 2025-01-11T10:30:00)
-            if (createdAtStr != null && !createdAtStr.trim().isEmpty()) {
-                try {
-                    ticket.setCreatedAt(LocalDateTime.parse(createdAtStr));
-                } catch (Exception e) {
-                    ticket.setCreatedAt(LocalDateTime.now());
-                }
-            }
-            
-            if (updatedAtStr != null && !updatedAtStr.trim().isEmpty()) {
-                try {
-                    ticket.setUpdatedAt(LocalDateTime.parse(updatedAtStr));
-                } catch (Exception e) {
-                    ticket.setUpdatedAt(LocalDateTime.now());
-                }
-            }
-            
-            // Parse responses/replies array
-            parseTicketResponses(jsonBlock, ticket);
-            
-            return ticket;
-            
+            writeSnapshot(FAQS_FILE, JsonCodec.FAQ_ENTRY, BinaryCodec.FAQ_ENTRY, faqs);
+            return true;
         } catch (Exception e) {
-            System.err.println("Error parsing ticket from JSON: " + e.getMessage());
-            return null;
+            System.err.println("Error saving FAQs: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Parse ticket responses from JSON
+     * Load seat maps from file
      */
-    private void parseTicketResponses(String jsonBlock, Ticket ticket) {
+    private List<SeatMap> loadSeatMapsFromFile() {
         try {
-            // Find the responses array in the JSON
-            int responsesStart = jsonBlock.indexOf("\"responses\":");
-            if (responsesStart == -1) {
-                return;
-            }
-            
-            // Find the start of the array
-            int arrayStart = jsonBlock.indexOf("[", responsesStart);
-            if (arrayStart == -1) {
-                return;
-            }
-            
-            // Find the matching closing bracket
-            int arrayEnd = findMatchingBracket(jsonBlock, arrayStart, '[', ']');
-            if (arrayEnd == -1) {
-                return;
-            }
-            
-            String responsesJson = jsonBlock.substring(arrayStart + 1, arrayEnd);
-            if (responsesJson.trim().isEmpty()) {
-                return;
-            }
-            
-            // Split by response objects
-            String[] responseBlocks = responsesJson.split("\\},\\s*\\{");
-            
-            for (String responseBlock : responseBlocks) {
-                if (responseBlock.trim().isEmpty()) {
-                    continue;
-                }
-                
-                // Clean up the block
-                responseBlock = responseBlock.trim();
-                if (!responseBlock.startsWith("{")) {
-                    responseBlock = "{" + responseBlock;
-                }
-                if (!responseBlock.endsWith("}")) {
-                    responseBlock = responseBlock + "}";
-                }
-                
-                // Parse individual response
-                String responderId = extractJsonValue(responseBlock, "responderId");
-                String responderName = extractJsonValue(responseBlock, "responderName");
-                String message = extractJsonValue(responseBlock, "message");
-                String timestampStr = extractJsonValue(responseBlock, "timestamp");
-                
-                if (message != null && !message.trim().isEmpty()) {
-                    TicketReply reply = new TicketReply();
-                    reply.setResponderId(responderId);
-                    reply.setResponderName(responderName);
-                    reply.setMessage(message);
-                    
-                    if (timestampStr != null && !timestampStr.trim().isEmpty()) {
-                        try {
-                            reply.setTimestamp(LocalDateTime.parse(timestampStr));
-                        } catch (Exception e) {
-                            reply.setTimestamp(LocalDateTime.now());
-                        }
-                    }
-                    
-                    ticket.getReplies().add(reply);
-                }
-            }
-            
+            return readJsonFile(SEAT_MAPS_FILE, JsonCodec.SEAT_MAP);
         } catch (Exception e) {
-            System.err.println("Error parsing ticket responses: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Find matching bracket in a string
-     */
-    private int findMatchingBracket(String text, int startPos, char openBracket, char closeBracket) {
-        int count = 1;
-        for (int i = startPos + 1; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == openBracket) {
-                count++;
-            } else if (c == closeBracket) {
-                count--;
-                if (count == 0) {
-                    return i;
-                }
-            }
+            System.err.println("Error loading seat maps from file: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return -1;
     }
 
     /**
-     * Save tickets to file
+     * Save seat maps to file. Seat maps are a few bytes per flight, so they stay JSON
+     * even when binary snapshots are enabled.
      */
-    private boolean saveTicketsToFile(List<Ticket> tickets) {
+    private boolean saveSeatMapsToFile(List<SeatMap> seatMaps) {
         try {
-            StringBuilder json = new StringBuilder();
-            json.append("[\n");
-            
-            for (int i = 0; i < tickets.size(); i++) {
-                Ticket ticket = tickets.get(i);
-                json.append("  {\n");
-                json.append("    \"ticketId\": \"").append(escapeJson(ticket.getTicketId())).append("\",\n");
-                json.append("    \"customerId\": \"").append(escapeJson(ticket.getCustomerId())).append("\",\n");
-                json.append("    \"customerName\": \"").append(escapeJson(ticket.getCustomerName())).append("\",\n");
-                json.append("    \"customerEmail\": \"").append(escapeJson(ticket.getCustomerEmail())).append("\",\n");
-                json.append("    \"subject\": \"").append(escapeJson(ticket.getSubject())).append("\",\n");
-                json.append("    \"description\": \"").append(escapeJson(ticket.getDescription())).append("\",\n");
-                json.append("    \"category\": \"").append(escapeJson(ticket.getCategory())).append("\",\n");
-                json.append("    \"priority\": \"").append(ticket.getPriority().name()).append("\",\n");
-                json.append("    \"status\": \"").append(ticket.getStatus().name()).append("\",\n");
-                json.append("    \"assignedTo\": \"").append(escapeJson(ticket.getAssignedTo())).append("\",\n");
-                json.append("    \"createdAt\": \"").append(ticket.getCreatedAt().toString()).append("\",\n");
-                json.append("    \"updatedAt\": \"").append(ticket.getUpdatedAt().toString()).append("\",\n");
-                
-                // Add responses
-                json.append("    \"responses\": [\n");
-                List<TicketReply> replies = ticket.getReplies();
-                for (int j = 0; j < replies.size(); j++) {
-                    TicketReply reply = replies.get(j);
-                    json.append("      {\n");
-                    json.append("        \"responderId\": \"").append(escapeJson(reply.getResponderId())).append("\",\n");
-                    json.append("        \"responderName\": \"").append(escapeJson(reply.getResponderName())).append("\",\n");
-                    json.append("        \"message\": \"").append(escapeJson(reply.getMessage())).append("\",\n");
-                    json.append("        \"timestamp\": \"").append(reply.getTimestamp().toString()).append("\"\n");
-                    json.append("      }");
-                    if (j < replies.size() - 1) {
-                        json.append(",");
-                    }
-                    json.append("\n");
-                }
-                json.append("    ]\n");
-                
-                json.append("  }");
-                if (i < tickets.size() - 1) {
-                    json.append(",");
-                }
-                json.append("\n");
-            }
-            
-            json.append("]");
-            
-            // Write to file
-            try (FileWriter writer = new FileWriter(TICKETS_FILE)) {
-                writer.write(json.toString());
-            }
-            
-            System.out.println("Saved " + tickets.size() + " tickets to " + TICKETS_FILE);
-            
-            // Debug: Log some details about saved tickets
-            long ticketsWithCustomerId = tickets.stream()
-                .filter(t -> t.getCustomerId() != null && !t.getCustomerId().trim().isEmpty())
-                .count();
-            System.out.println("DataManager: " + ticketsWithCustomerId + " tickets have valid customer IDs");
-            
+            writeJsonFile(SEAT_MAPS_FILE, JsonCodec.SEAT_MAP, seatMaps);
             return true;
-            
         } catch (Exception e) {
-            System.err.println("Error saving tickets to file: " + e.getMessage());
+            System.err.println("Error saving seat maps: " + e.getMessage());
             return false;
         }
     }
 
     /**
-     * Escape JSON special characters
+     * Read a JSON array file in a single streaming pass
+     * @param fileName File name to read
+     * @param codec Codec for the record type
+     * @return Decoded records, empty if the file does not exist
+     * @throws IOException If file cannot be read or is not valid JSON
      */
-    private String escapeJson(String value) {
-        if (value == null) {
-            return "";
+    private <T> List<T> readJsonFile(String fileName, JsonCodec<T> codec) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return codec.readArray(in);
+        } catch (IOException e) {
+            // Fall back to the newest retained snapshot that can still be read
+            for (Path generation : snapshotFile(fileName).listGenerations()) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(generation))) {
+                    List<T> records = codec.readArray(in);
+                    System.err.println("Recovered " + fileName + " from snapshot " + generation.getFileName() + ": " + e.getMessage());
+                    return records;
+                } catch (IOException ignored) {
+                    // Try the next older snapshot
+                }
+            }
+            throw e;
         }
-        return value.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
     }
 
     /**
-     * Load refunds from file
+     * Write records to a JSON array file
+     * @param fileName File name to write
+     * @param codec Codec for the record type
+     * @param records Records to write
+     * @throws IOException If file cannot be written
      */
-    private List<RefundRequest> loadRefundsFromFile() {
-        return new ArrayList<>();
+    private <T> void writeJsonFile(String fileName, JsonCodec<T> codec, List<T> records) throws IOException {
+        snapshotFile(fileName).write(out -> codec.writeArray(out, records));
     }
 
     /**
-     * Save refunds to file
+     * Write a collection snapshot, in binary form when binary snapshots are enabled
+     * @param fileName JSON file name of the collection
+     * @param jsonCodec JSON codec for the record type
+     * @param binaryCodec Binary codec for the record type
+     * @param records Records to write
+     * @throws IOException If file cannot be written
      */
-    private boolean saveRefundsToFile(List<RefundRequest> refunds) {
-        return true;
+    private <T> void writeSnapshot(String fileName, JsonCodec<T> jsonCodec, BinaryCodec<T> binaryCodec,
+                                   List<T> records) throws IOException {
+        if (BINARY_SNAPSHOTS) {
+            binarySnapshotFile(fileName).write(out -> BinarySnapshot.write(out, binaryCodec, records));
+        } else {
+            writeJsonFile(fileName, jsonCodec, records);
+        }
     }
 
     /**
-     * Load FAQs from file
+     * Map the binary snapshot of a collection for lazy loading
+     * @param fileName JSON file name of the collection
+     * @param codec Binary codec for the record type
+     * @return Mapped snapshot, or null if the collection should be imported from JSON instead
      */
-    private List<FAQ> loadFAQsFromFile() {
-        return new ArrayList<>();
+    private static <T> EntityStore.LazySnapshot<T> openBinarySnapshot(String fileName, BinaryCodec<T> codec) {
+        Path current = binarySnapshotFile(fileName).currentVersion();
+        if (current == null) {
+            return null;
+        }
+        File binaryFile = current.toFile();
+        File jsonFile = new File(fileName);
+        if (jsonFile.exists() && jsonFile.lastModified() > binaryFile.lastModified()) {
+            System.out.println("Importing " + fileName + " (newer than its binary snapshot)");
+            return null;
+        }
+        try {
+            return BinarySnapshot.open(binaryFile.getPath(), codec);
+        } catch (Exception e) {
+            System.err.println("Error opening binary snapshot " + binaryFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String binaryFileFor(String fileName) {
+        return fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - 5) + ".bin" : fileName + ".bin";
     }
 
     /**
-     * Save FAQs to file
+     * Export every collection to its JSON file, the interchange format used when binary snapshots are enabled
+     * @return true if all files were written
      */
-    private boolean saveFAQsToFile(List<FAQ> faqs) {
-        return true;
+    public boolean exportJson() {
+        try {
+            writeJsonFile(USERS_FILE, JsonCodec.USER, userStore.findAll());
+            writeJsonFile(FLIGHTS_FILE, JsonCodec.FLIGHT, flightStore.findAll());
+            writeJsonFile(BOOKINGS_FILE, JsonCodec.BOOKING, bookingStore.findAll());
+            writeJsonFile(TICKETS_FILE, JsonCodec.TICKET, ticketStore.findAll());
+            writeJsonFile(REFUNDS_FILE, JsonCodec.REFUND, refundStore.findAll());
+            writeJsonFile(FAQS_FILE, JsonCodec.FAQ_ENTRY, faqStore.findAll());
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error exporting JSON data: " + e.getMessage());
+            return false;
+        }
     }
 
     /**
-     * Read file content as string
-     * @param fileName File name to read
-     * @return File content as string
-     * @throws IOException If file cannot be read
+     * Get the crash-safe writer for a data file
+     * @param fileName File name
+     * @return Snapshot writer shared by all DataManager instances
      */
-    private String readFileContent(String fileName) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-        }
-        return content.toString();
+    private static SnapshotFile snapshotFile(String fileName) {
+        return snapshotFiles.computeIfAbsent(fileName, name -> new SnapshotFile(name, SNAPSHOT_RETENTION));
+    }
+
+    /**
+     * Get the writer for a collection's binary snapshot. Each write goes to a new
+     * generation-numbered file because the current one may still be memory-mapped.
+     * @param fileName JSON file name of the collection
+     * @return Snapshot writer shared by all DataManager instances
+     */
+    private static SnapshotFile binarySnapshotFile(String fileName) {
+        return snapshotFiles.computeIfAbsent(binaryFileFor(fileName),
+            name -> SnapshotFile.versioned(name, SNAPSHOT_RETENTION));
     }
 
     /**
-     * Load sample data for the application
+     * Load sample data for the application into the in-memory stores
      */
     public void loadSampleData() {
         System.out.println("Loading sample data...");
-        loadUsers();
-        loadFlights();
-        loadBookings();
-        loadTickets();
-        loadRefunds();
-        loadFAQs();
+        userStore.ensureLoaded();
+        flightStore.ensureLoaded();
+        bookingStore.ensureLoaded();
+        ticketStore.ensureLoaded();
+        refundStore.ensureLoaded();
+        faqStore.ensureLoaded();
         System.out.println("Sample data loaded successfully!");
     }
 
@@ -1322,7 +671,7 @@ public class DataManager {
      * @return Generated ID
      */
     public static String generateId(String prefix) {
-        return prefix + "_" + System.currentTimeMillis();
+        return IdGenerator.nextId(prefix);
     }
 
     /**
@@ -1346,11 +695,10 @@ public class DataManager {
                 return false;
             }
             
-            // Add to in-memory database
-            userDatabase.add(newUser);
-            
-            // Save to persistent storage
-            saveUsers();
+            // Add to in-memory database and save to persistent storage
+            if (!userStore.insert(newUser)) {
+                return false;
+            }
             
             System.out.println("Successfully registered new user: " + newUser.getUsername());
             return true;
@@ -1367,116 +715,7 @@ public class DataManager {
      * @return User object or null if not found
      */
     private User findUserByUsername(String username) {
-        for (User user : userDatabase) {
-            if (user.getUsername().equals(username)) {
-                return user;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Parse users from JSON content
-     */
-    private List<User> parseUsersFromJSON(String content) {
-        List<User> users = new ArrayList<>();
-        try {
-            // Simple JSON parsing for users (similar to flights/bookings)
-            content = content.trim();
-            if (content.startsWith("[") && content.endsWith("]")) {
-                content = content.substring(1, content.length() - 1); // Remove [ ]
-            }
-            
-            // Split by user objects
-            String[] userObjects = content.split("\\},\\s*\\{");
-            
-            for (String userObj : userObjects) {
-                userObj = userObj.trim();
-                if (userObj.startsWith("{")) {
-                    userObj = userObj.substring(1);
-                }
-                if (userObj.endsWith("}")) {
-                    userObj = userObj.substring(0, userObj.length() - 1);
-                }
-                
-                if (userObj.trim().isEmpty()) continue;
-                
-                try {
-                    // Parse user fields
-                    String userId = extractJSONValue(userObj, "userId");
-                    String username = extractJSONValue(userObj, "username");
-                    String password = extractJSONValue(userObj, "password");
-                    String email = extractJSONValue(userObj, "email");
-                    String firstName = extractJSONValue(userObj, "firstName");
-                    String lastName = extractJSONValue(userObj, "lastName");
-                    String phoneNumber = extractJSONValue(userObj, "phoneNumber");
-                    String role = extractJSONValue(userObj, "role");
-                    String createdAtStr = extractJSONValue(userObj, "createdAt");
-                    String lastLoginStr = extractJSONValue(userObj, "lastLogin");
-                    String isActiveStr = extractJSONValue(userObj, "isActive");
-                    
-                    // Create user based on role (handle both enum names and display names)
-                    User user = null;
-                    if ("ADMIN".equals(role) || "Admin".equals(role)) {
-                        user = new Admin(userId, username, password, email, firstName, lastName, 
-                                       phoneNumber != null ? phoneNumber : "", "General");
-                    } else if ("CUSTOMER".equals(role) || "Customer".equals(role)) {
-                        user = new Customer(userId, username, password, email, firstName, lastName,
-                                          phoneNumber != null ? phoneNumber : "", "TEMP123", "USA");
-                    }
-                    
-                    if (user != null) {
-                        // Set additional fields
-                        if (createdAtStr != null && !createdAtStr.isEmpty()) {
-                            try {
-                                user.setCreatedAt(LocalDateTime.parse(createdAtStr));
-                            } catch (Exception e) {
-                                // Keep default createdAt if parsing fails
-                            }
-                        }
-                        if (lastLoginStr != null && !lastLoginStr.isEmpty()) {
-                            try {
-                                user.setLastLogin(LocalDateTime.parse(lastLoginStr));
-                            } catch (Exception e) {
-                                // Keep null lastLogin if parsing fails
-                            }
-                        }
-                        if (isActiveStr != null && !isActiveStr.isEmpty()) {
-                            user.setActive(Boolean.parseBoolean(isActiveStr));
-                        }
-                        users.add(user);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing user: " + e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing users from JSON: " + e.getMessage());
-        }
-        return users;
-    }
-    
-    /**
-     * Extract value from JSON string for a given key
-     */
-    private String extractJSONValue(String jsonObject, String key) {
-        // First try to match quoted strings (most common case)
-        String quotedPattern = "\"" + key + "\":\\s*\"([^\"]+)\"";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(quotedPattern);
-        java.util.regex.Matcher m = p.matcher(jsonObject);
-        if (m.find()) {
-            return m.group(1);
-        }
-        
-        // If not found, try to match boolean values (like isActive: true)
-        String booleanPattern = "\"" + key + "\":\\s*(true|false)";
-        p = java.util.regex.Pattern.compile(booleanPattern);
-        m = p.matcher(jsonObject);
-        if (m.find()) {
-            return m.group(1);
-        }
-        
-        return "";
+        return userStore.findFirst(user -> user.getUsername().equals(username)).orElse(null);
     }
 
     /**
@@ -1485,8 +724,8 @@ public class DataManager {
     public void createDemoAccounts() {
         System.out.println("Creating demo accounts...");
         
-        // Clear existing users
-        userDatabase.clear();
+        // Replace existing users
+        List<User> userDatabase = new ArrayList<>();
         
         // Password "123456" hashed using the same method as UserService
         String hashedPassword = "HASH_" + "123456".hashCode();
@@ -1520,7 +759,7 @@ public class DataManager {
         userDatabase.add(customer3);
         
         // Save demo accounts to persistent storage
-        saveUsers();
+        userStore.replaceAll(userDatabase);
         
         System.out.println("Demo accounts created successfully!");
         System.out.println("Demo Admin - Username: admin, Password: 123456");
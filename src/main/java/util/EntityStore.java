@@ -0,0 +1,1105 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Authoritative in-memory collection of entities keyed by ID.
+ * The collection is loaded once on first access and every mutation is written
+ * through to the backing file, so reads never touch the disk.
+ *
+ * Entities are handed out as live instances; callers that change an entity
+ * must pass it back through {@link #update(Object)} for the change to be persisted.
+ *
+ * When a {@link MutationLog} is attached, single-entity writes are appended to the log
+ * instead of rewriting the file, and {@link #checkpoint()} folds the log into a snapshot.
+ *
+ * When a lazy snapshot is available the store only indexes record IDs on load and
+ * decodes each record the first time it is read.
+ *
+ * Secondary indexes registered with {@link #addIndex(String, Function)} map a derived key
+ * to the records carrying it; sorted indexes registered with {@link #addSortedIndex(String, Function)}
+ * also support range scans in key order, and text indexes registered with
+ * {@link #addTextIndex(String, Function)} answer ranked full-text queries. An index is built on
+ * its first lookup and then kept up to date by every write, so lookups cost O(result) instead
+ * of a scan of the whole collection.
+ *
+ * Stores whose logs are streams of the same {@link Journal} can be changed together
+ * through a {@link UnitOfWork}.
+ *
+ * @param <T> Entity type
+ */
+public class EntityStore<T> {
+
+    /**
+     * Writes the full state of a collection to its backing file.
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter<T> {
+        boolean write(List<T> records);
+    }
+
+    /**
+     * Snapshot whose records can be decoded one at a time.
+     */
+    public interface LazySnapshot<T> {
+        int size();
+
+        String idAt(int row);
+
+        T decode(int row);
+    }
+
+    // Separator for internal keys of records whose ID is blank or duplicated in the source file
+    private static final char ALIAS_SEPARATOR = '\u0000';
+
+    private final String name;
+    private final Function<T, String> idFunction;
+    private final Supplier<List<T>> loader;
+    private final SnapshotWriter<T> writer;
+    private final MutationLog<T> log;
+    private volatile GroupCommitWriter groupCommit;
+    private volatile Supplier<LazySnapshot<T>> lazyLoader;
+
+    private final Map<String, Slot> records = new LinkedHashMap<>();
+    private final Map<String, SecondaryIndex> indexes = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+    private int aliasCount = 0;
+    private long aliasSequence = 0;
+
+    public EntityStore(String name, Function<T, String> idFunction,
+                       Supplier<List<T>> loader, SnapshotWriter<T> writer) {
+        this(name, idFunction, loader, writer, null);
+    }
+
+    public EntityStore(String name, Function<T, String> idFunction,
+                       Supplier<List<T>> loader, SnapshotWriter<T> writer, MutationLog<T> log) {
+        this.name = name;
+        this.idFunction = idFunction;
+        this.loader = loader;
+        this.writer = writer;
+        this.log = log;
+    }
+
+    /**
+     * Let the asynchronous write methods share disk flushes
+     * @param windowMillis Maximum time a change waits for others to join its flush
+     * @param maxBatchSize Number of changes that triggers an immediate flush
+     */
+    public void enableGroupCommit(long windowMillis, int maxBatchSize) {
+        groupCommit = new GroupCommitWriter(name, windowMillis, maxBatchSize, this::flushGroup);
+    }
+
+    /**
+     * Load from a lazily decoded snapshot when one is available.
+     * The supplier returns null to fall back to the regular loader.
+     * @param lazyLoader Supplier of the snapshot
+     */
+    public void setLazyLoader(Supplier<LazySnapshot<T>> lazyLoader) {
+        this.lazyLoader = lazyLoader;
+    }
+
+    /**
+     * Register a secondary index. Registering a name that already exists has no effect.
+     * @param indexName Name used to query the index
+     * @param keyFunction Derives the index key of an entity; entities with a null key are not indexed
+     */
+    public void addIndex(String indexName, Function<T, String> keyFunction) {
+        indexes.putIfAbsent(indexName, new HashIndex(keyFunction));
+    }
+
+    /**
+     * Register a sorted secondary index. Registering a name that already exists has no effect.
+     * @param indexName Name used to query the index
+     * @param keyFunction Derives the sort key of an entity; entities with a null key are not indexed
+     */
+    public void addSortedIndex(String indexName, Function<T, String> keyFunction) {
+        indexes.putIfAbsent(indexName, new SortedIndex(keyFunction));
+    }
+
+    /**
+     * Register a full-text index. Registering a name that already exists has no effect.
+     * @param indexName Name used to query the index
+     * @param textFunction Derives the searchable text of an entity; entities with null text are not indexed
+     */
+    public void addTextIndex(String indexName, Function<T, String> textFunction) {
+        indexes.putIfAbsent(indexName, new FullTextIndex(textFunction));
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Find an entity by ID
+     * @param id Entity ID
+     * @return Entity if found
+     */
+    public Optional<T> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Slot slot = records.get(id);
+            return slot != null ? Optional.ofNullable(slot.get()) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all entities whose index key equals the given key
+     * @param indexName Name of a registered index
+     * @param key Index key
+     * @return Matching entities
+     */
+    public List<T> findByIndex(String indexName, String key) {
+        SecondaryIndex index = indexes.get(indexName);
+        if (!(index instanceof HashIndex)) {
+            throw new IllegalArgumentException("No index '" + indexName + "' on " + name);
+        }
+        if (key == null) {
+            return new ArrayList<>();
+        }
+        HashIndex hashIndex = (HashIndex) index;
+        return lookup(hashIndex, () -> hashIndex.find(key));
+    }
+
+    /**
+     * Find all entities whose sort key lies in a range, in sort key order
+     * @param indexName Name of a registered sorted index
+     * @param fromKey Lowest sort key, inclusive
+     * @param toKey Highest sort key, exclusive
+     * @return Matching entities ordered by sort key
+     */
+    public List<T> findRange(String indexName, String fromKey, String toKey) {
+        SecondaryIndex index = indexes.get(indexName);
+        if (!(index instanceof SortedIndex)) {
+            throw new IllegalArgumentException("No sorted index '" + indexName + "' on " + name);
+        }
+        if (fromKey == null || toKey == null || fromKey.compareTo(toKey) >= 0) {
+            return new ArrayList<>();
+        }
+        SortedIndex sortedIndex = (SortedIndex) index;
+        return lookup(sortedIndex, () -> sortedIndex.range(fromKey, toKey));
+    }
+
+    /**
+     * Find all entities whose sort key starts with a prefix, in sort key order
+     * @param indexName Name of a registered sorted index
+     * @param prefix Sort key prefix
+     * @return Matching entities ordered by sort key
+     */
+    public List<T> findByPrefix(String indexName, String prefix) {
+        return findRange(indexName, prefix, prefix + Character.MAX_VALUE);
+    }
+
+    /**
+     * Find the entities whose text best matches a query, best match first
+     * @param indexName Name of a registered text index
+     * @param query Words that must all appear; "quoted words" must appear together, word* matches any word starting with it
+     * @param limit Most entities to return
+     * @return Matching entities ranked by relevance
+     */
+    public List<T> search(String indexName, String query, int limit) {
+        SecondaryIndex index = indexes.get(indexName);
+        if (!(index instanceof FullTextIndex)) {
+            throw new IllegalArgumentException("No text index '" + indexName + "' on " + name);
+        }
+        if (query == null || query.isBlank()) {
+            return new ArrayList<>();
+        }
+        FullTextIndex textIndex = (FullTextIndex) index;
+        return lookup(textIndex, () -> textIndex.search(query, limit));
+    }
+
+    /**
+     * Run an index lookup, building the index first if this is its first use
+     */
+    private List<T> lookup(SecondaryIndex index, Supplier<List<T>> query) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            if (index.built) {
+                return query.get();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!index.built) {
+                index.build();
+            }
+            return query.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the first entity whose index key equals the given key
+     * @param indexName Name of a registered index
+     * @param key Index key
+     * @return First matching entity
+     */
+    public Optional<T> findFirstByIndex(String indexName, String key) {
+        List<T> matches = findByIndex(indexName, key);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+    }
+
+    /**
+     * Find the first entity matching a predicate
+     * @param filter Predicate to match
+     * @return First matching entity in load order
+     */
+    public Optional<T> findFirst(Predicate<T> filter) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            for (Slot slot : records.values()) {
+                T record = slot.get();
+                if (filter.test(record)) {
+                    return Optional.of(record);
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all entities matching a predicate
+     * @param filter Predicate to match
+     * @return Matching entities in load order
+     */
+    public List<T> findAll(Predicate<T> filter) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<T> result = new ArrayList<>();
+            for (Slot slot : records.values()) {
+                T record = slot.get();
+                if (filter.test(record)) {
+                    result.add(record);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get all entities
+     * @return Mutable copy of the entity list in load order
+     */
+    public List<T> findAll() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of entities in the store
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Add a new entity, or replace the entity with the same ID
+     * @param entity Entity to store
+     * @return true if the change was persisted
+     */
+    public boolean insert(T entity) {
+        return insert(entity, false);
+    }
+
+    /**
+     * Add a new entity as part of a group commit
+     * @param entity Entity to store
+     * @return Future completed with true once the change is durable
+     */
+    public CompletableFuture<Boolean> insertAsync(T entity) {
+        if (groupCommit == null) {
+            return CompletableFuture.completedFuture(insert(entity));
+        }
+        return insert(entity, true) ? groupCommit.submit() : CompletableFuture.completedFuture(false);
+    }
+
+    private boolean insert(T entity, boolean deferred) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            String id = idFunction.apply(entity);
+            String key = keyFor(id, true);
+            Slot previous = putRecord(key, new Slot(entity));
+            if (commitChange(MutationLog.Operation.PUT, id, entity, deferred)) {
+                return true;
+            }
+            restore(key, previous);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace an existing entity with the same ID
+     * @param entity Entity with updated state
+     * @return true if the entity existed and the change was persisted
+     */
+    public boolean update(T entity) {
+        return update(entity, false);
+    }
+
+    /**
+     * Replace an existing entity as part of a group commit
+     * @param entity Entity with updated state
+     * @return Future completed with true once the change is durable, false if the entity does not exist
+     */
+    public CompletableFuture<Boolean> updateAsync(T entity) {
+        if (groupCommit == null) {
+            return CompletableFuture.completedFuture(update(entity));
+        }
+        return update(entity, true) ? groupCommit.submit() : CompletableFuture.completedFuture(false);
+    }
+
+    private boolean update(T entity, boolean deferred) {
+        String id = idFunction.apply(entity);
+        if (id == null) {
+            return false;
+        }
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Slot previous = records.get(id);
+            if (previous == null) {
+                return false;
+            }
+            putRecord(id, new Slot(entity));
+            if (commitChange(MutationLog.Operation.PUT, id, entity, deferred)) {
+                return true;
+            }
+            putRecord(id, previous);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the first entity matching a predicate.
+     * Used to repair records that were stored without a usable ID.
+     * @param match Predicate identifying the record to replace
+     * @param entity Replacement entity
+     * @return true if a record matched and the change was persisted
+     */
+    public boolean replaceFirst(Predicate<T> match, T entity) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Map<String, Slot> previous = new LinkedHashMap<>(records);
+            String matchedKey = null;
+            for (Map.Entry<String, Slot> entry : records.entrySet()) {
+                if (match.test(entry.getValue().get())) {
+                    matchedKey = entry.getKey();
+                    break;
+                }
+            }
+            if (matchedKey == null) {
+                return false;
+            }
+            removeRecord(matchedKey);
+            if (isAlias(matchedKey)) {
+                aliasCount--;
+            }
+            putRecord(keyFor(idFunction.apply(entity), true), new Slot(entity));
+            if (persistSnapshot()) {
+                return true;
+            }
+            restoreAll(previous);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every entity with the given ID
+     * @param id Entity ID
+     * @return true if the change was persisted, false if no entity has the ID
+     */
+    public boolean delete(String id) {
+        return delete(id, false);
+    }
+
+    /**
+     * Remove every entity with the given ID as part of a group commit
+     * @param id Entity ID
+     * @return Future completed with true once the change is durable, false if no entity has the ID
+     */
+    public CompletableFuture<Boolean> deleteAsync(String id) {
+        if (groupCommit == null) {
+            return CompletableFuture.completedFuture(delete(id));
+        }
+        return delete(id, true) ? groupCommit.submit() : CompletableFuture.completedFuture(false);
+    }
+
+    private boolean delete(String id, boolean deferred) {
+        if (id == null) {
+            return false;
+        }
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Map<String, Slot> previous = aliasCount > 0 ? new LinkedHashMap<>(records) : null;
+            Slot removed = removeRecord(id);
+            int aliasesRemoved = removeAliases(id);
+            if (removed == null && aliasesRemoved == 0) {
+                // Nothing to delete, so nothing to log
+                return false;
+            }
+            if (commitChange(MutationLog.Operation.DELETE, id, null, deferred)) {
+                return true;
+            }
+            if (previous != null) {
+                restoreAll(previous);
+            } else if (removed != null) {
+                putRecord(id, removed);
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the entire contents of the store
+     * @param entities New contents
+     * @return true if the change was persisted
+     */
+    public boolean replaceAll(List<T> entities) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Slot> previous = new LinkedHashMap<>(records);
+            boolean wasLoaded = loaded;
+            index(entities);
+            loaded = true;
+            if (persistSnapshot()) {
+                return true;
+            }
+            restoreAll(previous);
+            loaded = wasLoaded;
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the current contents of the store to its backing file
+     * @return true if write successful
+     */
+    public boolean flush() {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            return persistSnapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fold pending mutation log records into a new snapshot and clear the log
+     * @return true if there was nothing to fold or the snapshot was written
+     */
+    public boolean checkpoint() {
+        if (log == null || !loaded || log.getRecordCount() == 0) {
+            return true;
+        }
+        lock.writeLock().lock();
+        try {
+            int pending = log.getRecordCount();
+            if (pending == 0) {
+                return true;
+            }
+            if (persistSnapshot()) {
+                System.out.println("EntityStore: Compacted " + pending + " logged " + name + " mutations into snapshot");
+                return true;
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    /**
+     * @return Name of the collection
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return ID of an entity
+     */
+    String idOf(T entity) {
+        return idFunction.apply(entity);
+    }
+
+    /**
+     * @return Mutation log of the collection, or null if it has none
+     */
+    MutationLog<T> getLog() {
+        return log;
+    }
+
+    /**
+     * Load the store and take its write lock for a {@link UnitOfWork}
+     */
+    void lockForTransaction() {
+        ensureLoaded();
+        lock.writeLock().lock();
+    }
+
+    void unlockForTransaction() {
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Apply a put to memory only; the unit of work makes it durable.
+     * Must be called while holding the transaction lock.
+     * @param entity Entity to store, replacing any entity with the same ID
+     * @return Action that undoes the change
+     */
+    Runnable applyPut(T entity) {
+        String key = keyFor(idFunction.apply(entity), true);
+        Slot previous = putRecord(key, new Slot(entity));
+        return () -> restore(key, previous);
+    }
+
+    /**
+     * Apply a delete to memory only; the unit of work makes it durable.
+     * Must be called while holding the transaction lock.
+     * @param id Entity ID
+     * @return Action that undoes the change
+     */
+    Runnable applyDelete(String id) {
+        Map<String, Slot> previous = aliasCount > 0 ? new LinkedHashMap<>(records) : null;
+        Slot removed = removeRecord(id);
+        removeAliases(id);
+        return () -> {
+            if (previous != null) {
+                restoreAll(previous);
+            } else if (removed != null) {
+                putRecord(id, removed);
+            }
+        };
+    }
+
+    // ==================== INTERNALS ====================
+
+    /**
+     * Load the store from its backing file on first access
+     */
+    public void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                LazySnapshot<T> snapshot = lazyLoader != null ? lazyLoader.get() : null;
+                boolean imported = lazyLoader != null && snapshot == null;
+                if (snapshot != null) {
+                    indexLazy(snapshot);
+                } else {
+                    index(loader.get());
+                }
+                if (log != null) {
+                    int replayed = log.replay(this::applyLogged);
+                    if (replayed > 0) {
+                        System.out.println("EntityStore: Replayed " + replayed + " logged " + name + " mutations");
+                    }
+                }
+                loaded = true;
+                if (imported) {
+                    // Write the lazily loadable snapshot so the next start can skip the full load
+                    persistSnapshot();
+                }
+                System.out.println("EntityStore: Loaded " + records.size() + " " + name + (snapshot != null ? " (decoded on access)" : " into memory"));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a mutation read back from the log during recovery
+     */
+    private void applyLogged(MutationLog.Operation operation, String id, T entity) {
+        if (operation == MutationLog.Operation.PUT) {
+            if (entity != null) {
+                putRecord(keyFor(id, true), new Slot(entity));
+            }
+        } else {
+            removeRecord(id);
+            removeAliases(id);
+        }
+    }
+
+    /**
+     * Store a record under its key, keeping built secondary indexes in step
+     * @return Record previously stored under the key
+     */
+    private Slot putRecord(String key, Slot slot) {
+        Slot previous = records.put(key, slot);
+        for (SecondaryIndex index : indexes.values()) {
+            if (index.built) {
+                index.replace(key, slot.get());
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the record stored under a key, keeping built secondary indexes in step
+     * @return Removed record
+     */
+    private Slot removeRecord(String key) {
+        Slot removed = records.remove(key);
+        if (removed != null) {
+            for (SecondaryIndex index : indexes.values()) {
+                if (index.built) {
+                    index.remove(key);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove records kept under alias keys for the given ID
+     * @return Number of records removed
+     */
+    private int removeAliases(String id) {
+        if (aliasCount == 0) {
+            return 0;
+        }
+        List<String> aliases = new ArrayList<>();
+        for (Map.Entry<String, Slot> entry : records.entrySet()) {
+            if (isAlias(entry.getKey()) && id.equals(entry.getValue().id())) {
+                aliases.add(entry.getKey());
+            }
+        }
+        for (String alias : aliases) {
+            removeRecord(alias);
+            aliasCount--;
+        }
+        return aliases.size();
+    }
+
+    /**
+     * Drop every secondary index after a bulk change; each is rebuilt on its next lookup
+     */
+    private void invalidateIndexes() {
+        for (SecondaryIndex index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    private void index(List<T> entities) {
+        records.clear();
+        invalidateIndexes();
+        aliasCount = 0;
+        for (T entity : entities) {
+            records.put(keyFor(idFunction.apply(entity), false), new Slot(entity));
+        }
+    }
+
+    /**
+     * Index a snapshot by ID only; each record is decoded the first time it is read
+     */
+    private void indexLazy(LazySnapshot<T> snapshot) {
+        records.clear();
+        invalidateIndexes();
+        aliasCount = 0;
+        for (int row = 0; row < snapshot.size(); row++) {
+            String id = snapshot.idAt(row);
+            records.put(keyFor(id, false), new Slot(snapshot, row, id));
+        }
+    }
+
+    /**
+     * Resolve the map key for an entity ID. Blank IDs and duplicates loaded from file
+     * are kept under internal alias keys so that no record is dropped on write-back.
+     */
+    private String keyFor(String id, boolean replaceExisting) {
+        if (id != null && !id.isEmpty() && (replaceExisting || !records.containsKey(id))) {
+            return id;
+        }
+        aliasCount++;
+        return (id != null ? id : "") + ALIAS_SEPARATOR + (aliasSequence++);
+    }
+
+    private boolean isAlias(String key) {
+        return key.indexOf(ALIAS_SEPARATOR) >= 0;
+    }
+
+    private void restore(String key, Slot previous) {
+        if (previous != null) {
+            putRecord(key, previous);
+        } else {
+            removeRecord(key);
+            if (isAlias(key)) {
+                aliasCount--;
+            }
+        }
+    }
+
+    private void restoreAll(Map<String, Slot> previous) {
+        records.clear();
+        records.putAll(previous);
+        invalidateIndexes();
+        aliasCount = 0;
+        for (String key : records.keySet()) {
+            if (isAlias(key)) {
+                aliasCount++;
+            }
+        }
+    }
+
+    /**
+     * Persist a single-entity change, through the log when one is attached.
+     * Deferred changes are only staged; the group commit flush makes them durable.
+     */
+    private boolean commitChange(MutationLog.Operation operation, String id, T entity, boolean deferred) {
+        if (log == null) {
+            return deferred || persistSnapshot();
+        }
+        return deferred ? log.write(operation, id, entity) : log.append(operation, id, entity);
+    }
+
+    /**
+     * Make every staged change durable with one log force or one snapshot write.
+     * If that fails the records written since the last force are cut from the log and the store is
+     * reloaded from disk on next access, dropping the changes that were not made durable.
+     */
+    private boolean flushGroup() {
+        if (log != null) {
+            // Held across the rollback so changes staged for the next batch are not cut off with this one
+            lock.writeLock().lock();
+            try {
+                if (log.sync()) {
+                    return true;
+                }
+                log.rollbackUnsynced();
+                loaded = false;
+                System.err.println("EntityStore: Group commit of " + name + " failed, reloading from disk on next access");
+                return false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean durable;
+        lock.readLock().lock();
+        try {
+            durable = persist();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!durable) {
+            lock.writeLock().lock();
+            try {
+                loaded = false;
+                System.err.println("EntityStore: Group commit of " + name + " failed, reloading from disk on next access");
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return durable;
+    }
+
+    /**
+     * Write the full snapshot; logged mutations are then covered by it and dropped
+     */
+    private boolean persistSnapshot() {
+        if (!persist()) {
+            return false;
+        }
+        if (log != null) {
+            log.reset();
+        }
+        return true;
+    }
+
+    private List<T> values() {
+        List<T> result = new ArrayList<>(records.size());
+        for (Slot slot : records.values()) {
+            result.add(slot.get());
+        }
+        return result;
+    }
+
+    private boolean persist() {
+        try {
+            return writer.write(values());
+        } catch (Exception e) {
+            System.err.println("EntityStore: Error persisting " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Derived view of the records kept up to date by every write. The key each record was
+     * indexed under is remembered, so an entity changed in place is still unindexed correctly
+     * when it is passed back through {@link #update(Object)}.
+     */
+    private abstract class SecondaryIndex {
+        protected final Function<T, String> keyFunction;
+        protected final Map<String, String> keysByRecord = new HashMap<>();
+        boolean built = false;
+
+        SecondaryIndex(Function<T, String> keyFunction) {
+            this.keyFunction = keyFunction;
+        }
+
+        void build() {
+            clear();
+            for (Map.Entry<String, Slot> entry : records.entrySet()) {
+                add(entry.getKey(), entry.getValue().get());
+            }
+            built = true;
+        }
+
+        void clear() {
+            keysByRecord.clear();
+            clearEntries();
+            built = false;
+        }
+
+        void add(String recordKey, T entity) {
+            String key = entity != null ? keyFunction.apply(entity) : null;
+            if (key == null) {
+                return;
+            }
+            keysByRecord.put(recordKey, key);
+            addEntry(key, recordKey, entity);
+        }
+
+        /**
+         * Re-index a record; a record whose key is unchanged keeps its position
+         */
+        void replace(String recordKey, T entity) {
+            String key = entity != null ? keyFunction.apply(entity) : null;
+            if (key != null && key.equals(keysByRecord.get(recordKey))) {
+                return;
+            }
+            remove(recordKey);
+            add(recordKey, entity);
+        }
+
+        void remove(String recordKey) {
+            String key = keysByRecord.remove(recordKey);
+            if (key != null) {
+                removeEntry(key, recordKey);
+            }
+        }
+
+        /**
+         * Resolve record keys to entities, skipping any whose key was changed in place
+         */
+        protected List<T> resolve(Iterable<String> recordKeys) {
+            List<T> result = new ArrayList<>();
+            for (String recordKey : recordKeys) {
+                Slot slot = records.get(recordKey);
+                T record = slot != null ? slot.get() : null;
+                if (record != null && keysByRecord.get(recordKey).equals(keyFunction.apply(record))) {
+                    result.add(record);
+                }
+            }
+            return result;
+        }
+
+        protected abstract void addEntry(String key, String recordKey, T entity);
+
+        protected abstract void removeEntry(String key, String recordKey);
+
+        protected abstract void clearEntries();
+    }
+
+    /**
+     * Index answering exact key lookups
+     */
+    private final class HashIndex extends SecondaryIndex {
+        private final Map<String, Set<String>> postings = new HashMap<>();
+
+        HashIndex(Function<T, String> keyFunction) {
+            super(keyFunction);
+        }
+
+        List<T> find(String key) {
+            Set<String> recordKeys = postings.get(key);
+            return recordKeys != null ? resolve(recordKeys) : new ArrayList<>();
+        }
+
+        @Override
+        protected void addEntry(String key, String recordKey, T entity) {
+            postings.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(recordKey);
+        }
+
+        @Override
+        protected void removeEntry(String key, String recordKey) {
+            Set<String> recordKeys = postings.get(key);
+            if (recordKeys != null) {
+                recordKeys.remove(recordKey);
+                if (recordKeys.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        @Override
+        protected void clearEntries() {
+            postings.clear();
+        }
+    }
+
+    /**
+     * Index kept in sort key order, answering range scans. Entries are stored under
+     * sortKey + separator + recordKey so records sharing a sort key stay distinct.
+     */
+    private final class SortedIndex extends SecondaryIndex {
+        private final ConcurrentSkipListMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+        SortedIndex(Function<T, String> keyFunction) {
+            super(keyFunction);
+        }
+
+        List<T> range(String fromKey, String toKey) {
+            return resolve(entries.subMap(fromKey, true, toKey, false).values());
+        }
+
+        @Override
+        protected void addEntry(String key, String recordKey, T entity) {
+            entries.put(key + ALIAS_SEPARATOR + recordKey, recordKey);
+        }
+
+        @Override
+        protected void removeEntry(String key, String recordKey) {
+            entries.remove(key + ALIAS_SEPARATOR + recordKey);
+        }
+
+        @Override
+        protected void clearEntries() {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Index answering ranked full-text queries. Records are keyed by a fingerprint of their
+     * text, so an update that leaves the text unchanged does not re-index the record.
+     */
+    private final class FullTextIndex extends SecondaryIndex {
+        private final Function<T, String> textFunction;
+        private final TextIndex text = new TextIndex();
+
+        FullTextIndex(Function<T, String> textFunction) {
+            super(entity -> {
+                String value = textFunction.apply(entity);
+                return value != null ? Long.toHexString(TextIndex.fingerprint(value)) : null;
+            });
+            this.textFunction = textFunction;
+        }
+
+        List<T> search(String query, int limit) {
+            return resolve(text.search(query, limit));
+        }
+
+        @Override
+        protected void addEntry(String key, String recordKey, T entity) {
+            text.add(recordKey, textFunction.apply(entity));
+        }
+
+        @Override
+        protected void removeEntry(String key, String recordKey) {
+            text.remove(recordKey);
+        }
+
+        @Override
+        protected void clearEntries() {
+            text.clear();
+        }
+    }
+
+    /**
+     * Holder for one record. Records indexed from a lazy snapshot are decoded on first
+     * access; the decoded instance is kept so every reader sees the same live object.
+     */
+    private final class Slot {
+        private LazySnapshot<T> source;
+        private final int row;
+        private final String sourceId;
+        private T value;
+
+        Slot(T value) {
+            this.value = value;
+            this.row = -1;
+            this.sourceId = null;
+        }
+
+        Slot(LazySnapshot<T> source, int row, String id) {
+            this.source = source;
+            this.row = row;
+            this.sourceId = id;
+        }
+
+        synchronized T get() {
+            if (source != null) {
+                value = source.decode(row);
+                source = null;
+            }
+            return value;
+        }
+
+        /**
+         * ID of the record, read from the snapshot index when not yet decoded
+         */
+        synchronized String id() {
+            return source != null ? sourceId : idFunction.apply(value);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Coalesces durable writes into group commits.
+ * Callers stage their change first and then {@link #submit()}; every change submitted within
+ * the commit window, or until the batch reaches its maximum size, is made durable by a single
+ * call to the flush action. The returned futures complete once that flush has finished.
+ */
+public class GroupCommitWriter {
+
+    private final String name;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final BooleanSupplier flushAction;
+    private final ScheduledExecutorService executor;
+
+    private List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long flushCount = 0;
+    private long commitCount = 0;
+
+    /**
+     * @param name Name used for the flush thread and log messages
+     * @param windowMillis Maximum time a change waits for other changes to join its batch
+     * @param maxBatchSize Number of changes that triggers an immediate flush
+     * @param flushAction Makes every staged change durable, returning true on success
+     */
+    public GroupCommitWriter(String name, long windowMillis, int maxBatchSize, BooleanSupplier flushAction) {
+        this.name = name;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushAction = flushAction;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GroupCommit-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Join the current batch with an already staged change
+     * @return Future completed with true once the change is durable, false if the flush failed
+     */
+    public synchronized CompletableFuture<Boolean> submit() {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        pending.add(future);
+        if (pending.size() >= maxBatchSize) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            executor.execute(this::flush);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * @return Number of flushes performed so far
+     */
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * @return Number of changes committed so far
+     */
+    public synchronized long getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * Flush everything submitted so far, then stop the flush thread
+     */
+    public void shutdown() {
+        executor.execute(this::flush);
+        executor.shutdown();
+    }
+
+    private void flush() {
+        List<CompletableFuture<Boolean>> batch;
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        boolean durable;
+        try {
+            durable = flushAction.getAsBoolean();
+        } catch (Exception e) {
+            System.err.println("GroupCommitWriter: Error flushing " + name + ": " + e.getMessage());
+            durable = false;
+        }
+
+        synchronized (this) {
+            flushCount++;
+            commitCount += batch.size();
+        }
+        for (CompletableFuture<Boolean> future : batch) {
+            future.complete(durable);
+        }
+    }
+}
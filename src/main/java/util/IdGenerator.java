@@ -0,0 +1,63 @@
+package util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central source of entity IDs.
+ * IDs are 64-bit Snowflake-style numbers: 41 bits of milliseconds since 2024-01-01,
+ * 10 bits of node ID and a 12-bit sequence within the millisecond. They increase
+ * monotonically, are unique across nodes with distinct node IDs, and are generated with
+ * a single compare-and-set, so callers never block. When more than 4096 IDs are taken in one
+ * millisecond, or the clock steps backwards, the generator runs ahead on its own clock
+ * rather than waiting.
+ */
+public final class IdGenerator {
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+
+    // Node ID of this process (0-1023), configurable with -Dpikachu.node.id
+    private static final long NODE_ID = Math.floorMod(Long.getLong("pikachu.node.id", 0), MAX_NODE + 1);
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private static final AtomicLong state = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    /**
+     * @return Next unique ID
+     */
+    public static long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            // A new millisecond starts a new sequence; otherwise the sequence carries into the timestamp
+            next = Math.max(current + 1, now << SEQUENCE_BITS);
+        } while (!state.compareAndSet(current, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (NODE_ID << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * @param prefix Entity prefix, e.g. "BKG"
+     * @return Next unique ID as prefix + "_" + number
+     */
+    public static String nextId(String prefix) {
+        return prefix + "_" + nextLong();
+    }
+
+    /**
+     * @param id ID produced by {@link #nextLong()}
+     * @return Time the ID was issued (later than the wall clock if the generator ran ahead)
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+}
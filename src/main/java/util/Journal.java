@@ -0,0 +1,423 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed log shared by several entity collections ("streams").
+ * Each frame holds one transaction: any number of mutations, possibly to different streams,
+ * written and forced together, so a change spanning collections is durable in one write
+ * and is replayed either completely or not at all.
+ *
+ * Frame layout: [int bodyLength][int crc32(body)][body], where the body is [int entryCount]
+ * followed by entries of [int streamLength][stream][byte operation][int idLength][id][int payloadLength][payload JSON].
+ * A stream is reset after its collection is written to a snapshot: a reset marker is appended and
+ * replay ignores that stream's earlier entries. Once every stream has been reset the file is truncated.
+ * A torn or corrupted frame at the tail of the file is discarded.
+ */
+public class Journal {
+
+    /**
+     * One mutation of one stream
+     */
+    public static final class Entry {
+        private final String stream;
+        private final MutationLog.Operation operation;
+        private final String id;
+        private final byte[] payload;
+
+        public Entry(String stream, MutationLog.Operation operation, String id, String payload) {
+            this.stream = stream;
+            this.operation = operation;
+            this.id = id != null ? id : "";
+            this.payload = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+    }
+
+    /**
+     * Receives a stream's mutations read back from the journal
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        void apply(MutationLog.Operation operation, String id, String payload);
+    }
+
+    private static final int HEADER_SIZE = 8;
+    // Upper bound on a single frame, used to reject garbage lengths from a torn write
+    private static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+    // Operation code of a reset marker, after the codes of MutationLog.Operation
+    private static final byte RESET = (byte) MutationLog.Operation.values().length;
+
+    private final String fileName;
+    private final Map<String, Integer> pending = new HashMap<>();
+    // Streams that lost unsynced frames in a rollback; their next sync fails
+    private final Set<String> discarded = new HashSet<>();
+
+    private FileChannel channel;
+    // End of the data known to be on disk, and each stream's pending count there
+    private long syncedPosition = 0;
+    private Map<String, Integer> syncedPending = new HashMap<>();
+
+    public Journal(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Write a transaction and force it to disk
+     * @param entries Mutations making up the transaction
+     * @return true if the whole transaction is durable
+     */
+    public synchronized boolean append(List<Entry> entries) {
+        long position;
+        try {
+            ensureOpen();
+            position = channel.position();
+        } catch (IOException e) {
+            System.err.println("Journal: Error opening " + fileName + ": " + e.getMessage());
+            return false;
+        }
+        if (!write(entries)) {
+            return false;
+        }
+        if (sync()) {
+            return true;
+        }
+        discardFrom(position);
+        count(entries, -1);
+        return false;
+    }
+
+    /**
+     * Write a transaction without forcing it to disk; {@link #sync()} makes it durable
+     * @param entries Mutations making up the transaction
+     * @return true if the frame was written
+     */
+    public synchronized boolean write(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        long position = -1;
+        try {
+            ensureOpen();
+            position = channel.position();
+            writeFrame(entries);
+            count(entries, 1);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Journal: Error appending to " + fileName + ": " + e.getMessage());
+            discardFrom(position);
+            return false;
+        }
+    }
+
+    /**
+     * Force every written frame to disk
+     * @return true if the journal is durable
+     */
+    public synchronized boolean sync() {
+        try {
+            ensureOpen();
+            channel.force(false);
+            markSynced();
+            return true;
+        } catch (Exception e) {
+            System.err.println("Journal: Error syncing " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Force every written frame to disk on behalf of one stream
+     * @param stream Stream name
+     * @return true if the journal is durable and no rollback has discarded the stream's frames since its last sync
+     */
+    public synchronized boolean sync(String stream) {
+        boolean durable = sync();
+        return !discarded.remove(stream) && durable;
+    }
+
+    /**
+     * Cut off every frame written since the last successful sync, after a failed sync.
+     * Those frames were reported as not durable, so a later replay must not bring them back.
+     * Other streams that had unsynced frames fail their next {@link #sync(String)}.
+     * @return true if the journal now ends at its last synced frame
+     */
+    public synchronized boolean rollbackUnsynced() {
+        if (channel == null) {
+            return true;
+        }
+        try {
+            for (Map.Entry<String, Integer> stream : pending.entrySet()) {
+                if (!stream.getValue().equals(syncedPending.getOrDefault(stream.getKey(), 0))) {
+                    discarded.add(stream.getKey());
+                }
+            }
+            channel.truncate(syncedPosition);
+            channel.position(syncedPosition);
+            channel.force(false);
+            pending.clear();
+            pending.putAll(syncedPending);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Journal: Error rolling back " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Replay a stream's mutations since its last reset, in append order
+     * @param stream Stream name
+     * @param replayer Receiver of the replayed mutations
+     * @return Number of mutations replayed
+     */
+    public synchronized int replay(String stream, Replayer replayer) {
+        List<Object[]> mutations = new ArrayList<>();
+        try {
+            ensureOpen();
+            scan((entryStream, operation, id, payload) -> {
+                if (!entryStream.equals(stream)) {
+                    return;
+                }
+                if (operation == RESET) {
+                    mutations.clear();
+                } else {
+                    mutations.add(new Object[] { MutationLog.Operation.values()[operation], id, payload });
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Journal: Error replaying " + fileName + ": " + e.getMessage());
+        }
+        for (Object[] mutation : mutations) {
+            replayer.apply((MutationLog.Operation) mutation[0], (String) mutation[1], (String) mutation[2]);
+        }
+        return mutations.size();
+    }
+
+    /**
+     * Mark a stream's mutations as folded into its snapshot.
+     * The file is truncated once no stream has mutations left to replay.
+     * @param stream Stream name
+     * @return true if the reset is durable
+     */
+    public synchronized boolean reset(String stream) {
+        try {
+            ensureOpen();
+            if (pending.getOrDefault(stream, 0) == 0) {
+                return true;
+            }
+            pending.put(stream, 0);
+            if (pending.values().stream().allMatch(count -> count == 0)) {
+                channel.truncate(0);
+                channel.position(0);
+                pending.clear();
+            } else {
+                writeFrame(List.of(new Entry(stream, null, null, null)));
+            }
+            channel.force(false);
+            markSynced();
+            return true;
+        } catch (Exception e) {
+            System.err.println("Journal: Error resetting " + stream + " in " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @param stream Stream name
+     * @return Number of the stream's mutations written since its last reset
+     */
+    public synchronized int getRecordCount(String stream) {
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            return 0;
+        }
+        return pending.getOrDefault(stream, 0);
+    }
+
+    /**
+     * Close the underlying file
+     */
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Journal: Error closing " + fileName + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private void writeFrame(List<Entry> entries) throws IOException {
+        int size = 4;
+        List<byte[]> streams = new ArrayList<>();
+        List<byte[]> ids = new ArrayList<>();
+        for (Entry entry : entries) {
+            byte[] stream = entry.stream.getBytes(StandardCharsets.UTF_8);
+            byte[] id = entry.id.getBytes(StandardCharsets.UTF_8);
+            streams.add(stream);
+            ids.add(id);
+            size += 4 + stream.length + 1 + 4 + id.length + 4 + entry.payload.length;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.putInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            body.putInt(streams.get(i).length).put(streams.get(i));
+            body.put(entry.operation != null ? (byte) entry.operation.ordinal() : RESET);
+            body.putInt(ids.get(i).length).put(ids.get(i));
+            body.putInt(entry.payload.length).put(entry.payload);
+        }
+        body.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + body.remaining());
+        frame.putInt(body.remaining());
+        frame.putInt((int) crc.getValue());
+        frame.put(body);
+        frame.flip();
+
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private void count(List<Entry> entries, int delta) {
+        for (Entry entry : entries) {
+            pending.merge(entry.stream, delta, Integer::sum);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryVisitor {
+        void visit(String stream, byte operation, String id, String payload);
+    }
+
+    /**
+     * Visit every entry of every intact frame
+     * @return Offset just past the last intact frame
+     */
+    private long scan(EntryVisitor visitor) throws IOException {
+        long size = channel.size();
+        long validEnd = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (validEnd + HEADER_SIZE <= size) {
+            header.clear();
+            if (!readFully(header, validEnd)) {
+                break;
+            }
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_BODY_SIZE || validEnd + HEADER_SIZE + length > size) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(length);
+            if (!readFully(body, validEnd + HEADER_SIZE)) {
+                break;
+            }
+            body.flip();
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            int count = body.getInt();
+            for (int i = 0; i < count; i++) {
+                String stream = readString(body);
+                byte operation = body.get();
+                String id = readString(body);
+                String payload = readString(body);
+                visitor.visit(stream, operation, id, payload);
+            }
+            validEnd += HEADER_SIZE + length;
+        }
+        return validEnd;
+    }
+
+    /**
+     * Open the file, cut off any incomplete tail and count each stream's pending mutations
+     */
+    private void ensureOpen() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            return;
+        }
+        File file = new File(fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        pending.clear();
+        long validEnd = scan((stream, operation, id, payload) -> {
+            if (operation == RESET) {
+                pending.put(stream, 0);
+            } else {
+                pending.merge(stream, 1, Integer::sum);
+            }
+        });
+        long size = channel.size();
+        if (validEnd < size) {
+            System.err.println("Journal: Discarding " + (size - validEnd) + " bytes of incomplete records in " + fileName);
+            channel.truncate(validEnd);
+            channel.force(false);
+        }
+        channel.position(validEnd);
+        markSynced();
+    }
+
+    private void markSynced() throws IOException {
+        syncedPosition = channel.position();
+        syncedPending = new HashMap<>(pending);
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cut off a partially written frame so the journal stays well-formed
+     */
+    private void discardFrom(long position) {
+        if (channel == null || position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            System.err.println("Journal: Error truncating " + fileName + ": " + e.getMessage());
+        }
+    }
+}
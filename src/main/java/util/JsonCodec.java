@@ -0,0 +1,847 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+import model.AddOn;
+import model.AddOnCategory;
+import model.Admin;
+import model.AirlineManagement;
+import model.Booking;
+import model.BookingStatus;
+import model.Customer;
+import model.FAQ;
+import model.Flight;
+import model.FlightStatus;
+import model.Passenger;
+import model.PassengerType;
+import model.PaymentDetails;
+import model.PaymentStatus;
+import model.RefundMethod;
+import model.RefundRequest;
+import model.RefundStatus;
+import model.SeatMap;
+import model.Ticket;
+import model.TicketPriority;
+import model.TicketReply;
+import model.TicketStatus;
+import model.User;
+
+/**
+ * Streaming JSON codec for a model type.
+ * Files are read token by token with Jackson's {@link JsonParser} in a single pass,
+ * and written with a {@link JsonGenerator} in the same layout as the existing data files.
+ * Field names written by earlier versions of the data files are still accepted.
+ *
+ * @param <T> Model type
+ */
+public abstract class JsonCodec<T> {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public static final JsonCodec<Flight> FLIGHT = new FlightCodec();
+    public static final JsonCodec<Booking> BOOKING = new BookingCodec();
+    public static final JsonCodec<Ticket> TICKET = new TicketCodec();
+    public static final JsonCodec<User> USER = new UserCodec();
+    public static final JsonCodec<RefundRequest> REFUND = new RefundCodec();
+    public static final JsonCodec<FAQ> FAQ_ENTRY = new FAQCodec();
+    public static final JsonCodec<SeatMap> SEAT_MAP = new SeatMapCodec();
+
+    /**
+     * Read one object. The parser is positioned on its START_OBJECT token
+     * and is left on the matching END_OBJECT token.
+     * @param parser JSON parser
+     * @return Decoded object, or null if the record should be skipped
+     * @throws IOException If the input is not valid JSON
+     */
+    protected abstract T readObject(JsonParser parser) throws IOException;
+
+    /**
+     * Write one object including its start and end tokens
+     * @param generator JSON generator
+     * @param value Object to write
+     * @throws IOException If writing fails
+     */
+    protected abstract void writeObject(JsonGenerator generator, T value) throws IOException;
+
+    // ==================== ARRAY I/O ====================
+
+    /**
+     * Read a top-level JSON array of objects
+     * @param in Input stream (not closed)
+     * @return Decoded objects
+     * @throws IOException If the input is not valid JSON
+     */
+    public List<T> readArray(InputStream in) throws IOException {
+        List<T> result = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return result;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                T value = readObject(parser);
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write a top-level JSON array of objects
+     * @param out Output stream (not closed)
+     * @param values Objects to write
+     * @throws IOException If writing fails
+     */
+    public void writeArray(OutputStream out, List<T> values) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new DataFilePrettyPrinter());
+            generator.writeStartArray();
+            for (T value : values) {
+                writeObject(generator, value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Encode a single object as compact JSON
+     * @param value Object to encode
+     * @return JSON text
+     */
+    public String toJson(T value) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+            writeObject(generator, value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error encoding JSON: " + e.getMessage(), e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Decode a single object from JSON text
+     * @param json JSON text of one object
+     * @return Decoded object, or null if the text is not an object
+     * @throws IOException If the input is not valid JSON
+     */
+    public T fromJson(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return readObject(parser);
+        }
+    }
+
+    // ==================== FIELD HELPERS ====================
+
+    /**
+     * Advance to the next field of the current object
+     * @return Field name, or null at the end of the object
+     */
+    protected static String nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        String name = parser.currentName();
+        parser.nextToken();
+        return name;
+    }
+
+    protected static String text(JsonParser parser) throws IOException {
+        return parser.getValueAsString();
+    }
+
+    protected static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    protected static LocalDateTime dateTime(JsonParser parser, LocalDateTime fallback) throws IOException {
+        String value = parser.getValueAsString();
+        if (isBlank(value)) {
+            return fallback;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    protected static LocalDate date(JsonParser parser) throws IOException {
+        String value = parser.getValueAsString();
+        if (isBlank(value)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    protected static <E extends Enum<E>> E enumValue(JsonParser parser, Class<E> type, E fallback) throws IOException {
+        String value = parser.getValueAsString();
+        if (isBlank(value)) {
+            return fallback;
+        }
+        String normalized = value.trim().toUpperCase().replace(' ', '_');
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equals(normalized)) {
+                return constant;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Write a string field; null is written as an empty string like the existing data files
+     */
+    protected static void string(JsonGenerator generator, String name, String value) throws IOException {
+        generator.writeStringField(name, value != null ? value : "");
+    }
+
+    /**
+     * Write an optional string field, omitted when null
+     */
+    protected static void optional(JsonGenerator generator, String name, Object value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value.toString());
+        }
+    }
+
+    protected static void dateTime(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        generator.writeStringField(name, value != null ? value.toString() : "");
+    }
+
+    /**
+     * Pretty printer matching the hand-written layout of the data files:
+     * two-space indentation, one field per line and "name": value separators.
+     */
+    private static class DataFilePrettyPrinter extends DefaultPrettyPrinter {
+        private static final long serialVersionUID = 1L;
+
+        DataFilePrettyPrinter() {
+            DefaultIndenter indenter = new DefaultIndenter("  ", "\n");
+            indentObjectsWith(indenter);
+            indentArraysWith(indenter);
+        }
+
+        @Override
+        public DefaultPrettyPrinter createInstance() {
+            return new DataFilePrettyPrinter();
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(": ");
+        }
+    }
+
+    // ==================== MODEL CODECS ====================
+
+    private static class FlightCodec extends JsonCodec<Flight> {
+        @Override
+        protected Flight readObject(JsonParser parser) throws IOException {
+            Flight flight = new Flight();
+            String flightId = null;
+            String flightNumber = null;
+            String airline = null;
+            String origin = null;
+            String destination = null;
+            String aircraft = null;
+            LocalDateTime departureTime = null;
+            LocalDateTime arrivalTime = null;
+            int totalSeats = 180;
+            int availableSeats = 0;
+            double duration = -1;
+
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "flightId": flightId = text(parser); break;
+                    case "flightNumber": flightNumber = text(parser); break;
+                    case "airline": airline = text(parser); break;
+                    case "departureAirport":
+                    case "origin": origin = text(parser); break;
+                    case "arrivalAirport":
+                    case "destination": destination = text(parser); break;
+                    case "departureTime": departureTime = dateTime(parser, null); break;
+                    case "arrivalTime": arrivalTime = dateTime(parser, null); break;
+                    case "basePrice":
+                    case "price": flight.setBasePrice(parser.getValueAsDouble(0.0)); break;
+                    case "economyPrice": flight.setEconomyPrice(parser.getValueAsDouble(0.0)); break;
+                    case "businessPrice": flight.setBusinessPrice(parser.getValueAsDouble(0.0)); break;
+                    case "totalSeats": totalSeats = parser.getValueAsInt(180); break;
+                    case "availableSeats": availableSeats = parser.getValueAsInt(0); break;
+                    case "status": flight.setStatus(flightStatus(text(parser))); break;
+                    case "aircraft": aircraft = text(parser); break;
+                    case "duration": duration = parser.getValueAsDouble(-1); break;
+                    case "notes": flight.setNotes(text(parser)); break;
+                    default: parser.skipChildren();
+                }
+            }
+
+            if (!isBlank(flightNumber)) {
+                flight.setFlightNumber(flightNumber);
+                flight.setFlightId(!isBlank(flightId) ? flightId : "FL_" + flightNumber); // Generate ID from flight number
+            } else {
+                flight.setFlightId(IdGenerator.nextId("FL_UNKNOWN"));
+                flight.setFlightNumber("UNKNOWN");
+            }
+            flight.setAirline(!isBlank(airline) ? airline : "Pikachu Airlines"); // Default airline
+            flight.setDepartureAirport(!isBlank(origin) ? origin : "TBD");
+            flight.setArrivalAirport(!isBlank(destination) ? destination : "TBD");
+            flight.setAircraft(!isBlank(aircraft) ? aircraft : "Unknown Aircraft");
+            flight.setDepartureTime(departureTime != null ? departureTime : LocalDateTime.now().plusDays(1));
+            flight.setArrivalTime(arrivalTime != null ? arrivalTime : LocalDateTime.now().plusDays(1).plusHours(2));
+            if (duration >= 0) {
+                flight.setDuration(duration);
+            }
+            flight.setTotalSeats(totalSeats);
+            flight.setAvailableSeats(availableSeats);
+            return flight;
+        }
+
+        /**
+         * Map stored status values to enum values; legacy ON_TIME is treated as scheduled
+         */
+        private FlightStatus flightStatus(String status) {
+            if (isBlank(status) || "ON_TIME".equals(status)) {
+                return FlightStatus.SCHEDULED;
+            }
+            try {
+                return FlightStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return FlightStatus.SCHEDULED;
+            }
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, Flight flight) throws IOException {
+            generator.writeStartObject();
+            string(generator, "flightId", flight.getFlightId());
+            string(generator, "flightNumber", flight.getFlightNumber());
+            string(generator, "airline", flight.getAirline());
+            string(generator, "departureAirport", flight.getDepartureAirport());
+            string(generator, "arrivalAirport", flight.getArrivalAirport());
+            dateTime(generator, "departureTime", flight.getDepartureTime());
+            dateTime(generator, "arrivalTime", flight.getArrivalTime());
+            generator.writeNumberField("basePrice", flight.getBasePrice());
+            generator.writeNumberField("economyPrice", flight.getEconomyPrice());
+            generator.writeNumberField("businessPrice", flight.getBusinessPrice());
+            generator.writeNumberField("totalSeats", flight.getTotalSeats());
+            generator.writeNumberField("availableSeats", flight.getAvailableSeats());
+            generator.writeStringField("status", flight.getStatus() != null ? flight.getStatus().name() : "SCHEDULED");
+            string(generator, "aircraft", flight.getAircraft());
+            generator.writeNumberField("duration", flight.getDuration());
+            optional(generator, "notes", flight.getNotes());
+            generator.writeEndObject();
+        }
+    }
+
+    private static class BookingCodec extends JsonCodec<Booking> {
+        @Override
+        protected Booking readObject(JsonParser parser) throws IOException {
+            Booking booking = new Booking();
+            double totalAmount = 0.0;
+
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "bookingId": booking.setBookingId(text(parser)); break;
+                    case "userId":
+                    case "customerId": booking.setCustomerId(text(parser)); break; // Maps JSON userId to model customerId
+                    case "flightId": booking.setFlightId(text(parser)); break;
+                    case "bookingDate": booking.setBookingDate(dateTime(parser, booking.getBookingDate())); break;
+                    case "status": booking.setStatus(enumValue(parser, BookingStatus.class, BookingStatus.PENDING)); break;
+                    case "totalAmount": totalAmount = parser.getValueAsDouble(0.0); break;
+                    case "bookingReference": booking.setBookingReference(text(parser)); break;
+                    case "confirmationDate": booking.setConfirmationDate(dateTime(parser, null)); break;
+                    case "cancellationDate": booking.setCancellationDate(dateTime(parser, null)); break;
+                    case "holdExpiresAt": booking.setHoldExpiresAt(dateTime(parser, null)); break;
+                    case "returnFlightId": booking.setReturnFlightId(text(parser)); break;
+                    case "roundTrip": booking.setRoundTrip(parser.getValueAsBoolean()); break;
+                    case "passengers": booking.setPassengers(readPassengers(parser)); break;
+                    case "paymentDetails": booking.setPaymentDetails(readPayment(parser)); break;
+                    case "addOns": booking.setAddOns(readAddOns(parser)); break;
+                    default: parser.skipChildren();
+                }
+            }
+
+            // Total is set last: adding add-ons recalculates it from the base price
+            booking.setTotalPrice(totalAmount);
+            return booking;
+        }
+
+        private List<Passenger> readPassengers(JsonParser parser) throws IOException {
+            List<Passenger> passengers = new ArrayList<>();
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return passengers;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Passenger passenger = new Passenger();
+                String name = null;
+                String field;
+                while ((field = nextField(parser)) != null) {
+                    switch (field) {
+                        case "passengerId": passenger.setPassengerId(text(parser)); break;
+                        case "name": name = text(parser); break;
+                        case "firstName": passenger.setFirstName(text(parser)); break;
+                        case "lastName": passenger.setLastName(text(parser)); break;
+                        case "dateOfBirth": passenger.setDateOfBirth(date(parser)); break;
+                        case "passportNumber": passenger.setPassportNumber(text(parser)); break;
+                        case "nationality": passenger.setNationality(text(parser)); break;
+                        case "gender": passenger.setGender(text(parser)); break;
+                        case "passengerType": passenger.setType(enumValue(parser, PassengerType.class, PassengerType.ADULT)); break;
+                        case "seatNumber": passenger.setSeatNumber(text(parser)); break;
+                        default: parser.skipChildren();
+                    }
+                }
+                if (!isBlank(name)) {
+                    // Split name into first and last
+                    String[] nameParts = name.trim().split("\\s+", 2);
+                    passenger.setFirstName(nameParts[0]);
+                    if (nameParts.length > 1) {
+                        passenger.setLastName(nameParts[1]);
+                    }
+                }
+                if (!isBlank(passenger.getFirstName())) {
+                    passengers.add(passenger);
+                }
+            }
+            return passengers;
+        }
+
+        private PaymentDetails readPayment(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return null;
+            }
+            PaymentDetails payment = new PaymentDetails();
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "paymentId": payment.setPaymentId(text(parser)); break;
+                    case "cardNumber": payment.setCardNumber(text(parser)); break;
+                    case "cardHolderName": payment.setCardholderName(text(parser)); break;
+                    case "amount": payment.setAmount(parser.getValueAsDouble(0.0)); break;
+                    case "paymentStatus": payment.setStatus(enumValue(parser, PaymentStatus.class, PaymentStatus.PENDING)); break;
+                    default: parser.skipChildren();
+                }
+            }
+            return payment;
+        }
+
+        private List<AddOn> readAddOns(JsonParser parser) throws IOException {
+            List<AddOn> addOns = new ArrayList<>();
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return addOns;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                AddOn addOn = new AddOn();
+                String field;
+                while ((field = nextField(parser)) != null) {
+                    switch (field) {
+                        case "addOnId": addOn.setAddOnId(text(parser)); break;
+                        case "name": addOn.setName(text(parser)); break;
+                        case "description": addOn.setDescription(text(parser)); break;
+                        case "price": addOn.setPrice(parser.getValueAsDouble(0.0)); break;
+                        case "category": addOn.setCategory(enumValue(parser, AddOnCategory.class, null)); break;
+                        case "isAvailable": addOn.setAvailable(parser.getValueAsBoolean(true)); break;
+                        default: parser.skipChildren();
+                    }
+                }
+                addOns.add(addOn);
+            }
+            return addOns;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, Booking booking) throws IOException {
+            generator.writeStartObject();
+            string(generator, "bookingId", booking.getBookingId());
+            string(generator, "userId", booking.getCustomerId());
+            string(generator, "flightId", booking.getFlightId());
+            dateTime(generator, "bookingDate", booking.getBookingDate());
+            generator.writeStringField("status", booking.getStatus() != null ? booking.getStatus().name() : "PENDING");
+            generator.writeNumberField("totalAmount", booking.getTotalPrice());
+            optional(generator, "bookingReference", booking.getBookingReference());
+            optional(generator, "confirmationDate", booking.getConfirmationDate());
+            optional(generator, "cancellationDate", booking.getCancellationDate());
+            optional(generator, "holdExpiresAt", booking.getHoldExpiresAt());
+            if (booking.isRoundTrip()) {
+                generator.writeBooleanField("roundTrip", true);
+                optional(generator, "returnFlightId", booking.getReturnFlightId());
+            }
+
+            // Add passengers array
+            generator.writeArrayFieldStart("passengers");
+            for (Passenger passenger : booking.getPassengers()) {
+                generator.writeStartObject();
+                string(generator, "passengerId", passenger.getPassengerId());
+                string(generator, "name", passenger.getFullName());
+                generator.writeStringField("dateOfBirth", passenger.getDateOfBirth() != null ? passenger.getDateOfBirth().toString() : "");
+                generator.writeStringField("passengerType", passenger.getType() != null ? passenger.getType().getDisplayName() : "Adult");
+                optional(generator, "passportNumber", passenger.getPassportNumber());
+                optional(generator, "nationality", passenger.getNationality());
+                string(generator, "seatNumber", passenger.getSeatNumber());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            // Add payment details
+            generator.writeObjectFieldStart("paymentDetails");
+            PaymentDetails payment = booking.getPaymentDetails();
+            string(generator, "cardNumber", payment != null ? payment.getCardNumber() : null);
+            string(generator, "cardHolderName", payment != null ? payment.getCardholderName() : null);
+            generator.writeNumberField("amount", payment != null ? payment.getAmount() : 0.0);
+            generator.writeStringField("paymentStatus", payment != null && payment.getStatus() != null ? payment.getStatus().name() : "PENDING");
+            generator.writeEndObject();
+
+            // Add-ons are only written when present to keep existing files unchanged
+            List<AddOn> addOns = booking.getAddOns();
+            if (!addOns.isEmpty()) {
+                generator.writeArrayFieldStart("addOns");
+                for (AddOn addOn : addOns) {
+                    generator.writeStartObject();
+                    string(generator, "addOnId", addOn.getAddOnId());
+                    string(generator, "name", addOn.getName());
+                    string(generator, "description", addOn.getDescription());
+                    generator.writeNumberField("price", addOn.getPrice());
+                    optional(generator, "category", addOn.getCategory() != null ? addOn.getCategory().name() : null);
+                    generator.writeBooleanField("isAvailable", addOn.isAvailable());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static class TicketCodec extends JsonCodec<Ticket> {
+        @Override
+        protected Ticket readObject(JsonParser parser) throws IOException {
+            Ticket ticket = new Ticket();
+            TicketStatus status = null;
+            LocalDateTime updatedAt = null;
+
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "ticketId": ticket.setTicketId(text(parser)); break;
+                    case "customerId": ticket.setCustomerId(text(parser)); break;
+                    case "customerName": ticket.setCustomerName(text(parser)); break;
+                    case "customerEmail": ticket.setCustomerEmail(text(parser)); break;
+                    case "subject": ticket.setSubject(text(parser)); break;
+                    case "description": ticket.setDescription(text(parser)); break;
+                    case "category": ticket.setCategory(text(parser)); break;
+                    case "priority": ticket.setPriority(enumValue(parser, TicketPriority.class, TicketPriority.MEDIUM)); break;
+                    case "status": status = enumValue(parser, TicketStatus.class, TicketStatus.OPEN); break;
+                    case "assignedTo": ticket.setAssignedTo(text(parser)); break;
+                    case "createdAt": ticket.setCreatedAt(dateTime(parser, LocalDateTime.now())); break;
+                    case "updatedAt": updatedAt = dateTime(parser, LocalDateTime.now()); break;
+                    case "submissionDate": ticket.setSubmissionDate(dateTime(parser, null)); break;
+                    case "closedBy": ticket.setClosedBy(text(parser)); break;
+                    case "closeDate": ticket.setCloseDate(dateTime(parser, null)); break;
+                    case "responses": ticket.setReplies(readReplies(parser)); break;
+                    default: parser.skipChildren();
+                }
+            }
+
+            // Status is applied before updatedAt since setting it touches the timestamp
+            if (status != null) {
+                ticket.setStatus(status);
+            }
+            if (updatedAt != null) {
+                ticket.setUpdatedAt(updatedAt);
+            }
+            return ticket;
+        }
+
+        private List<TicketReply> readReplies(JsonParser parser) throws IOException {
+            List<TicketReply> replies = new ArrayList<>();
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return replies;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                TicketReply reply = new TicketReply();
+                String field;
+                while ((field = nextField(parser)) != null) {
+                    switch (field) {
+                        case "responderId": reply.setResponderId(text(parser)); break;
+                        case "responderName": reply.setResponderName(text(parser)); break;
+                        case "message": reply.setMessage(text(parser)); break;
+                        case "timestamp": reply.setTimestamp(dateTime(parser, LocalDateTime.now())); break;
+                        default: parser.skipChildren();
+                    }
+                }
+                if (!isBlank(reply.getMessage())) {
+                    replies.add(reply);
+                }
+            }
+            return replies;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, Ticket ticket) throws IOException {
+            generator.writeStartObject();
+            string(generator, "ticketId", ticket.getTicketId());
+            string(generator, "customerId", ticket.getCustomerId());
+            string(generator, "customerName", ticket.getCustomerName());
+            string(generator, "customerEmail", ticket.getCustomerEmail());
+            string(generator, "subject", ticket.getSubject());
+            string(generator, "description", ticket.getDescription());
+            string(generator, "category", ticket.getCategory());
+            generator.writeStringField("priority", ticket.getPriority().name());
+            generator.writeStringField("status", ticket.getStatus().name());
+            string(generator, "assignedTo", ticket.getAssignedTo());
+            dateTime(generator, "createdAt", ticket.getCreatedAt());
+            dateTime(generator, "updatedAt", ticket.getUpdatedAt());
+            optional(generator, "submissionDate", ticket.getSubmissionDate());
+            optional(generator, "closedBy", ticket.getClosedBy());
+            optional(generator, "closeDate", ticket.getCloseDate());
+
+            // Add responses
+            generator.writeArrayFieldStart("responses");
+            for (TicketReply reply : ticket.getReplies()) {
+                generator.writeStartObject();
+                string(generator, "responderId", reply.getResponderId());
+                string(generator, "responderName", reply.getResponderName());
+                string(generator, "message", reply.getMessage());
+                dateTime(generator, "timestamp", reply.getTimestamp());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private static class UserCodec extends JsonCodec<User> {
+        @Override
+        protected User readObject(JsonParser parser) throws IOException {
+            String userId = null, username = null, password = null, email = null;
+            String firstName = null, lastName = null, phoneNumber = null, role = null;
+            String department = null, passportNumber = null, nationality = null;
+            LocalDateTime createdAt = null, lastLogin = null;
+            Boolean isActive = null;
+
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "userId": userId = text(parser); break;
+                    case "username": username = text(parser); break;
+                    case "password": password = text(parser); break;
+                    case "email": email = text(parser); break;
+                    case "firstName": firstName = text(parser); break;
+                    case "lastName": lastName = text(parser); break;
+                    case "phoneNumber": phoneNumber = text(parser); break;
+                    case "role": role = text(parser); break;
+                    case "department": department = text(parser); break;
+                    case "passportNumber": passportNumber = text(parser); break;
+                    case "nationality": nationality = text(parser); break;
+                    case "createdAt": createdAt = dateTime(parser, null); break;
+                    case "lastLogin": lastLogin = dateTime(parser, null); break;
+                    case "isActive": isActive = parser.getValueAsBoolean(); break;
+                    default: parser.skipChildren();
+                }
+            }
+
+            // Create user based on role (handle both enum names and display names)
+            String phone = phoneNumber != null ? phoneNumber : "";
+            User user;
+            if ("ADMIN".equals(role) || "Admin".equals(role)) {
+                user = new Admin(userId, username, password, email, firstName, lastName, phone,
+                                 !isBlank(department) ? department : "General");
+            } else if ("CUSTOMER".equals(role) || "Customer".equals(role)) {
+                user = new Customer(userId, username, password, email, firstName, lastName, phone,
+                                    !isBlank(passportNumber) ? passportNumber : "TEMP123",
+                                    !isBlank(nationality) ? nationality : "USA");
+            } else if ("AIRLINE_MANAGEMENT".equals(role) || "Airline Management".equals(role)) {
+                user = new AirlineManagement(userId, username, password, email, firstName, lastName, phone,
+                                             !isBlank(department) ? department : "General");
+            } else {
+                return null;
+            }
+
+            if (createdAt != null) {
+                user.setCreatedAt(createdAt);
+            }
+            user.setLastLogin(lastLogin);
+            if (isActive != null) {
+                user.setActive(isActive);
+            }
+            return user;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, User user) throws IOException {
+            generator.writeStartObject();
+            string(generator, "userId", user.getUserId());
+            string(generator, "username", user.getUsername());
+            string(generator, "password", user.getPassword());
+            string(generator, "email", user.getEmail());
+            string(generator, "firstName", user.getFirstName());
+            string(generator, "lastName", user.getLastName());
+            string(generator, "phoneNumber", user.getPhoneNumber());
+            generator.writeStringField("role", user.getRole().name());
+            dateTime(generator, "createdAt", user.getCreatedAt());
+            dateTime(generator, "lastLogin", user.getLastLogin());
+            if (user instanceof Admin) {
+                optional(generator, "department", ((Admin) user).getDepartment());
+            } else if (user instanceof AirlineManagement) {
+                optional(generator, "department", ((AirlineManagement) user).getDepartment());
+            } else if (user instanceof Customer) {
+                optional(generator, "passportNumber", ((Customer) user).getPassportNumber());
+                optional(generator, "nationality", ((Customer) user).getNationality());
+            }
+            generator.writeBooleanField("isActive", user.isActive());
+            generator.writeEndObject();
+        }
+    }
+
+    private static class RefundCodec extends JsonCodec<RefundRequest> {
+        @Override
+        protected RefundRequest readObject(JsonParser parser) throws IOException {
+            RefundRequest refund = new RefundRequest();
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "refundId": refund.setRefundId(text(parser)); break;
+                    case "bookingId": refund.setBookingId(text(parser)); break;
+                    case "customerId": refund.setCustomerId(text(parser)); break;
+                    case "reason": refund.setReason(text(parser)); break;
+                    case "refundAmount": refund.setRefundAmount(parser.getValueAsDouble(0.0)); break;
+                    case "status": refund.setStatus(enumValue(parser, RefundStatus.class, RefundStatus.PENDING)); break;
+                    case "requestDate": refund.setRequestDate(dateTime(parser, refund.getRequestDate())); break;
+                    case "reviewDate": refund.setReviewDate(dateTime(parser, null)); break;
+                    case "reviewedBy": refund.setReviewedBy(text(parser)); break;
+                    case "rejectionReason": refund.setRejectionReason(text(parser)); break;
+                    case "refundMethod": refund.setRefundMethod(enumValue(parser, RefundMethod.class, null)); break;
+                    default: parser.skipChildren();
+                }
+            }
+            return refund;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, RefundRequest refund) throws IOException {
+            generator.writeStartObject();
+            string(generator, "refundId", refund.getRefundId());
+            string(generator, "bookingId", refund.getBookingId());
+            string(generator, "customerId", refund.getCustomerId());
+            string(generator, "reason", refund.getReason());
+            generator.writeNumberField("refundAmount", refund.getRefundAmount());
+            generator.writeStringField("status", refund.getStatus() != null ? refund.getStatus().name() : "PENDING");
+            dateTime(generator, "requestDate", refund.getRequestDate());
+            optional(generator, "reviewDate", refund.getReviewDate());
+            optional(generator, "reviewedBy", refund.getReviewedBy());
+            optional(generator, "rejectionReason", refund.getRejectionReason());
+            optional(generator, "refundMethod", refund.getRefundMethod() != null ? refund.getRefundMethod().name() : null);
+            generator.writeEndObject();
+        }
+    }
+
+    private static class FAQCodec extends JsonCodec<FAQ> {
+        @Override
+        protected FAQ readObject(JsonParser parser) throws IOException {
+            FAQ faq = new FAQ();
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "faqId": faq.setFaqId(text(parser)); break;
+                    case "question": faq.setQuestion(text(parser)); break;
+                    case "answer": faq.setAnswer(text(parser)); break;
+                    case "category": faq.setCategory(text(parser)); break;
+                    case "createdAt": faq.setCreatedAt(dateTime(parser, faq.getCreatedAt())); break;
+                    case "updatedAt": faq.setUpdatedAt(dateTime(parser, faq.getUpdatedAt())); break;
+                    case "createdBy": faq.setCreatedBy(text(parser)); break;
+                    case "updatedBy": faq.setUpdatedBy(text(parser)); break;
+                    case "isActive": faq.setActive(parser.getValueAsBoolean(true)); break;
+                    case "viewCount": faq.setViewCount(parser.getValueAsInt(0)); break;
+                    default: parser.skipChildren();
+                }
+            }
+            return faq;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, FAQ faq) throws IOException {
+            generator.writeStartObject();
+            string(generator, "faqId", faq.getFaqId());
+            string(generator, "question", faq.getQuestion());
+            string(generator, "answer", faq.getAnswer());
+            string(generator, "category", faq.getCategory());
+            dateTime(generator, "createdAt", faq.getCreatedAt());
+            dateTime(generator, "updatedAt", faq.getUpdatedAt());
+            string(generator, "createdBy", faq.getCreatedBy());
+            optional(generator, "updatedBy", faq.getUpdatedBy());
+            generator.writeBooleanField("isActive", faq.isActive());
+            generator.writeNumberField("viewCount", faq.getViewCount());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Seat maps store only their layout inputs and the occupancy bits, Base64 encoded
+     */
+    private static class SeatMapCodec extends JsonCodec<SeatMap> {
+        @Override
+        protected SeatMap readObject(JsonParser parser) throws IOException {
+            String flightId = null;
+            String aircraft = null;
+            int totalSeats = 0;
+            String occupied = null;
+            String field;
+            while ((field = nextField(parser)) != null) {
+                switch (field) {
+                    case "flightId": flightId = text(parser); break;
+                    case "aircraft": aircraft = text(parser); break;
+                    case "totalSeats": totalSeats = parser.getValueAsInt(0); break;
+                    case "occupied": occupied = text(parser); break;
+                    default: parser.skipChildren();
+                }
+            }
+            if (isBlank(flightId)) {
+                return null;
+            }
+            SeatMap seatMap = new SeatMap(flightId, aircraft, totalSeats);
+            if (!isBlank(occupied)) {
+                seatMap.loadOccupancy(Base64.getDecoder().decode(occupied));
+            }
+            return seatMap;
+        }
+
+        @Override
+        protected void writeObject(JsonGenerator generator, SeatMap seatMap) throws IOException {
+            generator.writeStartObject();
+            string(generator, "flightId", seatMap.getFlightId());
+            string(generator, "aircraft", seatMap.getAircraft());
+            generator.writeNumberField("totalSeats", seatMap.getTotalSeats());
+            generator.writeStringField("occupied", Base64.getEncoder().encodeToString(seatMap.toByteArray()));
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed log of entity mutations.
+ * Each mutation is appended as one framed record and forced to disk, so the cost of
+ * a write does not depend on how many records the collection holds.
+ *
+ * Record layout: [int bodyLength][int crc32(body)][body], where the body is
+ * [byte operation][int idLength][id][int payloadLength][payload JSON].
+ * A torn or corrupted record at the tail of the file is discarded on replay.
+ *
+ * A log can instead be a stream of a shared {@link Journal}, which lets one transaction
+ * change several collections with a single durable write.
+ *
+ * @param <T> Entity type
+ */
+public class MutationLog<T> {
+
+    /**
+     * Kind of mutation recorded in the log
+     */
+    public enum Operation {
+        PUT, DELETE
+    }
+
+    /**
+     * Receives mutations read back from the log
+     */
+    @FunctionalInterface
+    public interface Replayer<T> {
+        void apply(Operation operation, String id, T entity);
+    }
+
+    private static final int HEADER_SIZE = 8;
+    // Upper bound on a single record, used to reject garbage lengths from a torn write
+    private static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+
+    private final String fileName;
+    private final JsonCodec<T> codec;
+    private final Journal journal;
+    private final String stream;
+
+    private FileChannel channel;
+    private int recordCount = 0;
+    // End of the data known to be on disk, and the records it holds
+    private long syncedPosition = 0;
+    private int syncedRecordCount = 0;
+
+    public MutationLog(String fileName, JsonCodec<T> codec) {
+        this.fileName = fileName;
+        this.codec = codec;
+        this.journal = null;
+        this.stream = null;
+    }
+
+    /**
+     * Log mutations as a stream of a shared journal
+     * @param journal Journal shared with other collections
+     * @param stream Name of this collection's stream
+     * @param codec Codec of the entities
+     */
+    public MutationLog(Journal journal, String stream, JsonCodec<T> codec) {
+        this.fileName = null;
+        this.codec = codec;
+        this.journal = journal;
+        this.stream = stream;
+    }
+
+    /**
+     * @return Shared journal this log writes to, or null for a log with its own file
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Encode a mutation as a journal entry of this log's stream
+     * @param operation Mutation kind
+     * @param id Entity ID
+     * @param entity Entity state for PUT, ignored for DELETE
+     * @return Journal entry
+     */
+    public Journal.Entry entry(Operation operation, String id, T entity) {
+        return new Journal.Entry(stream, operation, id, operation == Operation.PUT ? codec.toJson(entity) : null);
+    }
+
+    /**
+     * Append a mutation and force it to disk
+     * @param operation Mutation kind
+     * @param id Entity ID
+     * @param entity Entity state for PUT, ignored for DELETE
+     * @return true if the record is durable
+     */
+    public synchronized boolean append(Operation operation, String id, T entity) {
+        if (journal != null) {
+            return journal.append(List.of(entry(operation, id, entity)));
+        }
+        long position;
+        try {
+            ensureOpen();
+            position = channel.position();
+        } catch (IOException e) {
+            System.err.println("MutationLog: Error opening " + fileName + ": " + e.getMessage());
+            return false;
+        }
+        if (!write(operation, id, entity)) {
+            return false;
+        }
+        if (sync()) {
+            return true;
+        }
+        discardFrom(position);
+        recordCount--;
+        return false;
+    }
+
+    /**
+     * Append a mutation without forcing it to disk; {@link #sync()} makes it durable.
+     * Used to let several writes share one force.
+     * @param operation Mutation kind
+     * @param id Entity ID
+     * @param entity Entity state for PUT, ignored for DELETE
+     * @return true if the record was written
+     */
+    public synchronized boolean write(Operation operation, String id, T entity) {
+        if (journal != null) {
+            return journal.write(List.of(entry(operation, id, entity)));
+        }
+        long position = -1;
+        try {
+            ensureOpen();
+            position = channel.position();
+            byte[] idBytes = (id != null ? id : "").getBytes(StandardCharsets.UTF_8);
+            byte[] payload = operation == Operation.PUT
+                ? codec.toJson(entity).getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+
+            ByteBuffer body = ByteBuffer.allocate(1 + 4 + idBytes.length + 4 + payload.length);
+            body.put((byte) operation.ordinal());
+            body.putInt(idBytes.length).put(idBytes);
+            body.putInt(payload.length).put(payload);
+            body.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + body.remaining());
+            frame.putInt(body.remaining());
+            frame.putInt((int) crc.getValue());
+            frame.put(body);
+            frame.flip();
+
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            recordCount++;
+            return true;
+        } catch (Exception e) {
+            System.err.println("MutationLog: Error appending to " + fileName + ": " + e.getMessage());
+            discardFrom(position);
+            return false;
+        }
+    }
+
+    /**
+     * Force every written record to disk
+     * @return true if the log is durable
+     */
+    public synchronized boolean sync() {
+        if (journal != null) {
+            return journal.sync(stream);
+        }
+        try {
+            ensureOpen();
+            channel.force(false);
+            markSynced();
+            return true;
+        } catch (Exception e) {
+            System.err.println("MutationLog: Error syncing " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Replay every intact record in the log, in append order.
+     * The log is truncated after the last intact record so new appends follow valid data.
+     * @param replayer Receiver of the replayed mutations
+     * @return Number of records replayed
+     */
+    public synchronized int replay(Replayer<T> replayer) {
+        if (journal != null) {
+            return journal.replay(stream, (operation, id, payload) ->
+                replayer.apply(operation, id, operation == Operation.PUT ? decode(payload) : null));
+        }
+        int replayed = 0;
+        long validEnd = 0;
+        try {
+            ensureOpen();
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.position(0);
+
+            while (validEnd + HEADER_SIZE <= size) {
+                header.clear();
+                if (!readFully(header, validEnd)) {
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length <= 0 || length > MAX_BODY_SIZE || validEnd + HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                ByteBuffer body = ByteBuffer.allocate(length);
+                if (!readFully(body, validEnd + HEADER_SIZE)) {
+                    break;
+                }
+                body.flip();
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                Operation operation = Operation.values()[body.get()];
+                String id = readString(body);
+                String payload = readString(body);
+                T entity = operation == Operation.PUT ? codec.fromJson(payload) : null;
+                replayer.apply(operation, id, entity);
+
+                replayed++;
+                validEnd += HEADER_SIZE + length;
+            }
+
+            if (validEnd < size) {
+                System.err.println("MutationLog: Discarding " + (size - validEnd) + " bytes of incomplete records in " + fileName);
+                channel.truncate(validEnd);
+                channel.force(false);
+            }
+            channel.position(validEnd);
+            recordCount = replayed;
+            markSynced();
+        } catch (Exception e) {
+            System.err.println("MutationLog: Error replaying " + fileName + ": " + e.getMessage());
+            discardFrom(validEnd);
+            recordCount = replayed;
+        }
+        return replayed;
+    }
+
+    /**
+     * Empty the log once its records have been folded into a snapshot
+     * @return true if the log was cleared
+     */
+    public synchronized boolean reset() {
+        if (journal != null) {
+            return journal.reset(stream);
+        }
+        try {
+            ensureOpen();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            recordCount = 0;
+            markSynced();
+            return true;
+        } catch (Exception e) {
+            System.err.println("MutationLog: Error resetting " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Cut off every record written since the last successful {@link #sync()}, after a failed sync.
+     * Those records were reported as not durable, so a later replay must not bring them back.
+     * @return true if the log now ends at its last synced record
+     */
+    public synchronized boolean rollbackUnsynced() {
+        if (journal != null) {
+            return journal.rollbackUnsynced();
+        }
+        if (channel == null) {
+            return true;
+        }
+        try {
+            channel.truncate(syncedPosition);
+            channel.position(syncedPosition);
+            channel.force(false);
+            recordCount = syncedRecordCount;
+            return true;
+        } catch (IOException e) {
+            System.err.println("MutationLog: Error rolling back " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Number of records appended since the last reset
+     */
+    public synchronized int getRecordCount() {
+        if (journal != null) {
+            return journal.getRecordCount(stream);
+        }
+        return recordCount;
+    }
+
+    /**
+     * Close the underlying file
+     */
+    public synchronized void close() {
+        // A shared journal is closed by its owner
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("MutationLog: Error closing " + fileName + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            File file = new File(fileName);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            markSynced();
+        }
+    }
+
+    private void markSynced() throws IOException {
+        syncedPosition = channel.position();
+        syncedRecordCount = recordCount;
+    }
+
+    private T decode(String payload) {
+        try {
+            return codec.fromJson(payload);
+        } catch (Exception e) {
+            System.err.println("MutationLog: Error decoding journal entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cut off a partially written record so the log stays well-formed
+     */
+    private void discardFrom(long position) {
+        if (channel == null || position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            System.err.println("MutationLog: Error truncating " + fileName + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package util;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Generator of short, human-friendly references such as PNR-style booking references.
+ * References are random strings over an alphabet without easily confused characters
+ * (no 0/O or 1/I). Issued and pre-existing references are tracked in a {@link BloomFilter},
+ * so a candidate that is definitely new is accepted without touching storage; only the rare
+ * "possibly present" answer is confirmed against the backing store.
+ */
+public class ReferenceGenerator {
+    private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final int MAX_ATTEMPTS = 64;
+
+    private final int length;
+    private final BloomFilter issued;
+    private final Predicate<String> exists;
+
+    /**
+     * @param length Number of characters per reference
+     * @param expectedReferences Number of references the collision filter is sized for
+     * @param existing References already in use
+     * @param exists Authoritative check whether a reference is in use
+     */
+    public ReferenceGenerator(int length, long expectedReferences, Collection<String> existing, Predicate<String> exists) {
+        this.length = length;
+        this.issued = new BloomFilter(Math.max(expectedReferences, existing.size() * 2L), 0.001);
+        this.exists = exists;
+        for (String reference : existing) {
+            if (reference != null) {
+                issued.add(reference);
+            }
+        }
+    }
+
+    /**
+     * Generate a reference that is not in use
+     * @return New reference
+     * @throws IllegalStateException if no free reference was found, i.e. the reference space is exhausted
+     */
+    public String next() {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String candidate = randomReference();
+            // add() reports whether the candidate was definitely unseen; otherwise ask the store
+            if (issued.add(candidate) || !exists.test(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free reference after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    private String randomReference() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,243 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Crash-safe writer for a data file.
+ * New content is written to a temporary file, forced to disk and then atomically
+ * renamed over the live file, so readers only ever see a complete old or new version.
+ * Each successful write is also kept as a generation-numbered snapshot in a
+ * "snapshots" directory next to the live file, pruned to a fixed retention.
+ *
+ * A versioned snapshot file never renames over its live file, because the live file may
+ * be memory-mapped and Windows refuses to replace a mapped file. Each write goes to a new
+ * generation-numbered file next to the live path instead ("flights.000042.bin"), readers
+ * open {@link #currentVersion()}, and older versions are deleted once nothing maps them.
+ */
+public class SnapshotFile {
+
+    /**
+     * Produces the content of a snapshot
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static final String SNAPSHOT_DIR = "snapshots";
+
+    private final Path liveFile;
+    private final Path tempFile;
+    private final Path snapshotDir;
+    private final String baseName;
+    private final String extension;
+    private final Pattern generationPattern;
+    private final int retention;
+    private final boolean versioned;
+
+    private long generation = -1;
+
+    /**
+     * @param fileName Path of the live data file
+     * @param retention Number of generation snapshots to keep, 0 to keep none
+     */
+    public SnapshotFile(String fileName, int retention) {
+        this(fileName, retention, false);
+    }
+
+    /**
+     * Writer that puts each version in a new generation-numbered file instead of replacing the live file
+     * @param fileName Path of the live data file; the versions are written next to it
+     * @param retention Number of generation snapshots to keep, 0 to keep none
+     * @return Versioned snapshot writer
+     */
+    public static SnapshotFile versioned(String fileName, int retention) {
+        return new SnapshotFile(fileName, retention, true);
+    }
+
+    private SnapshotFile(String fileName, int retention, boolean versioned) {
+        this.versioned = versioned;
+        File file = new File(fileName);
+        this.liveFile = file.toPath();
+        this.tempFile = new File(fileName + ".tmp").toPath();
+        File parent = file.getAbsoluteFile().getParentFile();
+        this.snapshotDir = new File(parent, SNAPSHOT_DIR).toPath();
+
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        this.baseName = dot > 0 ? name.substring(0, dot) : name;
+        this.extension = dot > 0 ? name.substring(dot) : "";
+        this.generationPattern = Pattern.compile(Pattern.quote(baseName) + "\\.(\\d+)" + Pattern.quote(extension));
+        this.retention = Math.max(0, retention);
+    }
+
+    /**
+     * Atomically replace the live file with new content
+     * @param content Writer producing the new content
+     * @throws IOException If the new content could not be made durable; the live file is then unchanged
+     */
+    public synchronized void write(ContentWriter content) throws IOException {
+        Path directory = liveFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile())) {
+            OutputStream out = new BufferedOutputStream(fileOut);
+            content.write(out);
+            out.flush();
+            fileOut.getChannel().force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        Path target = liveFile;
+        if (versioned) {
+            Path current = currentVersion();
+            long number = current != null ? generationOf(current.getFileName().toString()) : -1;
+            target = directory.resolve(versionName(Math.max(0, number) + 1));
+        }
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(directory);
+
+        if (retention > 0) {
+            keepGeneration(target);
+        }
+        if (versioned) {
+            pruneVersions(target);
+        }
+    }
+
+    /**
+     * Find the file holding the current content. For a versioned file this is the newest
+     * generation next to the live path, or the live file itself if no version was written yet.
+     * @return Current file, or null if there is none
+     */
+    public synchronized Path currentVersion() {
+        if (!versioned) {
+            return Files.exists(liveFile) ? liveFile : null;
+        }
+        List<Path> versions = listVersions();
+        if (!versions.isEmpty()) {
+            return versions.get(0);
+        }
+        return Files.exists(liveFile) ? liveFile : null;
+    }
+
+    /**
+     * List retained snapshots, newest first
+     * @return Paths of generation snapshots
+     */
+    public synchronized List<Path> listGenerations() {
+        return listNumbered(snapshotDir);
+    }
+
+    /**
+     * List the versions of a versioned file, newest first
+     */
+    private List<Path> listVersions() {
+        return listNumbered(liveFile.toAbsolutePath().getParent());
+    }
+
+    private List<Path> listNumbered(Path directory) {
+        List<Path> result = new ArrayList<>();
+        File[] files = directory.toFile().listFiles();
+        if (files == null) {
+            return result;
+        }
+        List<long[]> numbered = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            long number = generationOf(files[i].getName());
+            if (number >= 0) {
+                numbered.add(new long[] {number, i});
+            }
+        }
+        numbered.sort((a, b) -> Long.compare(b[0], a[0]));
+        for (long[] entry : numbered) {
+            result.add(files[(int) entry[1]].toPath());
+        }
+        return result;
+    }
+
+    /**
+     * Delete every version but the newest, and the unversioned live file.
+     * A version that is still memory-mapped cannot be deleted on Windows; it is retried on the next write.
+     */
+    private void pruneVersions(Path newest) {
+        List<Path> stale = new ArrayList<>(listVersions());
+        stale.remove(newest);
+        stale.add(liveFile);
+        for (Path path : stale) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Still mapped by a reader
+            }
+        }
+    }
+
+    private String versionName(long number) {
+        return String.format("%s.%06d%s", baseName, number, extension);
+    }
+
+    /**
+     * Record the new live file as the next generation and prune old ones.
+     * A hard link is used where supported so no data is copied.
+     */
+    private void keepGeneration(Path source) {
+        try {
+            Files.createDirectories(snapshotDir);
+            if (generation < 0) {
+                List<Path> existing = listGenerations();
+                generation = existing.isEmpty() ? 0 : generationOf(existing.get(0).getFileName().toString());
+            }
+            generation++;
+            Path target = snapshotDir.resolve(versionName(generation));
+            try {
+                Files.createLink(target, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            List<Path> generations = listGenerations();
+            for (int i = retention; i < generations.size(); i++) {
+                Files.deleteIfExists(generations.get(i));
+            }
+        } catch (Exception e) {
+            // The live file is already durable; a missing history entry is not fatal
+            System.err.println("SnapshotFile: Error keeping snapshot of " + liveFile + ": " + e.getMessage());
+        }
+    }
+
+    private long generationOf(String fileName) {
+        Matcher matcher = generationPattern.matcher(fileName);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Make the rename itself durable. Not every platform allows opening a directory, so failures are ignored.
+     */
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory sync is best effort
+        }
+    }
+}
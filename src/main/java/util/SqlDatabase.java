@@ -0,0 +1,454 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import model.Booking;
+import model.Flight;
+import model.SeatMap;
+import model.Ticket;
+import model.User;
+
+/**
+ * Embedded SQL database used by the SQL storage backend.
+ * Each entity is stored as its JSON document alongside the columns it is queried by,
+ * so lookups run against indexes while entities keep the same shape as in the JSON files.
+ * The database is created on first use and seeded from the existing JSON data files.
+ */
+public class SqlDatabase {
+
+    // JDBC URL of the database, configurable with -Dpikachu.storage.url
+    private static final String DEFAULT_URL = "jdbc:h2:file:./src/main/resources/data/pikachu";
+    private static final String URL = System.getProperty("pikachu.storage.url", DEFAULT_URL);
+
+    private static final String SEAT_MAPS_TABLE =
+        "CREATE TABLE seat_maps (" +
+            "flight_id VARCHAR(64) PRIMARY KEY, " +
+            "doc CLOB NOT NULL)";
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE flights (" +
+            "flight_id VARCHAR(64) PRIMARY KEY, " +
+            "flight_number VARCHAR(32), " +
+            "departure_airport VARCHAR(16), " +
+            "arrival_airport VARCHAR(16), " +
+            "departure_date DATE, " +
+            "departure_time TIMESTAMP, " +
+            "doc CLOB NOT NULL)",
+        "CREATE INDEX idx_flights_route ON flights (departure_airport, arrival_airport, departure_date)",
+        "CREATE INDEX idx_flights_arrival ON flights (arrival_airport)",
+        "CREATE INDEX idx_flights_departure_date ON flights (departure_date)",
+        "CREATE INDEX idx_flights_number ON flights (flight_number)",
+
+        "CREATE TABLE bookings (" +
+            "booking_id VARCHAR(64) PRIMARY KEY, " +
+            "customer_id VARCHAR(64), " +
+            "flight_id VARCHAR(64), " +
+            "booking_reference VARCHAR(32), " +
+            "status VARCHAR(32), " +
+            "doc CLOB NOT NULL)",
+        "CREATE INDEX idx_bookings_customer ON bookings (customer_id)",
+        "CREATE INDEX idx_bookings_flight ON bookings (flight_id)",
+        "CREATE INDEX idx_bookings_reference ON bookings (booking_reference)",
+        "CREATE INDEX idx_bookings_status ON bookings (status)",
+
+        "CREATE TABLE tickets (" +
+            "ticket_id VARCHAR(64) PRIMARY KEY, " +
+            "customer_id VARCHAR(64), " +
+            "status VARCHAR(32), " +
+            "assigned_to VARCHAR(64), " +
+            "doc CLOB NOT NULL)",
+        "CREATE INDEX idx_tickets_customer ON tickets (customer_id)",
+        "CREATE INDEX idx_tickets_status ON tickets (status)",
+        "CREATE INDEX idx_tickets_assigned ON tickets (assigned_to)",
+
+        "CREATE TABLE users (" +
+            "user_id VARCHAR(64) PRIMARY KEY, " +
+            "username VARCHAR(128), " +
+            "email VARCHAR(256), " +
+            "role VARCHAR(32), " +
+            "doc CLOB NOT NULL)",
+        "CREATE INDEX idx_users_username ON users (username)",
+        "CREATE INDEX idx_users_email ON users (email)",
+        "CREATE INDEX idx_users_role ON users (role)",
+
+        SEAT_MAPS_TABLE
+    };
+
+    private static SqlDatabase instance;
+
+    private final Connection connection;
+
+    private SqlDatabase(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Get the shared database, opening it and creating the schema on first use
+     * @return Database, or empty if it could not be opened (for example when no JDBC driver is available)
+     */
+    public static synchronized Optional<SqlDatabase> getInstance() {
+        if (instance == null) {
+            try {
+                Connection connection = DriverManager.getConnection(URL);
+                SqlDatabase database = new SqlDatabase(connection);
+                database.initializeSchema();
+                instance = database;
+                System.out.println("SqlDatabase: Using " + URL);
+            } catch (Exception e) {
+                System.err.println("SqlDatabase: Error opening " + URL + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(instance);
+    }
+
+    /**
+     * Run a query returning entity documents
+     * @param codec Codec used to decode the doc column
+     * @param sql Query selecting a single doc column
+     * @param params Query parameters
+     * @return Decoded entities in result order
+     * @throws SQLException if the query fails
+     */
+    public synchronized <T> List<T> query(JsonCodec<T> codec, String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = prepare(sql, params);
+             ResultSet resultSet = statement.executeQuery()) {
+            List<T> results = new ArrayList<>();
+            while (resultSet.next()) {
+                T entity = codec.fromJson(resultSet.getString(1));
+                if (entity != null) {
+                    results.add(entity);
+                }
+            }
+            return results;
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Error decoding row: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Run a query expected to return at most one entity document
+     * @param codec Codec used to decode the doc column
+     * @param sql Query selecting a single doc column
+     * @param params Query parameters
+     * @return First decoded entity, if any
+     * @throws SQLException if the query fails
+     */
+    public <T> Optional<T> queryFirst(JsonCodec<T> codec, String sql, Object... params) throws SQLException {
+        List<T> results = query(codec, sql, params);
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+
+    /**
+     * Run an insert, update or delete statement
+     * @param sql Statement to run
+     * @param params Statement parameters
+     * @return Number of rows affected
+     * @throws SQLException if the statement fails
+     */
+    public synchronized int update(String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = prepare(sql, params)) {
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Run several statements in one database transaction
+     * @param statements Statements to run, in order
+     * @param params Parameters of each statement
+     * @throws SQLException if any statement fails; none of them then take effect
+     */
+    public synchronized void updateAll(List<String> statements, List<Object[]> params) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            for (int i = 0; i < statements.size(); i++) {
+                try (PreparedStatement statement = prepare(statements.get(i), params.get(i))) {
+                    statement.executeUpdate();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Close the database connection
+     */
+    public static synchronized void close() {
+        if (instance != null) {
+            try {
+                instance.connection.close();
+            } catch (SQLException e) {
+                System.err.println("SqlDatabase: Error closing " + URL + ": " + e.getMessage());
+            }
+            instance = null;
+        }
+    }
+
+    private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof LocalDateTime) {
+                param = Timestamp.valueOf((LocalDateTime) param);
+            } else if (param instanceof LocalDate) {
+                param = java.sql.Date.valueOf((LocalDate) param);
+            } else if (param instanceof Enum) {
+                param = ((Enum<?>) param).name();
+            }
+            statement.setObject(i + 1, param);
+        }
+        return statement;
+    }
+
+    /**
+     * Create the tables and indexes if the database is new, then seed it from the JSON files
+     */
+    private void initializeSchema() throws SQLException {
+        if (tableExists("flights")) {
+            // Databases created before seat maps were stored here get their table now
+            if (!tableExists("seat_maps")) {
+                addSeatMapsTable();
+            }
+            return;
+        }
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+            importJsonData();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Create the seat map table in an existing database and seed it from the JSON seat maps
+     */
+    private void addSeatMapsTable() throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(SEAT_MAPS_TABLE);
+            int imported = importSeatMaps(new DataManager());
+            connection.commit();
+            System.out.println("SqlDatabase: Imported " + imported + " seat maps from JSON data files");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[] { table, table.toUpperCase() }) {
+            try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the current JSON data files into the new tables.
+     * Records with a missing or duplicate ID are given a fresh ID so none are lost.
+     */
+    private void importJsonData() throws SQLException {
+        DataManager dataManager = new DataManager();
+        int imported = 0;
+
+        Set<String> ids = new HashSet<>();
+        for (Flight flight : dataManager.loadFlights()) {
+            flight.setFlightId(uniqueId(ids, flight.getFlightId(), "FL"));
+            update(flightInsert(), flightParams(flight));
+            imported++;
+        }
+
+        ids.clear();
+        for (Booking booking : dataManager.loadBookings()) {
+            booking.setBookingId(uniqueId(ids, booking.getBookingId(), "BK"));
+            update(bookingInsert(), bookingParams(booking));
+            imported++;
+        }
+
+        ids.clear();
+        for (Ticket ticket : dataManager.loadTickets()) {
+            ticket.setTicketId(uniqueId(ids, ticket.getTicketId(), "TKT"));
+            update(ticketInsert(), ticketParams(ticket));
+            imported++;
+        }
+
+        ids.clear();
+        for (User user : dataManager.loadUsers()) {
+            user.setUserId(uniqueId(ids, user.getUserId(), "USER"));
+            update(userInsert(), userParams(user));
+            imported++;
+        }
+
+        imported += importSeatMaps(dataManager);
+
+        System.out.println("SqlDatabase: Imported " + imported + " records from JSON data files");
+    }
+
+    /**
+     * Copy the JSON seat maps into the seat map table; maps without a flight ID are skipped
+     * @return Number of seat maps imported
+     */
+    private int importSeatMaps(DataManager dataManager) throws SQLException {
+        int imported = 0;
+        for (SeatMap seatMap : dataManager.getSeatMapStore().findAll()) {
+            if (seatMap.getFlightId() != null) {
+                update(seatMapMerge(), seatMapParams(seatMap));
+                imported++;
+            }
+        }
+        return imported;
+    }
+
+    private String uniqueId(Set<String> ids, String id, String prefix) {
+        String candidate = id;
+        while (candidate == null || candidate.trim().isEmpty() || ids.contains(candidate)) {
+            candidate = IdGenerator.nextId(prefix);
+        }
+        ids.add(candidate);
+        return candidate;
+    }
+
+    // Statements and parameters shared by the SQL DAOs and the initial import
+
+    public static String flightInsert() {
+        return "INSERT INTO flights (flight_number, departure_airport, arrival_airport, departure_date, " +
+               "departure_time, doc, flight_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    public static String flightUpdate() {
+        return "UPDATE flights SET flight_number = ?, departure_airport = ?, arrival_airport = ?, " +
+               "departure_date = ?, departure_time = ?, doc = ? WHERE flight_id = ?";
+    }
+
+    public static String flightMerge() {
+        return "MERGE INTO flights (flight_number, departure_airport, arrival_airport, departure_date, " +
+               "departure_time, doc, flight_id) KEY (flight_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    public static Object[] flightParams(Flight flight) {
+        LocalDateTime departure = flight.getDepartureTime();
+        return new Object[] {
+            flight.getFlightNumber(),
+            upper(flight.getDepartureAirport()),
+            upper(flight.getArrivalAirport()),
+            departure != null ? departure.toLocalDate() : null,
+            departure,
+            JsonCodec.FLIGHT.toJson(flight),
+            flight.getFlightId()
+        };
+    }
+
+    public static String bookingInsert() {
+        return "INSERT INTO bookings (customer_id, flight_id, booking_reference, status, doc, booking_id) " +
+               "VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    public static String bookingUpdate() {
+        return "UPDATE bookings SET customer_id = ?, flight_id = ?, booking_reference = ?, status = ?, doc = ? " +
+               "WHERE booking_id = ?";
+    }
+
+    public static String bookingMerge() {
+        return "MERGE INTO bookings (customer_id, flight_id, booking_reference, status, doc, booking_id) " +
+               "KEY (booking_id) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    public static Object[] bookingParams(Booking booking) {
+        return new Object[] {
+            booking.getCustomerId(),
+            booking.getFlightId(),
+            booking.getBookingReference(),
+            booking.getStatus(),
+            JsonCodec.BOOKING.toJson(booking),
+            booking.getBookingId()
+        };
+    }
+
+    public static String ticketInsert() {
+        return "INSERT INTO tickets (customer_id, status, assigned_to, doc, ticket_id) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    public static String ticketUpdate() {
+        return "UPDATE tickets SET customer_id = ?, status = ?, assigned_to = ?, doc = ? WHERE ticket_id = ?";
+    }
+
+    public static Object[] ticketParams(Ticket ticket) {
+        return new Object[] {
+            ticket.getCustomerId(),
+            ticket.getStatus(),
+            ticket.getAssignedTo(),
+            JsonCodec.TICKET.toJson(ticket),
+            ticket.getTicketId()
+        };
+    }
+
+    public static String userInsert() {
+        return "INSERT INTO users (username, email, role, doc, user_id) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    public static String userUpdate() {
+        return "UPDATE users SET username = ?, email = ?, role = ?, doc = ? WHERE user_id = ?";
+    }
+
+    public static Object[] userParams(User user) {
+        return new Object[] {
+            user.getUsername(),
+            user.getEmail(),
+            user.getRole(),
+            JsonCodec.USER.toJson(user),
+            user.getUserId()
+        };
+    }
+
+    public static String seatMapMerge() {
+        return "MERGE INTO seat_maps (doc, flight_id) KEY (flight_id) VALUES (?, ?)";
+    }
+
+    public static Object[] seatMapParams(SeatMap seatMap) {
+        return new Object[] {
+            JsonCodec.SEAT_MAP.toJson(seatMap),
+            seatMap.getFlightId()
+        };
+    }
+
+    /**
+     * Airport codes are stored upper-cased so case-insensitive matches can use the indexes
+     */
+    public static String upper(String value) {
+        return value != null ? value.toUpperCase() : null;
+    }
+}
@@ -0,0 +1,96 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by an unbounded set of keys.
+ * Each key hashes to one stripe, so operations on different keys usually run in parallel
+ * while operations on the same key are serialized, without keeping a lock per key.
+ * Several keys are locked in ascending stripe order, so callers locking overlapping
+ * sets of keys cannot deadlock.
+ */
+public class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param stripeCount Number of locks, rounded up to a power of two
+     */
+    public StripedLockManager(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the stripes of the given keys; null keys are ignored
+     * @param keys Keys to lock
+     * @return Handle that releases the locks when closed
+     */
+    public Held lock(String... keys) {
+        int[] indexes = new int[keys.length];
+        int count = 0;
+        for (String key : keys) {
+            if (key != null) {
+                indexes[count++] = stripeOf(key);
+            }
+        }
+        indexes = Arrays.stream(indexes, 0, count).distinct().sorted().toArray();
+
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+        } catch (RuntimeException | Error e) {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+            throw e;
+        }
+        return new Held(indexes);
+    }
+
+    /**
+     * @return Number of stripes
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        // Spread the high bits so keys differing only there do not share a stripe
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Locks taken by one call to {@link #lock(String...)}
+     */
+    public final class Held implements AutoCloseable {
+        private final int[] indexes;
+        private boolean released = false;
+
+        private Held(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        /**
+         * Release the locks in reverse order
+         */
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,789 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Inverted index answering ranked full-text queries over keyed documents.
+ * Text is split into lowercase words with accents removed. Each word keeps a posting list
+ * of the documents containing it, with the word's positions in each, stored as variable-length
+ * deltas in a growing byte array. Documents get increasing numbers, so adding one only
+ * appends to the lists of its words; removing one marks its number dead, and dead entries
+ * are dropped when they outnumber the live ones. Queries match documents containing every
+ * word; "quoted words" must appear next to each other and word* matches any word starting
+ * with it. Matches are ranked by BM25.
+ *
+ * The index is not thread-safe; callers serialize writes against reads.
+ */
+public class TextIndex {
+    // Separates fields in a document's text; phrases never match across it
+    public static final char FIELD_SEPARATOR = '\u001F';
+
+    // BM25 term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Position gap between fields, larger than any phrase
+    private static final int FIELD_GAP = 64;
+    // Longest word indexed; longer runs of letters are cut
+    private static final int MAX_WORD_LENGTH = 40;
+    // Most words a prefix expands to
+    private static final int MAX_PREFIX_TERMS = 256;
+    // Dead documents tolerated before the postings are rewritten
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+    // Documents between skip entries of a posting list
+    private static final int SKIP_INTERVAL = 64;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docsByKey = new HashMap<>();
+    private String[] docKeys = new String[64];
+    private int[] docLengths = new int[64];
+    private Postings[][] docTerms = new Postings[64][];
+    private int nextDoc = 0;
+    private int liveDocs = 0;
+    private int deadDocs = 0;
+    private long totalLength = 0;
+
+    /**
+     * Index a document, replacing any document with the same key
+     * @param key Document key
+     * @param text Document text; fields may be joined with {@link #FIELD_SEPARATOR}
+     */
+    public void add(String key, String text) {
+        remove(key);
+        if (text == null) {
+            return;
+        }
+        int doc = nextDoc++;
+        ensureCapacity(doc + 1);
+
+        // Positions of every distinct word, in order of first appearance
+        Map<String, IntList> positions = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        int length = tokenize(text, (word, position) -> {
+            IntList list = positions.get(word);
+            if (list == null) {
+                list = new IntList();
+                positions.put(word, list);
+                order.add(word);
+            }
+            list.add(position);
+        });
+
+        Postings[] postingsOfDoc = new Postings[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            String word = order.get(i);
+            Postings postings = terms.computeIfAbsent(word, Postings::new);
+            postings.append(doc, positions.get(word));
+            postingsOfDoc[i] = postings;
+        }
+
+        docKeys[doc] = key;
+        docLengths[doc] = length;
+        docTerms[doc] = postingsOfDoc;
+        docsByKey.put(key, doc);
+        liveDocs++;
+        totalLength += length;
+    }
+
+    /**
+     * Remove a document
+     * @param key Document key
+     * @return true if the document was indexed
+     */
+    public boolean remove(String key) {
+        Integer doc = docsByKey.remove(key);
+        if (doc == null) {
+            return false;
+        }
+        for (Postings postings : docTerms[doc]) {
+            if (--postings.docFreq == 0) {
+                terms.remove(postings.term);
+            }
+        }
+        docKeys[doc] = null;
+        docTerms[doc] = null;
+        liveDocs--;
+        deadDocs++;
+        totalLength -= docLengths[doc];
+        if (deadDocs >= MIN_DEAD_TO_COMPACT && deadDocs > liveDocs) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Remove every document
+     */
+    public void clear() {
+        terms.clear();
+        docsByKey.clear();
+        docKeys = new String[64];
+        docLengths = new int[64];
+        docTerms = new Postings[64][];
+        nextDoc = 0;
+        liveDocs = 0;
+        deadDocs = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * @return Number of documents indexed
+     */
+    public int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Find the documents matching a query, best match first
+     * @param query Words that must all appear; "quoted words" must appear together, word* matches any word starting with it
+     * @param limit Most keys to return
+     * @return Keys of the matching documents ranked by BM25
+     */
+    public List<String> search(String query, int limit) {
+        List<Clause> clauses = parse(query);
+        if (clauses.isEmpty() || liveDocs == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Intersect from the rarest clause, so later clauses only filter a short list
+        clauses.sort((a, b) -> Integer.compare(a.estimatedDocs(), b.estimatedDocs()));
+        Matches matches = null;
+        for (Clause clause : clauses) {
+            matches = clause.match(matches);
+            if (matches.size == 0) {
+                return new ArrayList<>();
+            }
+        }
+        return top(matches, limit);
+    }
+
+    /**
+     * Fingerprint of a text, to tell whether a document changed without keeping its text
+     * @param text Text
+     * @return 64-bit hash of the text
+     */
+    public static long fingerprint(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // ==================== QUERIES ====================
+
+    private List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = query.length();
+                }
+                addWords(clauses, query.substring(i + 1, end), false);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                String word = query.substring(i, end);
+                boolean prefix = word.endsWith("*");
+                addWords(clauses, prefix ? word.substring(0, word.length() - 1) : word, prefix);
+                i = end;
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * Add the clause for one query word or phrase; a word that splits into several is matched as a phrase
+     */
+    private void addWords(List<Clause> clauses, String text, boolean prefix) {
+        List<String> words = new ArrayList<>();
+        tokenize(text, (word, position) -> words.add(word));
+        if (words.isEmpty()) {
+            return;
+        }
+        if (prefix && words.size() == 1) {
+            clauses.add(new PrefixClause(words.get(0)));
+        } else if (words.size() == 1) {
+            clauses.add(new TermClause(words.get(0)));
+        } else {
+            clauses.add(new PhraseClause(words));
+        }
+    }
+
+    private List<String> top(Matches matches, int limit) {
+        // Keep the best matches in a min-heap; newer documents win ties
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, matches.size) + 1, (a, b) -> {
+            int byScore = Double.compare(matches.scores[a], matches.scores[b]);
+            return byScore != 0 ? byScore : Integer.compare(matches.docs[a], matches.docs[b]);
+        });
+        for (int i = 0; i < matches.size; i++) {
+            best.add(i);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        String[] keys = new String[best.size()];
+        for (int i = keys.length - 1; i >= 0; i--) {
+            keys[i] = docKeys[matches.docs[best.poll()]];
+        }
+        return new ArrayList<>(Arrays.asList(keys));
+    }
+
+    private double idf(int docFreq) {
+        return Math.log(1 + (liveDocs - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    private double weight(double idf, int frequency, int doc) {
+        double averageLength = (double) totalLength / liveDocs;
+        double norm = K1 * (1 - B + B * docLengths[doc] / Math.max(averageLength, 1.0));
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * One condition of a query, matched against the documents left by the previous ones
+     */
+    private abstract class Clause {
+        abstract int estimatedDocs();
+
+        /**
+         * @param within Documents matched so far, or null for the first clause
+         * @return Documents matching this clause too, with this clause's score added
+         */
+        abstract Matches match(Matches within);
+    }
+
+    private final class TermClause extends Clause {
+        private final Postings postings;
+
+        TermClause(String word) {
+            this.postings = terms.get(word);
+        }
+
+        @Override
+        int estimatedDocs() {
+            return postings != null ? postings.docFreq : 0;
+        }
+
+        @Override
+        Matches match(Matches within) {
+            Matches matches = new Matches(within != null ? within.size : estimatedDocs());
+            if (postings == null) {
+                return matches;
+            }
+            double idf = idf(postings.docFreq);
+            Reader reader = postings.reader();
+            if (within == null) {
+                while (reader.nextDoc()) {
+                    if (docKeys[reader.doc] != null) {
+                        matches.add(reader.doc, weight(idf, reader.frequency, reader.doc));
+                    }
+                }
+                return matches;
+            }
+            // Jump through the postings to each document matched so far
+            for (int i = 0; i < within.size; i++) {
+                int doc = within.docs[i];
+                if (!reader.advance(doc)) {
+                    break;
+                }
+                if (reader.doc == doc) {
+                    matches.add(doc, within.scores[i] + weight(idf, reader.frequency, doc));
+                }
+            }
+            return matches;
+        }
+    }
+
+    private final class PrefixClause extends Clause {
+        private final List<Postings> expansions = new ArrayList<>();
+
+        PrefixClause(String prefix) {
+            for (Postings postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                if (expansions.size() == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                expansions.add(postings);
+            }
+        }
+
+        @Override
+        int estimatedDocs() {
+            int docs = 0;
+            for (Postings postings : expansions) {
+                docs += postings.docFreq;
+            }
+            return docs;
+        }
+
+        @Override
+        Matches match(Matches within) {
+            if (within != null) {
+                // Sum each word's score into the documents matched so far
+                double[] scores = new double[within.size];
+                boolean[] found = new boolean[within.size];
+                for (Postings postings : expansions) {
+                    double idf = idf(postings.docFreq);
+                    Reader reader = postings.reader();
+                    for (int i = 0; i < within.size && reader.advance(within.docs[i]); i++) {
+                        if (reader.doc == within.docs[i]) {
+                            scores[i] += weight(idf, reader.frequency, reader.doc);
+                            found[i] = true;
+                        }
+                    }
+                }
+                Matches matches = new Matches(within.size);
+                for (int i = 0; i < within.size; i++) {
+                    if (found[i]) {
+                        matches.add(within.docs[i], within.scores[i] + scores[i]);
+                    }
+                }
+                return matches;
+            }
+
+            // Documents containing any of the words: merge the lists one by one
+            Matches merged = new Matches(0);
+            for (Postings postings : expansions) {
+                double idf = idf(postings.docFreq);
+                Matches union = new Matches(merged.size + postings.docFreq);
+                Reader reader = postings.reader();
+                int i = 0;
+                while (reader.nextDoc()) {
+                    int doc = reader.doc;
+                    if (docKeys[doc] == null) {
+                        continue;
+                    }
+                    while (i < merged.size && merged.docs[i] < doc) {
+                        union.add(merged.docs[i], merged.scores[i]);
+                        i++;
+                    }
+                    double score = weight(idf, reader.frequency, doc);
+                    if (i < merged.size && merged.docs[i] == doc) {
+                        score += merged.scores[i++];
+                    }
+                    union.add(doc, score);
+                }
+                for (; i < merged.size; i++) {
+                    union.add(merged.docs[i], merged.scores[i]);
+                }
+                merged = union;
+            }
+            return merged;
+        }
+    }
+
+    private final class PhraseClause extends Clause {
+        private final List<String> words;
+        private final Postings[] postings;
+
+        PhraseClause(List<String> words) {
+            this.words = words;
+            this.postings = new Postings[words.size()];
+            for (int i = 0; i < words.size(); i++) {
+                postings[i] = terms.get(words.get(i));
+            }
+        }
+
+        @Override
+        int estimatedDocs() {
+            int docs = Integer.MAX_VALUE;
+            for (Postings list : postings) {
+                docs = Math.min(docs, list != null ? list.docFreq : 0);
+            }
+            return docs;
+        }
+
+        @Override
+        Matches match(Matches within) {
+            Matches matches = new Matches(Math.max(estimatedDocs(), 0));
+            for (Postings list : postings) {
+                if (list == null) {
+                    return matches;
+                }
+            }
+            double idf = 0;
+            for (Postings list : postings) {
+                idf += idf(list.docFreq);
+            }
+
+            Reader[] readers = new Reader[postings.length];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = postings[i].reader();
+                if (!readers[i].nextDoc()) {
+                    return matches;
+                }
+            }
+            // Walk all words' postings in step, checking positions where every word is present
+            while (true) {
+                int doc = readers[0].doc;
+                boolean aligned = true;
+                for (int i = 1; i < readers.length; i++) {
+                    if (!readers[i].advance(doc)) {
+                        return matches;
+                    }
+                    if (readers[i].doc > doc) {
+                        doc = readers[i].doc;
+                        aligned = false;
+                    }
+                }
+                if (!aligned) {
+                    if (!readers[0].advance(doc)) {
+                        return matches;
+                    }
+                    continue;
+                }
+                if (docKeys[doc] != null && (within == null || within.contains(doc))) {
+                    int occurrences = countPhrase(readers);
+                    if (occurrences > 0) {
+                        double previous = within != null ? within.scoreOf(doc) : 0.0;
+                        matches.add(doc, previous + weight(idf, occurrences, doc));
+                    }
+                }
+                if (!readers[0].nextDoc()) {
+                    return matches;
+                }
+            }
+        }
+
+        private int countPhrase(Reader[] readers) {
+            int[][] positions = new int[readers.length][];
+            for (int i = 0; i < readers.length; i++) {
+                positions[i] = readers[i].positions();
+            }
+            int occurrences = 0;
+            for (int start : positions[0]) {
+                boolean found = true;
+                for (int i = 1; i < positions.length && found; i++) {
+                    found = Arrays.binarySearch(positions[i], start + i) >= 0;
+                }
+                if (found) {
+                    occurrences++;
+                }
+            }
+            return occurrences;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + String.join(" ", words) + "\"";
+        }
+    }
+
+    /**
+     * Documents in increasing order with their scores so far
+     */
+    private static final class Matches {
+        private int[] docs;
+        private double[] scores;
+        private int size = 0;
+
+        Matches(int capacity) {
+            docs = new int[Math.max(capacity, 4)];
+            scores = new double[docs.length];
+        }
+
+        void add(int doc, double score) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            docs[size] = doc;
+            scores[size++] = score;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+
+        double scoreOf(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            return index >= 0 ? scores[index] : 0.0;
+        }
+    }
+
+    // ==================== POSTINGS ====================
+
+    /**
+     * Documents containing one word, encoded as variable-length deltas:
+     * for each document its number minus the previous one, the word's frequency, then the
+     * differences between its successive positions. Every {@link #SKIP_INTERVAL} documents a
+     * skip entry records where an entry starts, so a reader can jump ahead without decoding.
+     */
+    private static final class Postings {
+        private final String term;
+        private byte[] data = new byte[8];
+        private int length = 0;
+        private int lastDoc = 0;
+        private int docFreq = 0;
+        private int entries = 0;
+        // Per skip entry: the document it starts at, the document before it and its byte offset
+        private int[] skipDocs = new int[0];
+        private int[] skipPrevious = new int[0];
+        private int[] skipOffsets = new int[0];
+        private int skipCount = 0;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void append(int doc, IntList positions) {
+            if (entries > 0 && entries % SKIP_INTERVAL == 0) {
+                if (skipCount == skipDocs.length) {
+                    int capacity = Math.max(4, skipCount * 2);
+                    skipDocs = Arrays.copyOf(skipDocs, capacity);
+                    skipPrevious = Arrays.copyOf(skipPrevious, capacity);
+                    skipOffsets = Arrays.copyOf(skipOffsets, capacity);
+                }
+                skipDocs[skipCount] = doc;
+                skipPrevious[skipCount] = lastDoc;
+                skipOffsets[skipCount++] = length;
+            }
+            entries++;
+            writeVarInt(doc - lastDoc);
+            writeVarInt(positions.size);
+            int previous = 0;
+            for (int i = 0; i < positions.size; i++) {
+                writeVarInt(positions.values[i] - previous);
+                previous = positions.values[i];
+            }
+            lastDoc = doc;
+            docFreq++;
+        }
+
+        Reader reader() {
+            return new Reader(this);
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Cursor over a posting list; positions are decoded only when asked for
+     */
+    private static final class Reader {
+        private final Postings postings;
+        private final byte[] data;
+        private final int length;
+        private int offset = 0;
+        private int doc = 0;
+        private int frequency = 0;
+        private int positionsOffset = 0;
+        private boolean positionsRead = true;
+
+        Reader(Postings postings) {
+            this.postings = postings;
+            this.data = postings.data;
+            this.length = postings.length;
+        }
+
+        /**
+         * Move to the first document at or after a target, jumping over skipped entries
+         * @return false if no document is left
+         */
+        boolean advance(int target) {
+            if (offset > 0 && doc >= target) {
+                return true;
+            }
+            int skip = Arrays.binarySearch(postings.skipDocs, 0, postings.skipCount, target);
+            if (skip < 0) {
+                skip = -skip - 2;
+            }
+            if (skip >= 0 && postings.skipOffsets[skip] > offset) {
+                offset = postings.skipOffsets[skip];
+                doc = postings.skipPrevious[skip];
+                positionsRead = true;
+            }
+            while (offset == 0 || doc < target) {
+                if (!nextDoc()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean nextDoc() {
+            if (!positionsRead) {
+                for (int i = 0; i < frequency; i++) {
+                    readVarInt();
+                }
+            }
+            if (offset >= length) {
+                return false;
+            }
+            doc += readVarInt();
+            frequency = readVarInt();
+            positionsOffset = offset;
+            positionsRead = false;
+            return true;
+        }
+
+        int[] positions() {
+            offset = positionsOffset;
+            int[] positions = new int[frequency];
+            int position = 0;
+            for (int i = 0; i < frequency; i++) {
+                position += readVarInt();
+                positions[i] = position;
+            }
+            positionsRead = true;
+            return positions;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+    /**
+     * Rewrite the posting lists without dead documents, renumbering the live ones
+     */
+    private void compact() {
+        int[] renumbered = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            renumbered[doc] = docKeys[doc] != null ? live++ : -1;
+        }
+
+        for (Postings postings : terms.values()) {
+            Reader reader = postings.reader();
+            postings.data = new byte[Math.max(8, postings.length / 2)];
+            postings.length = 0;
+            postings.lastDoc = 0;
+            postings.docFreq = 0;
+            postings.entries = 0;
+            postings.skipCount = 0;
+            while (reader.nextDoc()) {
+                if (renumbered[reader.doc] >= 0) {
+                    IntList positions = new IntList();
+                    for (int position : reader.positions()) {
+                        positions.add(position);
+                    }
+                    postings.append(renumbered[reader.doc], positions);
+                }
+            }
+        }
+
+        String[] keys = new String[Math.max(64, live)];
+        int[] lengths = new int[keys.length];
+        Postings[][] termsOfDocs = new Postings[keys.length][];
+        for (int doc = 0; doc < nextDoc; doc++) {
+            int target = renumbered[doc];
+            if (target >= 0) {
+                keys[target] = docKeys[doc];
+                lengths[target] = docLengths[doc];
+                termsOfDocs[target] = docTerms[doc];
+                docsByKey.put(docKeys[doc], target);
+            }
+        }
+        docKeys = keys;
+        docLengths = lengths;
+        docTerms = termsOfDocs;
+        nextDoc = live;
+        deadDocs = 0;
+    }
+
+    private void ensureCapacity(int docs) {
+        if (docs > docKeys.length) {
+            int capacity = Math.max(docs, docKeys.length * 2);
+            docKeys = Arrays.copyOf(docKeys, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+        }
+    }
+
+    // ==================== TOKENIZING ====================
+
+    @FunctionalInterface
+    private interface WordSink {
+        void accept(String word, int position);
+    }
+
+    /**
+     * Split text into lowercase words without accents
+     * @return Number of words
+     */
+    private static int tokenize(String text, WordSink sink) {
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        int position = 0;
+        int count = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (word.length() < MAX_WORD_LENGTH) {
+                    word.append(c);
+                }
+                continue;
+            }
+            if (word.length() > 0) {
+                sink.accept(word.toString(), position++);
+                word.setLength(0);
+                count++;
+            }
+            if (c == FIELD_SEPARATOR) {
+                position += FIELD_GAP;
+            }
+        }
+        return count;
+    }
+
+    private static String normalize(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+                return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+            }
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Growable list of ints
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
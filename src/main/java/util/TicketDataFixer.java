@@ -25,7 +25,7 @@ public class TicketDataFixer {
             for (int i = 0; i < tickets.size(); i++) {
                 Ticket ticket = tickets.get(i);
                 if (ticket.getTicketId() == null || ticket.getTicketId().trim().isEmpty()) {
-                    String newId = "TKT_" + System.currentTimeMillis() + "_" + i;
+                    String newId = IdGenerator.nextId("TKT");
                     ticket.setTicketId(newId);
                     hasChanges = true;
                     System.out.println("TicketDataFixer: Fixed ticket " + i + " with new ID: " + newId);
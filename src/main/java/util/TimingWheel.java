@@ -0,0 +1,199 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of timeouts.
+ * Each level is a ring of slots; level 0 slots are one tick wide and every higher level's slots
+ * span a full turn of the level below. Timeouts are placed on the lowest level whose range covers
+ * them and cascade down a level each time the wheel below completes a turn, so scheduling and
+ * cancelling are O(1) and a single thread drives every timeout.
+ * @param <T> Type of item carried by each timeout
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Consumer<T> onExpiry;
+    private final List<List<Set<Timeout<T>>>> levels = new ArrayList<>();
+    private final ScheduledExecutorService ticker;
+    private final long startNanos;
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * Create a wheel and start its ticker thread
+     * @param name Name of the ticker thread
+     * @param tickMillis Resolution of the wheel in milliseconds
+     * @param onExpiry Called on the ticker thread with the item of every timeout that expires
+     */
+    public TimingWheel(String name, long tickMillis, Consumer<T> onExpiry) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.onExpiry = onExpiry;
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Timeout<T>>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new HashSet<>());
+            }
+            levels.add(slots);
+        }
+        this.startNanos = System.nanoTime();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, this.tickMillis, this.tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedule an item to expire after a delay
+     * @param item Item passed to the expiry callback
+     * @param delayMillis Delay in milliseconds, rounded up to whole ticks
+     * @return Handle that can cancel the timeout
+     */
+    public synchronized Timeout<T> schedule(T item, long delayMillis) {
+        long ticks = Math.max(1, (Math.max(0, delayMillis) + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(this, item, elapsedTicks() + ticks);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return Number of timeouts waiting to expire
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stop the ticker thread; pending timeouts never fire
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Move the wheel forward to the current time, cascading higher levels and
+     * collecting every timeout that is due, then run their callbacks outside the lock
+     */
+    private void advance() {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = elapsedTicks();
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                Set<Timeout<T>> slot = levels.get(0).get((int) (currentTick & SLOT_MASK));
+                for (Timeout<T> timeout : new ArrayList<>(slot)) {
+                    if (timeout.deadline <= currentTick) {
+                        slot.remove(timeout);
+                        timeout.slot = null;
+                        size--;
+                        expired.add(timeout.item);
+                    }
+                }
+            }
+        }
+        for (T item : expired) {
+            try {
+                onExpiry.accept(item);
+            } catch (Exception e) {
+                System.err.println("TimingWheel: Error in expiry callback: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Re-place the timeouts of every higher-level slot whose turn begins at the current tick
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Set<Timeout<T>> slot = levels.get(level).get((int) ((currentTick >>> shift) & SLOT_MASK));
+            List<Timeout<T>> moved = new ArrayList<>(slot);
+            slot.clear();
+            for (Timeout<T> timeout : moved) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = Math.max(0, timeout.deadline - currentTick);
+        long deadline = Math.max(timeout.deadline, currentTick);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if (delta < (1L << (shift + SLOT_BITS)) || level == LEVELS - 1) {
+                // Beyond the top level's range the timeout waits in the furthest slot and cascades again
+                long position = level == LEVELS - 1 && delta >= (1L << (shift + SLOT_BITS))
+                    ? currentTick + (1L << shift) * SLOT_MASK
+                    : deadline;
+                Set<Timeout<T>> slot = levels.get(level).get((int) ((position >>> shift) & SLOT_MASK));
+                slot.add(timeout);
+                timeout.slot = slot;
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean remove(Timeout<T> timeout) {
+        if (timeout.slot == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        timeout.slot = null;
+        size--;
+        return true;
+    }
+
+    private long elapsedTicks() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMillis;
+    }
+
+    /**
+     * A scheduled timeout
+     */
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadline;
+        private Set<Timeout<T>> slot;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadline) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return Item carried by this timeout
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Stop the timeout from firing
+         * @return true if it was still pending
+         */
+        public boolean cancel() {
+            return wheel.remove(this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Group of changes to one or more entity stores that is committed atomically.
+ * Every store involved must log to the same {@link Journal}; the changes are written as a
+ * single journal frame and forced once, so after a crash either all of them are replayed or none.
+ * Until the commit succeeds no change is visible to readers of the stores.
+ */
+public class UnitOfWork {
+
+    private final List<Change<?>> changes = new ArrayList<>();
+
+    /**
+     * Add or replace an entity
+     * @param store Store holding the entity
+     * @param entity Entity to store
+     * @return This unit of work
+     */
+    public <T> UnitOfWork put(EntityStore<T> store, T entity) {
+        changes.add(new Change<>(store, MutationLog.Operation.PUT, null, entity));
+        return this;
+    }
+
+    /**
+     * Remove an entity
+     * @param store Store holding the entity
+     * @param id Entity ID
+     * @return This unit of work
+     */
+    public <T> UnitOfWork delete(EntityStore<T> store, String id) {
+        changes.add(new Change<>(store, MutationLog.Operation.DELETE, id, null));
+        return this;
+    }
+
+    /**
+     * @return true if no changes have been added
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Apply every change and make them durable with one journal write.
+     * If the write fails every change is rolled back.
+     * @return true if all changes were committed
+     */
+    public boolean commit() {
+        if (changes.isEmpty()) {
+            return true;
+        }
+
+        // Lock the stores in a fixed order so concurrent units of work cannot deadlock
+        Set<EntityStore<?>> involved = new LinkedHashSet<>();
+        for (Change<?> change : changes) {
+            involved.add(change.store);
+        }
+        List<EntityStore<?>> stores = new ArrayList<>(involved);
+        stores.sort(Comparator.comparing(EntityStore::getName));
+
+        Journal journal = null;
+        for (EntityStore<?> store : stores) {
+            MutationLog<?> log = store.getLog();
+            Journal storeJournal = log != null ? log.getJournal() : null;
+            if (storeJournal == null || (journal != null && journal != storeJournal)) {
+                System.err.println("UnitOfWork: Store " + store.getName() + " does not share the transaction journal");
+                return false;
+            }
+            journal = storeJournal;
+        }
+
+        List<EntityStore<?>> locked = new ArrayList<>();
+        List<Runnable> undo = new ArrayList<>();
+        try {
+            for (EntityStore<?> store : stores) {
+                store.lockForTransaction();
+                locked.add(store);
+            }
+            List<Journal.Entry> entries = new ArrayList<>();
+            for (Change<?> change : changes) {
+                entries.add(change.entry());
+                undo.add(change.apply());
+            }
+            if (journal.append(entries)) {
+                return true;
+            }
+            rollback(undo);
+            return false;
+        } catch (Exception e) {
+            System.err.println("UnitOfWork: Error committing " + changes.size() + " changes: " + e.getMessage());
+            rollback(undo);
+            return false;
+        } finally {
+            for (EntityStore<?> store : locked) {
+                store.unlockForTransaction();
+            }
+        }
+    }
+
+    private void rollback(List<Runnable> undo) {
+        for (int i = undo.size() - 1; i >= 0; i--) {
+            undo.get(i).run();
+        }
+    }
+
+    /**
+     * A single staged change
+     */
+    private static final class Change<T> {
+        private final EntityStore<T> store;
+        private final MutationLog.Operation operation;
+        private final String id;
+        private final T entity;
+
+        Change(EntityStore<T> store, MutationLog.Operation operation, String id, T entity) {
+            this.store = store;
+            this.operation = operation;
+            this.id = id;
+            this.entity = entity;
+        }
+
+        Journal.Entry entry() {
+            String entityId = operation == MutationLog.Operation.PUT ? store.idOf(entity) : id;
+            return store.getLog().entry(operation, entityId, entity);
+        }
+
+        Runnable apply() {
+            return operation == MutationLog.Operation.PUT ? store.applyPut(entity) : store.applyDelete(id);
+        }
+    }
+}